@@ -0,0 +1,139 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Source text for the benchmarks: the documents bundled with the example project, plus synthetic documents large enough to resemble persisted
+ * production queries and federated schemas.
+ */
+public final class BenchmarkDocuments {
+    public static final String INTROSPECTION_QUERY = "introspection";
+    public static final String STAR_WARS_SCHEMA    = "starWars";
+    public static final String SCHEMA_SCHEMA       = "schemaSchema";
+    public static final String LARGE               = "large";
+
+    private static final int LARGE_QUERY_FIELDS  = 500;
+    private static final int LARGE_SCHEMA_TYPES = 1800;
+
+    private BenchmarkDocuments() {
+    }
+
+    public static String query(String name) {
+        switch (name) {
+        case INTROSPECTION_QUERY:
+            return resource("/introspectionQuery.graphqlQuery");
+        case LARGE:
+            return syntheticQuery(LARGE_QUERY_FIELDS);
+        default:
+            throw new IllegalArgumentException("Unknown query document: " + name);
+        }
+    }
+
+    public static String schema(String name) {
+        switch (name) {
+        case STAR_WARS_SCHEMA:
+            return resource("/starWarsSchema.graphqlSchema");
+        case SCHEMA_SCHEMA:
+            return resource("/schemaSchema.graphqlSchema");
+        case LARGE:
+            return syntheticSchema(LARGE_SCHEMA_TYPES);
+        default:
+            throw new IllegalArgumentException("Unknown schema document: " + name);
+        }
+    }
+
+    public static String resource(String path) {
+        InputStream in = BenchmarkDocuments.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new IllegalArgumentException("Missing resource: " + path);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[4096];
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A single operation with {@code fieldCount} aliased, argumented top-level fields, each with a nested selection set, an inline fragment and a
+     * fragment spread, followed by the fragments they reference.
+     */
+    public static String syntheticQuery(int fieldCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("query Synthetic($id: ID, $first: Int = 10, $after: String) {\n");
+        for (int i = 0; i < fieldCount; i++) {
+            sb.append("  alias").append(i).append(": node").append(i % 17).append("(id: $id, first: $first, after: $after, order: ASC, ");
+            sb.append("filter: {name: \"node").append(i).append("\", tags: [\"a\", \"b\"], weight: ").append(i).append(".5e3}) @include(if: true) {\n");
+            sb.append("    id\n");
+            sb.append("    name\n");
+            sb.append("    edges(first: ").append(i).append(") {\n");
+            sb.append("      cursor\n");
+            sb.append("      node { id ...Fragment").append(i % 10).append(" }\n");
+            sb.append("    }\n");
+            sb.append("    ... on Type").append(i % 10).append(" {\n");
+            sb.append("      field").append(i).append("\n");
+            sb.append("    }\n");
+            sb.append("  }\n");
+        }
+        sb.append("}\n");
+
+        for (int i = 0; i < 10; i++) {
+            sb.append("fragment Fragment").append(i).append(" on Type").append(i).append(" {\n");
+            for (int j = 0; j < 10; j++) {
+                sb.append("  field").append(j).append(" @skip(if: false)\n");
+            }
+            sb.append("  friends(first: 5) { id name }\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code typeCount} object types spread over a handful of interfaces, along with the enums, unions and input objects they refer to.
+     */
+    public static String syntheticSchema(int typeCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("interface Node {\n  id: ID!\n}\n\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("interface Interface").append(i).append(" {\n  id: ID!\n  name: String\n}\n\n");
+            sb.append("enum Enum").append(i).append(" { A").append(i).append(", B").append(i).append(", C").append(i).append(" }\n\n");
+            sb.append("input Input").append(i).append(" {\n  name: String = \"input\"\n  weight: Float = 1.5e3\n  ids: [ID!]\n}\n\n");
+        }
+
+        for (int i = 0; i < typeCount; i++) {
+            sb.append("type Type").append(i).append(" : Node, Interface").append(i % 10).append(" {\n");
+            sb.append("  id: ID!\n");
+            sb.append("  name: String\n");
+            sb.append("  kind: Enum").append(i % 10).append("\n");
+            sb.append("  friends(first: Int = 10, after: String, filter: Input").append(i % 10).append("): [Type").append((i + 1) % typeCount).append("!]!\n");
+            for (int j = 0; j < 8; j++) {
+                sb.append("  field").append(j).append(": String\n");
+            }
+            sb.append("}\n\n");
+        }
+
+        for (int i = 0; i < typeCount / 10; i++) {
+            sb.append("union Union").append(i).append(" = ");
+            for (int j = 0; j < 10; j++) {
+                if (j > 0) {
+                    sb.append(" | ");
+                }
+                sb.append("Type").append(i * 10 + j);
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.BinaryQueryDocumentCodec;
+import se.atoulou.jgraphql.models.BinarySchemaCodec;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Loading documents from their binary encodings, to compare with {@link QueryParseBenchmark} and {@link SchemaParseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+    @Param({ BenchmarkDocuments.LARGE })
+    public String document;
+
+    private final BinaryQueryDocumentCodec queryCodec  = new BinaryQueryDocumentCodec();
+    private final BinarySchemaCodec        schemaCodec = new BinarySchemaCodec();
+
+    private QueryDocument queryDocument;
+    private Schema        schema;
+    private ByteBuffer    encodedQueryDocument;
+    private ByteBuffer    encodedSchema;
+
+    @Setup
+    public void setUp() {
+        queryDocument = ParseHelper.parseDocument(BenchmarkDocuments.query(document));
+        schema = ParseHelper.parseSchema(BenchmarkDocuments.schema(document));
+        encodedQueryDocument = queryCodec.writeQueryDocument(queryDocument);
+        encodedSchema = schemaCodec.writeSchema(schema);
+    }
+
+    @Benchmark
+    public ByteBuffer writeQueryDocument() {
+        return queryCodec.writeQueryDocument(queryDocument);
+    }
+
+    @Benchmark
+    public QueryDocument readQueryDocument() {
+        return queryCodec.readQueryDocument(encodedQueryDocument);
+    }
+
+    @Benchmark
+    public ByteBuffer writeSchema() {
+        return schemaCodec.writeSchema(schema);
+    }
+
+    @Benchmark
+    public Schema readSchema() {
+        return schemaCodec.readSchema(encodedSchema);
+    }
+}
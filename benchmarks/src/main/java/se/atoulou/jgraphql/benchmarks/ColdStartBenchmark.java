@@ -0,0 +1,56 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * The first ANTLR parse in a fresh JVM, with and without {@link ParseHelper#warmUp()}. Each fork measures a single parse, since the DFA caches
+ * fill in during the first one. The documents are the synthetic ones, which the warm-up never sees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ColdStartBenchmark {
+    @Param({ "false", "true" })
+    public boolean warmUp;
+
+    private String query;
+    private String schema;
+
+    @Setup
+    public void setUp() {
+        query = BenchmarkDocuments.syntheticQuery(50);
+        schema = BenchmarkDocuments.syntheticSchema(50);
+        if (warmUp) {
+            ParseHelper.warmUp();
+        }
+    }
+
+    @Benchmark
+    public QueryDocument firstQuery() {
+        return ParseHelper.parseDocumentWithAntlr(query);
+    }
+
+    @Benchmark
+    public Schema firstSchema() {
+        return ParseHelper.parseSchema(schema);
+    }
+}
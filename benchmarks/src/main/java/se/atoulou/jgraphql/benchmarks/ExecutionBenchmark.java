@@ -0,0 +1,208 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.execution.ExecutionEngine;
+import se.atoulou.jgraphql.execution.ExecutionResult;
+import se.atoulou.jgraphql.execution.FieldResolver;
+import se.atoulou.jgraphql.execution.ResolverRegistry;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Executing parsed queries against the Star Wars schema, with resolvers registered for every field reading plain Java objects held in memory: a
+ * hero with three levels of friends, and a query selecting a few hundred aliased characters with arguments. Run with {@code -prof gc} to see what
+ * one execution allocates beyond its result. The {@code Compiled} variants execute with an engine that compiles the queries to bytecode, and
+ * {@code friendsLoaded} loads the friends through a {@link se.atoulou.jgraphql.execution.DataLoader}, in one batch per level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionBenchmark {
+    private static final int WIDE_QUERY_FIELDS = 300;
+    private static final int COMPILE_THRESHOLD = 8;
+
+    private ExecutionEngine engine;
+    private ExecutionEngine compilingEngine;
+    private ExecutionEngine loadingEngine;
+    private QueryDocument   friendsQuery;
+    private QueryDocument   wideQuery;
+
+    @Setup
+    public void setUp() {
+        Map<String, Character> characters = characters();
+        FieldResolver friends = context -> ((Character) context.getSource()).friends;
+        FieldResolver loadedFriends = context -> context.<String, Character> getDataLoader("characters")
+                .loadMany(((Character) context.getSource()).friendIds);
+
+        Schema schema = ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.STAR_WARS_SCHEMA));
+        ResolverRegistry resolvers = resolvers(characters, friends);
+        engine = new ExecutionEngine(schema, resolvers);
+        compilingEngine = new ExecutionEngine(schema, resolvers, 1024, COMPILE_THRESHOLD);
+        loadingEngine = new ExecutionEngine(schema, resolvers(characters, loadedFriends));
+        friendsQuery = ParseHelper.parseDocument(friendsQuery());
+        wideQuery = ParseHelper.parseDocument(wideQuery(WIDE_QUERY_FIELDS));
+
+        requireSuccessful(engine.execute(friendsQuery, null));
+        requireSuccessful(engine.execute(wideQuery, null));
+        requireSuccessful(loadingEngine.execute(friendsQuery, null));
+        for (int i = 0; i <= COMPILE_THRESHOLD; i++) {
+            requireSuccessful(compilingEngine.execute(friendsQuery, null));
+            requireSuccessful(compilingEngine.execute(wideQuery, null));
+        }
+    }
+
+    private static ResolverRegistry resolvers(Map<String, Character> characters, FieldResolver friends) {
+        return ResolverRegistry.builder()
+                .fieldResolver("Query", "hero", context -> characters.get("EMPIRE".equals(context.getArgument("episode")) ? "1000" : "2001"))
+                .fieldResolver("Query", "human", context -> characters.get(context.<String> getArgument("id")))
+                .fieldResolver("Query", "droid", context -> characters.get(context.<String> getArgument("id")))
+                .fieldResolver("Human", "id", context -> ((Character) context.getSource()).id)
+                .fieldResolver("Human", "name", context -> ((Character) context.getSource()).name)
+                .fieldResolver("Human", "friends", friends)
+                .fieldResolver("Human", "appearsIn", context -> ((Character) context.getSource()).appearsIn)
+                .fieldResolver("Human", "homePlanet", context -> ((Character) context.getSource()).homePlanet)
+                .fieldResolver("Droid", "id", context -> ((Character) context.getSource()).id)
+                .fieldResolver("Droid", "name", context -> ((Character) context.getSource()).name)
+                .fieldResolver("Droid", "friends", friends)
+                .fieldResolver("Droid", "appearsIn", context -> ((Character) context.getSource()).appearsIn)
+                .fieldResolver("Droid", "primaryFunction", context -> ((Character) context.getSource()).primaryFunction)
+                .typeResolver("Character", value -> ((Character) value).homePlanet != null ? "Human" : "Droid")
+                .dataLoader("characters", (List<String> ids) -> {
+                    List<Character> loaded = new ArrayList<>(ids.size());
+                    for (String id : ids) {
+                        loaded.add(characters.get(id));
+                    }
+                    return loaded;
+                })
+                .build();
+    }
+
+    private static void requireSuccessful(ExecutionResult result) {
+        if (result.getData() == null || !result.getErrors().isEmpty()) {
+            throw new IllegalStateException("Benchmark query failed: " + result.getErrors());
+        }
+    }
+
+    @Benchmark
+    public ExecutionResult friends() {
+        return engine.execute(friendsQuery, null);
+    }
+
+    @Benchmark
+    public ExecutionResult wide() {
+        return engine.execute(wideQuery, null);
+    }
+
+    @Benchmark
+    public ExecutionResult friendsLoaded() {
+        return loadingEngine.execute(friendsQuery, null);
+    }
+
+    @Benchmark
+    public ExecutionResult friendsCompiled() {
+        return compilingEngine.execute(friendsQuery, null);
+    }
+
+    @Benchmark
+    public ExecutionResult wideCompiled() {
+        return compilingEngine.execute(wideQuery, null);
+    }
+
+    private static final class Character {
+        final String          id;
+        final String          name;
+        final List<String>    appearsIn;
+        final String          homePlanet;
+        final String          primaryFunction;
+        final List<Character> friends;
+        final List<String>    friendIds;
+
+        Character(String id, String name, String homePlanet, String primaryFunction) {
+            this.id = id;
+            this.name = name;
+            this.appearsIn = Arrays.asList("NEWHOPE", "EMPIRE", "JEDI");
+            this.homePlanet = homePlanet;
+            this.primaryFunction = primaryFunction;
+            this.friends = new ArrayList<>();
+            this.friendIds = new ArrayList<>();
+        }
+    }
+
+    private static Map<String, Character> characters() {
+        Character luke = new Character("1000", "Luke Skywalker", "Tatooine", null);
+        Character vader = new Character("1001", "Darth Vader", "Tatooine", null);
+        Character han = new Character("1002", "Han Solo", "Corellia", null);
+        Character leia = new Character("1003", "Leia Organa", "Alderaan", null);
+        Character threepio = new Character("2000", "C-3PO", null, "Protocol");
+        Character artoo = new Character("2001", "R2-D2", null, "Astromech");
+        luke.friends.addAll(Arrays.asList(han, leia, threepio, artoo));
+        vader.friends.add(luke);
+        han.friends.addAll(Arrays.asList(luke, leia, artoo));
+        leia.friends.addAll(Arrays.asList(luke, han, threepio, artoo));
+        threepio.friends.addAll(Arrays.asList(luke, han, leia, artoo));
+        artoo.friends.addAll(Arrays.asList(luke, han, leia));
+
+        Map<String, Character> characters = new HashMap<>();
+        for (Character character : Arrays.asList(luke, vader, han, leia, threepio, artoo)) {
+            characters.put(character.id, character);
+            for (Character friend : character.friends) {
+                character.friendIds.add(friend.id);
+            }
+        }
+        return characters;
+    }
+
+    private static String friendsQuery() {
+        return "{\n"
+                + "  hero {\n"
+                + "    id\n"
+                + "    name\n"
+                + "    friends {\n"
+                + "      name\n"
+                + "      appearsIn\n"
+                + "      ... on Human { homePlanet }\n"
+                + "      friends {\n"
+                + "        name\n"
+                + "        friends { __typename id name }\n"
+                + "      }\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n";
+    }
+
+    private static String wideQuery(int fieldCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        for (int i = 0; i < fieldCount; i++) {
+            sb.append("  human").append(i).append(": human(id: \"100").append(i % 4).append("\") {\n");
+            sb.append("    id\n");
+            sb.append("    name\n");
+            sb.append("    homePlanet\n");
+            sb.append("    appearsIn\n");
+            sb.append("  }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
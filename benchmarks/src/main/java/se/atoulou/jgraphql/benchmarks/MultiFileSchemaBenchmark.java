@@ -0,0 +1,87 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * The large schema split over {@value #FILE_COUNT} files, parsed as one concatenated file or file by file on a pool of {@code parallelism}
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiFileSchemaBenchmark {
+    private static final int FILE_COUNT = 400;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private Path         directory;
+    private Path         concatenated;
+    private List<Path>   files;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws IOException {
+        String source = BenchmarkDocuments.schema(BenchmarkDocuments.LARGE);
+        directory = Files.createTempDirectory("schema");
+        concatenated = Files.write(directory.resolve("schema.graphqlSchema"), source.getBytes(StandardCharsets.UTF_8));
+
+        // Definitions are separated by blank lines, except for the unions at the end
+        String[] definitions = source.split("\n\n");
+        int perFile = (definitions.length + FILE_COUNT - 1) / FILE_COUNT;
+        files = new ArrayList<>();
+        for (int start = 0; start < definitions.length; start += perFile) {
+            String part = String.join("\n\n", Arrays.copyOfRange(definitions, start, Math.min(start + perFile, definitions.length)));
+            Path file = directory.resolve("part" + files.size() + ".graphqlSchema");
+            files.add(Files.write(file, part.getBytes(StandardCharsets.UTF_8)));
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(concatenated);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Schema parseConcatenated() throws IOException {
+        return ParseHelper.parseSchema(concatenated);
+    }
+
+    @Benchmark
+    public Schema parseFiles() throws IOException {
+        return ParseHelper.parseSchema(files, pool);
+    }
+}
@@ -0,0 +1,104 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.QueryDocumentPrettyPrinter;
+import se.atoulou.jgraphql.models.SchemaPrettyPrinter;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Printing already-parsed documents back to text, both pretty and compact. The large schema is also streamed as UTF-8, to a stream that discards
+ * its input and into a reused direct buffer, where allocation should not grow with the size of the text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrettyPrintBenchmark {
+    @Param({ "false", "true" })
+    public boolean compact;
+
+    private QueryDocument              introspectionQuery;
+    private QueryDocument              largeQuery;
+    private Schema                     schemaSchema;
+    private Schema                     largeSchema;
+    private QueryDocumentPrettyPrinter queryPrinter;
+    private SchemaPrettyPrinter        schemaPrinter;
+    private OutputStream               discardingStream;
+    private ByteBuffer                 directBuffer;
+
+    @Setup
+    public void setUp() {
+        introspectionQuery = ParseHelper.parseDocument(BenchmarkDocuments.query(BenchmarkDocuments.INTROSPECTION_QUERY));
+        largeQuery = ParseHelper.parseDocument(BenchmarkDocuments.query(BenchmarkDocuments.LARGE));
+        schemaSchema = ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.SCHEMA_SCHEMA));
+        largeSchema = ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.LARGE));
+
+        queryPrinter = new QueryDocumentPrettyPrinter(compact);
+        schemaPrinter = new SchemaPrettyPrinter(compact);
+        discardingStream = new DiscardingOutputStream();
+        directBuffer = ByteBuffer.allocateDirect(16 << 20);
+    }
+
+    @Benchmark
+    public String writeIntrospectionQuery() {
+        return queryPrinter.writeQueryDocument(introspectionQuery);
+    }
+
+    @Benchmark
+    public String writeLargeQuery() {
+        return queryPrinter.writeQueryDocument(largeQuery);
+    }
+
+    @Benchmark
+    public String writeSchemaSchema() {
+        return schemaPrinter.writeSchema(schemaSchema);
+    }
+
+    @Benchmark
+    public String writeLargeSchema() {
+        return schemaPrinter.writeSchema(largeSchema);
+    }
+
+    @Benchmark
+    public OutputStream streamLargeSchema() throws IOException {
+        schemaPrinter.writeSchema(largeSchema, discardingStream);
+        return discardingStream;
+    }
+
+    @Benchmark
+    public int writeLargeSchemaToByteBuffer() {
+        directBuffer.clear();
+        schemaPrinter.writeSchema(largeSchema, directBuffer);
+        return directBuffer.position();
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
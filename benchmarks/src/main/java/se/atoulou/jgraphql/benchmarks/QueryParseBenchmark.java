@@ -0,0 +1,128 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.parser.DocumentCache;
+import se.atoulou.jgraphql.parser.GraphQLLexer;
+import se.atoulou.jgraphql.parser.GraphQLQueryVisitor;
+import se.atoulou.jgraphql.parser.ParseHelper;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryLexer;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.DocumentContext;
+
+/**
+ * Query document parsing with the hand-written {@link GraphQLLexer} and {@link ParseHelper#parseDocument(String)}, next to the stages of the
+ * reference ANTLR implementation: lexing, building the ANTLR parse tree, and building the immutable {@link QueryDocument} from the visitor's
+ * builders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryParseBenchmark {
+    @Param({ BenchmarkDocuments.INTROSPECTION_QUERY, BenchmarkDocuments.LARGE })
+    public String document;
+
+    private String                source;
+    private char[]                data;
+    private QueryDocument.Builder documentBuilder;
+    private DocumentCache         documentCache;
+    private byte[]                utf8;
+    private ByteBuffer            directBuffer;
+
+    @Setup
+    public void setUp() {
+        source = BenchmarkDocuments.query(document);
+        data = source.toCharArray();
+        utf8 = source.getBytes(StandardCharsets.UTF_8);
+        directBuffer = ByteBuffer.allocateDirect(utf8.length);
+        directBuffer.put(utf8).flip();
+
+        GraphQLQueryVisitor visitor = new GraphQLQueryVisitor();
+        visitor.visit(parseTree(source));
+        documentBuilder = visitor.getDocumentBuilder();
+
+        documentCache = new DocumentCache(1 << 24);
+        documentCache.parseDocument(source);
+    }
+
+    private static DocumentContext parseTree(String source) {
+        GraphQLQueryLexer lexer = new GraphQLQueryLexer(new ANTLRInputStream(source));
+        GraphQLQueryParser parser = new GraphQLQueryParser(new CommonTokenStream(lexer));
+        return parser.document();
+    }
+
+    @Benchmark
+    public int lex() {
+        GraphQLLexer lexer = new GraphQLLexer(data);
+        int tokens = 0;
+        while (lexer.next() != GraphQLLexer.EOF) {
+            tokens++;
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public QueryDocument parseDocument() {
+        return ParseHelper.parseDocument(source);
+    }
+
+    @Benchmark
+    public QueryDocument cachedParseDocument() {
+        return documentCache.parseDocument(source);
+    }
+
+    @Benchmark
+    public CommonTokenStream antlrLex() {
+        GraphQLQueryLexer lexer = new GraphQLQueryLexer(new ANTLRInputStream(source));
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream;
+    }
+
+    @Benchmark
+    public DocumentContext antlrLexAndParseTree() {
+        return parseTree(source);
+    }
+
+    @Benchmark
+    public QueryDocument antlrBuild() {
+        return documentBuilder.build();
+    }
+
+    @Benchmark
+    public QueryDocument antlrParseDocument() {
+        return ParseHelper.parseDocumentWithAntlr(source);
+    }
+
+    @Benchmark
+    public QueryDocument parseDocumentFromInputStream() throws IOException {
+        return ParseHelper.parseDocument(new ByteArrayInputStream(utf8));
+    }
+
+    @Benchmark
+    public QueryDocument parseDocumentFromDirectBuffer() {
+        return ParseHelper.parseDocument(directBuffer);
+    }
+}
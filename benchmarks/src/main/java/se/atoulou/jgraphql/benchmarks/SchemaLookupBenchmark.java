@@ -0,0 +1,95 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.InterfaceType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Resolving a type and then a field by name in the large synthetic schema, through the indexes and by scanning the lists they replace. Names are
+ * fresh strings, as if read from a document parsed without the schema's name pool. Also checking whether an object type implements an interface,
+ * as for a fragment type condition, by bit test and by scanning the interface's possible type names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaLookupBenchmark {
+    private Schema   schema;
+    private String[] typeNames;
+    private String[] fieldNames;
+    private Type[]   objectTypes;
+    private Type[]   interfaceTypes;
+    private int      next;
+
+    @Setup
+    public void setUp() {
+        schema = ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.LARGE));
+        typeNames = new String[1024];
+        fieldNames = new String[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            typeNames[i] = new String("Type" + (i * 7 % 1800));
+            fieldNames[i] = new String("field" + (i % 8));
+        }
+
+        // Node is implemented by every object type, each InterfaceN by a tenth of them
+        objectTypes = new Type[typeNames.length];
+        interfaceTypes = new Type[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            objectTypes[i] = schema.getType(typeNames[i]);
+            interfaceTypes[i] = schema.getType(i % 11 == 0 ? "Node" : "Interface" + (i % 10));
+        }
+    }
+
+    @Benchmark
+    public Field indexed() {
+        int i = next++ & (typeNames.length - 1);
+        ObjectType type = (ObjectType) schema.getType(typeNames[i]);
+        return type.getField(fieldNames[i]);
+    }
+
+    @Benchmark
+    public Field linearScan() {
+        int i = next++ & (typeNames.length - 1);
+        for (Type type : schema.getTypes()) {
+            if (type.getName().equals(typeNames[i])) {
+                for (Field field : ((ObjectType) type).getFields()) {
+                    if (field.getName().equals(fieldNames[i])) {
+                        return field;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public boolean possibleTypeBitTest() {
+        int i = next++ & (typeNames.length - 1);
+        return schema.isPossibleType(interfaceTypes[i], objectTypes[i]);
+    }
+
+    @Benchmark
+    public boolean possibleTypeScan() {
+        int i = next++ & (typeNames.length - 1);
+        return ((InterfaceType) interfaceTypes[i]).getPossibleTypes().contains(objectTypes[i].getName());
+    }
+}
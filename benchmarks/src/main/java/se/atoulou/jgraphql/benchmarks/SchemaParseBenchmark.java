@@ -0,0 +1,83 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaLexer;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.SchemaDocumentContext;
+
+/**
+ * Schema parsing. The build stage is not measured on its own: {@code Type.Builder} caches its result, so only the first build does any work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaParseBenchmark {
+    @Param({ BenchmarkDocuments.STAR_WARS_SCHEMA, BenchmarkDocuments.SCHEMA_SCHEMA, BenchmarkDocuments.LARGE })
+    public String document;
+
+    private String     source;
+    private byte[]     utf8;
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setUp() {
+        source = BenchmarkDocuments.schema(document);
+        utf8 = source.getBytes(StandardCharsets.UTF_8);
+        directBuffer = ByteBuffer.allocateDirect(utf8.length);
+        directBuffer.put(utf8).flip();
+    }
+
+    @Benchmark
+    public CommonTokenStream lex() {
+        GraphQLSchemaLexer lexer = new GraphQLSchemaLexer(new ANTLRInputStream(source));
+        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream;
+    }
+
+    @Benchmark
+    public SchemaDocumentContext lexAndParseTree() {
+        GraphQLSchemaLexer lexer = new GraphQLSchemaLexer(new ANTLRInputStream(source));
+        GraphQLSchemaParser parser = new GraphQLSchemaParser(new CommonTokenStream(lexer));
+        return parser.schemaDocument();
+    }
+
+    @Benchmark
+    public Schema parseSchema() {
+        return ParseHelper.parseSchema(source);
+    }
+
+    @Benchmark
+    public Schema parseSchemaFromInputStream() throws IOException {
+        return ParseHelper.parseSchema(new ByteArrayInputStream(utf8));
+    }
+
+    @Benchmark
+    public Schema parseSchemaFromDirectBuffer() {
+        return ParseHelper.parseSchema(directBuffer);
+    }
+}
@@ -0,0 +1,79 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+import se.atoulou.jgraphql.parser.SchemaSnapshot;
+
+/**
+ * Getting the large schema in a fresh JVM, by parsing its SDL file or by loading its snapshot. Like {@link ColdStartBenchmark}, each fork
+ * measures a single load.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class SchemaSnapshotBenchmark {
+    @State(Scope.Benchmark)
+    public static class Source {
+        Path source;
+
+        @Setup
+        public void setUp() throws IOException {
+            source = Files.createTempFile("schema", ".graphqlSchema");
+            Files.write(source, BenchmarkDocuments.schema(BenchmarkDocuments.LARGE).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    /**
+     * Taking the snapshot parses the schema, so it is a separate state that the parse benchmark does not set up.
+     */
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+        Path snapshot;
+
+        @Setup
+        public void setUp(Source source) throws IOException {
+            snapshot = Files.createTempFile("schema", ".snapshot");
+            SchemaSnapshot.write(source.source, snapshot);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Benchmark
+    public Schema parse(Source source) throws IOException {
+        return ParseHelper.parseSchema(source.source);
+    }
+
+    @Benchmark
+    public Schema loadSnapshot(Source source, Snapshot snapshot) throws IOException {
+        return SchemaSnapshot.load(source.source, snapshot.snapshot);
+    }
+}
@@ -0,0 +1,109 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.validation.QueryValidator;
+import se.atoulou.jgraphql.models.validation.ValidationCache;
+import se.atoulou.jgraphql.models.validation.ValidationError;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Validating parsed documents that are valid, so the result is the shared empty list: the introspection query against the Star Wars schema, and
+ * a query of a few hundred fields with arguments, variables, inline fragments and fragment spreads against the large synthetic schema. Run with
+ * {@code -prof gc} to see what one validation allocates. Also the large query through a {@link ValidationCache} that has seen it before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int LARGE_QUERY_FIELDS = 300;
+
+    private QueryValidator  starWarsValidator;
+    private QueryDocument   introspectionQuery;
+    private QueryValidator  largeValidator;
+    private QueryDocument   largeQuery;
+    private ValidationCache largeCache;
+
+    @Setup
+    public void setUp() {
+        starWarsValidator = new QueryValidator(ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.STAR_WARS_SCHEMA)));
+        introspectionQuery = ParseHelper.parseDocument(BenchmarkDocuments.query(BenchmarkDocuments.INTROSPECTION_QUERY));
+        largeValidator = new QueryValidator(ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.LARGE) + queryType()));
+        largeQuery = ParseHelper.parseDocument(largeQuery(LARGE_QUERY_FIELDS));
+        largeCache = new ValidationCache(largeValidator.getSchema(), 1024);
+
+        requireValid(starWarsValidator.validate(introspectionQuery));
+        requireValid(largeValidator.validate(largeQuery));
+        requireValid(largeCache.validate(largeQuery));
+    }
+
+    private static void requireValid(List<ValidationError> errors) {
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Benchmark document is invalid: " + errors);
+        }
+    }
+
+    @Benchmark
+    public List<ValidationError> introspection() {
+        return starWarsValidator.validate(introspectionQuery);
+    }
+
+    @Benchmark
+    public List<ValidationError> large() {
+        return largeValidator.validate(largeQuery);
+    }
+
+    @Benchmark
+    public List<ValidationError> largeCached() {
+        return largeCache.validate(largeQuery);
+    }
+
+    // The large synthetic schema has no root type
+    private static String queryType() {
+        return "type Query {\n  node(id: ID!): Node\n  search(first: Int = 10, filter: Input0): [Node]\n}\n";
+    }
+
+    private static String largeQuery(int fieldCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("query Large($id: ID!, $first: Int, $name: String) {\n");
+        for (int i = 0; i < fieldCount; i++) {
+            int type = i % 1800;
+            sb.append("  node").append(i).append(": node(id: $id) @include(if: true) {\n");
+            sb.append("    id\n");
+            sb.append("    ... on Type").append(type).append(" {\n");
+            sb.append("      name\n");
+            sb.append("      kind\n");
+            sb.append("      friends(first: $first, filter: {name: $name, ids: [\"a\", \"b\"], weight: ").append(i).append(".5}) {\n");
+            sb.append("        ...Fragment").append(i % 10).append("\n");
+            sb.append("      }\n");
+            sb.append("    }\n");
+            sb.append("  }\n");
+        }
+        sb.append("  search(first: 5) { ...Fragment0 }\n");
+        sb.append("}\n");
+
+        for (int i = 0; i < 10; i++) {
+            sb.append("fragment Fragment").append(i).append(" on Node {\n");
+            sb.append("  id\n");
+            sb.append("  ... on Interface").append(i).append(" { name @skip(if: false) }\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+}
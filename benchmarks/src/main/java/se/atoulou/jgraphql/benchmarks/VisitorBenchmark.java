@@ -0,0 +1,88 @@
+package se.atoulou.jgraphql.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.transform.QueryDocumentBaseVisitor;
+import se.atoulou.jgraphql.models.transform.SchemaBaseVisitor;
+import se.atoulou.jgraphql.models.transform.VisitorContext;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Walking the large documents with visitors that only count nodes, which isolates the cost of the traversal and its {@link VisitorContext}. The
+ * context is reused, so with {@code -prof gc} the allocation per operation should be zero regardless of the number of nodes visited.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitorBenchmark {
+    private QueryDocument   largeQuery;
+    private Schema          largeSchema;
+    private CountingContext context;
+    private QueryCounter    queryCounter;
+    private SchemaCounter   schemaCounter;
+
+    @Setup
+    public void setUp() {
+        largeQuery = ParseHelper.parseDocument(BenchmarkDocuments.query(BenchmarkDocuments.LARGE));
+        largeSchema = ParseHelper.parseSchema(BenchmarkDocuments.schema(BenchmarkDocuments.LARGE));
+        context = new CountingContext();
+        queryCounter = new QueryCounter();
+        schemaCounter = new SchemaCounter();
+    }
+
+    @Benchmark
+    public int visitLargeQuery() {
+        context.count = 0;
+        queryCounter.visitQueryDocument(largeQuery, context);
+        return context.count;
+    }
+
+    @Benchmark
+    public int visitLargeSchema() {
+        context.count = 0;
+        schemaCounter.visitSchema(largeSchema, context);
+        return context.count;
+    }
+
+    static final class CountingContext extends VisitorContext<CountingContext> {
+        int count;
+    }
+
+    static final class QueryCounter extends QueryDocumentBaseVisitor<CountingContext> {
+        @Override
+        public void beforeSelectionField(SelectionField selectionField, CountingContext context) {
+            context.count++;
+        }
+
+        @Override
+        public void beforeArgument(Argument argument, CountingContext context) {
+            context.count++;
+        }
+    }
+
+    static final class SchemaCounter extends SchemaBaseVisitor<CountingContext> {
+        @Override
+        public void beforeField(Field field, CountingContext context) {
+            context.count++;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * JMH harnesses for the parse, build and print stages.
+ * <p>
+ * Build the self-contained jar with {@code mvn package} and run it with, for example:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar QueryParseBenchmark -prof gc
+ * </pre>
+ *
+ * {@code -prof gc} adds allocation rate ({@code gc.alloc.rate.norm}, bytes per operation) next to the throughput numbers.
+ */
+package se.atoulou.jgraphql.benchmarks;
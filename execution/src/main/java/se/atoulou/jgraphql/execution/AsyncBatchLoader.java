@@ -0,0 +1,18 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link BatchLoader} whose values complete later, such as those of a call to a remote service, registered through
+ * {@link ResolverRegistry.Builder#asyncDataLoader(String, AsyncBatchLoader)}. The engine does not wait for the stage when it dispatches, so a
+ * batch in flight does not hold up the fields that do not need it; the loads of the batch complete when the stage does, on the thread that
+ * completes it.
+ * <p>
+ * The keys are distinct. The values are in the order of the keys, {@code null} for keys without one. An exception, thrown or completing the stage,
+ * fails the loads of every key in the batch.
+ */
+@FunctionalInterface
+public interface AsyncBatchLoader<K, V> {
+    CompletionStage<List<V>> load(List<K> keys) throws Exception;
+}
@@ -0,0 +1,13 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link FieldResolver} whose values complete later, such as those of calls to remote services, registered through
+ * {@link ResolverRegistry.Builder#asyncFieldResolver(String, String, AsyncFieldResolver)}. The field's value is the stage's once it completes, or
+ * {@code null} if the stage is; an exception the stage completes with becomes an error on the field, like one the resolver throws.
+ */
+@FunctionalInterface
+public interface AsyncFieldResolver {
+    CompletionStage<?> resolve(FieldContext context) throws Exception;
+}
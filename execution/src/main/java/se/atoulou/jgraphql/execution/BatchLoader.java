@@ -0,0 +1,15 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.List;
+
+/**
+ * Loads the values of a batch of keys in one call to a backend, registered by name in a {@link ResolverRegistry} and called by the
+ * {@link DataLoader} of that name.
+ * <p>
+ * The keys are distinct. The values are in the order of the keys, {@code null} for keys without one. An exception fails the loads of every key in
+ * the batch.
+ */
+@FunctionalInterface
+public interface BatchLoader<K, V> {
+    List<V> load(List<K> keys) throws Exception;
+}
@@ -0,0 +1,445 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.EnumType;
+import se.atoulou.jgraphql.models.schema.Type.InputObjectType;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+
+/**
+ * Input coercion of argument literals and variable values, and result coercion of scalars, as the specification describes them. Input objects
+ * coerce to {@link Map}s, lists to {@link List}s, enum values to their names, and the built-in scalars to {@link Integer}, {@link Double},
+ * {@link String} and {@link Boolean}; values of custom scalars pass through.
+ */
+final class Coercion {
+    private Coercion() {
+    }
+
+    /**
+     * @return the coerced default value the schema keeps as text. Engines coerce every default once, when they are built, and keep the values.
+     */
+    static Object defaultValue(ExecutionEngine engine, String text, Type type) {
+        Value literal;
+        try {
+            literal = ConstLiteralParser.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new CoercionException(e.getMessage());
+        }
+        return valueFromLiteral(engine, literal, type, Collections.emptyMap());
+    }
+
+    /**
+     * @param variables
+     *            the coerced variable values, by name without the {@code $}
+     */
+    static Object valueFromLiteral(ExecutionEngine engine, Value literal, Type type, Map<String, Object> variables) {
+        if (literal.getKind() == Value.ValueKind.VARIABLE) {
+            String name = ((VariableRef) literal).getName();
+            Object value = variables.get(name);
+            if (value == null && type.getKind() == Type.TypeKind.NON_NULL) {
+                throw new CoercionException("Variable \"$" + name + "\" of a non-null position is null or was not provided.");
+            }
+            return value;
+        }
+
+        switch (type.getKind()) {
+        case NON_NULL:
+            if (literal.getKind() == Value.ValueKind.NULL) {
+                throw new CoercionException("Expected a non-null value of type \"" + type.getName() + "\".");
+            }
+            return valueFromLiteral(engine, literal, ((NonNullType) type).getOfType(), variables);
+        default:
+            if (literal.getKind() == Value.ValueKind.NULL) {
+                return null;
+            }
+            break;
+        }
+
+        switch (type.getKind()) {
+        case LIST: {
+            Type itemType = ((ListType) type).getOfType();
+            if (literal.getKind() != Value.ValueKind.LIST) {
+                return Collections.singletonList(valueFromLiteral(engine, literal, itemType, variables));
+            }
+            List<Value> items = ((ListValue) literal).getValues();
+            List<Object> values = new ArrayList<>(items.size());
+            for (Value item : items) {
+                values.add(valueFromLiteral(engine, item, itemType, variables));
+            }
+            return values;
+        }
+        case INPUT_OBJECT: {
+            if (literal.getKind() != Value.ValueKind.OBJECT) {
+                throw expected(type, literal);
+            }
+            ObjectValue object = (ObjectValue) literal;
+            InputObjectType inputType = (InputObjectType) type;
+            for (ObjectField field : object.getFields()) {
+                if (inputType.getInputField(field.getName()) == null) {
+                    throw new CoercionException("Field \"" + field.getName() + "\" is not defined by type \"" + type.getName() + "\".");
+                }
+            }
+
+            List<InputValue> inputFields = inputType.getInputFields();
+            Object[] defaults = engine.inputFieldDefaults(inputType);
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < inputFields.size(); i++) {
+                InputValue inputField = inputFields.get(i);
+                Value fieldLiteral = object.get(inputField.getName());
+                if (fieldLiteral != null && fieldLiteral.getKind() == Value.ValueKind.VARIABLE
+                        && !variables.containsKey(((VariableRef) fieldLiteral).getName())) {
+                    fieldLiteral = null;
+                }
+                if (fieldLiteral != null) {
+                    values.put(inputField.getName(), valueFromLiteral(engine, fieldLiteral, inputField.getType(), variables));
+                } else if (defaults[i] != FieldDispatch.NO_DEFAULT) {
+                    values.put(inputField.getName(), defaults[i]);
+                } else if (inputField.getType().getKind() == Type.TypeKind.NON_NULL) {
+                    throw new CoercionException("Field \"" + type.getName() + "." + inputField.getName() + "\" of required type \""
+                            + inputField.getType().getName() + "\" was not provided.");
+                }
+            }
+            return values;
+        }
+        case ENUM: {
+            if (literal.getKind() != Value.ValueKind.ENUM) {
+                throw expected(type, literal);
+            }
+            return enumValue((EnumType) type, ((EnumValue) literal).getName());
+        }
+        case SCALAR:
+            return scalarFromLiteral(type, literal, variables);
+        default:
+            throw expected(type, literal);
+        }
+    }
+
+    private static Object scalarFromLiteral(Type type, Value literal, Map<String, Object> variables) {
+        switch (type.getName()) {
+        case "Int":
+            if (literal.getKind() == Value.ValueKind.INT) {
+                long value = ((IntValue) literal).getValue();
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+            }
+            throw expected(type, literal);
+        case "Float":
+            if (literal.getKind() == Value.ValueKind.INT) {
+                return (double) ((IntValue) literal).getValue();
+            } else if (literal.getKind() == Value.ValueKind.FLOAT) {
+                return ((FloatValue) literal).getValue();
+            }
+            throw expected(type, literal);
+        case "String":
+            if (literal.getKind() == Value.ValueKind.STRING) {
+                return ((StringValue) literal).getValue();
+            }
+            throw expected(type, literal);
+        case "Boolean":
+            if (literal.getKind() == Value.ValueKind.BOOLEAN) {
+                return ((BooleanValue) literal).getValue();
+            }
+            throw expected(type, literal);
+        case "ID":
+            if (literal.getKind() == Value.ValueKind.STRING) {
+                return ((StringValue) literal).getValue();
+            } else if (literal.getKind() == Value.ValueKind.INT) {
+                return Long.toString(((IntValue) literal).getValue());
+            }
+            throw expected(type, literal);
+        default:
+            return customScalarFromLiteral(literal, variables);
+        }
+    }
+
+    // Custom scalars take any literal, as the plain Java value closest to it
+    private static Object customScalarFromLiteral(Value literal, Map<String, Object> variables) {
+        switch (literal.getKind()) {
+        case VARIABLE:
+            return variables.get(((VariableRef) literal).getName());
+        case INT:
+            return ((IntValue) literal).getValue();
+        case FLOAT:
+            return ((FloatValue) literal).getValue();
+        case STRING:
+            return ((StringValue) literal).getValue();
+        case BOOLEAN:
+            return ((BooleanValue) literal).getValue();
+        case ENUM:
+            return ((EnumValue) literal).getName();
+        case LIST: {
+            List<Value> items = ((ListValue) literal).getValues();
+            List<Object> values = new ArrayList<>(items.size());
+            for (Value item : items) {
+                values.add(customScalarFromLiteral(item, variables));
+            }
+            return values;
+        }
+        case OBJECT: {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (ObjectField field : ((ObjectValue) literal).getFields()) {
+                values.put(field.getName(), customScalarFromLiteral(field.getValue(), variables));
+            }
+            return values;
+        }
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Coerces the arguments a field is selected with, applying the defaults of those not given.
+     */
+    static Map<String, Object> coerceArguments(ExecutionEngine engine, FieldDispatch field, List<Argument> arguments, Map<String, Object> variables) {
+        if (field.argumentNames.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> coerced = new HashMap<>();
+        for (int i = 0; i < field.argumentNames.length; i++) {
+            String name = field.argumentNames[i];
+            Value value = null;
+            for (Argument argument : arguments) {
+                if (argument.getName().equals(name)) {
+                    value = argument.getValue();
+                    break;
+                }
+            }
+            // An argument given a variable that was not provided counts as absent, so it takes its default value
+            if (value != null && value.getKind() == Value.ValueKind.VARIABLE && !variables.containsKey(((VariableRef) value).getName())) {
+                value = null;
+            }
+
+            if (value != null) {
+                coerced.put(name, valueFromLiteral(engine, value, field.argumentTypes[i], variables));
+            } else if (field.argumentDefaults[i] != FieldDispatch.NO_DEFAULT) {
+                coerced.put(name, field.argumentDefaults[i]);
+            } else if (field.argumentTypes[i].getKind() == Type.TypeKind.NON_NULL) {
+                throw new CoercionException("Argument \"" + name + "\" of required type \"" + field.argumentTypes[i].getName()
+                        + "\" was not provided.");
+            }
+        }
+        return coerced;
+    }
+
+    /**
+     * @return whether the literal refers to no variable, so that it coerces the same in every execution
+     */
+    static boolean isConstant(Value literal) {
+        switch (literal.getKind()) {
+        case VARIABLE:
+            return false;
+        case LIST:
+            for (Value item : ((ListValue) literal).getValues()) {
+                if (!isConstant(item)) {
+                    return false;
+                }
+            }
+            return true;
+        case OBJECT:
+            for (ObjectField field : ((ObjectValue) literal).getFields()) {
+                if (!isConstant(field.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Coerces a variable value as a transport such as JSON decodes it: numbers, strings, booleans, {@link List}s and {@link Map}s.
+     */
+    static Object coerceVariable(ExecutionEngine engine, Object value, Type type) {
+        if (type.getKind() == Type.TypeKind.NON_NULL) {
+            if (value == null) {
+                throw new CoercionException("Expected a non-null value of type \"" + type.getName() + "\".");
+            }
+            return coerceVariable(engine, value, ((NonNullType) type).getOfType());
+        } else if (value == null) {
+            return null;
+        }
+
+        switch (type.getKind()) {
+        case LIST: {
+            Type itemType = ((ListType) type).getOfType();
+            if (!(value instanceof Iterable)) {
+                return Collections.singletonList(coerceVariable(engine, value, itemType));
+            }
+            List<Object> values = new ArrayList<>();
+            for (Object item : (Iterable<?>) value) {
+                values.add(coerceVariable(engine, item, itemType));
+            }
+            return values;
+        }
+        case INPUT_OBJECT: {
+            if (!(value instanceof Map)) {
+                throw expected(type, value);
+            }
+            Map<?, ?> object = (Map<?, ?>) value;
+            InputObjectType inputType = (InputObjectType) type;
+            for (Object name : object.keySet()) {
+                if (!(name instanceof String) || inputType.getInputField((String) name) == null) {
+                    throw new CoercionException("Field \"" + name + "\" is not defined by type \"" + type.getName() + "\".");
+                }
+            }
+
+            List<InputValue> inputFields = inputType.getInputFields();
+            Object[] defaults = engine.inputFieldDefaults(inputType);
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < inputFields.size(); i++) {
+                InputValue inputField = inputFields.get(i);
+                if (object.containsKey(inputField.getName())) {
+                    values.put(inputField.getName(), coerceVariable(engine, object.get(inputField.getName()), inputField.getType()));
+                } else if (defaults[i] != FieldDispatch.NO_DEFAULT) {
+                    values.put(inputField.getName(), defaults[i]);
+                } else if (inputField.getType().getKind() == Type.TypeKind.NON_NULL) {
+                    throw new CoercionException("Field \"" + type.getName() + "." + inputField.getName() + "\" of required type \""
+                            + inputField.getType().getName() + "\" was not provided.");
+                }
+            }
+            return values;
+        }
+        case ENUM:
+            if (value instanceof String) {
+                return enumValue((EnumType) type, (String) value);
+            } else if (value instanceof Enum) {
+                return enumValue((EnumType) type, ((Enum<?>) value).name());
+            }
+            throw expected(type, value);
+        case SCALAR:
+            return coerceScalar(type, value);
+        default:
+            throw expected(type, value);
+        }
+    }
+
+    private static Object coerceScalar(Type type, Object value) {
+        switch (type.getName()) {
+        case "Int":
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return ((Number) value).intValue();
+            } else if (value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                if (number == Math.rint(number) && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                    return (int) number;
+                }
+            }
+            throw expected(type, value);
+        case "Float":
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            throw expected(type, value);
+        case "String":
+            if (value instanceof String) {
+                return value;
+            }
+            throw expected(type, value);
+        case "Boolean":
+            if (value instanceof Boolean) {
+                return value;
+            }
+            throw expected(type, value);
+        case "ID":
+            if (value instanceof String) {
+                return value;
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return value.toString();
+            }
+            throw expected(type, value);
+        default:
+            return value;
+        }
+    }
+
+    /**
+     * Coerces a resolved value of a scalar field for the result.
+     *
+     * @throws CoercionException
+     *             if the value does not fit a built-in scalar
+     */
+    static Object serializeScalar(Type type, Object value) {
+        switch (type.getName()) {
+        case "Int":
+            if (value instanceof Integer) {
+                return value;
+            } else if (value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                if (number == Math.rint(number) && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                    return ((Number) value).intValue();
+                }
+            } else if (value instanceof Boolean) {
+                return ((Boolean) value) ? 1 : 0;
+            }
+            break;
+        case "Float":
+            if (value instanceof Double) {
+                return value;
+            } else if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            } else if (value instanceof Boolean) {
+                return ((Boolean) value) ? 1.0 : 0.0;
+            }
+            break;
+        case "String":
+            if (value instanceof String) {
+                return value;
+            } else if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+                return value.toString();
+            }
+            break;
+        case "Boolean":
+            if (value instanceof Boolean) {
+                return value;
+            } else if (value instanceof Number) {
+                return ((Number) value).doubleValue() != 0;
+            }
+            break;
+        case "ID":
+            if (value instanceof String) {
+                return value;
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return value.toString();
+            }
+            break;
+        default:
+            return value;
+        }
+        throw new CoercionException("Cannot represent value " + value + " as type \"" + type.getName() + "\".");
+    }
+
+    private static String enumValue(EnumType type, String name) {
+        for (se.atoulou.jgraphql.models.schema.EnumValue enumValue : type.getEnumValues()) {
+            if (enumValue.getName().equals(name)) {
+                return enumValue.getName();
+            }
+        }
+        throw new CoercionException("Value \"" + name + "\" is not defined by enum \"" + type.getName() + "\".");
+    }
+
+    private static CoercionException expected(Type type, Object value) {
+        return new CoercionException("Expected a value of type \"" + type.getName() + "\", found " + value + ".");
+    }
+}
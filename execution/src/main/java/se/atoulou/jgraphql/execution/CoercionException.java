@@ -0,0 +1,13 @@
+package se.atoulou.jgraphql.execution;
+
+/**
+ * Thrown when a variable, argument or result value does not fit its type; execution turns it into an error on the request or the field.
+ */
+final class CoercionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    CoercionException(String message) {
+        // Control flow within one execution, so no stack trace
+        super(message, null, false, false);
+    }
+}
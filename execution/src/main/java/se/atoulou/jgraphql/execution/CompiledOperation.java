@@ -0,0 +1,102 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+
+/**
+ * An operation compiled to bytecode by {@link OperationCompiler}, for an engine built with a compile threshold: one class per hot operation, with
+ * a method per selection set and object type that calls a method per field in sequence. Each field method calls its resolver from a call site of
+ * its own, so the JIT sees one receiver class there and can inline the resolver, and completes object values by calling the method of the nested
+ * selection set directly.
+ * <p>
+ * The generated code covers the object types the plan was compiled for when the operation was compiled, and values of object, interface and union
+ * type in at most one list. Everything else goes through the methods here, which the engine executes the plan with.
+ */
+abstract class CompiledOperation {
+    static final Object INVALID = ExecutionEngine.INVALID;
+
+    private final ExecutionEngine engine;
+
+    protected CompiledOperation(ExecutionEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return the {@link ResultObject} of the operation's root selection set, {@link #INVALID}, or a future of either if a field was deferred
+     */
+    abstract Object execute(Execution execution, Object source);
+
+    final Map<String, Object> arguments(Execution execution, FieldPlan field) {
+        if (field.argumentError != null) {
+            throw new CoercionException(field.argumentError);
+        }
+        return Coercion.coerceArguments(engine, field.dispatch, field.selection.getArguments(), execution.variables);
+    }
+
+    final Object fieldError(Execution execution, FieldPlan field, Exception e) {
+        return ExecutionEngine.fieldError(execution, field.dispatch, e);
+    }
+
+    final Object nullError(Execution execution, FieldPlan field) {
+        return ExecutionEngine.nullError(execution, field.dispatch);
+    }
+
+    // Defers a field whose resolver returned a future
+    final Object deferred(Execution execution, FieldPlan field, FieldContext context, Object value) {
+        return engine.defer(execution, field, context, (CompletableFuture<?>) value);
+    }
+
+    /**
+     * @return the result object, or a future of it if it holds deferred values
+     */
+    final Object settle(Execution execution, ResultObject result) {
+        return execution.hasDeferred() ? ExecutionEngine.settle(result) : result;
+    }
+
+    /**
+     * @return the items, or a future of them if they hold deferred values
+     */
+    final Object settle(Execution execution, List<Object> items) {
+        return execution.hasDeferred() ? ExecutionEngine.settle(items) : items;
+    }
+
+    final Object nullable(Object completed) {
+        return ExecutionEngine.nullable(completed);
+    }
+
+    // Completes a value of a type the generated code does not cover
+    final Object complete(Execution execution, FieldPlan field, Object value) {
+        return engine.completeValue(execution, field, field.dispatch.type, value);
+    }
+
+    // Executes a selection set for an object type it was not compiled for when the operation was
+    final Object executeSelectionSet(Execution execution, FieldPlan field, ObjectType type, Object value) {
+        return engine.executeSelectionSet(execution, field.selectionSet, type, value);
+    }
+
+    /**
+     * @return the object type of a value of the field's interface or union type, or {@code null} once an error is recorded
+     */
+    final ObjectType resolveType(Execution execution, FieldPlan field, Object value) {
+        return engine.resolveObjectType(execution, SelectionPlan.namedType(field.dispatch.type), value);
+    }
+
+    /**
+     * @return the items of a value of the field's list type, or {@code null} once an error is recorded
+     */
+    final Iterator<?> iterator(Execution execution, FieldPlan field, Object value) {
+        if (value instanceof Iterable) {
+            return ((Iterable<?>) value).iterator();
+        } else if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value).iterator();
+        }
+        FieldDispatch dispatch = field.dispatch;
+        execution.error("Expected an iterable for list field " + dispatch.parentType.getName() + "." + dispatch.name + ".", null);
+        return null;
+    }
+}
@@ -0,0 +1,199 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.NullValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+
+/**
+ * Parses the constant value text a schema keeps for the default value of an argument or input field into a {@link Value}, once per schema.
+ */
+final class ConstLiteralParser {
+    private final String text;
+    private int          position;
+
+    private ConstLiteralParser(String text) {
+        this.text = text;
+    }
+
+    static Value parse(String text) {
+        ConstLiteralParser parser = new ConstLiteralParser(text);
+        Value value = parser.parseValue();
+        parser.skipIgnored();
+        if (parser.position != text.length()) {
+            throw parser.unexpected();
+        }
+        return value;
+    }
+
+    private Value parseValue() {
+        skipIgnored();
+        if (position == text.length()) {
+            throw unexpected();
+        }
+
+        char c = text.charAt(position);
+        switch (c) {
+        case '[': {
+            position++;
+            List<Value> values = new ArrayList<>();
+            while (!consume(']')) {
+                values.add(parseValue());
+            }
+            return new ListValue(values);
+        }
+        case '{': {
+            position++;
+            List<ObjectField> fields = new ArrayList<>();
+            while (!consume('}')) {
+                String name = parseName();
+                if (!consume(':')) {
+                    throw unexpected();
+                }
+                fields.add(new ObjectField(name, parseValue()));
+            }
+            return new ObjectValue(fields);
+        }
+        case '"':
+            return new StringValue(parseString());
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return parseNumber();
+            }
+            String name = parseName();
+            switch (name) {
+            case "true":
+                return BooleanValue.TRUE;
+            case "false":
+                return BooleanValue.FALSE;
+            case "null":
+                return NullValue.NULL;
+            default:
+                return new EnumValue(name);
+            }
+        }
+    }
+
+    private Value parseNumber() {
+        int start = position;
+        boolean isFloat = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                isFloat = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return isFloat ? new FloatValue(Double.parseDouble(number)) : new IntValue(Long.parseLong(number));
+        } catch (IllegalArgumentException e) {
+            // Malformed or out of range, including floats that overflow to infinity
+            throw unexpected();
+        }
+    }
+
+    private String parseString() {
+        StringBuilder sb = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return sb.toString();
+            } else if (c != '\\') {
+                sb.append(c);
+            } else if (position < text.length()) {
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw unexpected();
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw unexpected();
+                    }
+                    position += 4;
+                    break;
+                default:
+                    sb.append(escaped);
+                    break;
+                }
+            }
+        }
+        throw unexpected();
+    }
+
+    private String parseName() {
+        skipIgnored();
+        int start = position;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (!(c == '_' || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        if (start == position) {
+            throw unexpected();
+        }
+        return text.substring(start, position);
+    }
+
+    private boolean consume(char c) {
+        skipIgnored();
+        if (position == text.length()) {
+            throw unexpected();
+        } else if (text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipIgnored() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '#') {
+                while (position < text.length() && text.charAt(position) != '\n' && text.charAt(position) != '\r') {
+                    position++;
+                }
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == '\uFEFF') {
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private IllegalArgumentException unexpected() {
+        return new IllegalArgumentException("Malformed default value at offset " + position + ": " + text);
+    }
+}
@@ -0,0 +1,164 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Batches and caches the loads of one request through a {@link BatchLoader} or {@link AsyncBatchLoader}, so that a field selected on every item
+ * of a list loads its values in one call to the backend instead of one per item.
+ * <p>
+ * The engine creates the data loaders of an execution as its resolvers ask {@link FieldContext#getDataLoader(String)} for them. A resolver returns
+ * the future {@link #load(Object)} hands out, and the engine completes the field once the future is. It dispatches the keys loaded so far when it
+ * has executed everything that does not wait for them: the fields at one depth of the selection set, across all the items of the lists above
+ * them. Keys are loaded once per request; loading a key again returns the same future, unless its load failed.
+ * <p>
+ * A data loader belongs to one execution. Called from a thread other than the one running the execution, such as in a stage of a remote call,
+ * it posts the call to the execution rather than race with it, and the future it returns completes once the execution has loaded the key. The
+ * futures of an asynchronous batch complete on the thread that completes its stage, which touches nothing else of the data loader.
+ */
+public final class DataLoader<K, V> {
+    private final AsyncBatchLoader<K, V>       batchLoader;
+    private final int                          maximumBatchSize;
+    private final Execution                    execution;
+    private final Map<K, CompletableFuture<V>> cache;
+
+    // The keys loaded since the last dispatch, and their futures
+    private List<K>                    queuedKeys;
+    private List<CompletableFuture<V>> queuedFutures;
+
+    DataLoader(AsyncBatchLoader<K, V> batchLoader, int maximumBatchSize, Execution execution) {
+        this.batchLoader = batchLoader;
+        this.maximumBatchSize = maximumBatchSize;
+        this.execution = execution;
+        this.cache = new HashMap<>();
+        this.queuedKeys = new ArrayList<>();
+        this.queuedFutures = new ArrayList<>();
+    }
+
+    /**
+     * @return the future value of the key, completed when the engine next dispatches, or already if the key was loaded in this request
+     */
+    public CompletableFuture<V> load(K key) {
+        if (!execution.isDriving()) {
+            CompletableFuture<V> posted = new CompletableFuture<>();
+            execution.post(() -> load(key).whenComplete((value, e) -> {
+                if (e != null) {
+                    posted.completeExceptionally(e);
+                } else {
+                    posted.complete(value);
+                }
+            }));
+            return posted;
+        }
+
+        CompletableFuture<V> future = cache.get(key);
+        // A failed load is not kept, so that loading the key again tries again
+        if (future == null || future.isCompletedExceptionally()) {
+            future = new CompletableFuture<>();
+            cache.put(key, future);
+            queuedKeys.add(key);
+            queuedFutures.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * @return the future values of the keys, in order, which fails if the load of any key does
+     */
+    public CompletableFuture<List<V>> loadMany(List<K> keys) {
+        List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            futures.add(load(key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+            List<V> values = new ArrayList<>(futures.size());
+            for (CompletableFuture<V> future : futures) {
+                values.add(future.join());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Caches the value of a key, such as one a resolver read along with its source, unless the key was loaded already.
+     */
+    public void prime(K key, V value) {
+        if (!execution.isDriving()) {
+            execution.post(() -> prime(key, value));
+            return;
+        }
+        CompletableFuture<V> future = cache.get(key);
+        if (future == null || future.isCompletedExceptionally()) {
+            cache.put(key, CompletableFuture.completedFuture(value));
+        }
+    }
+
+    /**
+     * Forgets the value of a key, so that it is loaded again, such as after a mutation changed it.
+     */
+    public void clear(K key) {
+        if (!execution.isDriving()) {
+            execution.post(() -> clear(key));
+            return;
+        }
+        cache.remove(key);
+    }
+
+    /**
+     * Loads the queued keys, in batches of at most the maximum batch size.
+     *
+     * @return whether any key was queued
+     */
+    boolean dispatch() {
+        if (queuedKeys.isEmpty()) {
+            return false;
+        }
+        List<K> keys = queuedKeys;
+        List<CompletableFuture<V>> futures = queuedFutures;
+        queuedKeys = new ArrayList<>();
+        queuedFutures = new ArrayList<>();
+
+        for (int start = 0; start < keys.size(); start += maximumBatchSize) {
+            int end = Math.min(keys.size(), start + maximumBatchSize);
+            loadBatch(keys.subList(start, end), futures.subList(start, end));
+        }
+        return true;
+    }
+
+    private void loadBatch(List<K> keys, List<CompletableFuture<V>> futures) {
+        CompletionStage<List<V>> stage;
+        try {
+            stage = batchLoader.load(keys);
+            if (stage == null) {
+                throw new IllegalStateException("Batch loader returned null for " + keys.size() + " keys");
+            }
+        } catch (Exception e) {
+            fail(futures, e);
+            return;
+        }
+        stage.whenComplete((values, e) -> {
+            if (e == null && (values == null || values.size() != keys.size())) {
+                e = new IllegalStateException("Batch loader returned " + (values == null ? "null" : values.size() + " values") + " for "
+                        + keys.size() + " keys");
+            }
+            if (e != null) {
+                fail(futures, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(values.get(i));
+            }
+        });
+    }
+
+    private static <V> void fail(List<CompletableFuture<V>> futures, Throwable e) {
+        for (CompletableFuture<V> future : futures) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A field whose resolver returned a {@link CompletableFuture} that was not complete, such as the future of a {@link DataLoader}. The engine
+ * completes the field at the path it was resolved at once the future is, into {@link #value}, which stands in for the field's completed value in
+ * the result until then.
+ */
+final class DeferredValue {
+    final FieldPlan                 field;
+    final Object[]                  path;
+    final CompletableFuture<?>      stage;
+    final CompletableFuture<Object> value;
+
+    DeferredValue(FieldPlan field, Object[] path, CompletableFuture<?> stage) {
+        this.field = field;
+        this.path = path;
+        this.stage = stage;
+        this.value = new CompletableFuture<>();
+    }
+}
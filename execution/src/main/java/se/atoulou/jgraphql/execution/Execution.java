@@ -0,0 +1,273 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * The state of executing one operation: the coerced variables, the errors so far, the path of the field being executed, and the data loaders and
+ * deferred values of the request.
+ * <p>
+ * An execution is not thread-safe. An asynchronous execution moves from thread to thread as the stages it waits for complete, but only ever runs
+ * on one at a time, its driver, and the futures it waits on order each thread's changes before the next one's. Resolvers' stages may still call
+ * the data loaders from other threads, such as one completing a remote call; the data loaders {@link #post(Runnable) post} that work to the
+ * driver, which runs it when it next makes progress, and wakes it if it is waiting.
+ */
+final class Execution {
+    final Map<String, Object> variables;
+    final Object              context;
+
+    private final ResolverRegistry resolvers;
+
+    private List<ExecutionError> errors;
+    private Object[]             path;
+    private int                  depth;
+    private List<DeferredValue>  deferredValues;
+    private boolean              deferred;
+
+    // Copied on write, so that other threads can look data loaders up
+    private volatile Map<String, DataLoader<?, ?>> dataLoaders;
+
+    // The thread running the execution, or null while an asynchronous one waits for a stage
+    private volatile Thread                          driver;
+    // Work other threads posted, and the future that wakes the driver for it, replaced by the driver once complete
+    private volatile ConcurrentLinkedQueue<Runnable> posted;
+    private volatile CompletableFuture<Object>       workPosted;
+    // The future the running drive loop waits for, or null if none runs
+    private CompletableFuture<Object>                awaited;
+
+    Execution(Map<String, Object> variables, Object context, ResolverRegistry resolvers) {
+        this.variables = variables;
+        this.context = context;
+        this.resolvers = resolvers;
+        this.path = new Object[16];
+        this.driver = Thread.currentThread();
+    }
+
+    /**
+     * Makes the current thread the one running the execution, as one completing a stage the execution waited for.
+     */
+    void drive() {
+        driver = Thread.currentThread();
+    }
+
+    /**
+     * Stops running the execution on the current thread, as an asynchronous execution does before it waits for a stage.
+     */
+    void release() {
+        driver = null;
+    }
+
+    /**
+     * @return whether the current thread runs the execution, and may touch its state
+     */
+    boolean isDriving() {
+        return driver == Thread.currentThread();
+    }
+
+    CompletableFuture<Object> awaited() {
+        return awaited;
+    }
+
+    void setAwaited(CompletableFuture<Object> awaited) {
+        this.awaited = awaited;
+    }
+
+    /**
+     * Hands work from another thread to the driver, waking it if it is waiting.
+     */
+    void post(Runnable work) {
+        ConcurrentLinkedQueue<Runnable> posted = this.posted;
+        if (posted == null) {
+            synchronized (this) {
+                posted = this.posted;
+                if (posted == null) {
+                    this.posted = posted = new ConcurrentLinkedQueue<>();
+                }
+            }
+        }
+        posted.add(work);
+        // Read after adding: if the driver replaces the future after this, it sees the work when it checks the queue
+        CompletableFuture<Object> workPosted = this.workPosted;
+        if (workPosted != null) {
+            workPosted.complete(null);
+        }
+    }
+
+    /**
+     * Runs the work other threads posted, on the driver.
+     *
+     * @return whether there was any
+     */
+    boolean runPosted() {
+        ConcurrentLinkedQueue<Runnable> posted = this.posted;
+        if (posted == null) {
+            return false;
+        }
+        boolean ran = false;
+        for (Runnable work = posted.poll(); work != null; work = posted.poll()) {
+            work.run();
+            ran = true;
+        }
+        return ran;
+    }
+
+    /**
+     * @param segment
+     *            a response name, or the {@link Integer} index of a list item
+     */
+    void push(Object segment) {
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = segment;
+    }
+
+    void pop() {
+        path[--depth] = null;
+    }
+
+    List<Object> path() {
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(path, depth)));
+    }
+
+    Object[] pathSegments() {
+        return Arrays.copyOf(path, depth);
+    }
+
+    void setPath(Object[] segments) {
+        Arrays.fill(path, 0, depth, null);
+        if (segments.length > path.length) {
+            path = Arrays.copyOf(segments, segments.length * 2);
+        } else {
+            System.arraycopy(segments, 0, path, 0, segments.length);
+        }
+        depth = segments.length;
+    }
+
+    /**
+     * @return a future of the function applied to the future's value at the current path, for completions that record errors
+     */
+    CompletableFuture<Object> then(CompletableFuture<Object> future, Function<Object, Object> function) {
+        Object[] segments = pathSegments();
+        return future.thenApply(value -> {
+            Object[] current = pathSegments();
+            setPath(segments);
+            try {
+                return function.apply(value);
+            } finally {
+                setPath(current);
+            }
+        });
+    }
+
+    void error(String message, Throwable cause) {
+        if (errors == null) {
+            errors = new ArrayList<>();
+        }
+        errors.add(new ExecutionError(message, path(), cause));
+    }
+
+    List<ExecutionError> errors() {
+        return errors == null ? Collections.emptyList() : Collections.unmodifiableList(errors);
+    }
+
+    @SuppressWarnings("unchecked")
+    <K, V> DataLoader<K, V> dataLoader(String name) {
+        Map<String, DataLoader<?, ?>> dataLoaders = this.dataLoaders;
+        DataLoader<?, ?> dataLoader = dataLoaders == null ? null : dataLoaders.get(name);
+        return (DataLoader<K, V>) (dataLoader != null ? dataLoader : addDataLoader(name));
+    }
+
+    private synchronized DataLoader<?, ?> addDataLoader(String name) {
+        Map<String, DataLoader<?, ?>> dataLoaders = this.dataLoaders == null ? new LinkedHashMap<>() : new LinkedHashMap<>(this.dataLoaders);
+        DataLoader<?, ?> dataLoader = dataLoaders.get(name);
+        if (dataLoader == null) {
+            dataLoader = resolvers.newDataLoader(name, this);
+            if (dataLoader == null) {
+                throw new IllegalArgumentException("No batch loader is registered as \"" + name + "\"");
+            }
+            dataLoaders.put(name, dataLoader);
+            this.dataLoaders = dataLoaders;
+        }
+        return dataLoader;
+    }
+
+    /**
+     * @return whether any data loader had keys to load
+     */
+    boolean dispatchDataLoaders() {
+        Map<String, DataLoader<?, ?>> dataLoaders = this.dataLoaders;
+        if (dataLoaders == null) {
+            return false;
+        }
+        boolean dispatched = false;
+        // Dispatching may create data loaders, which the next dispatch picks up
+        for (DataLoader<?, ?> dataLoader : dataLoaders.values()) {
+            dispatched |= dataLoader.dispatch();
+        }
+        return dispatched;
+    }
+
+    void defer(DeferredValue value) {
+        if (deferredValues == null) {
+            deferredValues = new ArrayList<>();
+        }
+        deferredValues.add(value);
+        deferred = true;
+    }
+
+    /**
+     * @return whether a field was deferred in this execution, so that results may hold {@link CompletableFuture}s for deferred values
+     */
+    boolean hasDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @return the deferred values whose stages are complete, in the order they were deferred, which are no longer pending
+     */
+    List<DeferredValue> takeCompleted() {
+        if (deferredValues == null) {
+            return Collections.emptyList();
+        }
+        List<DeferredValue> completed = new ArrayList<>();
+        List<DeferredValue> pending = new ArrayList<>();
+        for (DeferredValue value : deferredValues) {
+            (value.stage.isDone() ? completed : pending).add(value);
+        }
+        deferredValues = pending;
+        return completed;
+    }
+
+    /**
+     * @return a future that completes once the stage of any pending deferred value does, or another thread posts work
+     */
+    CompletableFuture<Object> anyDeferred() {
+        if (deferredValues == null || deferredValues.isEmpty()) {
+            throw new IllegalStateException("Execution waits for a value no field was deferred for");
+        }
+        CompletableFuture<Object> workPosted = this.workPosted;
+        if (workPosted == null || workPosted.isDone()) {
+            this.workPosted = workPosted = new CompletableFuture<>();
+        }
+        // Work posted before the new future was published completed the old one, or none
+        ConcurrentLinkedQueue<Runnable> posted = this.posted;
+        if (posted != null && !posted.isEmpty()) {
+            workPosted.complete(null);
+        }
+
+        CompletableFuture<?>[] stages = new CompletableFuture<?>[deferredValues.size() + 1];
+        for (int i = 0; i < deferredValues.size(); i++) {
+            stages[i] = deferredValues.get(i).stage;
+        }
+        stages[stages.length - 1] = workPosted;
+        return CompletableFuture.anyOf(stages);
+    }
+}
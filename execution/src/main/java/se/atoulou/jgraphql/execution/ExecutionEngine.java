@@ -0,0 +1,796 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.EnumType;
+import se.atoulou.jgraphql.models.schema.Type.InputObjectType;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+import se.atoulou.jgraphql.models.schema.TypeReferenceResolver;
+
+/**
+ * Executes query documents against a schema, calling the {@link FieldResolver} registered for each selected field of an object type.
+ * <p>
+ * Everything that depends only on the schema is prepared when the engine is built and kept in a table indexed by
+ * {@link Schema#getId(Type) type id}: the resolver of every field, its type with the wrappers resolved, its arguments' types and coerced default
+ * values. Everything that depends only on the query is compiled into an {@link OperationPlan}, which the engine caches per operation of the
+ * documents it executes. Executing a field is then reading an array of field plans and calling the bound resolver, without reflection. An engine
+ * can execute requests from any number of threads.
+ * <p>
+ * Plans are keyed by document identity, as the parse caches hand out one {@link QueryDocument} per query, and the cache holds the plans of at most
+ * {@code maximumPlans} documents. A full cache makes room by dropping an arbitrary entry.
+ * <p>
+ * Documents are expected to be valid against the schema; validate them first, for instance through a
+ * {@link se.atoulou.jgraphql.models.validation.ValidationCache}. Fields the schema does not define, including the introspection fields other than
+ * {@code __typename}, are left out of the result.
+ * <p>
+ * Fields whose resolvers return incomplete {@link CompletableFuture}s, such as the futures of {@link DataLoader}s or of calls to remote services,
+ * are deferred: the engine executes everything else it can, so that sibling fields wait concurrently, then dispatches the data loaders and
+ * completes the deferred fields whose futures are done, one depth of the selection set after another, until the result is complete. The root
+ * fields of mutations run one after another as the specification requires, each complete before the next starts. Values that are not futures
+ * are completed as they are, without wrapping them in one.
+ * <p>
+ * {@link #execute(OperationPlan, Map, Object) execute} runs on the calling thread, and blocks it while every deferred field waits.
+ * {@link #executeAsync(OperationPlan, Map, Object) executeAsync} never blocks: it returns once every field waits, and the execution continues on
+ * the thread that completes the future it waits for, calling the resolvers below from there.
+ */
+public final class ExecutionEngine {
+    private static final int DEFAULT_MAXIMUM_PLANS = 1024;
+
+    // The completed value of a non-null position that is null, which makes its parent null in turn
+    static final Object INVALID = new Object();
+
+    private final Schema                schema;
+    private final ResolverRegistry      resolvers;
+    private final TypeReferenceResolver typeReferences;
+    private final TypeDispatch[]        types;
+    private final ObjectType            queryType;
+    private final ObjectType            mutationType;
+
+    private final int                                              maximumPlans;
+    private final int                                              compileThreshold;
+    // QueryDocument keeps Object's equality, so this is an identity map; plans are by operation index
+    private final ConcurrentHashMap<QueryDocument, OperationPlan[]> plans;
+    // Compiled operations that stay loaded for good, on JVMs without hidden classes
+    private final AtomicInteger                                    permanentClassCount;
+
+    public ExecutionEngine(Schema schema, ResolverRegistry resolvers) {
+        this(schema, resolvers, DEFAULT_MAXIMUM_PLANS, 0);
+    }
+
+    /**
+     * @param compileThreshold
+     *            the number of executions after which an operation is compiled to bytecode, or {@code 0} to only ever walk the plans
+     * @see CompiledOperation
+     */
+    public ExecutionEngine(Schema schema, ResolverRegistry resolvers, int maximumPlans, int compileThreshold) {
+        if (maximumPlans <= 0) {
+            throw new IllegalArgumentException("maximumPlans must be positive: " + maximumPlans);
+        } else if (compileThreshold < 0) {
+            throw new IllegalArgumentException("compileThreshold must not be negative: " + compileThreshold);
+        }
+        this.schema = schema;
+        this.resolvers = resolvers;
+        this.typeReferences = new TypeReferenceResolver(schema);
+        this.types = new TypeDispatch[schema.getTypes().size()];
+        this.maximumPlans = maximumPlans;
+        this.compileThreshold = compileThreshold;
+        this.plans = new ConcurrentHashMap<>();
+        this.permanentClassCount = new AtomicInteger();
+
+        // Input objects first, as the arguments' default values may hold them
+        for (Type type : schema.getTypes()) {
+            if (type.getKind() == TypeKind.INPUT_OBJECT) {
+                types[schema.getId(type)] = TypeDispatch.inputObject((InputObjectType) type);
+            }
+        }
+        for (Type type : schema.getTypes()) {
+            if (type.getKind() == TypeKind.INPUT_OBJECT) {
+                inputFieldDefaults((InputObjectType) type);
+            }
+        }
+
+        Map<String, Type> fieldTypes = new HashMap<>();
+        for (Type type : schema.getTypes()) {
+            switch (type.getKind()) {
+            case OBJECT: {
+                ObjectType objectType = (ObjectType) type;
+                TypeDispatch dispatch = TypeDispatch.object(objectType);
+                for (Field field : objectType.getFields()) {
+                    Type fieldType = fieldTypes.computeIfAbsent(field.getType(), typeReferences::resolve);
+                    if (fieldType == null) {
+                        throw new IllegalArgumentException("Field \"" + type.getName() + "." + field.getName() + "\" has unknown type \""
+                                + field.getType() + "\".");
+                    }
+                    FieldResolver resolver = resolvers.getFieldResolver(type.getName(), field.getName());
+                    dispatch.fields.put(field.getName(), new FieldDispatch(this, field, objectType, fieldType, resolver));
+                }
+                types[schema.getId(type)] = dispatch;
+                break;
+            }
+            case INTERFACE:
+            case UNION:
+                types[schema.getId(type)] = TypeDispatch.abstractType(type, resolvers.getTypeResolver(type.getName()));
+                break;
+            case ENUM:
+                types[schema.getId(type)] = TypeDispatch.enumType((EnumType) type);
+                break;
+            default:
+                break;
+            }
+        }
+
+        this.queryType = rootType(schema.getQueryType(), "Query");
+        this.mutationType = rootType(schema.getMutationType(), "Mutation");
+    }
+
+    // Schemas without a schema definition use the types named after the operations
+    private ObjectType rootType(Type declared, String conventionalName) {
+        Type type = declared != null ? declared : schema.getType(conventionalName);
+        return type != null && type.getKind() == TypeKind.OBJECT ? (ObjectType) type : null;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    TypeReferenceResolver getTypeReferences() {
+        return typeReferences;
+    }
+
+    FieldDispatch fieldDispatch(ObjectType type, String fieldName) {
+        return types[schema.getId(type)].fields.get(fieldName);
+    }
+
+    /**
+     * @return the coerced default values of the input object's fields, by field, with {@link FieldDispatch#NO_DEFAULT} for those without one
+     */
+    Object[] inputFieldDefaults(InputObjectType type) {
+        TypeDispatch dispatch = types[schema.getId(type)];
+        if (dispatch.inputFieldDefaults == null) {
+            // Only while the engine is built, for input objects whose defaults another's default needs first
+            List<InputValue> inputFields = type.getInputFields();
+            Object[] defaults = new Object[inputFields.size()];
+            for (int i = 0; i < inputFields.size(); i++) {
+                InputValue inputField = inputFields.get(i);
+                String defaultValue = inputField.getDefaultValue();
+                defaults[i] = defaultValue == null ? FieldDispatch.NO_DEFAULT : Coercion.defaultValue(this, defaultValue, inputField.getType());
+            }
+            dispatch.inputFieldDefaults = defaults;
+        }
+        return dispatch.inputFieldDefaults;
+    }
+
+    /**
+     * @return how many documents have plans cached
+     */
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    public int getMaximumPlans() {
+        return maximumPlans;
+    }
+
+    public int getCompileThreshold() {
+        return compileThreshold;
+    }
+
+    /**
+     * Counts a compiled operation class that will never be unloaded, as {@link OperationCompiler} defines them before Java 15.
+     *
+     * @return whether another one may be defined: the engine defines at most as many as it caches plans
+     */
+    boolean reservePermanentClass() {
+        return permanentClassCount.get() < maximumPlans && permanentClassCount.incrementAndGet() <= maximumPlans;
+    }
+
+    /**
+     * @param operationName
+     *            the operation to plan, which may be {@code null} if the document has only one
+     * @return the cached plan of the operation, compiled if it is the first time the operation is planned
+     * @throws IllegalArgumentException
+     *             if the document has no such operation
+     */
+    public OperationPlan plan(QueryDocument document, String operationName) {
+        int index = operationIndex(document, operationName);
+        if (index < 0) {
+            throw new IllegalArgumentException(operationError(operationName));
+        }
+        return plan(document, index);
+    }
+
+    private OperationPlan plan(QueryDocument document, int index) {
+        OperationPlan[] documentPlans = plans.get(document);
+        if (documentPlans == null) {
+            if (plans.size() >= maximumPlans) {
+                Iterator<QueryDocument> iterator = plans.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            OperationPlan[] created = new OperationPlan[document.getOperations().size()];
+            documentPlans = plans.putIfAbsent(document, created);
+            if (documentPlans == null) {
+                documentPlans = created;
+            }
+        }
+
+        // Two threads may both compile an operation's plan; either one does, and the array only ever gains plans
+        OperationPlan plan = documentPlans[index];
+        if (plan == null) {
+            OperationDefinition operation = document.getOperations().get(index);
+            ObjectType rootType = operation.getOperationType() == OperationType.QUERY ? queryType : mutationType;
+            plan = new OperationPlan(this, document, operation, rootType);
+            documentPlans[index] = plan;
+        }
+        return plan;
+    }
+
+    private static int operationIndex(QueryDocument document, String operationName) {
+        List<OperationDefinition> operations = document.getOperations();
+        if (operationName == null) {
+            return operations.size() == 1 ? 0 : -1;
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            if (operationName.equals(operations.get(i).getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String operationError(String operationName) {
+        return operationName == null ? "Must provide operation name if query contains multiple operations."
+                : "Unknown operation named \"" + operationName + "\".";
+    }
+
+    public ExecutionResult execute(QueryDocument document, Map<String, Object> variables) {
+        return execute(document, null, variables, null);
+    }
+
+    /**
+     * @param operationName
+     *            the operation to execute, which may be {@code null} if the document has only one
+     * @param variables
+     *            the values of the operation's variables as a transport such as JSON decodes them, by name without the {@code $}
+     * @param context
+     *            what {@link FieldContext#getContext()} returns, and the source of the root fields
+     */
+    public ExecutionResult execute(QueryDocument document, String operationName, Map<String, Object> variables, Object context) {
+        int index = operationIndex(document, operationName);
+        if (index < 0) {
+            return requestError(operationError(operationName));
+        }
+        return execute(plan(document, index), variables, context);
+    }
+
+    /**
+     * Executes a plan this engine made.
+     *
+     * @see #execute(QueryDocument, String, Map, Object)
+     */
+    public ExecutionResult execute(OperationPlan plan, Map<String, Object> variables, Object context) {
+        return (ExecutionResult) execute(plan, variables, context, true);
+    }
+
+    /**
+     * Executes the operation without blocking while its fields wait for futures.
+     *
+     * @see #execute(QueryDocument, String, Map, Object)
+     */
+    public CompletionStage<ExecutionResult> executeAsync(QueryDocument document, String operationName, Map<String, Object> variables,
+            Object context) {
+        int index = operationIndex(document, operationName);
+        if (index < 0) {
+            return CompletableFuture.completedFuture(requestError(operationError(operationName)));
+        }
+        return executeAsync(plan(document, index), variables, context);
+    }
+
+    /**
+     * Executes a plan this engine made without blocking while its fields wait for futures.
+     *
+     * @see #execute(QueryDocument, String, Map, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public CompletionStage<ExecutionResult> executeAsync(OperationPlan plan, Map<String, Object> variables, Object context) {
+        Object result = execute(plan, variables, context, false);
+        return result instanceof CompletableFuture ? (CompletableFuture<ExecutionResult>) result
+                : CompletableFuture.completedFuture((ExecutionResult) result);
+    }
+
+    /**
+     * @return the result, or a {@link CompletableFuture} of it if the execution does not block and waits for a deferred field
+     */
+    @SuppressWarnings("unchecked")
+    private Object execute(OperationPlan plan, Map<String, Object> variables, Object context, boolean blocking) {
+        if (plan.engine != this) {
+            throw new IllegalArgumentException("The plan was made by another engine");
+        }
+        if (plan.rootType == null) {
+            return requestError("Schema is not configured for " + (plan.getOperation().getOperationType() == OperationType.QUERY ? "queries."
+                    : "mutations."));
+        }
+
+        Map<String, Object> coercedVariables;
+        try {
+            coercedVariables = coerceVariables(plan, variables == null ? Collections.emptyMap() : variables);
+        } catch (CoercionException e) {
+            return requestError(e.getMessage());
+        }
+
+        long conditions = 0;
+        for (int i = 0; i < plan.conditionVariables.length; i++) {
+            if (Boolean.TRUE.equals(coercedVariables.get(plan.conditionVariables[i]))) {
+                conditions |= 1L << i;
+            }
+        }
+
+        Execution execution = new Execution(coercedVariables, context, resolvers);
+        SelectionPlan selectionSet = plan.rootSelectionSet(conditions);
+        Object data;
+        if (plan.getOperation().getOperationType() != OperationType.QUERY) {
+            FieldPlan[] fields = selectionSet.fields(plan.rootType);
+            data = executeSerially(execution, fields, 0, new ResultObject(fields.length), plan.rootType, context, blocking);
+        } else {
+            // Compiled operations run their root fields without waiting for deferred ones, so only queries are compiled
+            CompiledOperation compiled = compileThreshold > 0 ? selectionSet.compiledOperation(plan.rootType, compileThreshold) : null;
+            data = compiled != null ? compiled.execute(execution, context) : executeSelectionSet(execution, selectionSet, plan.rootType, context);
+            data = await(execution, data, blocking);
+        }
+        if (data instanceof CompletableFuture) {
+            return ((CompletableFuture<Object>) data).thenApply(completed -> result(execution, completed));
+        }
+        return result(execution, data);
+    }
+
+    private static ExecutionResult result(Execution execution, Object data) {
+        return new ExecutionResult(data == INVALID ? null : (ResultObject) data, execution.errors());
+    }
+
+    private static ExecutionResult requestError(String message) {
+        return new ExecutionResult(null, Collections.singletonList(new ExecutionError(message, Collections.emptyList(), null)));
+    }
+
+    private Map<String, Object> coerceVariables(OperationPlan plan, Map<String, Object> variables) {
+        if (plan.variableNames.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> coerced = new HashMap<>();
+        for (int i = 0; i < plan.variableNames.length; i++) {
+            String name = plan.variableNames[i];
+            Type type = plan.variableTypes[i];
+            if (type == null) {
+                throw new CoercionException("Variable \"$" + name + "\" has unknown type \"" + plan.variableReferences[i] + "\".");
+            }
+
+            if (variables.containsKey(name)) {
+                try {
+                    coerced.put(name, Coercion.coerceVariable(this, variables.get(name), type));
+                } catch (CoercionException e) {
+                    throw new CoercionException("Variable \"$" + name + "\" got an invalid value: " + e.getMessage());
+                }
+            } else if (plan.variableDefaults[i] != null) {
+                coerced.put(name, Coercion.valueFromLiteral(this, plan.variableDefaults[i], type, Collections.emptyMap()));
+            } else if (type.getKind() == TypeKind.NON_NULL) {
+                throw new CoercionException("Variable \"$" + name + "\" of required type \"" + type.getName() + "\" was not provided.");
+            }
+        }
+        return coerced;
+    }
+
+    /**
+     * @return the {@link ResultObject}, {@link #INVALID} if a non-null field is {@code null}, or a {@link CompletableFuture} of either if a field
+     *         was deferred
+     */
+    Object executeSelectionSet(Execution execution, SelectionPlan selectionSet, ObjectType type, Object source) {
+        FieldPlan[] fields = selectionSet.fields(type);
+        ResultObject result = new ResultObject(fields.length);
+        boolean deferred = false;
+        for (FieldPlan field : fields) {
+            if (field.dispatch == null) {
+                result.add(field.responseName, type.getName());
+                continue;
+            }
+
+            execution.push(field.responseName);
+            Object value = executeField(execution, field, source);
+            execution.pop();
+            if (value == INVALID) {
+                return INVALID;
+            }
+            deferred |= value instanceof CompletableFuture;
+            result.add(field.responseName, value);
+        }
+        return deferred ? settle(result) : result;
+    }
+
+    /**
+     * Executes the root selection set of a mutation from the field at the index on, each field complete before the next starts.
+     *
+     * @return the result object, {@link #INVALID}, or if the execution does not block and a field waits, a {@link CompletableFuture} of either
+     */
+    @SuppressWarnings("unchecked")
+    private Object executeSerially(Execution execution, FieldPlan[] fields, int index, ResultObject result, ObjectType type, Object source,
+            boolean blocking) {
+        for (int i = index; i < fields.length; i++) {
+            FieldPlan field = fields[i];
+            if (field.dispatch == null) {
+                result.add(field.responseName, type.getName());
+                continue;
+            }
+
+            execution.push(field.responseName);
+            Object value = executeField(execution, field, source);
+            execution.pop();
+            value = await(execution, value, blocking);
+            if (value instanceof CompletableFuture) {
+                int next = i + 1;
+                return ((CompletableFuture<Object>) value).thenCompose(completed -> {
+                    if (completed == INVALID) {
+                        return CompletableFuture.completedFuture(INVALID);
+                    }
+                    result.add(field.responseName, completed);
+                    Object rest = executeSerially(execution, fields, next, result, type, source, false);
+                    return rest instanceof CompletableFuture ? (CompletableFuture<Object>) rest : CompletableFuture.completedFuture(rest);
+                });
+            }
+            if (value == INVALID) {
+                return INVALID;
+            }
+            result.add(field.responseName, value);
+        }
+        return result;
+    }
+
+    /**
+     * Completes the deferred values of an execution until the value is complete: completes those whose futures are done, and when none are,
+     * runs the work other threads posted and dispatches the data loaders, or failing that waits for a stage or posted work. A blocking execution
+     * waits on its thread; one that does not registers to continue on the thread that completes the stage.
+     *
+     * @return the value, the value of the future if the execution blocks, or else the future
+     */
+    @SuppressWarnings("unchecked")
+    private Object await(Execution execution, Object value, boolean blocking) {
+        if (!(value instanceof CompletableFuture)) {
+            return value;
+        }
+        CompletableFuture<Object> future = (CompletableFuture<Object>) value;
+        if (!blocking) {
+            drive(execution, future);
+            return future;
+        }
+        while (!future.isDone()) {
+            if (!progress(execution)) {
+                execution.anyDeferred().handle((completed, e) -> null).join();
+            }
+        }
+        return future.join();
+    }
+
+    // Only one drive of an execution is ever running or waiting for a stage, so the execution runs on one thread at a time
+    private void drive(Execution execution, CompletableFuture<Object> future) {
+        if (execution.isDriving() && execution.awaited() != null) {
+            // Called back from the running drive, as for the next field of a mutation once the previous one completed; the running drive's
+            // future is done, so it goes on with this one rather than leave the execution to a second drive
+            execution.setAwaited(future);
+            return;
+        }
+        execution.drive();
+        CompletableFuture<Object> awaited = future;
+        try {
+            execution.setAwaited(awaited);
+            while (!awaited.isDone()) {
+                if (!progress(execution)) {
+                    CompletableFuture<Object> anyDeferred = execution.anyDeferred();
+                    CompletableFuture<Object> waiting = awaited;
+                    execution.setAwaited(null);
+                    execution.release();
+                    anyDeferred.whenComplete((completed, e) -> drive(execution, waiting));
+                    return;
+                }
+                awaited = execution.awaited();
+            }
+            execution.setAwaited(null);
+        } catch (Throwable e) {
+            execution.setAwaited(null);
+            // Nothing else would see what went wrong on the thread that completed a stage
+            awaited.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Completes the deferred values whose futures are done, or if there are none, runs the posted work, or if there is none, dispatches the
+     * data loaders.
+     *
+     * @return whether any of them did anything
+     */
+    private boolean progress(Execution execution) {
+        List<DeferredValue> completed = execution.takeCompleted();
+        for (DeferredValue deferredValue : completed) {
+            resume(execution, deferredValue);
+        }
+        return !completed.isEmpty() || execution.runPosted() || execution.dispatchDataLoaders();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resume(Execution execution, DeferredValue deferredValue) {
+        Object[] path = execution.pathSegments();
+        execution.setPath(deferredValue.path);
+        Object value = completeStage(execution, deferredValue.field, deferredValue.stage);
+        execution.setPath(path);
+
+        if (value instanceof CompletableFuture) {
+            ((CompletableFuture<Object>) value).thenAccept(deferredValue.value::complete);
+        } else {
+            deferredValue.value.complete(value);
+        }
+    }
+
+    /**
+     * Defers a field whose resolver returned the future, unless the future is complete already.
+     *
+     * @return the completed value, or a {@link CompletableFuture} of it
+     */
+    Object defer(Execution execution, FieldPlan field, FieldContext context, CompletableFuture<?> stage) {
+        if (stage.isDone()) {
+            return completeStage(execution, field, stage);
+        }
+        Object[] path = execution.pathSegments();
+        context.freezePath(path);
+        DeferredValue deferredValue = new DeferredValue(field, path, stage);
+        execution.defer(deferredValue);
+        return deferredValue.value;
+    }
+
+    private Object completeStage(Execution execution, FieldPlan field, CompletableFuture<?> stage) {
+        Object value;
+        try {
+            value = stage.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return fieldError(execution, field.dispatch, (Exception) cause);
+        }
+        return completeValue(execution, field, field.dispatch.type, value);
+    }
+
+    /**
+     * @return a future of the result object once its deferred values are complete, or of {@link #INVALID} if one is; the result object itself if
+     *         it has none
+     */
+    @SuppressWarnings("unchecked")
+    static Object settle(ResultObject result) {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            if (result.getValue(i) instanceof CompletableFuture) {
+                futures.add((CompletableFuture<?>) result.getValue(i));
+            }
+        }
+        if (futures.isEmpty()) {
+            return result;
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+            for (int i = 0; i < result.size(); i++) {
+                if (result.getValue(i) instanceof CompletableFuture) {
+                    Object value = ((CompletableFuture<Object>) result.getValue(i)).join();
+                    if (value == INVALID) {
+                        return INVALID;
+                    }
+                    result.set(i, value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return a future of the items once their deferred values are complete, or of {@link #INVALID} if one is; the items themselves if they have
+     *         none
+     */
+    @SuppressWarnings("unchecked")
+    static Object settle(List<Object> items) {
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (Object item : items) {
+            if (item instanceof CompletableFuture) {
+                futures.add((CompletableFuture<?>) item);
+            }
+        }
+        if (futures.isEmpty()) {
+            return items;
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) instanceof CompletableFuture) {
+                    Object item = ((CompletableFuture<Object>) items.get(i)).join();
+                    if (item == INVALID) {
+                        return INVALID;
+                    }
+                    items.set(i, item);
+                }
+            }
+            return items;
+        });
+    }
+
+    private Object executeField(Execution execution, FieldPlan field, Object source) {
+        FieldDispatch dispatch = field.dispatch;
+        FieldContext context = null;
+        Object value;
+        try {
+            Map<String, Object> arguments = field.arguments;
+            if (arguments == null) {
+                if (field.argumentError != null) {
+                    throw new CoercionException(field.argumentError);
+                }
+                arguments = Coercion.coerceArguments(this, dispatch, field.selection.getArguments(), execution.variables);
+            }
+            context = new FieldContext(source, arguments, field, execution);
+            value = dispatch.resolver.resolve(context);
+        } catch (Exception e) {
+            return fieldError(execution, dispatch, e);
+        }
+        if (value instanceof CompletableFuture) {
+            return defer(execution, field, context, (CompletableFuture<?>) value);
+        }
+        return completeValue(execution, field, dispatch.type, value);
+    }
+
+    /**
+     * Records an argument that could not be coerced or an exception a resolver threw.
+     *
+     * @return the field's value: {@code null}, or {@link #INVALID} if the field is non-null
+     */
+    static Object fieldError(Execution execution, FieldDispatch field, Exception e) {
+        if (e instanceof CoercionException) {
+            execution.error(e.getMessage(), null);
+        } else {
+            execution.error(e.getMessage() != null ? e.getMessage() : e.toString(), e);
+        }
+        return field.type.getKind() == TypeKind.NON_NULL ? INVALID : null;
+    }
+
+    static Object nullError(Execution execution, FieldDispatch field) {
+        execution.error("Cannot return null for non-nullable field " + field.parentType.getName() + "." + field.name + ".", null);
+        return INVALID;
+    }
+
+    /**
+     * @return the completed value, {@code null}, or {@link #INVALID} if the position is non-null and the value is {@code null} or has a non-null
+     *         field that is; or a {@link CompletableFuture} of one of these if a field below was deferred
+     */
+    @SuppressWarnings("unchecked")
+    Object completeValue(Execution execution, FieldPlan field, Type type, Object value) {
+        if (type.getKind() == TypeKind.NON_NULL) {
+            Object completed = completeNullableValue(execution, field, ((NonNullType) type).getOfType(), value);
+            if (completed instanceof CompletableFuture) {
+                return execution.then((CompletableFuture<Object>) completed, c -> c == null ? nullError(execution, field.dispatch) : c);
+            }
+            return completed == null ? nullError(execution, field.dispatch) : completed;
+        }
+        return nullable(completeNullableValue(execution, field, type, value));
+    }
+
+    /**
+     * @return the value completed for a nullable position, where {@link #INVALID} becomes {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    static Object nullable(Object completed) {
+        if (completed instanceof CompletableFuture) {
+            return ((CompletableFuture<Object>) completed).thenApply(c -> c == INVALID ? null : c);
+        }
+        return completed == INVALID ? null : completed;
+    }
+
+    private Object completeNullableValue(Execution execution, FieldPlan field, Type type, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        switch (type.getKind()) {
+        case LIST: {
+            Type itemType = ((ListType) type).getOfType();
+            List<Object> items;
+            boolean deferred = false;
+            if (value instanceof Iterable) {
+                items = new ArrayList<>();
+                int index = 0;
+                for (Object item : (Iterable<?>) value) {
+                    if (!completeItem(execution, field, itemType, item, index++, items)) {
+                        return INVALID;
+                    }
+                    deferred |= items.get(items.size() - 1) instanceof CompletableFuture;
+                }
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                items = new ArrayList<>(array.length);
+                for (int i = 0; i < array.length; i++) {
+                    if (!completeItem(execution, field, itemType, array[i], i, items)) {
+                        return INVALID;
+                    }
+                    deferred |= items.get(i) instanceof CompletableFuture;
+                }
+            } else {
+                FieldDispatch dispatch = field.dispatch;
+                execution.error("Expected an iterable for list field " + dispatch.parentType.getName() + "." + dispatch.name + ".", null);
+                return INVALID;
+            }
+            return deferred ? settle(items) : items;
+        }
+        case SCALAR:
+            try {
+                return Coercion.serializeScalar(type, value);
+            } catch (CoercionException e) {
+                execution.error(e.getMessage(), null);
+                return INVALID;
+            }
+        case ENUM: {
+            String name = value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+            if (!types[schema.getId(type)].enumValues.contains(name)) {
+                execution.error("Enum \"" + type.getName() + "\" cannot represent value " + value + ".", null);
+                return INVALID;
+            }
+            return name;
+        }
+        case OBJECT:
+            return executeSelectionSet(execution, field.selectionSet, (ObjectType) type, value);
+        case INTERFACE:
+        case UNION: {
+            ObjectType objectType = resolveObjectType(execution, type, value);
+            return objectType == null ? INVALID : executeSelectionSet(execution, field.selectionSet, objectType, value);
+        }
+        default:
+            FieldDispatch dispatch = field.dispatch;
+            execution.error("Field " + dispatch.parentType.getName() + "." + dispatch.name + " has an output type of kind " + type.getKind() + ".",
+                    null);
+            return INVALID;
+        }
+    }
+
+    /**
+     * @return the object type the interface or union type's resolver names for the value, or {@code null} once an error is recorded
+     */
+    ObjectType resolveObjectType(Execution execution, Type abstractType, Object value) {
+        String typeName = types[schema.getId(abstractType)].typeResolver.resolveType(value);
+        Type objectType = typeName == null ? null : schema.getType(typeName);
+        if (objectType == null || objectType.getKind() != TypeKind.OBJECT || !schema.isPossibleType(abstractType, objectType)) {
+            execution.error("Abstract type \"" + abstractType.getName() + "\" resolved to \"" + typeName
+                    + "\", which is not one of its possible types.", null);
+            return null;
+        }
+        return (ObjectType) objectType;
+    }
+
+    private boolean completeItem(Execution execution, FieldPlan field, Type itemType, Object item, int index, List<Object> items) {
+        execution.push(index);
+        Object completed = completeValue(execution, field, itemType, item);
+        execution.pop();
+        items.add(completed);
+        return completed != INVALID;
+    }
+}
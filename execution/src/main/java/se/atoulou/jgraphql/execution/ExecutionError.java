@@ -0,0 +1,42 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.List;
+
+/**
+ * An error raised while executing a request: a variable or argument that could not be coerced, a resolver that threw, or a {@code null} for a
+ * non-null field. The path is empty for errors on the request as a whole.
+ */
+public final class ExecutionError {
+    private final String       message;
+    private final List<Object> path;
+    private final Throwable    cause;
+
+    public ExecutionError(String message, List<Object> path, Throwable cause) {
+        this.message = message;
+        this.path = path;
+        this.cause = cause;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the response names and list indexes from the root to the field the error was raised on
+     */
+    public List<Object> getPath() {
+        return path;
+    }
+
+    /**
+     * @return the exception a resolver threw, or {@code null}
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return path.isEmpty() ? message : message + " (at " + path + ")";
+    }
+}
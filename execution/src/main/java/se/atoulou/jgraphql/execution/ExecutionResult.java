@@ -0,0 +1,33 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.List;
+
+/**
+ * The response to a request: the data the operation's selection set resolved to, and the errors raised on the way.
+ */
+public final class ExecutionResult {
+    private final ResultObject         data;
+    private final List<ExecutionError> errors;
+
+    ExecutionResult(ResultObject data, List<ExecutionError> errors) {
+        this.data = data;
+        this.errors = errors;
+    }
+
+    /**
+     * @return the result of the operation's root selection set, or {@code null} if the request failed before execution or a {@code null}
+     *         propagated to the root
+     */
+    public ResultObject getData() {
+        return data;
+    }
+
+    public List<ExecutionError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionResult [data=" + data + ", errors=" + errors + "]";
+    }
+}
@@ -0,0 +1,109 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+
+/**
+ * What a {@link FieldResolver} is called with: the parent object's value, the field's coerced arguments, and the context object the query is
+ * executed with.
+ */
+public final class FieldContext {
+    private final Object              source;
+    private final Map<String, Object> arguments;
+    private final FieldPlan           field;
+    private final Execution           execution;
+
+    // The path once the resolver returned a future, as the execution moves on to other fields
+    private volatile Object[] path;
+
+    FieldContext(Object source, Map<String, Object> arguments, FieldPlan field, Execution execution) {
+        this.source = source;
+        this.arguments = arguments;
+        this.field = field;
+        this.execution = execution;
+    }
+
+    /**
+     * @return the value the parent object was resolved to, or the root value for a field of an operation's root type
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return the arguments, coerced to their input types: {@link Integer}, {@link Double}, {@link String} and {@link Boolean} for the built-in
+     *         scalars, the value's name for enums, and lists and maps for list and input object types. Arguments neither given nor defaulted are
+     *         absent.
+     */
+    public Map<String, Object> getArguments() {
+        return arguments;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getArgument(String name) {
+        return (T) arguments.get(name);
+    }
+
+    public Object getContext() {
+        return execution.context;
+    }
+
+    public Map<String, Object> getVariables() {
+        return execution.variables;
+    }
+
+    /**
+     * @return the request's data loader of the batch loader registered under the name, whose futures the resolver can return
+     * @throws IllegalArgumentException
+     *             if no batch loader is registered under the name
+     */
+    public <K, V> DataLoader<K, V> getDataLoader(String name) {
+        return execution.dataLoader(name);
+    }
+
+    public String getFieldName() {
+        return field.dispatch.name;
+    }
+
+    public Field getField() {
+        return field.dispatch.field;
+    }
+
+    /**
+     * @return the field's type, with its list and non-null wrappers resolved
+     */
+    public Type getFieldType() {
+        return field.dispatch.type;
+    }
+
+    public ObjectType getParentType() {
+        return field.dispatch.parentType;
+    }
+
+    /**
+     * @return the first selection of the field in the query; a field selected more than once has its selection sets merged
+     */
+    public SelectionField getSelectionField() {
+        return field.selection;
+    }
+
+    /**
+     * @return the response names and list indexes from the root to this field. Resolvers that return a future can read it in the future's
+     *         callbacks too, but a resolver that passes the context to another thread should read it before it returns.
+     */
+    public List<Object> getPath() {
+        Object[] frozen = path;
+        return frozen != null ? Collections.unmodifiableList(Arrays.asList(frozen)) : execution.path();
+    }
+
+    void freezePath(Object[] segments) {
+        this.path = segments;
+    }
+}
@@ -0,0 +1,47 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.List;
+
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+
+/**
+ * Everything executing one field of an object type needs, prepared once per schema: its resolver, its resolved type, and its arguments with their
+ * resolved types and coerced default values.
+ */
+final class FieldDispatch {
+    // Stands in for an argument without a default value, as null is a default value
+    static final Object NO_DEFAULT = new Object();
+
+    final String        name;
+    final Field         field;
+    final ObjectType    parentType;
+    final Type          type;
+    final FieldResolver resolver;
+
+    final String[] argumentNames;
+    final Type[]   argumentTypes;
+    final Object[] argumentDefaults;
+
+    FieldDispatch(ExecutionEngine engine, Field field, ObjectType parentType, Type type, FieldResolver resolver) {
+        this.name = field.getName();
+        this.field = field;
+        this.parentType = parentType;
+        this.type = type;
+        this.resolver = resolver;
+
+        List<InputValue> arguments = field.getArguments();
+        this.argumentNames = new String[arguments.size()];
+        this.argumentTypes = new Type[arguments.size()];
+        this.argumentDefaults = new Object[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            InputValue argument = arguments.get(i);
+            argumentNames[i] = argument.getName();
+            argumentTypes[i] = argument.getType();
+            String defaultValue = argument.getDefaultValue();
+            argumentDefaults[i] = defaultValue == null ? NO_DEFAULT : Coercion.defaultValue(engine, defaultValue, argument.getType());
+        }
+    }
+}
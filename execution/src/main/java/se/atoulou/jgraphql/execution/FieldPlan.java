@@ -0,0 +1,31 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+
+/**
+ * One entry of a compiled selection set: the response name, the field's dispatch, and its arguments, coerced at compile time when they refer to
+ * no variable. {@code __typename} has no dispatch.
+ */
+final class FieldPlan {
+    final String              responseName;
+    final FieldDispatch       dispatch;
+    final SelectionField      selection;
+    // The coerced constant arguments, or null if they refer to variables and are coerced per execution
+    final Map<String, Object> arguments;
+    // Why the constant arguments could not be coerced, raised as a field error in every execution
+    final String              argumentError;
+    // The field's selection set, for fields of object, interface and union type
+    final SelectionPlan       selectionSet;
+
+    FieldPlan(String responseName, FieldDispatch dispatch, SelectionField selection, Map<String, Object> arguments, String argumentError,
+            SelectionPlan selectionSet) {
+        this.responseName = responseName;
+        this.dispatch = dispatch;
+        this.selection = selection;
+        this.arguments = arguments;
+        this.argumentError = argumentError;
+        this.selectionSet = selectionSet;
+    }
+}
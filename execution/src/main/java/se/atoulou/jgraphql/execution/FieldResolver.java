@@ -0,0 +1,17 @@
+package se.atoulou.jgraphql.execution;
+
+/**
+ * Produces the value of one field of an object type, registered per type and field in a {@link ResolverRegistry}. The value is then completed
+ * against the field's type: scalars and enums are serialized, lists iterated, and objects resolved field by field with the value as their source.
+ * <p>
+ * Resolvers are called from whichever thread executes the query, so they must be safe to share. An exception becomes an error on the field, whose
+ * value is then {@code null}.
+ * <p>
+ * A resolver may return a {@link java.util.concurrent.CompletableFuture}, such as the future of a {@link DataLoader}, and the field's value is
+ * then the future's once it completes. Other {@link java.util.concurrent.CompletionStage}s are values like any other; register an
+ * {@link AsyncFieldResolver} for them, as checking every value against an interface would slow down resolvers returning plain values.
+ */
+@FunctionalInterface
+public interface FieldResolver {
+    Object resolve(FieldContext context) throws Exception;
+}
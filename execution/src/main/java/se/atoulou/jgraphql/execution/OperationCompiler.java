@@ -0,0 +1,687 @@
+package se.atoulou.jgraphql.execution;
+
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IFNONNULL;
+import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.IF_ACMPNE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INSTANCEOF;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+
+/**
+ * Generates the {@link CompiledOperation} of a root selection set, from the field plans its selection sets are compiled to so far.
+ * <p>
+ * Generated methods take the field plans they execute as arguments, so selection sets and fields of the same shape share one: a query selecting
+ * the same fields of a few hundred aliased objects generates the methods of one. The shape of a field is its dispatch, whether its arguments are
+ * constant, and the shapes of its selection set for the object types it was compiled for.
+ * <p>
+ * The class is defined in this package, so that it reaches the package's internals without reflection. From Java 15 it is a hidden class,
+ * which is unloaded once the plan holding it is dropped from the engine's cache. Java 9 to 14 can only define classes that stay loaded for good,
+ * so there each engine compiles at most as many operations as it caches plans. Java 8 can do neither, so there operations are not compiled and
+ * the engine walks their plans.
+ */
+final class OperationCompiler {
+    private static final String PACKAGE            = "se/atoulou/jgraphql/execution/";
+    private static final String COMPILED_OPERATION = PACKAGE + "CompiledOperation";
+    private static final String EXECUTION          = PACKAGE + "Execution";
+    private static final String FIELD_CONTEXT      = PACKAGE + "FieldContext";
+    private static final String FIELD_PLAN         = PACKAGE + "FieldPlan";
+    private static final String FIELD_PLANS        = "[L" + FIELD_PLAN + ";";
+    private static final String FIELD_RESOLVER     = PACKAGE + "FieldResolver";
+    private static final String RESULT_OBJECT      = PACKAGE + "ResultObject";
+    private static final String SELECTION_PLAN     = PACKAGE + "SelectionPlan";
+    private static final String OBJECT_TYPE        = "se/atoulou/jgraphql/models/schema/Type$ObjectType";
+
+    private static final String SELECTION_SET_DESCRIPTOR = "(L" + EXECUTION + ";Ljava/lang/Object;" + FIELD_PLANS + ")Ljava/lang/Object;";
+    private static final String CHUNK_DESCRIPTOR         = "(L" + EXECUTION + ";Ljava/lang/Object;" + FIELD_PLANS + "L" + RESULT_OBJECT + ";)Z";
+    private static final String FIELD_DESCRIPTOR         = "(L" + EXECUTION + ";Ljava/lang/Object;L" + FIELD_PLAN + ";)Ljava/lang/Object;";
+    // The parameters the helpers of CompiledOperation start with
+    private static final String HELPER_PARAMETERS        = "(L" + EXECUTION + ";L" + FIELD_PLAN + ";";
+
+    // Keeps the methods of wide selection sets under the size the JIT compiles
+    private static final int FIELDS_PER_CHUNK = 64;
+
+    // Locals of the field methods, after this, the execution, the source and the field plan
+    private static final int VALUE         = 4;
+    private static final int ARGUMENTS     = 5;
+    private static final int EXCEPTION     = 6;
+    private static final int RESOLVED_TYPE = 7;
+    private static final int ITERATOR      = 8;
+    private static final int ITEMS         = 9;
+    private static final int INDEX         = 10;
+    private static final int ITEM          = 11;
+    private static final int CONTEXT       = 12;
+
+    private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+    // Lookup.defineHiddenClass(byte[], boolean, ClassOption...) and Lookup.defineClass(byte[]), where the JVM has them
+    private static final Method        DEFINE_HIDDEN_CLASS;
+    private static final Object        NO_CLASS_OPTIONS;
+    private static final Method        DEFINE_CLASS;
+
+    static {
+        Method defineHiddenClass;
+        Object noClassOptions;
+        try {
+            noClassOptions = Array.newInstance(Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption"), 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, noClassOptions.getClass());
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            noClassOptions = null;
+            defineHiddenClass = null;
+        }
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        NO_CLASS_OPTIONS = noClassOptions;
+
+        Method defineClass;
+        try {
+            defineClass = MethodHandles.Lookup.class.getMethod("defineClass", byte[].class);
+        } catch (NoSuchMethodException e) {
+            defineClass = null;
+        }
+        DEFINE_CLASS = defineClass;
+    }
+
+    private final String      className;
+    private final ClassWriter writer;
+
+    private final List<Object>         constants;
+    private final List<String>         constantTypes;
+    private final Map<Object, Integer> constantIndexes;
+
+    private final Map<SelectionPlan, Map<ObjectType, List<Object>>> shapes;
+    // Generated method names by shape, and the selection sets whose methods are still to generate
+    private final Map<ObjectType, Map<List<Object>, String>>        selectionSetMethods;
+    private final Map<List<Object>, String>                         fieldMethods;
+    private final ArrayDeque<Object[]>                              pendingSelectionSets;
+    private int                                                     methodCount;
+
+    private OperationCompiler() {
+        this.className = PACKAGE + "CompiledOperation$" + CLASS_COUNT.incrementAndGet();
+        this.writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            // Frames only merge types of this package and java.lang, so nothing needs loading
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return type1.equals(type2) ? type1 : "java/lang/Object";
+            }
+        };
+        this.constants = new ArrayList<>();
+        this.constantTypes = new ArrayList<>();
+        this.constantIndexes = new IdentityHashMap<>();
+        this.shapes = new IdentityHashMap<>();
+        this.selectionSetMethods = new IdentityHashMap<>();
+        this.fieldMethods = new HashMap<>();
+        this.pendingSelectionSets = new ArrayDeque<>();
+    }
+
+    /**
+     * @return the compiled operation, or {@code null} if it cannot be compiled on this JVM
+     */
+    static CompiledOperation compile(ExecutionEngine engine, SelectionPlan selectionSet, ObjectType type) {
+        if (DEFINE_HIDDEN_CLASS == null && (DEFINE_CLASS == null || !engine.reservePermanentClass())) {
+            return null;
+        }
+        try {
+            OperationCompiler compiler = new OperationCompiler();
+            byte[] bytes = compiler.generate(selectionSet, type);
+            Class<?> compiledClass = defineClass(bytes);
+            return (CompiledOperation) compiledClass.getConstructor(ExecutionEngine.class, Object[].class).newInstance(engine,
+                    compiler.constants.toArray());
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Such as a method too large for the class file format: the plan executes the same
+            return null;
+        }
+    }
+
+    // Not a strong hidden class, so that it can be unloaded while its defining loader is still alive
+    private static Class<?> defineClass(byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (DEFINE_HIDDEN_CLASS != null) {
+            return ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytes, false, NO_CLASS_OPTIONS)).lookupClass();
+        }
+        return (Class<?>) DEFINE_CLASS.invoke(lookup, (Object) bytes);
+    }
+
+    private byte[] generate(SelectionPlan selectionSet, ObjectType type) {
+        writer.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, className, null, COMPILED_OPERATION, null);
+
+        String rootMethod = selectionSetMethod(selectionSet, type);
+        MethodVisitor method = writer.visitMethod(0, "execute", "(L" + EXECUTION + ";Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 2);
+        loadConstant(method, selectionSet.fields(type), FIELD_PLANS);
+        method.visitMethodInsn(INVOKEVIRTUAL, className, rootMethod, SELECTION_SET_DESCRIPTOR, false);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        while (!pendingSelectionSets.isEmpty()) {
+            Object[] pending = pendingSelectionSets.poll();
+            generateSelectionSet((SelectionPlan) pending[0], (ObjectType) pending[1], (String) pending[2]);
+        }
+
+        generateConstructor();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    // The constants live in final fields, which the constructor copies from an array
+    private void generateConstructor() {
+        for (int i = 0; i < constants.size(); i++) {
+            writer.visitField(ACC_PRIVATE | ACC_FINAL, "c" + i, descriptor(constantTypes.get(i)), null, null).visitEnd();
+        }
+
+        MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "<init>", "(L" + PACKAGE + "ExecutionEngine;[Ljava/lang/Object;)V", null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitMethodInsn(INVOKESPECIAL, COMPILED_OPERATION, "<init>", "(L" + PACKAGE + "ExecutionEngine;)V", false);
+        for (int i = 0; i < constants.size(); i++) {
+            method.visitVarInsn(ALOAD, 0);
+            method.visitVarInsn(ALOAD, 2);
+            method.visitLdcInsn(i);
+            method.visitInsn(AALOAD);
+            method.visitTypeInsn(CHECKCAST, constantTypes.get(i));
+            method.visitFieldInsn(PUTFIELD, className, "c" + i, descriptor(constantTypes.get(i)));
+        }
+        method.visitInsn(RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static String descriptor(String internalName) {
+        return internalName.startsWith("[") ? internalName : "L" + internalName + ";";
+    }
+
+    private void loadConstant(MethodVisitor method, Object constant, String type) {
+        Integer index = constantIndexes.get(constant);
+        if (index == null) {
+            index = constants.size();
+            constants.add(constant);
+            constantTypes.add(type);
+            constantIndexes.put(constant, index);
+        }
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, className, "c" + index, descriptor(constantTypes.get(index)));
+    }
+
+    // The shape of a selection set for an object type: the response names and shapes of its fields
+    private List<Object> shape(SelectionPlan selectionSet, ObjectType type) {
+        Map<ObjectType, List<Object>> typeShapes = shapes.computeIfAbsent(selectionSet, key -> new IdentityHashMap<>());
+        List<Object> shape = typeShapes.get(type);
+        if (shape == null) {
+            FieldPlan[] fields = selectionSet.fields(type);
+            shape = new ArrayList<>(fields.length * 2);
+            for (FieldPlan field : fields) {
+                shape.add(field.responseName);
+                shape.add(field.dispatch == null ? null : fieldShape(field));
+            }
+            typeShapes.put(type, shape);
+        }
+        return shape;
+    }
+
+    private List<Object> fieldShape(FieldPlan field) {
+        List<Object> selectionSetShapes = new ArrayList<>();
+        if (field.selectionSet != null) {
+            for (ObjectType type : compiledTypes(field)) {
+                selectionSetShapes.add(type);
+                selectionSetShapes.add(shape(field.selectionSet, type));
+            }
+        }
+        return Arrays.asList(field.dispatch, field.arguments != null, selectionSetShapes);
+    }
+
+    // The object types the generated code executes the field's selection set for by calling their methods
+    private static List<ObjectType> compiledTypes(FieldPlan field) {
+        Type type = SelectionPlan.namedType(field.dispatch.type);
+        List<ObjectType> types = new ArrayList<>();
+        for (ObjectType compiledType : field.selectionSet.compiledTypes()) {
+            if (type.getKind() != TypeKind.OBJECT || compiledType == type) {
+                types.add(compiledType);
+            }
+        }
+        return types;
+    }
+
+    private String selectionSetMethod(SelectionPlan selectionSet, ObjectType type) {
+        Map<List<Object>, String> methods = selectionSetMethods.computeIfAbsent(type, key -> new HashMap<>());
+        List<Object> shape = shape(selectionSet, type);
+        String name = methods.get(shape);
+        if (name == null) {
+            name = "s" + methodCount++;
+            methods.put(shape, name);
+            pendingSelectionSets.add(new Object[] { selectionSet, type, name });
+        }
+        return name;
+    }
+
+    private String fieldMethod(FieldPlan field) {
+        List<Object> shape = fieldShape(field);
+        String name = fieldMethods.get(shape);
+        if (name == null) {
+            name = "f" + methodCount++;
+            fieldMethods.put(shape, name);
+            generateField(field, name);
+        }
+        return name;
+    }
+
+    /**
+     * The method of a selection set for an object type, which calls the chunk methods that call the field methods and add their values to the
+     * result.
+     */
+    private void generateSelectionSet(SelectionPlan selectionSet, ObjectType type, String name) {
+        FieldPlan[] fields = selectionSet.fields(type);
+        String[] methods = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            methods[i] = fields[i].dispatch == null ? null : fieldMethod(fields[i]);
+        }
+
+        int chunkCount = (fields.length + FIELDS_PER_CHUNK - 1) / FIELDS_PER_CHUNK;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            MethodVisitor method = writer.visitMethod(ACC_PRIVATE, name + "_" + chunk, CHUNK_DESCRIPTOR, null, null);
+            method.visitCode();
+            for (int i = chunk * FIELDS_PER_CHUNK; i < Math.min(fields.length, (chunk + 1) * FIELDS_PER_CHUNK); i++) {
+                if (methods[i] == null) {
+                    method.visitVarInsn(ALOAD, 4);
+                    method.visitLdcInsn(fields[i].responseName);
+                    method.visitLdcInsn(type.getName());
+                    method.visitMethodInsn(INVOKEVIRTUAL, RESULT_OBJECT, "add", "(Ljava/lang/String;Ljava/lang/Object;)V", false);
+                    continue;
+                }
+
+                Label valid = new Label();
+                method.visitVarInsn(ALOAD, 0);
+                method.visitVarInsn(ALOAD, 1);
+                method.visitVarInsn(ALOAD, 2);
+                method.visitVarInsn(ALOAD, 3);
+                method.visitLdcInsn(i);
+                method.visitInsn(AALOAD);
+                method.visitMethodInsn(INVOKEVIRTUAL, className, methods[i], FIELD_DESCRIPTOR, false);
+                method.visitVarInsn(ASTORE, 5);
+                method.visitVarInsn(ALOAD, 5);
+                method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+                method.visitJumpInsn(IF_ACMPNE, valid);
+                method.visitInsn(ICONST_0);
+                method.visitInsn(IRETURN);
+                method.visitLabel(valid);
+                method.visitVarInsn(ALOAD, 4);
+                method.visitLdcInsn(fields[i].responseName);
+                method.visitVarInsn(ALOAD, 5);
+                method.visitMethodInsn(INVOKEVIRTUAL, RESULT_OBJECT, "add", "(Ljava/lang/String;Ljava/lang/Object;)V", false);
+            }
+            method.visitInsn(ICONST_1);
+            method.visitInsn(IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        MethodVisitor method = writer.visitMethod(ACC_PRIVATE, name, SELECTION_SET_DESCRIPTOR, null, null);
+        method.visitCode();
+        method.visitTypeInsn(NEW, RESULT_OBJECT);
+        method.visitInsn(DUP);
+        method.visitLdcInsn(fields.length);
+        method.visitMethodInsn(INVOKESPECIAL, RESULT_OBJECT, "<init>", "(I)V", false);
+        method.visitVarInsn(ASTORE, 4);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            Label valid = new Label();
+            method.visitVarInsn(ALOAD, 0);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitVarInsn(ALOAD, 2);
+            method.visitVarInsn(ALOAD, 3);
+            method.visitVarInsn(ALOAD, 4);
+            method.visitMethodInsn(INVOKEVIRTUAL, className, name + "_" + chunk, CHUNK_DESCRIPTOR, false);
+            method.visitJumpInsn(IFNE, valid);
+            method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+            method.visitInsn(ARETURN);
+            method.visitLabel(valid);
+        }
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 4);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "settle", "(L" + EXECUTION + ";L" + RESULT_OBJECT + ";)Ljava/lang/Object;", false);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    /**
+     * The method of a field, which coerces its arguments, calls its resolver, and completes the value, returning it or {@code INVALID} as
+     * {@link ExecutionEngine} does.
+     */
+    private void generateField(FieldPlan field, String name) {
+        MethodVisitor method = writer.visitMethod(ACC_PRIVATE, name, FIELD_DESCRIPTOR, null, null);
+        method.visitCode();
+
+        method.visitVarInsn(ALOAD, 1);
+        loadFieldPlan(method, "responseName", "Ljava/lang/String;");
+        method.visitMethodInsn(INVOKEVIRTUAL, EXECUTION, "push", "(Ljava/lang/Object;)V", false);
+
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label handler = new Label();
+        Label complete = new Label();
+        Label done = new Label();
+        method.visitTryCatchBlock(tryStart, tryEnd, handler, "java/lang/Exception");
+        method.visitLabel(tryStart);
+        if (field.arguments != null) {
+            loadFieldPlan(method, "arguments", "Ljava/util/Map;");
+        } else {
+            method.visitVarInsn(ALOAD, 0);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitVarInsn(ALOAD, 3);
+            method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "arguments", HELPER_PARAMETERS + ")Ljava/util/Map;", false);
+        }
+        method.visitVarInsn(ASTORE, ARGUMENTS);
+        loadConstant(method, field.dispatch.resolver, FIELD_RESOLVER);
+        method.visitTypeInsn(NEW, FIELD_CONTEXT);
+        method.visitInsn(DUP);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitVarInsn(ALOAD, ARGUMENTS);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitMethodInsn(INVOKESPECIAL, FIELD_CONTEXT, "<init>", "(Ljava/lang/Object;Ljava/util/Map;L" + FIELD_PLAN + ";L" + EXECUTION + ";)V",
+                false);
+        method.visitInsn(DUP);
+        method.visitVarInsn(ASTORE, CONTEXT);
+        method.visitMethodInsn(INVOKEINTERFACE, FIELD_RESOLVER, "resolve", "(L" + FIELD_CONTEXT + ";)Ljava/lang/Object;", true);
+        method.visitVarInsn(ASTORE, VALUE);
+        method.visitLabel(tryEnd);
+        method.visitJumpInsn(GOTO, complete);
+
+        method.visitLabel(handler);
+        method.visitVarInsn(ASTORE, EXCEPTION);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ALOAD, EXCEPTION);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "fieldError", HELPER_PARAMETERS + "Ljava/lang/Exception;)Ljava/lang/Object;",
+                false);
+        method.visitVarInsn(ASTORE, VALUE);
+        method.visitJumpInsn(GOTO, done);
+
+        method.visitLabel(complete);
+        Label resolved = new Label();
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitTypeInsn(INSTANCEOF, "java/util/concurrent/CompletableFuture");
+        method.visitJumpInsn(IFEQ, resolved);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ALOAD, CONTEXT);
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "deferred", HELPER_PARAMETERS + "L" + FIELD_CONTEXT
+                + ";Ljava/lang/Object;)Ljava/lang/Object;", false);
+        method.visitVarInsn(ASTORE, VALUE);
+        method.visitJumpInsn(GOTO, done);
+
+        method.visitLabel(resolved);
+        generateCompletion(method, field);
+        method.visitLabel(done);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitMethodInsn(INVOKEVIRTUAL, EXECUTION, "pop", "()V", false);
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private void loadFieldPlan(MethodVisitor method, String name, String descriptor) {
+        method.visitVarInsn(ALOAD, 3);
+        method.visitFieldInsn(GETFIELD, FIELD_PLAN, name, descriptor);
+    }
+
+    // Completes the value in VALUE in place
+    private void generateCompletion(MethodVisitor method, FieldPlan field) {
+        Type type = field.dispatch.type;
+        boolean nonNull = type.getKind() == TypeKind.NON_NULL;
+        Type nullableType = nonNull ? ((NonNullType) type).getOfType() : type;
+
+        if (isComposite(nullableType)) {
+            generateComposite(method, field, nullableType, nonNull, VALUE);
+            return;
+        } else if (nullableType.getKind() == TypeKind.LIST) {
+            Type itemType = ((ListType) nullableType).getOfType();
+            boolean itemNonNull = itemType.getKind() == TypeKind.NON_NULL;
+            Type nullableItemType = itemNonNull ? ((NonNullType) itemType).getOfType() : itemType;
+            if (isComposite(nullableItemType)) {
+                generateList(method, field, nonNull, nullableItemType, itemNonNull);
+                return;
+            }
+        }
+
+        // Scalars, enums, and nested lists complete as the engine completes them
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "complete", HELPER_PARAMETERS + "Ljava/lang/Object;)Ljava/lang/Object;", false);
+        method.visitVarInsn(ASTORE, VALUE);
+    }
+
+    private static boolean isComposite(Type type) {
+        return type.getKind() == TypeKind.OBJECT || type.getKind() == TypeKind.INTERFACE || type.getKind() == TypeKind.UNION;
+    }
+
+    // Completes a value of object, interface or union type in the local in place
+    private void generateComposite(MethodVisitor method, FieldPlan field, Type type, boolean nonNull, int local) {
+        Label isNull = new Label();
+        Label completed = new Label();
+        Label done = new Label();
+        method.visitVarInsn(ALOAD, local);
+        method.visitJumpInsn(IFNULL, isNull);
+
+        List<ObjectType> compiledTypes = compiledTypes(field);
+        if (type.getKind() == TypeKind.OBJECT) {
+            generateObject(method, field, (ObjectType) type, !compiledTypes.isEmpty(), local);
+        } else {
+            Label resolved = new Label();
+            method.visitVarInsn(ALOAD, 0);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitVarInsn(ALOAD, 3);
+            method.visitVarInsn(ALOAD, local);
+            method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "resolveType", HELPER_PARAMETERS + "Ljava/lang/Object;)L" + OBJECT_TYPE + ";",
+                    false);
+            method.visitVarInsn(ASTORE, RESOLVED_TYPE);
+            method.visitVarInsn(ALOAD, RESOLVED_TYPE);
+            method.visitJumpInsn(IFNONNULL, resolved);
+            method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+            method.visitVarInsn(ASTORE, local);
+            method.visitJumpInsn(GOTO, completed);
+
+            method.visitLabel(resolved);
+            for (ObjectType objectType : compiledTypes) {
+                Label next = new Label();
+                method.visitVarInsn(ALOAD, RESOLVED_TYPE);
+                loadConstant(method, objectType, OBJECT_TYPE);
+                method.visitJumpInsn(IF_ACMPNE, next);
+                generateObject(method, field, objectType, true, local);
+                method.visitJumpInsn(GOTO, completed);
+                method.visitLabel(next);
+            }
+            generateObject(method, field, null, false, local);
+        }
+
+        method.visitLabel(completed);
+        if (!nonNull) {
+            generateNullable(method, local);
+        }
+        method.visitJumpInsn(GOTO, done);
+
+        method.visitLabel(isNull);
+        if (nonNull) {
+            generateNullError(method, local);
+        }
+        method.visitLabel(done);
+    }
+
+    // A nullable position is null where its value is INVALID, now or once deferred values are complete
+    private void generateNullable(MethodVisitor method, int local) {
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, local);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "nullable", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+        method.visitVarInsn(ASTORE, local);
+    }
+
+    /**
+     * Executes the field's selection set on the object in the local, into the local: by calling the method generated for the type if
+     * {@code compiled}, otherwise through the engine with the type, or the one in {@link #RESOLVED_TYPE} if {@code null}.
+     */
+    private void generateObject(MethodVisitor method, FieldPlan field, ObjectType type, boolean compiled, int local) {
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        if (compiled) {
+            method.visitVarInsn(ALOAD, local);
+            loadFieldPlan(method, "selectionSet", "L" + SELECTION_PLAN + ";");
+            loadConstant(method, type, OBJECT_TYPE);
+            method.visitMethodInsn(INVOKEVIRTUAL, SELECTION_PLAN, "fields", "(L" + OBJECT_TYPE + ";)" + FIELD_PLANS, false);
+            method.visitMethodInsn(INVOKEVIRTUAL, className, selectionSetMethod(field.selectionSet, type), SELECTION_SET_DESCRIPTOR, false);
+        } else {
+            method.visitVarInsn(ALOAD, 3);
+            if (type != null) {
+                loadConstant(method, type, OBJECT_TYPE);
+            } else {
+                method.visitVarInsn(ALOAD, RESOLVED_TYPE);
+            }
+            method.visitVarInsn(ALOAD, local);
+            method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "executeSelectionSet", HELPER_PARAMETERS + "L" + OBJECT_TYPE
+                    + ";Ljava/lang/Object;)Ljava/lang/Object;", false);
+        }
+        method.visitVarInsn(ASTORE, local);
+    }
+
+    private void generateNullError(MethodVisitor method, int local) {
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "nullError", HELPER_PARAMETERS + ")Ljava/lang/Object;", false);
+        method.visitVarInsn(ASTORE, local);
+    }
+
+    // Completes a list of values of object, interface or union type in VALUE in place
+    private void generateList(MethodVisitor method, FieldPlan field, boolean nonNull, Type itemType, boolean itemNonNull) {
+        Label isNull = new Label();
+        Label iterable = new Label();
+        Label loop = new Label();
+        Label end = new Label();
+        Label completed = new Label();
+        Label done = new Label();
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitJumpInsn(IFNULL, isNull);
+
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ALOAD, VALUE);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "iterator", HELPER_PARAMETERS + "Ljava/lang/Object;)Ljava/util/Iterator;", false);
+        method.visitVarInsn(ASTORE, ITERATOR);
+        method.visitVarInsn(ALOAD, ITERATOR);
+        method.visitJumpInsn(IFNONNULL, iterable);
+        method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+        method.visitVarInsn(ASTORE, VALUE);
+        method.visitJumpInsn(GOTO, completed);
+
+        method.visitLabel(iterable);
+        method.visitTypeInsn(NEW, "java/util/ArrayList");
+        method.visitInsn(DUP);
+        method.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+        method.visitVarInsn(ASTORE, ITEMS);
+        method.visitInsn(ICONST_0);
+        method.visitVarInsn(ISTORE, INDEX);
+
+        method.visitLabel(loop);
+        method.visitVarInsn(ALOAD, ITERATOR);
+        method.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+        method.visitJumpInsn(IFEQ, end);
+        method.visitVarInsn(ALOAD, ITERATOR);
+        method.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+        method.visitVarInsn(ASTORE, ITEM);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ILOAD, INDEX);
+        method.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
+        method.visitMethodInsn(INVOKEVIRTUAL, EXECUTION, "push", "(Ljava/lang/Object;)V", false);
+        method.visitIincInsn(INDEX, 1);
+        generateComposite(method, field, itemType, itemNonNull, ITEM);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitMethodInsn(INVOKEVIRTUAL, EXECUTION, "pop", "()V", false);
+        method.visitVarInsn(ALOAD, ITEMS);
+        method.visitVarInsn(ALOAD, ITEM);
+        method.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+        method.visitInsn(POP);
+        method.visitVarInsn(ALOAD, ITEM);
+        method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+        method.visitJumpInsn(IF_ACMPNE, loop);
+        method.visitFieldInsn(GETSTATIC, COMPILED_OPERATION, "INVALID", "Ljava/lang/Object;");
+        method.visitVarInsn(ASTORE, VALUE);
+        method.visitJumpInsn(GOTO, completed);
+
+        method.visitLabel(end);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ALOAD, ITEMS);
+        method.visitMethodInsn(INVOKEVIRTUAL, COMPILED_OPERATION, "settle", "(L" + EXECUTION + ";Ljava/util/List;)Ljava/lang/Object;", false);
+        method.visitVarInsn(ASTORE, VALUE);
+
+        method.visitLabel(completed);
+        if (!nonNull) {
+            generateNullable(method, VALUE);
+        }
+        method.visitJumpInsn(GOTO, done);
+
+        method.visitLabel(isNull);
+        if (nonNull) {
+            generateNullError(method, VALUE);
+        }
+        method.visitLabel(done);
+    }
+}
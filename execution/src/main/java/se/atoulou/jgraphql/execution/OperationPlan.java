@@ -0,0 +1,160 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Directive;
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
+import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
+import se.atoulou.jgraphql.models.query.VariableDefinition;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+
+/**
+ * An operation of a document compiled for execution by one {@link ExecutionEngine}, which walks it instead of the document. The engine caches a
+ * plan per operation of the documents it executes; {@link ExecutionEngine#plan(QueryDocument, String)} hands one out to keep alongside a parsed
+ * persisted query.
+ * <p>
+ * The plan holds the operation's variable types resolved, and its selection sets compiled as they are first executed: fragments inlined, fields
+ * collected and merged per object type, arguments without variables coerced, and dispatch bound. {@code @skip} and {@code @include} conditions on
+ * variables select fields, so the selection sets are compiled once per combination of the condition variables' values an execution uses.
+ */
+public final class OperationPlan {
+    // Operations with more condition variables than this compile their selection sets in every execution
+    private static final int MAXIMUM_CONDITION_VARIABLES = 6;
+
+    final ExecutionEngine engine;
+    final QueryDocument   document;
+    final ObjectType      rootType;
+
+    final String[] variableNames;
+    final String[] variableReferences;
+    final Type[]   variableTypes;
+    final Value[]  variableDefaults;
+
+    // The variables @skip and @include conditions refer to, whose values index the compiled root selection sets
+    final String[] conditionVariables;
+
+    private final OperationDefinition                 operation;
+    private final Map<String, FragmentDefinition>     fragments;
+    private final AtomicReferenceArray<SelectionPlan> rootSelectionSets;
+
+    OperationPlan(ExecutionEngine engine, QueryDocument document, OperationDefinition operation, ObjectType rootType) {
+        this.engine = engine;
+        this.document = document;
+        this.operation = operation;
+        this.rootType = rootType;
+
+        this.fragments = new HashMap<>();
+        for (FragmentDefinition fragment : document.getFragments()) {
+            fragments.put(fragment.getName(), fragment);
+        }
+
+        List<VariableDefinition> definitions = operation.getVariableDefinitions();
+        this.variableNames = new String[definitions.size()];
+        this.variableReferences = new String[definitions.size()];
+        this.variableTypes = new Type[definitions.size()];
+        this.variableDefaults = new Value[definitions.size()];
+        for (int i = 0; i < definitions.size(); i++) {
+            VariableDefinition definition = definitions.get(i);
+            variableNames[i] = definition.getVariable().substring(1);
+            variableReferences[i] = definition.getType();
+            variableTypes[i] = engine.getTypeReferences().resolve(definition.getType());
+            variableDefaults[i] = definition.getDefaultValue();
+        }
+
+        List<String> conditionVariables = new ArrayList<>();
+        collectConditionVariables(operation.getSelectionSet(), conditionVariables, new ArrayList<>());
+        this.conditionVariables = conditionVariables.toArray(new String[conditionVariables.size()]);
+        this.rootSelectionSets = this.conditionVariables.length <= MAXIMUM_CONDITION_VARIABLES
+                ? new AtomicReferenceArray<>(1 << this.conditionVariables.length) : null;
+    }
+
+    public OperationDefinition getOperation() {
+        return operation;
+    }
+
+    public QueryDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * @return the type of the operation's root fields, or {@code null} if the schema has none for queries or mutations respectively
+     */
+    public ObjectType getRootType() {
+        return rootType;
+    }
+
+    FragmentDefinition fragment(String name) {
+        return fragments.get(name);
+    }
+
+    int conditionVariable(String name) {
+        for (int i = 0; i < conditionVariables.length; i++) {
+            if (conditionVariables[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Not a condition variable: " + name);
+    }
+
+    /**
+     * @param conditions
+     *            the values of the {@link #conditionVariables}, one bit each
+     */
+    SelectionPlan rootSelectionSet(long conditions) {
+        if (rootSelectionSets == null) {
+            return new SelectionPlan(this, conditions, operation.getSelectionSet());
+        }
+        SelectionPlan selectionSet = rootSelectionSets.get((int) conditions);
+        if (selectionSet == null) {
+            rootSelectionSets.compareAndSet((int) conditions, null, new SelectionPlan(this, conditions, operation.getSelectionSet()));
+            selectionSet = rootSelectionSets.get((int) conditions);
+        }
+        return selectionSet;
+    }
+
+    private void collectConditionVariables(List<Selection> selectionSet, List<String> variables, List<String> visitedFragments) {
+        for (Selection selection : selectionSet) {
+            for (Directive directive : selection.getDirectives()) {
+                if (directive.getName().equals("skip") || directive.getName().equals("include")) {
+                    for (Argument argument : directive.getArguments()) {
+                        Value value = argument.getValue();
+                        if (value.getKind() == Value.ValueKind.VARIABLE && !variables.contains(((VariableRef) value).getName())) {
+                            variables.add(((VariableRef) value).getName());
+                        }
+                    }
+                }
+            }
+
+            switch (selection.getKind()) {
+            case FIELD:
+                collectConditionVariables(((SelectionField) selection).getSelectionSet(), variables, visitedFragments);
+                break;
+            case FRAGMENT_SPREAD: {
+                String name = ((FragmentSpread) selection).getName();
+                FragmentDefinition fragment = fragments.get(name);
+                if (fragment != null && !visitedFragments.contains(name)) {
+                    visitedFragments.add(name);
+                    collectConditionVariables(fragment.getSelectionSet(), variables, visitedFragments);
+                }
+                break;
+            }
+            case INLINE_FRAGMENT:
+                collectConditionVariables(((InlineFragment) selection).getSelectionSet(), variables, visitedFragments);
+                break;
+            }
+        }
+    }
+}
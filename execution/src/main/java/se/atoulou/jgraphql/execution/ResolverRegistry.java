@@ -0,0 +1,158 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * The {@link FieldResolver}s of a schema's object type fields and the {@link TypeResolver}s of its abstract types, by type and field name, and the
+ * {@link BatchLoader}s and {@link AsyncBatchLoader}s of the {@link DataLoader}s resolvers share, by name.
+ * <p>
+ * Fields without a resolver use the default one, which reads the field's name from a {@link Map} source. Abstract types without a type resolver use
+ * the default one, which reads the {@code __typename} entry of a {@link Map} value. Neither uses reflection; register resolvers for fields of plain
+ * Java objects.
+ */
+public final class ResolverRegistry {
+    public static final FieldResolver MAP_RESOLVER = context -> {
+        Object source = context.getSource();
+        return source instanceof Map ? ((Map<?, ?>) source).get(context.getFieldName()) : null;
+    };
+
+    public static final TypeResolver MAP_TYPE_RESOLVER = value -> {
+        Object typeName = value instanceof Map ? ((Map<?, ?>) value).get("__typename") : null;
+        return typeName instanceof String ? (String) typeName : null;
+    };
+
+    private final Map<String, Map<String, FieldResolver>>            fieldResolvers;
+    private final Map<String, TypeResolver>                          typeResolvers;
+    private final Map<String, Function<Execution, DataLoader<?, ?>>> dataLoaders;
+    private final FieldResolver                                      defaultFieldResolver;
+    private final TypeResolver                                       defaultTypeResolver;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ResolverRegistry(Builder builder) {
+        this.fieldResolvers = new HashMap<>();
+        for (Map.Entry<String, Map<String, FieldResolver>> entry : builder.fieldResolvers.entrySet()) {
+            this.fieldResolvers.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+        this.typeResolvers = new HashMap<>(builder.typeResolvers);
+        this.dataLoaders = new HashMap<>(builder.dataLoaders);
+        this.defaultFieldResolver = builder.defaultFieldResolver;
+        this.defaultTypeResolver = builder.defaultTypeResolver;
+    }
+
+    /**
+     * @return the resolver registered for the field, or the default one
+     */
+    public FieldResolver getFieldResolver(String typeName, String fieldName) {
+        Map<String, FieldResolver> resolvers = fieldResolvers.get(typeName);
+        FieldResolver resolver = resolvers == null ? null : resolvers.get(fieldName);
+        return resolver != null ? resolver : defaultFieldResolver;
+    }
+
+    /**
+     * @return the resolver registered for the interface or union type, or the default one
+     */
+    public TypeResolver getTypeResolver(String typeName) {
+        TypeResolver resolver = typeResolvers.get(typeName);
+        return resolver != null ? resolver : defaultTypeResolver;
+    }
+
+    /**
+     * @return a new data loader of the batch loader registered under the name, or {@code null} if there is none
+     */
+    DataLoader<?, ?> newDataLoader(String name, Execution execution) {
+        Function<Execution, DataLoader<?, ?>> dataLoader = dataLoaders.get(name);
+        return dataLoader == null ? null : dataLoader.apply(execution);
+    }
+
+    public static class Builder {
+        private final Map<String, Map<String, FieldResolver>>            fieldResolvers;
+        private final Map<String, TypeResolver>                          typeResolvers;
+        private final Map<String, Function<Execution, DataLoader<?, ?>>> dataLoaders;
+        private FieldResolver                                            defaultFieldResolver;
+        private TypeResolver                                             defaultTypeResolver;
+
+        protected Builder() {
+            fieldResolvers = new HashMap<>();
+            typeResolvers = new HashMap<>();
+            dataLoaders = new HashMap<>();
+            defaultFieldResolver = MAP_RESOLVER;
+            defaultTypeResolver = MAP_TYPE_RESOLVER;
+        }
+
+        public ResolverRegistry build() {
+            return new ResolverRegistry(this);
+        }
+
+        public Builder fieldResolver(String typeName, String fieldName, FieldResolver resolver) {
+            fieldResolvers.computeIfAbsent(typeName, name -> new HashMap<>()).put(fieldName, resolver);
+            return this;
+        }
+
+        /**
+         * Registers a resolver returning {@link CompletionStage}s, which the engine waits for as it does for {@link CompletableFuture}s.
+         */
+        public Builder asyncFieldResolver(String typeName, String fieldName, AsyncFieldResolver resolver) {
+            return fieldResolver(typeName, fieldName, context -> {
+                CompletionStage<?> stage = resolver.resolve(context);
+                return stage == null ? null : stage.toCompletableFuture();
+            });
+        }
+
+        public Builder typeResolver(String typeName, TypeResolver resolver) {
+            typeResolvers.put(typeName, resolver);
+            return this;
+        }
+
+        /**
+         * Registers a batch loader, whose {@link DataLoader} resolvers get from {@link FieldContext#getDataLoader(String)}, one per request.
+         */
+        public <K, V> Builder dataLoader(String name, BatchLoader<K, V> batchLoader) {
+            return dataLoader(name, batchLoader, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param maximumBatchSize
+         *            the most keys to load in one call of the batch loader
+         */
+        public <K, V> Builder dataLoader(String name, BatchLoader<K, V> batchLoader, int maximumBatchSize) {
+            return asyncDataLoader(name, (List<K> keys) -> CompletableFuture.completedFuture(batchLoader.load(keys)), maximumBatchSize);
+        }
+
+        /**
+         * Registers a batch loader returning {@link CompletionStage}s, so that dispatching a batch does not block the execution.
+         */
+        public <K, V> Builder asyncDataLoader(String name, AsyncBatchLoader<K, V> batchLoader) {
+            return asyncDataLoader(name, batchLoader, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param maximumBatchSize
+         *            the most keys to load in one call of the batch loader
+         */
+        public <K, V> Builder asyncDataLoader(String name, AsyncBatchLoader<K, V> batchLoader, int maximumBatchSize) {
+            if (maximumBatchSize <= 0) {
+                throw new IllegalArgumentException("maximumBatchSize must be positive: " + maximumBatchSize);
+            }
+            dataLoaders.put(name, execution -> new DataLoader<>(batchLoader, maximumBatchSize, execution));
+            return this;
+        }
+
+        public Builder defaultFieldResolver(FieldResolver resolver) {
+            this.defaultFieldResolver = resolver;
+            return this;
+        }
+
+        public Builder defaultTypeResolver(TypeResolver resolver) {
+            this.defaultTypeResolver = resolver;
+            return this;
+        }
+    }
+}
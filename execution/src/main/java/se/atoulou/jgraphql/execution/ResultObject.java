@@ -0,0 +1,112 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The result of a selection set: response names mapped to values, in the order the query selected them. Values are {@code null}, the serialized
+ * scalars and enum names, {@link java.util.List}s, and nested result objects.
+ * <p>
+ * Entries live in two parallel arrays rather than a hash table, as a selection set has few fields and results are written once and read once by
+ * a serializer; {@link #getName(int)} and {@link #getValue(int)} read them without iterating entries. The map is read-only.
+ */
+public final class ResultObject extends AbstractMap<String, Object> {
+    private String[] names;
+    private Object[] values;
+    private int      size;
+
+    ResultObject(int capacity) {
+        this.names = new String[Math.max(capacity, 1)];
+        this.values = new Object[names.length];
+    }
+
+    void add(String name, Object value) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
+
+    // Replaces the placeholder of a deferred value
+    void set(int index, Object value) {
+        values[index] = value;
+    }
+
+    public String getName(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        return names[index];
+    }
+
+    public Object getValue(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(names[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,285 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Directive;
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
+import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+
+/**
+ * A selection set compiled for the object types it is executed on: fragment spreads inlined, {@code @skip} and {@code @include} applied, fields
+ * collected under their response names with the selection sets of repeated fields merged, and each bound to its dispatch.
+ * <p>
+ * The fields differ by object type only for selection sets on interfaces and unions, where type conditions pick fragments. They are compiled the
+ * first time an object of a type reaches the selection set, as abstract types of large schemas have more possible types than a query ever meets,
+ * and kept in a small array that executions scan without locking.
+ */
+final class SelectionPlan {
+    private final OperationPlan   operation;
+    private final long            conditions;
+    private final List<Selection> selectionSet;
+
+    private volatile Compiled compiled;
+
+    // For root selection sets: executions so far, and the operation compiled to bytecode once they pass the engine's threshold
+    private int                        executions;
+    private volatile boolean           compilationAttempted;
+    private volatile CompiledOperation compiledOperation;
+
+    /**
+     * @param conditions
+     *            the values of the operation's {@link OperationPlan#conditionVariables}, one bit each
+     */
+    SelectionPlan(OperationPlan operation, long conditions, List<Selection> selectionSet) {
+        this.operation = operation;
+        this.conditions = conditions;
+        this.selectionSet = selectionSet;
+        this.compiled = new Compiled(new ObjectType[0], new FieldPlan[0][]);
+    }
+
+    FieldPlan[] fields(ObjectType type) {
+        Compiled compiled = this.compiled;
+        for (int i = 0; i < compiled.types.length; i++) {
+            if (compiled.types[i] == type) {
+                return compiled.fields[i];
+            }
+        }
+        return compile(type);
+    }
+
+    /**
+     * @return the object types the selection set has been compiled for so far
+     */
+    ObjectType[] compiledTypes() {
+        return compiled.types;
+    }
+
+    /**
+     * Counts an execution of this root selection set, compiling the operation to bytecode when the count reaches {@code threshold}. By then the
+     * selection sets are compiled for the object types executions meet.
+     *
+     * @return the compiled operation, or {@code null} to walk the plan
+     */
+    CompiledOperation compiledOperation(ObjectType type, int threshold) {
+        CompiledOperation compiledOperation = this.compiledOperation;
+        if (compiledOperation != null || compilationAttempted) {
+            return compiledOperation;
+        }
+        // Racy, so concurrent executions may lose counts, which only delays compilation
+        if (++executions < threshold) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (!compilationAttempted) {
+                this.compiledOperation = OperationCompiler.compile(operation.engine, this, type);
+                compilationAttempted = true;
+            }
+            return this.compiledOperation;
+        }
+    }
+
+    private synchronized FieldPlan[] compile(ObjectType type) {
+        Compiled compiled = this.compiled;
+        for (int i = 0; i < compiled.types.length; i++) {
+            if (compiled.types[i] == type) {
+                return compiled.fields[i];
+            }
+        }
+
+        Map<String, List<SelectionField>> collected = new LinkedHashMap<>();
+        collectFields(type, selectionSet, collected, new ArrayList<>());
+
+        List<FieldPlan> fields = new ArrayList<>(collected.size());
+        for (Map.Entry<String, List<SelectionField>> entry : collected.entrySet()) {
+            FieldPlan field = fieldPlan(type, entry.getKey(), entry.getValue());
+            if (field != null) {
+                fields.add(field);
+            }
+        }
+        FieldPlan[] plans = fields.toArray(new FieldPlan[fields.size()]);
+
+        int count = compiled.types.length;
+        ObjectType[] types = Arrays.copyOf(compiled.types, count + 1);
+        FieldPlan[][] typeFields = Arrays.copyOf(compiled.fields, count + 1);
+        types[count] = type;
+        typeFields[count] = plans;
+        this.compiled = new Compiled(types, typeFields);
+        return plans;
+    }
+
+    // Fields the schema does not define, such as introspection fields other than __typename, are left out
+    private FieldPlan fieldPlan(ObjectType type, String responseName, List<SelectionField> selections) {
+        SelectionField selection = selections.get(0);
+        if (selection.getName().equals("__typename")) {
+            return new FieldPlan(responseName, null, selection, Collections.emptyMap(), null, null);
+        }
+        FieldDispatch dispatch = operation.engine.fieldDispatch(type, selection.getName());
+        if (dispatch == null) {
+            return null;
+        }
+
+        Map<String, Object> arguments = null;
+        String argumentError = null;
+        if (isConstant(selection.getArguments())) {
+            try {
+                Map<String, Object> coerced = Coercion.coerceArguments(operation.engine, dispatch, selection.getArguments(), Collections.emptyMap());
+                // Shared by every execution, so resolvers must not be able to change them
+                arguments = coerced.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(coerced);
+            } catch (CoercionException e) {
+                argumentError = e.getMessage();
+            }
+        }
+
+        SelectionPlan selectionSet = null;
+        switch (namedType(dispatch.type).getKind()) {
+        case OBJECT:
+        case INTERFACE:
+        case UNION:
+            selectionSet = new SelectionPlan(operation, conditions, mergeSelectionSets(selections));
+            break;
+        default:
+            break;
+        }
+        return new FieldPlan(responseName, dispatch, selection, arguments, argumentError, selectionSet);
+    }
+
+    private static boolean isConstant(List<Argument> arguments) {
+        for (Argument argument : arguments) {
+            if (!Coercion.isConstant(argument.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Type namedType(Type type) {
+        while (true) {
+            switch (type.getKind()) {
+            case NON_NULL:
+                type = ((NonNullType) type).getOfType();
+                break;
+            case LIST:
+                type = ((ListType) type).getOfType();
+                break;
+            default:
+                return type;
+            }
+        }
+    }
+
+    // A field selected under the same response name more than once has the union of the selection sets
+    private static List<Selection> mergeSelectionSets(List<SelectionField> selections) {
+        if (selections.size() == 1) {
+            return selections.get(0).getSelectionSet();
+        }
+        List<Selection> merged = new ArrayList<>();
+        for (SelectionField selection : selections) {
+            merged.addAll(selection.getSelectionSet());
+        }
+        return merged;
+    }
+
+    private void collectFields(ObjectType type, List<Selection> selectionSet, Map<String, List<SelectionField>> fields,
+            List<String> visitedFragments) {
+        for (Selection selection : selectionSet) {
+            if (!included(selection.getDirectives())) {
+                continue;
+            }
+
+            switch (selection.getKind()) {
+            case FIELD: {
+                SelectionField field = (SelectionField) selection;
+                String responseName = field.getAlias() != null ? field.getAlias() : field.getName();
+                List<SelectionField> selections = fields.get(responseName);
+                if (selections == null) {
+                    fields.put(responseName, selections = new ArrayList<>(1));
+                }
+                selections.add(field);
+                break;
+            }
+            case FRAGMENT_SPREAD: {
+                String name = ((FragmentSpread) selection).getName();
+                if (visitedFragments.contains(name)) {
+                    continue;
+                }
+                visitedFragments.add(name);
+
+                FragmentDefinition fragment = operation.fragment(name);
+                if (fragment != null && appliesTo(fragment.getTypeCondition(), type)) {
+                    collectFields(type, fragment.getSelectionSet(), fields, visitedFragments);
+                }
+                break;
+            }
+            case INLINE_FRAGMENT: {
+                InlineFragment fragment = (InlineFragment) selection;
+                if (appliesTo(fragment.getTypeCondition(), type)) {
+                    collectFields(type, fragment.getSelectionSet(), fields, visitedFragments);
+                }
+                break;
+            }
+            }
+        }
+    }
+
+    private boolean appliesTo(String typeCondition, ObjectType type) {
+        if (typeCondition == null) {
+            return true;
+        }
+        Type conditionType = operation.engine.getSchema().getType(typeCondition);
+        return conditionType != null && operation.engine.getSchema().isPossibleType(conditionType, type);
+    }
+
+    // Whether @skip and @include let the selection through
+    private boolean included(List<Directive> directives) {
+        for (Directive directive : directives) {
+            if (directive.getName().equals("skip") && condition(directive)) {
+                return false;
+            } else if (directive.getName().equals("include") && !condition(directive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean condition(Directive directive) {
+        for (Argument argument : directive.getArguments()) {
+            if (argument.getName().equals("if")) {
+                Value value = argument.getValue();
+                if (value.getKind() == Value.ValueKind.VARIABLE) {
+                    int index = operation.conditionVariable(((VariableRef) value).getName());
+                    return (conditions & (1L << index)) != 0;
+                }
+                return value.getKind() == Value.ValueKind.BOOLEAN && ((BooleanValue) value).getValue();
+            }
+        }
+        return false;
+    }
+
+    // Replaced as a whole when a type is added, so executions read a consistent pair of arrays
+    private static final class Compiled {
+        final ObjectType[]  types;
+        final FieldPlan[][] fields;
+
+        Compiled(ObjectType[] types, FieldPlan[][] fields) {
+            this.types = types;
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import se.atoulou.jgraphql.models.schema.EnumValue;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.EnumType;
+import se.atoulou.jgraphql.models.schema.Type.InputObjectType;
+
+/**
+ * What executing values of one named type needs, prepared once per schema and found by the type's id: the fields of an object type, the type
+ * resolver of an interface or union, the value names of an enum, the coerced default values of an input object's fields.
+ */
+final class TypeDispatch {
+    final Type                       type;
+    final Map<String, FieldDispatch> fields;
+    final TypeResolver               typeResolver;
+    final Set<String>                enumValues;
+    // By input field, in the order of the type's fields, with FieldDispatch.NO_DEFAULT for those without one. Set by the engine while it is
+    // built, once every input object has its dispatch, as a default may hold input objects with defaults of their own
+    Object[]                         inputFieldDefaults;
+
+    private TypeDispatch(Type type, Map<String, FieldDispatch> fields, TypeResolver typeResolver, Set<String> enumValues) {
+        this.type = type;
+        this.fields = fields;
+        this.typeResolver = typeResolver;
+        this.enumValues = enumValues;
+    }
+
+    static TypeDispatch object(Type type) {
+        return new TypeDispatch(type, new HashMap<>(), null, null);
+    }
+
+    static TypeDispatch abstractType(Type type, TypeResolver typeResolver) {
+        return new TypeDispatch(type, null, typeResolver, null);
+    }
+
+    static TypeDispatch enumType(EnumType type) {
+        Set<String> enumValues = new HashSet<>();
+        for (EnumValue enumValue : type.getEnumValues()) {
+            enumValues.add(enumValue.getName());
+        }
+        return new TypeDispatch(type, null, null, enumValues);
+    }
+
+    static TypeDispatch inputObject(InputObjectType type) {
+        return new TypeDispatch(type, null, null, null);
+    }
+}
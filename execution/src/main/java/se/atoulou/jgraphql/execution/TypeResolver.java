@@ -0,0 +1,12 @@
+package se.atoulou.jgraphql.execution;
+
+/**
+ * Names the object type of a value returned for a field of interface or union type, registered per abstract type in a {@link ResolverRegistry}.
+ */
+@FunctionalInterface
+public interface TypeResolver {
+    /**
+     * @return the name of an object type that is a possible type of the abstract type
+     */
+    String resolveType(Object value);
+}
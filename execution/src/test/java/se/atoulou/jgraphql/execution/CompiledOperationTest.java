@@ -0,0 +1,132 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Executes each query with an engine that walks the plans and one that compiles them on first execution, and expects both to give the same,
+ * expected, result.
+ */
+public class CompiledOperationTest extends TestCase {
+    private static final String SDL = "interface Character { id: String! name: String friends: [Character] }\n"
+            + "type Human : Character { id: String! name: String friends: [Character] mass: Float }\n"
+            + "type Droid : Character { id: String! name: String friends: [Character] primaryFunction: String }\n"
+            + "union Thing = Human | Droid\n"
+            + "type Query { hero: Character things: [Thing] humans: [Human!] broken: Human! later: Character laterName: String!"
+            + " boom: String }\n";
+
+    private ExecutionEngine interpreted;
+    private ExecutionEngine compiled;
+
+    @Override
+    protected void setUp() {
+        Map<String, Object> luke = object("Human", "1000", "Luke");
+        luke.put("mass", 77.0);
+        Map<String, Object> r2 = object("Droid", "2001", "R2-D2");
+        r2.put("primaryFunction", "Astromech");
+        Map<String, Object> nameless = object("Human", null, "Nameless");
+        luke.put("friends", Arrays.asList(r2, null, nameless));
+        r2.put("friends", Arrays.asList(luke));
+
+        Schema schema = ParseHelper.parseSchema(SDL);
+        ResolverRegistry resolvers = ResolverRegistry.builder()
+                .fieldResolver("Query", "hero", context -> luke)
+                .fieldResolver("Query", "things", context -> Arrays.asList(r2, luke))
+                .fieldResolver("Query", "humans", context -> Arrays.asList(luke, null))
+                .fieldResolver("Query", "broken", context -> nameless)
+                .asyncFieldResolver("Query", "later", context -> CompletableFuture.supplyAsync(() -> r2))
+                .asyncFieldResolver("Query", "laterName", context -> CompletableFuture.supplyAsync(() -> null))
+                .fieldResolver("Query", "boom", context -> {
+                    throw new IllegalStateException("boom");
+                })
+                .build();
+        interpreted = new ExecutionEngine(schema, resolvers, 64, 0);
+        compiled = new ExecutionEngine(schema, resolvers, 64, 1);
+    }
+
+    public void testAbstractTypes() {
+        assertResults("{ hero { __typename id name ... on Human { mass } ... on Droid { primaryFunction } } }", null,
+                "ExecutionResult [data={hero={__typename=Human, id=1000, name=Luke, mass=77.0}}, errors=[]]");
+        assertResults("{ things { __typename ... on Human { name mass } ... on Droid { name primaryFunction } } }", null,
+                "ExecutionResult [data={things=[{__typename=Droid, name=R2-D2, primaryFunction=Astromech},"
+                        + " {__typename=Human, name=Luke, mass=77.0}]}, errors=[]]");
+    }
+
+    public void testLists() {
+        assertResults("{ hero { friends { name friends { id name } } } }", null,
+                "ExecutionResult [data={hero={friends=[{name=R2-D2, friends=[{id=1000, name=Luke}]}, null, {name=Nameless, friends=[]}]}},"
+                        + " errors=[]]");
+    }
+
+    public void testNullPropagation() {
+        assertResults("{ humans { id name } }", null,
+                "ExecutionResult [data={humans=null}, errors=[Cannot return null for non-nullable field Query.humans. (at [humans, 1])]]");
+        assertResults("{ broken { id name } hero { name } }", null,
+                "ExecutionResult [data=null, errors=[Cannot return null for non-nullable field Human.id. (at [broken, id])]]");
+        assertResults("{ hero { friends { id name } } boom }", null,
+                "ExecutionResult [data={hero={friends=[{id=2001, name=R2-D2}, null, null]}, boom=null}, errors=[Cannot return null for non-nullable"
+                        + " field Human.id. (at [hero, friends, 2, id]), boom (at [boom])]]");
+    }
+
+    public void testDeferredFields() {
+        assertResults("{ later { name friends { name } } hero { name } }", null,
+                "ExecutionResult [data={later={name=R2-D2, friends=[{name=Luke}]}, hero={name=Luke}}, errors=[]]");
+        assertResults("{ hero { name } laterName }", null,
+                "ExecutionResult [data=null, errors=[Cannot return null for non-nullable field Query.laterName. (at [laterName])]]");
+    }
+
+    public void testSkipAndInclude() {
+        String query = "query Q($skip: Boolean!, $include: Boolean = true) { hero { name @skip(if: $skip) id ...F @include(if: $include)"
+                + " friends { name @skip(if: $skip) } } } fragment F on Human { mass }";
+        String skipped = "ExecutionResult [data={hero={id=1000, mass=77.0, friends=[{}, null, {}]}}, errors=[]]";
+        assertResults(query, variables("skip", true), skipped);
+        assertResults(query, variables("skip", false, "include", false),
+                "ExecutionResult [data={hero={name=Luke, id=1000, friends=[{name=R2-D2}, null, {name=Nameless}]}}, errors=[]]");
+        assertResults(query, variables("skip", true), skipped);
+    }
+
+    private void assertResults(String query, Map<String, Object> variables, String expected) {
+        QueryDocument document = ParseHelper.parseDocument(query);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(query, expected, interpreted.execute(document, null, variables, null).toString());
+            assertEquals(query, expected, compiled.execute(document, null, variables, null).toString());
+        }
+        if (!"1.8".equals(System.getProperty("java.specification.version"))) {
+            OperationPlan plan = compiled.plan(document, null);
+            // The condition variables these queries leave out default to true
+            long conditions = 0;
+            for (int i = 0; i < plan.conditionVariables.length; i++) {
+                if (variables != null && Boolean.TRUE.equals(variables.getOrDefault(plan.conditionVariables[i], Boolean.TRUE))) {
+                    conditions |= 1L << i;
+                }
+            }
+            // A threshold no count reaches, so that this only returns what the executions compiled
+            assertNotNull(query, plan.rootSelectionSet(conditions).compiledOperation(plan.rootType, Integer.MAX_VALUE));
+        }
+    }
+
+    private static Map<String, Object> object(String typename, String id, String name) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("__typename", typename);
+        object.put("id", id);
+        object.put("name", name);
+        object.put("friends", Collections.emptyList());
+        return object;
+    }
+
+    private static Map<String, Object> variables(Object... namesAndValues) {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            variables.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return variables;
+    }
+}
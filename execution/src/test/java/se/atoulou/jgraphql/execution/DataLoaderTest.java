@@ -0,0 +1,153 @@
+package se.atoulou.jgraphql.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Loads characters and their friends through data loaders, and expects one batch per depth of the query.
+ */
+public class DataLoaderTest extends TestCase {
+    private static final String SDL = "type Character { id: String! name: String friends: [Character] }\n"
+            + "type Query { hero: Character failing: Character }\n"
+            + "type Mutation { promote(id: String!): Character }\n";
+    private static final String FRIENDS_OF_FRIENDS = "ExecutionResult [data={hero={name=Luke, friends=[{name=R2-D2, friends=[{name=Luke}]}, "
+            + "{name=Han, friends=[{name=Luke}, {name=R2-D2}]}]}}, errors=[]]";
+
+    private final Map<String, Map<String, Object>> characters = new HashMap<>();
+    private final List<List<String>>               batches    = Collections.synchronizedList(new ArrayList<>());
+
+    private Schema          schema;
+    private ExecutorService backend;
+
+    @Override
+    protected void setUp() {
+        character("1", "Luke", "2", "3");
+        character("2", "R2-D2", "1");
+        character("3", "Han", "1", "2");
+        schema = ParseHelper.parseSchema(SDL);
+        backend = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void tearDown() {
+        backend.shutdown();
+    }
+
+    public void testBatchLoader() {
+        ExecutionEngine engine = engine(ResolverRegistry.builder().dataLoader("characters", this::loadCharacters));
+        assertFriendsOfFriends(engine.execute(ParseHelper.parseDocument("{ hero { name friends { name friends { name } } } }"), null));
+    }
+
+    public void testAsyncBatchLoader() {
+        ExecutionEngine engine = engine(ResolverRegistry.builder().asyncDataLoader("characters",
+                (List<String> keys) -> CompletableFuture.supplyAsync(() -> loadCharacters(keys), backend)));
+        QueryDocument document = ParseHelper.parseDocument("{ hero { name friends { name friends { name } } } }");
+        assertFriendsOfFriends(engine.execute(document, null));
+        batches.clear();
+        assertFriendsOfFriends(engine.executeAsync(document, null, null, null).toCompletableFuture().join());
+    }
+
+    public void testAsyncBatchDoesNotBlockExecuteAsync() {
+        CompletableFuture<List<Map<String, Object>>> batch = new CompletableFuture<>();
+        ExecutionEngine engine = engine(ResolverRegistry.builder().asyncDataLoader("characters", (List<String> keys) -> batch));
+
+        CompletionStage<ExecutionResult> result = engine.executeAsync(ParseHelper.parseDocument("{ hero { name } }"), null, null, null);
+        assertFalse(result.toCompletableFuture().isDone());
+        batch.complete(Arrays.asList(characters.get("1")));
+        assertEquals("ExecutionResult [data={hero={name=Luke}}, errors=[]]", result.toCompletableFuture().join().toString());
+    }
+
+    public void testFailedAsyncBatch() {
+        ExecutionEngine engine = engine(ResolverRegistry.builder()
+                .asyncDataLoader("characters", (List<String> keys) -> CompletableFuture.supplyAsync(() -> loadCharacters(keys), backend))
+                .asyncDataLoader("failing", (List<String> keys) -> CompletableFuture.supplyAsync(() -> {
+                    throw new IllegalStateException("backend down");
+                }, backend)));
+        ExecutionResult result = engine.execute(ParseHelper.parseDocument("{ failing { name } hero { name } }"), null);
+        assertEquals("ExecutionResult [data={failing=null, hero={name=Luke}}, errors=[backend down (at [failing])]]", result.toString());
+    }
+
+    public void testLoadFromAnotherThread() throws Exception {
+        // The resolver loads from the thread completing its stage, while the execution waits for that stage
+        ExecutionEngine engine = new ExecutionEngine(schema, ResolverRegistry.builder()
+                .dataLoader("characters", this::loadCharacters)
+                .asyncFieldResolver("Query", "hero", context -> CompletableFuture.supplyAsync(() -> "1", backend)
+                        .thenCompose(key -> context.<String, Map<String, Object>> getDataLoader("characters").load(key)))
+                .asyncFieldResolver("Character", "friends", context -> CompletableFuture.supplyAsync(() -> {
+                    @SuppressWarnings("unchecked")
+                    List<String> friends = (List<String>) ((Map<?, ?>) context.getSource()).get("friends");
+                    return friends;
+                }, backend).thenCompose(friends -> context.<String, Map<String, Object>> getDataLoader("characters").loadMany(friends)))
+                .build());
+        QueryDocument document = ParseHelper.parseDocument("{ hero { name friends { name friends { name } } } }");
+        // Keys loaded as stages complete are batched with whatever else is queued by then, so only the results are certain
+        assertEquals(FRIENDS_OF_FRIENDS, engine.execute(document, null).toString());
+        assertEquals(FRIENDS_OF_FRIENDS, engine.executeAsync(document, null, null, null).toCompletableFuture().get(10, TimeUnit.SECONDS).toString());
+    }
+
+    public void testLoadFromAnotherThreadInMutation() throws Exception {
+        ExecutionEngine engine = new ExecutionEngine(schema, ResolverRegistry.builder()
+                .dataLoader("characters", this::loadCharacters)
+                .asyncFieldResolver("Mutation", "promote", context -> CompletableFuture.supplyAsync(() -> context.<String> getArgument("id"), backend)
+                        .thenCompose(id -> context.<String, Map<String, Object>> getDataLoader("characters").load(id)))
+                .build());
+        QueryDocument document = ParseHelper.parseDocument("mutation { a: promote(id: \"1\") { name } b: promote(id: \"2\") { name }"
+                + " c: promote(id: \"3\") { name } }");
+        String expected = "ExecutionResult [data={a={name=Luke}, b={name=R2-D2}, c={name=Han}}, errors=[]]";
+        assertEquals(expected, engine.execute(document, null).toString());
+        assertEquals(expected, engine.executeAsync(document, null, null, null).toCompletableFuture().get(10, TimeUnit.SECONDS).toString());
+        // The fields of a mutation run one after the other
+        assertEquals(Arrays.asList(Arrays.asList("1"), Arrays.asList("2"), Arrays.asList("3"), Arrays.asList("1"), Arrays.asList("2"),
+                Arrays.asList("3")), batches);
+    }
+
+    private ExecutionEngine engine(ResolverRegistry.Builder resolvers) {
+        return new ExecutionEngine(schema, resolvers
+                .fieldResolver("Query", "hero", context -> context.getDataLoader("characters").load("1"))
+                .fieldResolver("Query", "failing", context -> context.getDataLoader("failing").load("1"))
+                .fieldResolver("Character", "friends", context -> {
+                    @SuppressWarnings("unchecked")
+                    List<String> friends = (List<String>) ((Map<?, ?>) context.getSource()).get("friends");
+                    return context.<String, Map<String, Object>> getDataLoader("characters").loadMany(friends);
+                })
+                .build());
+    }
+
+    private void assertFriendsOfFriends(ExecutionResult result) {
+        assertEquals(FRIENDS_OF_FRIENDS, result.toString());
+        // Keys loaded in earlier batches come from the cache
+        assertEquals(Arrays.asList(Arrays.asList("1"), Arrays.asList("2", "3")), batches);
+    }
+
+    private List<Map<String, Object>> loadCharacters(List<String> keys) {
+        batches.add(new ArrayList<>(keys));
+        List<Map<String, Object>> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(characters.get(key));
+        }
+        return values;
+    }
+
+    private void character(String id, String name, String... friends) {
+        Map<String, Object> character = new LinkedHashMap<>();
+        character.put("id", id);
+        character.put("name", name);
+        character.put("friends", Arrays.asList(friends));
+        characters.put(id, character);
+    }
+}
@@ -0,0 +1,174 @@
+package se.atoulou.jgraphql.models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Input side of the binary formats; see {@link BinaryEncoder}. Reads the bytes between the buffer's position and limit without changing either.
+ * Malformed messages are reported as {@link IllegalArgumentException}s.
+ */
+final class BinaryDecoder {
+    private final ByteBuffer data;
+    private final int        limit;
+    private final int        version;
+    private final String[]   strings;
+    // Whether strings[i] has been replaced by its canonical instance from namePool
+    private final boolean[]  interned;
+    private final NamePool   namePool;
+    private int              position;
+
+    BinaryDecoder(ByteBuffer data, int magic, int maximumVersion, NamePool namePool) {
+        this.data = data;
+        this.limit = data.limit();
+        this.position = data.position();
+        this.namePool = namePool;
+
+        if (limit - position < 5 || data.getInt(position) != magic) {
+            throw new IllegalArgumentException("Not a message of this format");
+        }
+        position += 4;
+        version = readByte();
+        if (version < 1 || version > maximumVersion) {
+            throw new IllegalArgumentException("Unsupported format version " + version);
+        }
+
+        strings = new String[readCount() + 1];
+        interned = new boolean[strings.length];
+        byte[] scratch = null;
+        for (int i = 1; i < strings.length; i++) {
+            int length = readInt();
+            if (length > limit - position) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            if (data.hasArray()) {
+                strings[i] = new String(data.array(), data.arrayOffset() + position, length, StandardCharsets.UTF_8);
+            } else {
+                if (scratch == null || scratch.length < length) {
+                    scratch = new byte[Math.max(length, 64)];
+                }
+                for (int j = 0; j < length; j++) {
+                    scratch[j] = data.get(position + j);
+                }
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            position += length;
+        }
+    }
+
+    int version() {
+        return version;
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    int readByte() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Truncated message");
+        }
+        return data.get(position++) & 0xff;
+    }
+
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * A varint used as an index or a length, which must fit in an {@code int}.
+     */
+    int readInt() {
+        long value = readVarint();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed length " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * The size of a list that follows. Every element takes at least one byte, so a size beyond the remaining bytes is malformed rather than a
+     * reason to allocate.
+     */
+    int readCount() {
+        int count = readInt();
+        if (count > limit - position) {
+            throw new IllegalArgumentException("Malformed count " + count);
+        }
+        return count;
+    }
+
+    long readSignedVarint() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    double readDouble() {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= (long) readByte() << (i << 3);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    Boolean readBoolean() {
+        int b = readByte();
+        return b == 0 ? null : b == 2;
+    }
+
+    /**
+     * @return the string, or {@code null} for string id 0
+     */
+    String readString() {
+        return strings[stringId()];
+    }
+
+    String readRequiredString() {
+        return strings[requiredStringId()];
+    }
+
+    /**
+     * A string from the table interned in the decoder's pool, for names.
+     *
+     * @return the name, or {@code null} for string id 0
+     */
+    String readName() {
+        int id = stringId();
+        return id == 0 ? null : name(id);
+    }
+
+    String readRequiredName() {
+        return name(requiredStringId());
+    }
+
+    private String name(int id) {
+        if (!interned[id]) {
+            strings[id] = namePool.intern(strings[id]);
+            interned[id] = true;
+        }
+        return strings[id];
+    }
+
+    private int requiredStringId() {
+        int id = stringId();
+        if (id == 0) {
+            throw new IllegalArgumentException("Missing required string");
+        }
+        return id;
+    }
+
+    private int stringId() {
+        int id = readInt();
+        if (id >= strings.length) {
+            throw new IllegalArgumentException("Malformed string reference " + id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,99 @@
+package se.atoulou.jgraphql.models;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output side of the binary formats of {@link BinaryQueryDocumentCodec} and {@link BinarySchemaCodec}.
+ * <p>
+ * A message is a four-byte magic number, a version byte, a string table and a body. Strings in the body are varint references into the table,
+ * {@code 0} standing for {@code null}, so every distinct name and description is stored once. Integers are unsigned LEB128 varints, and signed
+ * values are zigzag encoded first.
+ */
+final class BinaryEncoder {
+    private final Map<String, Integer> stringIds;
+    private final List<String>         strings;
+    private byte[]                     body;
+    private int                        size;
+
+    BinaryEncoder() {
+        stringIds = new HashMap<>();
+        strings = new ArrayList<>();
+        body = new byte[256];
+    }
+
+    void writeByte(int b) {
+        if (size == body.length) {
+            body = Arrays.copyOf(body, size << 1);
+        }
+        body[size++] = (byte) b;
+    }
+
+    void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    void writeSignedVarint(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            writeByte((int) (bits >>> (i << 3)));
+        }
+    }
+
+    /**
+     * {@code null}, {@code false} and {@code true} as {@code 0}, {@code 1} and {@code 2}.
+     */
+    void writeBoolean(Boolean value) {
+        writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    void writeString(String s) {
+        if (s == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer id = stringIds.get(s);
+        if (id == null) {
+            strings.add(s);
+            id = strings.size();
+            stringIds.put(s, id);
+        }
+        writeVarint(id);
+    }
+
+    /**
+     * Assembles the message in a heap buffer, positioned at its start.
+     */
+    ByteBuffer toByteBuffer(int magic, int version) {
+        BinaryEncoder header = new BinaryEncoder();
+        header.writeVarint(strings.size());
+        for (String s : strings) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(utf8.length);
+            for (byte b : utf8) {
+                header.writeByte(b);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(5 + header.size + size);
+        buffer.putInt(magic);
+        buffer.put((byte) version);
+        buffer.put(header.body, 0, header.size);
+        buffer.put(body, 0, size);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,385 @@
+package se.atoulou.jgraphql.models;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Directive;
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
+import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.NullValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
+import se.atoulou.jgraphql.models.query.VariableDefinition;
+import se.atoulou.jgraphql.models.transform.QueryDocumentMessageReader;
+import se.atoulou.jgraphql.models.transform.QueryDocumentMessageWriter;
+
+/**
+ * Compact binary encoding of parsed query documents, for storing them and loading them back without parsing; see {@link BinaryEncoder} for the
+ * framing. Selections and values are written depth-first, each behind a one-byte tag, and lists behind their size. Documents read back are
+ * equal to the ones written, with names interned in the codec's {@link NamePool} and absent lists shared as {@link Collections#emptyList()}, as
+ * from the parser.
+ */
+public final class BinaryQueryDocumentCodec implements QueryDocumentMessageWriter<ByteBuffer>, QueryDocumentMessageReader<ByteBuffer> {
+    static final int MAGIC   = 0x47514c44; // "GQLD"
+    static final int VERSION = 1;
+
+    private static final int SELECTION_FIELD    = 1;
+    private static final int SELECTION_SPREAD   = 2;
+    private static final int SELECTION_FRAGMENT = 3;
+
+    // Value tags; 0 is an absent default value, and only allowed there
+    private static final int VALUE_VARIABLE = 1;
+    private static final int VALUE_INT      = 2;
+    private static final int VALUE_FLOAT    = 3;
+    private static final int VALUE_STRING   = 4;
+    private static final int VALUE_TRUE     = 5;
+    private static final int VALUE_FALSE    = 6;
+    private static final int VALUE_NULL     = 7;
+    private static final int VALUE_ENUM     = 8;
+    private static final int VALUE_LIST     = 9;
+    private static final int VALUE_OBJECT   = 10;
+
+    // How deep selection sets and the values within them may nest together, as in the parser, so that reading a message cannot overflow the
+    // stack
+    private static final int MAXIMUM_DEPTH = 256;
+
+    private final NamePool namePool;
+
+    public BinaryQueryDocumentCodec() {
+        this(new NamePool());
+    }
+
+    /**
+     * @param namePool
+     *            the pool names are interned in when reading, such as {@link se.atoulou.jgraphql.models.schema.Schema#getNamePool()}
+     */
+    public BinaryQueryDocumentCodec(NamePool namePool) {
+        this.namePool = namePool;
+    }
+
+    /**
+     * Encodes the document into a new heap buffer, positioned at its start.
+     */
+    @Override
+    public ByteBuffer writeQueryDocument(QueryDocument document) {
+        BinaryEncoder out = new BinaryEncoder();
+        out.writeVarint(document.getOperations().size());
+        for (OperationDefinition operation : document.getOperations()) {
+            out.writeByte(operation.getOperationType().ordinal());
+            out.writeString(operation.getName());
+            out.writeVarint(operation.getVariableDefinitions().size());
+            for (VariableDefinition variableDefinition : operation.getVariableDefinitions()) {
+                out.writeString(variableDefinition.getVariable());
+                out.writeString(variableDefinition.getType());
+                writeValue(variableDefinition.getDefaultValue(), out);
+            }
+            writeDirectives(operation.getDirectives(), out);
+            writeSelectionSet(operation.getSelectionSet(), out);
+        }
+
+        out.writeVarint(document.getFragments().size());
+        for (FragmentDefinition fragment : document.getFragments()) {
+            out.writeString(fragment.getName());
+            out.writeString(fragment.getTypeCondition());
+            writeDirectives(fragment.getDirectives(), out);
+            writeSelectionSet(fragment.getSelectionSet(), out);
+        }
+        return out.toByteBuffer(MAGIC, VERSION);
+    }
+
+    /**
+     * Decodes the document between the buffer's position and limit, leaving both unchanged.
+     *
+     * @throws IllegalArgumentException
+     *             if the buffer does not hold an encoded document of a supported version
+     */
+    @Override
+    public QueryDocument readQueryDocument(ByteBuffer message) {
+        BinaryDecoder in = new BinaryDecoder(message, MAGIC, VERSION, namePool);
+        OperationType[] operationTypes = OperationType.values();
+
+        int operationCount = in.readCount();
+        List<OperationDefinition> operations = new ArrayList<>(operationCount);
+        for (int i = 0; i < operationCount; i++) {
+            int operationType = in.readByte();
+            if (operationType >= operationTypes.length) {
+                throw new IllegalArgumentException("Malformed operation type " + operationType);
+            }
+            String name = in.readName();
+            int variableCount = in.readCount();
+            List<VariableDefinition> variableDefinitions = variableCount == 0 ? Collections.emptyList() : new ArrayList<>(variableCount);
+            for (int j = 0; j < variableCount; j++) {
+                variableDefinitions.add(new VariableDefinition(in.readRequiredName(), in.readRequiredName(), readDefaultValue(in, 1)));
+            }
+            List<Directive> directives = readDirectives(in, 0);
+            List<Selection> selectionSet = readSelectionSet(in, 1);
+            operations.add(new OperationDefinition(operationTypes[operationType], name, variableDefinitions, directives, selectionSet));
+        }
+
+        int fragmentCount = in.readCount();
+        List<FragmentDefinition> fragments = new ArrayList<>(fragmentCount);
+        for (int i = 0; i < fragmentCount; i++) {
+            String name = in.readRequiredName();
+            String typeCondition = in.readRequiredName();
+            List<Directive> directives = readDirectives(in, 0);
+            fragments.add(new FragmentDefinition(name, typeCondition, directives, readSelectionSet(in, 1)));
+        }
+
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after document");
+        }
+        return new QueryDocument(operations, fragments);
+    }
+
+    private static void writeSelectionSet(List<Selection> selectionSet, BinaryEncoder out) {
+        out.writeVarint(selectionSet.size());
+        for (Selection selection : selectionSet) {
+            switch (selection.getKind()) {
+            case FIELD: {
+                SelectionField field = (SelectionField) selection;
+                out.writeByte(SELECTION_FIELD);
+                out.writeString(field.getAlias());
+                out.writeString(field.getName());
+                writeArguments(field.getArguments(), out);
+                writeDirectives(field.getDirectives(), out);
+                writeSelectionSet(field.getSelectionSet(), out);
+                break;
+            }
+            case FRAGMENT_SPREAD: {
+                FragmentSpread spread = (FragmentSpread) selection;
+                out.writeByte(SELECTION_SPREAD);
+                out.writeString(spread.getName());
+                writeDirectives(spread.getDirectives(), out);
+                break;
+            }
+            case INLINE_FRAGMENT: {
+                InlineFragment fragment = (InlineFragment) selection;
+                out.writeByte(SELECTION_FRAGMENT);
+                out.writeString(fragment.getTypeCondition());
+                writeDirectives(fragment.getDirectives(), out);
+                writeSelectionSet(fragment.getSelectionSet(), out);
+                break;
+            }
+            default:
+                assert false;
+            }
+        }
+    }
+
+    private static List<Selection> readSelectionSet(BinaryDecoder in, int depth) {
+        checkDepth(depth);
+        int count = in.readCount();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Selection> selectionSet = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int tag = in.readByte();
+            switch (tag) {
+            case SELECTION_FIELD: {
+                String alias = in.readName();
+                String name = in.readRequiredName();
+                List<Argument> arguments = readArguments(in, depth);
+                List<Directive> directives = readDirectives(in, depth);
+                selectionSet.add(new SelectionField(alias, name, arguments, directives, readSelectionSet(in, depth + 1)));
+                break;
+            }
+            case SELECTION_SPREAD: {
+                String name = in.readRequiredName();
+                selectionSet.add(new FragmentSpread(name, readDirectives(in, depth)));
+                break;
+            }
+            case SELECTION_FRAGMENT: {
+                String typeCondition = in.readRequiredName();
+                List<Directive> directives = readDirectives(in, depth);
+                selectionSet.add(new InlineFragment(typeCondition, directives, readSelectionSet(in, depth + 1)));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Malformed selection tag " + tag);
+            }
+        }
+        return selectionSet;
+    }
+
+    private static void writeDirectives(List<Directive> directives, BinaryEncoder out) {
+        out.writeVarint(directives.size());
+        for (Directive directive : directives) {
+            out.writeString(directive.getName());
+            writeArguments(directive.getArguments(), out);
+        }
+    }
+
+    private static List<Directive> readDirectives(BinaryDecoder in, int depth) {
+        int count = in.readCount();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Directive> directives = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readRequiredName();
+            directives.add(new Directive(name, readArguments(in, depth)));
+        }
+        return directives;
+    }
+
+    private static void writeArguments(List<Argument> arguments, BinaryEncoder out) {
+        out.writeVarint(arguments.size());
+        for (Argument argument : arguments) {
+            out.writeString(argument.getName());
+            writeValue(argument.getValue(), out);
+        }
+    }
+
+    private static List<Argument> readArguments(BinaryDecoder in, int depth) {
+        int count = in.readCount();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Argument> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readRequiredName();
+            arguments.add(new Argument(name, readValue(in, depth + 1)));
+        }
+        return arguments;
+    }
+
+    private static void writeValue(Value value, BinaryEncoder out) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+
+        switch (value.getKind()) {
+        case VARIABLE:
+            out.writeByte(VALUE_VARIABLE);
+            out.writeString(((VariableRef) value).getName());
+            break;
+        case INT:
+            out.writeByte(VALUE_INT);
+            out.writeSignedVarint(((IntValue) value).getValue());
+            break;
+        case FLOAT:
+            out.writeByte(VALUE_FLOAT);
+            out.writeDouble(((FloatValue) value).getValue());
+            break;
+        case STRING:
+            out.writeByte(VALUE_STRING);
+            out.writeString(((StringValue) value).getValue());
+            break;
+        case BOOLEAN:
+            out.writeByte(((BooleanValue) value).getValue() ? VALUE_TRUE : VALUE_FALSE);
+            break;
+        case NULL:
+            out.writeByte(VALUE_NULL);
+            break;
+        case ENUM:
+            out.writeByte(VALUE_ENUM);
+            out.writeString(((EnumValue) value).getName());
+            break;
+        case LIST: {
+            List<Value> values = ((ListValue) value).getValues();
+            out.writeByte(VALUE_LIST);
+            out.writeVarint(values.size());
+            for (Value element : values) {
+                writeValue(element, out);
+            }
+            break;
+        }
+        case OBJECT: {
+            List<ObjectField> fields = ((ObjectValue) value).getFields();
+            out.writeByte(VALUE_OBJECT);
+            out.writeVarint(fields.size());
+            for (ObjectField field : fields) {
+                out.writeString(field.getName());
+                writeValue(field.getValue(), out);
+            }
+            break;
+        }
+        default:
+            assert false;
+        }
+    }
+
+    private static Value readDefaultValue(BinaryDecoder in, int depth) {
+        int tag = in.readByte();
+        return tag == 0 ? null : readValue(in, tag, depth);
+    }
+
+    private static Value readValue(BinaryDecoder in, int depth) {
+        return readValue(in, in.readByte(), depth);
+    }
+
+    private static Value readValue(BinaryDecoder in, int tag, int depth) {
+        checkDepth(depth);
+        switch (tag) {
+        case VALUE_VARIABLE:
+            return new VariableRef(in.readRequiredName());
+        case VALUE_INT:
+            return new IntValue(in.readSignedVarint());
+        case VALUE_FLOAT:
+            return new FloatValue(in.readDouble());
+        case VALUE_STRING:
+            return new StringValue(in.readRequiredString());
+        case VALUE_TRUE:
+            return BooleanValue.TRUE;
+        case VALUE_FALSE:
+            return BooleanValue.FALSE;
+        case VALUE_NULL:
+            return NullValue.NULL;
+        case VALUE_ENUM:
+            return new EnumValue(in.readRequiredName());
+        case VALUE_LIST: {
+            int count = in.readCount();
+            if (count == 0) {
+                return new ListValue(Collections.<Value> emptyList());
+            }
+            List<Value> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readValue(in, depth + 1));
+            }
+            return new ListValue(values);
+        }
+        case VALUE_OBJECT: {
+            int count = in.readCount();
+            if (count == 0) {
+                return new ObjectValue(Collections.<ObjectField> emptyList());
+            }
+            List<ObjectField> fields = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readRequiredName();
+                fields.add(new ObjectField(name, readValue(in, depth + 1)));
+            }
+            return new ObjectValue(fields);
+        }
+        default:
+            throw new IllegalArgumentException("Malformed value tag " + tag);
+        }
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new IllegalArgumentException("Document nests deeper than " + MAXIMUM_DEPTH);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package se.atoulou.jgraphql.models;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.schema.Directive;
+import se.atoulou.jgraphql.models.schema.EnumValue;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.EnumType;
+import se.atoulou.jgraphql.models.schema.Type.InputObjectType;
+import se.atoulou.jgraphql.models.schema.Type.InterfaceType;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+import se.atoulou.jgraphql.models.schema.Type.UnionType;
+import se.atoulou.jgraphql.models.transform.SchemaMessageReader;
+import se.atoulou.jgraphql.models.transform.SchemaMessageWriter;
+
+/**
+ * Compact binary encoding of schemas, so that a schema can be loaded without parsing it and reconciling its types again; see {@link BinaryEncoder}
+ * for the framing.
+ * <p>
+ * The body starts with a table of every distinct {@link Type} instance the schema reaches. This covers its declared types, the built-in scalars,
+ * and the list and non-null wrappers. First come each type's kind, name and description, then the types' contents, which refer to each other by
+ * index. A schema read back shares type instances exactly as the parsed one did, with interface implementations already reconciled, and its
+ * names are interned in a new {@link NamePool}.
+ */
+public final class BinarySchemaCodec implements SchemaMessageWriter<ByteBuffer>, SchemaMessageReader<ByteBuffer> {
+    static final int MAGIC   = 0x47514c53; // "GQLS"
+    static final int VERSION = 1;
+
+    // How long a chain of index references may be, so that building the types cannot overflow the stack
+    private static final int MAXIMUM_DEPTH = 256;
+
+    /**
+     * Encodes the schema into a new heap buffer, positioned at its start.
+     */
+    @Override
+    public ByteBuffer writeSchema(Schema schema) {
+        Map<Type, Integer> typeIds = new IdentityHashMap<>();
+        List<Type> types = new ArrayList<>();
+        for (Type type : schema.getTypes()) {
+            collectType(type, typeIds, types);
+        }
+        collectType(schema.getQueryType(), typeIds, types);
+        collectType(schema.getMutationType(), typeIds, types);
+        for (Directive directive : schema.getDirectives()) {
+            collectInputValues(directive.getArgs(), typeIds, types);
+        }
+
+        BinaryEncoder out = new BinaryEncoder();
+        out.writeVarint(types.size());
+        for (Type type : types) {
+            out.writeByte(type.getKind().ordinal());
+            out.writeString(type.getName());
+            out.writeString(type.getDescription());
+        }
+        for (Type type : types) {
+            writeTypeContents(type, typeIds, out);
+        }
+
+        out.writeVarint(schema.getTypes().size());
+        for (Type type : schema.getTypes()) {
+            out.writeVarint(typeIds.get(type));
+        }
+        writeTypeReference(schema.getQueryType(), typeIds, out);
+        writeTypeReference(schema.getMutationType(), typeIds, out);
+
+        out.writeVarint(schema.getDirectives().size());
+        for (Directive directive : schema.getDirectives()) {
+            out.writeString(directive.getName());
+            out.writeString(directive.getDescription());
+            writeInputValues(directive.getArgs(), typeIds, out);
+            out.writeBoolean(directive.getOnOperation());
+            out.writeBoolean(directive.getOnFragment());
+            out.writeBoolean(directive.getOnField());
+        }
+        return out.toByteBuffer(MAGIC, VERSION);
+    }
+
+    /**
+     * Decodes the schema between the buffer's position and limit, leaving both unchanged.
+     *
+     * @throws IllegalArgumentException
+     *             if the buffer does not hold an encoded schema of a supported version
+     */
+    @Override
+    public Schema readSchema(ByteBuffer message) {
+        NamePool namePool = new NamePool();
+        BinaryDecoder in = new BinaryDecoder(message, MAGIC, VERSION, namePool);
+        TypeKind[] kinds = TypeKind.values();
+
+        int typeCount = in.readCount();
+        Type.Builder[] builders = new Type.Builder[typeCount];
+        Map<String, Type.Builder> buildersByName = new HashMap<>();
+        for (int i = 0; i < typeCount; i++) {
+            int kind = in.readByte();
+            if (kind >= kinds.length) {
+                throw new IllegalArgumentException("Malformed type kind " + kind);
+            }
+            builders[i] = Type.builder().kind(kinds[kind]).name(in.readRequiredName()).description(in.readString());
+            buildersByName.putIfAbsent(builders[i].name(), builders[i]);
+        }
+        TypeReader types = new TypeReader(in, builders, buildersByName);
+        for (int i = 0; i < typeCount; i++) {
+            types.readContents(i);
+        }
+        types.checkAcyclic();
+
+        Schema.Builder schemaB = Schema.builder().namePool(namePool);
+        int declaredCount = in.readCount();
+        for (int i = 0; i < declaredCount; i++) {
+            schemaB.types().add(types.readReference());
+        }
+        Type.Builder queryTypeB = types.readNullableReference();
+        Type.Builder mutationTypeB = types.readNullableReference();
+
+        int directiveCount = in.readCount();
+        for (int i = 0; i < directiveCount; i++) {
+            Directive.Builder directiveB = Directive.builder().name(in.readRequiredName()).description(in.readString());
+            directiveB.args(types.readInputValues());
+            directiveB.onOperation(in.readBoolean()).onFragment(in.readBoolean()).onField(in.readBoolean());
+            schemaB.directives().add(directiveB);
+        }
+
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after schema");
+        }
+        schemaB.queryType(queryTypeB == null ? null : queryTypeB.build());
+        schemaB.mutationType(mutationTypeB == null ? null : mutationTypeB.build());
+        return schemaB.build();
+    }
+
+    private static void collectType(Type type, Map<Type, Integer> typeIds, List<Type> types) {
+        if (type == null || typeIds.containsKey(type)) {
+            return;
+        }
+        typeIds.put(type, types.size());
+        types.add(type);
+
+        switch (type.getKind()) {
+        case OBJECT:
+            collectFields(((ObjectType) type).getFields(), typeIds, types);
+            break;
+        case INTERFACE:
+            collectFields(((InterfaceType) type).getFields(), typeIds, types);
+            break;
+        case UNION:
+            for (Type possibleType : ((UnionType) type).getPossibleTypes()) {
+                collectType(possibleType, typeIds, types);
+            }
+            break;
+        case INPUT_OBJECT:
+            collectInputValues(((InputObjectType) type).getInputFields(), typeIds, types);
+            break;
+        case LIST:
+            collectType(((ListType) type).getOfType(), typeIds, types);
+            break;
+        case NON_NULL:
+            collectType(((NonNullType) type).getOfType(), typeIds, types);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static void collectFields(List<Field> fields, Map<Type, Integer> typeIds, List<Type> types) {
+        for (Field field : fields) {
+            collectInputValues(field.getArguments(), typeIds, types);
+        }
+    }
+
+    private static void collectInputValues(List<InputValue> inputValues, Map<Type, Integer> typeIds, List<Type> types) {
+        for (InputValue inputValue : inputValues) {
+            collectType(inputValue.getType(), typeIds, types);
+        }
+    }
+
+    private static void writeTypeContents(Type type, Map<Type, Integer> typeIds, BinaryEncoder out) {
+        switch (type.getKind()) {
+        case SCALAR:
+            break;
+        case OBJECT: {
+            ObjectType objectType = (ObjectType) type;
+            writeFields(objectType.getFields(), typeIds, out);
+            writeNames(objectType.getInterfaces(), out);
+            break;
+        }
+        case INTERFACE: {
+            InterfaceType interfaceType = (InterfaceType) type;
+            writeFields(interfaceType.getFields(), typeIds, out);
+            writeNames(interfaceType.getPossibleTypes(), out);
+            break;
+        }
+        case UNION: {
+            List<Type> possibleTypes = ((UnionType) type).getPossibleTypes();
+            out.writeVarint(possibleTypes.size());
+            for (Type possibleType : possibleTypes) {
+                out.writeVarint(typeIds.get(possibleType));
+            }
+            break;
+        }
+        case ENUM: {
+            List<EnumValue> enumValues = ((EnumType) type).getEnumValues();
+            out.writeVarint(enumValues.size());
+            for (EnumValue enumValue : enumValues) {
+                out.writeString(enumValue.getName());
+                out.writeString(enumValue.getDescription());
+                out.writeBoolean(enumValue.isDeprecated());
+                out.writeString(enumValue.getDeprecationReason());
+            }
+            break;
+        }
+        case INPUT_OBJECT:
+            writeInputValues(((InputObjectType) type).getInputFields(), typeIds, out);
+            break;
+        case LIST:
+            out.writeVarint(typeIds.get(((ListType) type).getOfType()));
+            break;
+        case NON_NULL:
+            out.writeVarint(typeIds.get(((NonNullType) type).getOfType()));
+            break;
+        default:
+            assert false;
+        }
+    }
+
+    private static void writeFields(List<Field> fields, Map<Type, Integer> typeIds, BinaryEncoder out) {
+        out.writeVarint(fields.size());
+        for (Field field : fields) {
+            out.writeString(field.getName());
+            out.writeString(field.getDescription());
+            writeInputValues(field.getArguments(), typeIds, out);
+            out.writeString(field.getType());
+            out.writeBoolean(field.isDeprecated());
+            out.writeString(field.getDeprecationReason());
+        }
+    }
+
+    private static void writeInputValues(List<InputValue> inputValues, Map<Type, Integer> typeIds, BinaryEncoder out) {
+        out.writeVarint(inputValues.size());
+        for (InputValue inputValue : inputValues) {
+            out.writeString(inputValue.getName());
+            out.writeString(inputValue.getDescription());
+            writeTypeReference(inputValue.getType(), typeIds, out);
+            out.writeString(inputValue.getDefaultValue());
+        }
+    }
+
+    private static void writeNames(List<String> names, BinaryEncoder out) {
+        out.writeVarint(names.size());
+        for (String name : names) {
+            out.writeString(name);
+        }
+    }
+
+    // Index plus one, so that 0 is null
+    private static void writeTypeReference(Type type, Map<Type, Integer> typeIds, BinaryEncoder out) {
+        out.writeVarint(type == null ? 0 : typeIds.get(type) + 1);
+    }
+
+    /**
+     * Fills in the type builders from the contents section. Types are referenced by index, while field types, interfaces and the possible types
+     * of interfaces are referenced by name, as in the model. The index references read for each type's contents are recorded, since
+     * {@link Type.Builder#build()} follows them recursively and a cycle among them would never end.
+     */
+    private static final class TypeReader {
+        private final BinaryDecoder             in;
+        private final Type.Builder[]            builders;
+        private final Map<String, Type.Builder> buildersByName;
+
+        private final int[][] references;
+        private final int[]   referenceCounts;
+        private int           current;
+
+        TypeReader(BinaryDecoder in, Type.Builder[] builders, Map<String, Type.Builder> buildersByName) {
+            this.in = in;
+            this.builders = builders;
+            this.buildersByName = buildersByName;
+            this.references = new int[builders.length][];
+            this.referenceCounts = new int[builders.length];
+            this.current = -1;
+        }
+
+        void readContents(int index) {
+            current = index;
+            readContents(builders[index]);
+            current = -1;
+        }
+
+        /**
+         * @throws IllegalArgumentException
+         *             if a type's contents reference the type itself, directly or through other types, or if the references chain deeper than
+         *             {@link Type.Builder#build()} could follow them
+         */
+        void checkAcyclic() {
+            byte[] states = new byte[builders.length];
+            for (int i = 0; i < builders.length; i++) {
+                checkAcyclic(i, states, 0);
+            }
+        }
+
+        // 0 unvisited, 1 on the current path, 2 done
+        private void checkAcyclic(int index, byte[] states, int depth) {
+            if (states[index] == 2) {
+                return;
+            } else if (states[index] == 1) {
+                throw new IllegalArgumentException("Cyclic type reference " + index);
+            } else if (depth > MAXIMUM_DEPTH) {
+                throw new IllegalArgumentException("Type references nest deeper than " + MAXIMUM_DEPTH);
+            }
+            states[index] = 1;
+            for (int i = 0; i < referenceCounts[index]; i++) {
+                checkAcyclic(references[index][i], states, depth + 1);
+            }
+            states[index] = 2;
+        }
+
+        private void readContents(Type.Builder typeB) {
+            switch (typeB.kind()) {
+            case SCALAR:
+                break;
+            case OBJECT:
+                typeB.fields(readFields());
+                typeB.interfaces(readNamedReferences());
+                break;
+            case INTERFACE:
+                typeB.fields(readFields());
+                typeB.possibleTypes(readNamedReferences());
+                break;
+            case UNION: {
+                int count = in.readCount();
+                List<Type.Builder> possibleTypes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    possibleTypes.add(readReference());
+                }
+                typeB.possibleTypes(possibleTypes);
+                break;
+            }
+            case ENUM: {
+                int count = in.readCount();
+                List<EnumValue.Builder> enumValues = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    EnumValue.Builder enumValueB = EnumValue.builder().name(in.readRequiredName()).description(in.readString());
+                    enumValues.add(enumValueB.isDeprecated(in.readBoolean()).deprecationReason(in.readString()));
+                }
+                typeB.enumValues(enumValues);
+                break;
+            }
+            case INPUT_OBJECT:
+                typeB.inputFields(readInputValues());
+                break;
+            case LIST:
+            case NON_NULL:
+                typeB.ofType(readReference());
+                break;
+            default:
+                assert false;
+            }
+        }
+
+        Type.Builder readReference() {
+            int id = in.readInt();
+            if (id >= builders.length) {
+                throw new IllegalArgumentException("Malformed type reference " + id);
+            }
+            recordReference(id);
+            return builders[id];
+        }
+
+        Type.Builder readNullableReference() {
+            int id = in.readInt();
+            if (id > builders.length) {
+                throw new IllegalArgumentException("Malformed type reference " + id);
+            }
+            if (id == 0) {
+                return null;
+            }
+            recordReference(id - 1);
+            return builders[id - 1];
+        }
+
+        private void recordReference(int id) {
+            if (current < 0) {
+                return;
+            }
+            int[] ids = references[current];
+            int count = referenceCounts[current];
+            if (ids == null) {
+                ids = references[current] = new int[4];
+            } else if (count == ids.length) {
+                ids = references[current] = Arrays.copyOf(ids, count << 1);
+            }
+            ids[count] = id;
+            referenceCounts[current] = count + 1;
+        }
+
+        List<InputValue.Builder> readInputValues() {
+            int count = in.readCount();
+            List<InputValue.Builder> inputValues = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                InputValue.Builder inputValueB = InputValue.builder().name(in.readRequiredName()).description(in.readString());
+                Type.Builder typeB = readNullableReference();
+                if (typeB == null) {
+                    throw new IllegalArgumentException("Missing input value type");
+                }
+                inputValues.add(inputValueB.type(typeB).defaultValue(in.readString()));
+            }
+            return inputValues;
+        }
+
+        private List<Field.Builder> readFields() {
+            int count = in.readCount();
+            List<Field.Builder> fields = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Field.Builder fieldB = Field.builder().name(in.readRequiredName()).description(in.readString());
+                fieldB.arguments(readInputValues());
+                fieldB.type(named(in.readRequiredName()));
+                fields.add(fieldB.isDeprecated(in.readBoolean()).deprecationReason(in.readString()));
+            }
+            return fields;
+        }
+
+        private List<Type.Builder> readNamedReferences() {
+            int count = in.readCount();
+            List<Type.Builder> types = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                types.add(named(in.readRequiredName()));
+            }
+            return types;
+        }
+
+        private Type.Builder named(String name) {
+            Type.Builder typeB = buildersByName.get(name);
+            return typeB != null ? typeB : Type.builder().name(name);
+        }
+    }
+}
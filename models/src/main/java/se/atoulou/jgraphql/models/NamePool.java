@@ -0,0 +1,222 @@
+package se.atoulou.jgraphql.models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Symbol table mapping names to one canonical {@code String} instance each, so that names interned in the same pool can be compared by reference.
+ * A {@link se.atoulou.jgraphql.models.schema.Schema} owns the pool its names were interned in; documents parsed against that pool share the
+ * schema's instances for field, type, argument and directive names.
+ * <p>
+ * Lookups from a {@code char[]} or {@code ByteBuffer} range do not allocate when the name is already present. Lookups are lock-free; adding a name takes the pool's
+ * monitor. Once {@code maximumSize} names are held, unknown names are returned as new strings without being added, so a stream of hostile
+ * documents cannot grow the pool without bound.
+ */
+public final class NamePool {
+    public static final int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int         maximumSize;
+    private volatile String[] table;
+    private int               size;
+
+    public NamePool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public NamePool(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.table = new String[INITIAL_CAPACITY];
+    }
+
+    public String intern(char[] data, int start, int end) {
+        int hash = hash(data, start, end);
+        String name = find(table, hash, data, start, end);
+        if (name != null) {
+            return name;
+        }
+        return add(hash, data, start, end);
+    }
+
+    /**
+     * Interns the name held as single-byte characters at the absolute range {@code [start, end)} of {@code data}, as lexed from UTF-8: GraphQL
+     * names are ASCII. The buffer's position is not used or changed.
+     */
+    public String intern(ByteBuffer data, int start, int end) {
+        int hash = hash(data, start, end);
+        String name = find(table, hash, data, start, end);
+        if (name != null) {
+            return name;
+        }
+        return add(hash, data, start, end);
+    }
+
+    /**
+     * Returns the canonical instance equal to {@code name}. If there is none yet, {@code name} itself becomes the canonical instance.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        int hash = spread(name.hashCode());
+        String canonical = find(table, hash, name);
+        if (canonical != null) {
+            return canonical;
+        }
+        return add(hash, name);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private synchronized String add(int hash, char[] data, int start, int end) {
+        // Another thread may have added it since the lock-free lookup
+        String name = find(table, hash, data, start, end);
+        return name != null ? name : insert(hash, new String(data, start, end - start));
+    }
+
+    private synchronized String add(int hash, ByteBuffer data, int start, int end) {
+        String name = find(table, hash, data, start, end);
+        if (name != null) {
+            return name;
+        }
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (data.get(start + i) & 0xff);
+        }
+        return insert(hash, new String(chars));
+    }
+
+    private synchronized String add(int hash, String name) {
+        String canonical = find(table, hash, name);
+        return canonical != null ? canonical : insert(hash, name);
+    }
+
+    private String insert(int hash, String name) {
+        assert Thread.holdsLock(this);
+        if (size >= maximumSize) {
+            return name;
+        }
+
+        // Keep the load factor at or below one half
+        String[] table = this.table;
+        if (2 * (size + 1) > table.length) {
+            table = rehash(table);
+        }
+        insert(table, hash, name);
+        size++;
+        // Names are only ever added, so readers racing with this store see either null or the complete String
+        this.table = table;
+        return name;
+    }
+
+    private static String[] rehash(String[] table) {
+        String[] newTable = new String[table.length << 1];
+        for (String name : table) {
+            if (name != null) {
+                insert(newTable, spread(name.hashCode()), name);
+            }
+        }
+        return newTable;
+    }
+
+    private static void insert(String[] table, int hash, String name) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = name;
+    }
+
+    private static String find(String[] table, int hash, char[] data, int start, int end) {
+        int mask = table.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate == null) {
+                return null;
+            } else if (matches(candidate, data, start, end)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static String find(String[] table, int hash, ByteBuffer data, int start, int end) {
+        int mask = table.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate == null) {
+                return null;
+            } else if (matches(candidate, data, start, end)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static String find(String[] table, int hash, String name) {
+        int mask = table.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate == null) {
+                return null;
+            } else if (candidate.equals(name)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean matches(String candidate, char[] data, int start, int end) {
+        int length = end - start;
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != data[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String candidate, ByteBuffer data, int start, int end) {
+        int length = end - start;
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != (data.get(start + i) & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same as String.hashCode, so that both intern methods probe the same slots
+    private static int hash(char[] data, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        return spread(h);
+    }
+
+    private static int hash(ByteBuffer data, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + (data.get(i) & 0xff);
+        }
+        return spread(h);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
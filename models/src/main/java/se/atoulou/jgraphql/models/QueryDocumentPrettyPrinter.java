@@ -1,13 +1,32 @@
 package se.atoulou.jgraphql.models;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import se.atoulou.jgraphql.models.query.Argument;
 import se.atoulou.jgraphql.models.query.Directive;
 import se.atoulou.jgraphql.models.query.FragmentDefinition;
 import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
 import se.atoulou.jgraphql.models.query.QueryDocument;
 import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
 import se.atoulou.jgraphql.models.query.VariableDefinition;
 import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
 import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
@@ -16,6 +35,8 @@ import se.atoulou.jgraphql.models.transform.QueryDocumentBaseVisitor;
 import se.atoulou.jgraphql.models.transform.QueryDocumentMessageWriter;
 
 public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<StringBuilderVisitorContext>implements QueryDocumentMessageWriter<String> {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private final String  newline;
     private final String  tab;
     private final boolean isCompact;
@@ -27,6 +48,35 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
         return context.getStringBuilder().toString();
     }
 
+    public void writeQueryDocument(QueryDocument queryDocument, Writer out) throws IOException {
+        StringBuilderVisitorContext context = new StringBuilderVisitorContext(newline, tab, isCompact, out);
+        try {
+            visitQueryDocument(queryDocument, context);
+            context.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the text as UTF-8. The stream is flushed but not closed.
+     */
+    public void writeQueryDocument(QueryDocument queryDocument, OutputStream out) throws IOException {
+        writeQueryDocument(queryDocument, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the text as UTF-8 into {@code out}, starting at its position and advancing it.
+     *
+     * @throws BufferOverflowException
+     *             if the text does not fit in the remaining space; {@code out} then holds a truncated prefix
+     */
+    public void writeQueryDocument(QueryDocument queryDocument, ByteBuffer out) {
+        StringBuilderVisitorContext context = new StringBuilderVisitorContext(newline, tab, isCompact, out);
+        visitQueryDocument(queryDocument, context);
+        context.flush();
+    }
+
     public QueryDocumentPrettyPrinter(boolean isCompact) {
         this(isCompact ? "" : "¥n", isCompact ? "" : "  ", isCompact);
     }
@@ -55,8 +105,16 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
         if (operation.getName() != null) {
             context.appendTabs();
 
-            String operationType = operation.getOperationType().name().toLowerCase();
-            context.append(String.format("%s %s", operationType, operation.getName()));
+            context.append(operation.getOperationType() == OperationType.MUATATION ? "mutation " : "query ");
+            context.append(operation.getName());
+        } else if (operation.getOperationType() == OperationType.MUATATION) {
+            // Only queries may use the shorthand form
+            context.appendTabs();
+            context.append("mutation");
+        } else if (!operation.getVariableDefinitions().isEmpty() || !operation.getDirectives().isEmpty()) {
+            // And only those without variables or directives
+            context.appendTabs();
+            context.append("query");
         }
     }
 
@@ -66,7 +124,10 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
         String typeCondition = fragment.getTypeCondition();
 
         context.appendTabs();
-        context.append(String.format("fragment %s on %s", fragmentName, typeCondition));
+        context.append("fragment ");
+        context.append(fragmentName);
+        context.append(" on ");
+        context.append(typeCondition);
     }
 
     @Override
@@ -83,7 +144,8 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
 
     @Override
     public void beforeDirective(Directive directive, StringBuilderVisitorContext context) {
-        context.append(String.format("@%s", directive.getName()));
+        context.append('@');
+        context.append(directive.getName());
 
         if (!directive.getArguments().isEmpty()) {
             context.setNewlinesEnabled(false);
@@ -122,7 +184,7 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
         context.append(argument.getName());
         context.append(':');
         context.appendRemovableSpace();
-        context.append(argument.getValue().getValue());
+        appendValue(argument.getValue(), context);
     }
 
     @Override
@@ -157,7 +219,7 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
             context.append('=');
             context.appendRemovableSpace();
 
-            context.append(variableDefinition.getDefaultValue().getValue());
+            appendValue(variableDefinition.getDefaultValue(), context);
         }
     }
 
@@ -209,12 +271,14 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
 
     @Override
     public void beforeInlineFragment(InlineFragment inlineFragment, StringBuilderVisitorContext context) {
-        context.append(String.format("... on %s", inlineFragment.getTypeCondition()));
+        context.append("... on ");
+        context.append(inlineFragment.getTypeCondition());
     }
 
     @Override
     public void beforeFragmentSpread(FragmentSpread fragmentSpread, StringBuilderVisitorContext context) {
-        context.append(String.format("...%s", fragmentSpread.getName()));
+        context.append("...");
+        context.append(fragmentSpread.getName());
     }
 
     @Override
@@ -230,4 +294,112 @@ public final class QueryDocumentPrettyPrinter extends QueryDocumentBaseVisitor<S
         String name = selectionField.getName();
         context.append(name);
     }
-}
\ No newline at end of file
+
+    private void appendValue(Value value, StringBuilderVisitorContext context) {
+        switch (value.getKind()) {
+        case VARIABLE:
+            context.append('$');
+            context.append(((VariableRef) value).getName());
+            break;
+        case INT:
+            context.append(((IntValue) value).getValue());
+            break;
+        case FLOAT:
+            context.append(((FloatValue) value).getValue());
+            break;
+        case STRING:
+            appendString(((StringValue) value).getValue(), context);
+            break;
+        case BOOLEAN:
+            context.append(((BooleanValue) value).getValue() ? "true" : "false");
+            break;
+        case NULL:
+            context.append("null");
+            break;
+        case ENUM:
+            context.append(((EnumValue) value).getName());
+            break;
+        case LIST:
+            context.append('[');
+            List<Value> values = ((ListValue) value).getValues();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    context.append(',');
+                    context.appendRemovableSpace();
+                }
+                appendValue(values.get(i), context);
+            }
+            context.append(']');
+            break;
+        case OBJECT:
+            context.append('{');
+            List<ObjectField> fields = ((ObjectValue) value).getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    context.append(',');
+                    context.appendRemovableSpace();
+                }
+                context.append(fields.get(i).getName());
+                context.append(':');
+                context.appendRemovableSpace();
+                appendValue(fields.get(i).getValue(), context);
+            }
+            context.append('}');
+            break;
+        default:
+            throw new AssertionError(value.getKind());
+        }
+    }
+
+    // Appends the runs between escaped characters in one piece each, so that long strings still reach the sink in bounded chunks
+    private void appendString(String value, StringBuilderVisitorContext context) {
+        context.append('"');
+        int run = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape;
+            switch (c) {
+            case '"':
+                escape = "\\\"";
+                break;
+            case '\\':
+                escape = "\\\\";
+                break;
+            case '\b':
+                escape = "\\b";
+                break;
+            case '\f':
+                escape = "\\f";
+                break;
+            case '\n':
+                escape = "\\n";
+                break;
+            case '\r':
+                escape = "\\r";
+                break;
+            case '\t':
+                escape = "\\t";
+                break;
+            default:
+                if (c >= 0x20 && c != '\u2028' && c != '\u2029') {
+                    continue;
+                }
+                escape = null;
+                break;
+            }
+
+            context.append(value, run, i);
+            run = i + 1;
+            if (escape != null) {
+                context.append(escape);
+            } else {
+                context.append("\\u");
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    context.append(HEX_DIGITS[(c >> shift) & 0xF]);
+                }
+            }
+        }
+        context.append(value, run, value.length());
+        context.append('"');
+    }
+}
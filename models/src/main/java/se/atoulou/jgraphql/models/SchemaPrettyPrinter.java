@@ -1,7 +1,14 @@
 package se.atoulou.jgraphql.models;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import se.atoulou.jgraphql.models.schema.EnumValue;
 import se.atoulou.jgraphql.models.schema.Field;
@@ -29,6 +36,35 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
         return context.getStringBuilder().toString();
     }
 
+    public void writeSchema(Schema schema, Writer out) throws IOException {
+        StringBuilderVisitorContext context = new StringBuilderVisitorContext(newline, tab, isCompact, out);
+        try {
+            visitSchema(schema, context);
+            context.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the text as UTF-8. The stream is flushed but not closed.
+     */
+    public void writeSchema(Schema schema, OutputStream out) throws IOException {
+        writeSchema(schema, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the text as UTF-8 into {@code out}, starting at its position and advancing it.
+     *
+     * @throws BufferOverflowException
+     *             if the text does not fit in the remaining space; {@code out} then holds a truncated prefix
+     */
+    public void writeSchema(Schema schema, ByteBuffer out) {
+        StringBuilderVisitorContext context = new StringBuilderVisitorContext(newline, tab, isCompact, out);
+        visitSchema(schema, context);
+        context.flush();
+    }
+
     public SchemaPrettyPrinter(boolean isCompact) {
         this(isCompact ? "" : "¥n", isCompact ? "" : "  ", isCompact);
     }
@@ -56,7 +92,8 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     public void beforeEnum(EnumType enumType, StringBuilderVisitorContext context) {
         context.appendTabs();
 
-        context.append(String.format("enum %s", enumType.getName()));
+        context.append("enum ");
+        context.append(enumType.getName());
         context.appendRemovableSpace();
         context.append('{');
         context.indent();
@@ -90,7 +127,8 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     public void beforeInputObject(InputObjectType inputObjectType, StringBuilderVisitorContext context) {
         context.appendTabs();
 
-        context.append(String.format("input %s", inputObjectType.getName()));
+        context.append("input ");
+        context.append(inputObjectType.getName());
         context.appendRemovableSpace();
         context.append('{');
 
@@ -120,7 +158,8 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     public void beforeInterface(InterfaceType interfaceType, StringBuilderVisitorContext context) {
         context.appendTabs();
 
-        context.append(String.format("interface %s", interfaceType.getName()));
+        context.append("interface ");
+        context.append(interfaceType.getName());
         context.appendRemovableSpace();
         context.append('{');
 
@@ -143,17 +182,21 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     public void beforeObject(ObjectType objectType, StringBuilderVisitorContext context) {
         context.appendTabs();
 
-        context.append(String.format("type %s", objectType.getName()));
+        context.append("type ");
+        context.append(objectType.getName());
 
         List<String> interfaces = objectType.getInterfaces();
         if (!interfaces.isEmpty()) {
-            String joiner = context.isCompact() ? "," : ", ";
-
-            String implementsString = interfaces.stream().collect(Collectors.joining(joiner));
             context.appendRemovableSpace();
             context.append(':');
             context.appendRemovableSpace();
-            context.append(implementsString);
+            for (int i = 0; i < interfaces.size(); i++) {
+                if (i > 0) {
+                    context.append(',');
+                    context.appendRemovableSpace();
+                }
+                context.append(interfaces.get(i));
+            }
         }
 
         context.appendRemovableSpace();
@@ -177,7 +220,8 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     @Override
     public void visitScalar(ScalarType scalarType, StringBuilderVisitorContext context) {
         context.appendTabs();
-        context.append(String.format("scalar %s", scalarType.getName()));
+        context.append("scalar ");
+        context.append(scalarType.getName());
 
         if (context.isCompact()) {
             context.append(',');
@@ -187,7 +231,8 @@ public final class SchemaPrettyPrinter extends SchemaBaseVisitor<StringBuilderVi
     @Override
     public void beforeUnion(UnionType unionType, StringBuilderVisitorContext context) {
         context.appendTabs();
-        context.append(String.format("union %s", unionType.getName()));
+        context.append("union ");
+        context.append(unionType.getName());
         context.appendRemovableSpace();
         context.append('=');
         context.appendRemovableSpace();
@@ -1,8 +1,26 @@
 package se.atoulou.jgraphql.models;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
 import se.atoulou.jgraphql.models.transform.VisitorContext;
 
+/**
+ * Text output for the printers. Without a sink, everything accumulates in the {@link StringBuilder}. With a {@link Writer} or {@link ByteBuffer}
+ * sink, the builder is only a buffer: it is drained whenever it grows past {@value #FLUSH_THRESHOLD} characters, and by {@link #flush()} at the
+ * end, so the whole text is never held in memory. Write errors surface from the append methods as {@link UncheckedIOException}.
+ */
 public class StringBuilderVisitorContext extends VisitorContext<StringBuilderVisitorContext> {
+    public static final int FLUSH_THRESHOLD = 8192;
+
     private final String  newline;
     private final String  tab;
     private final boolean isCompact;
@@ -11,14 +29,34 @@ public class StringBuilderVisitorContext extends VisitorContext<StringBuilderVis
     private int                 tabs;
     private boolean             newlinesEnabled;
 
+    private final Sink sink;
+    private char[]     flushBuffer;
+
     public StringBuilderVisitorContext(String newline, String tab, boolean isCompact) {
+        this(newline, tab, isCompact, (Sink) null);
+    }
+
+    public StringBuilderVisitorContext(String newline, String tab, boolean isCompact, Writer out) {
+        this(newline, tab, isCompact, new WriterSink(out));
+    }
+
+    /**
+     * Encodes the text as UTF-8 into {@code out}, starting at its position.
+     */
+    public StringBuilderVisitorContext(String newline, String tab, boolean isCompact, ByteBuffer out) {
+        this(newline, tab, isCompact, new ByteBufferSink(out));
+    }
+
+    private StringBuilderVisitorContext(String newline, String tab, boolean isCompact, Sink sink) {
         this.newline = newline;
         this.tab = tab;
         this.isCompact = isCompact;
 
-        this.stringBuilder = new StringBuilder();
+        this.stringBuilder = new StringBuilder(sink == null ? 16 : FLUSH_THRESHOLD + 256);
         this.tabs = 0;
         this.newlinesEnabled = true;
+
+        this.sink = sink;
     }
 
     public StringBuilderVisitorContext(String newline, String tab) {
@@ -75,18 +113,46 @@ public class StringBuilderVisitorContext extends VisitorContext<StringBuilderVis
 
     public final void append(char c) {
         stringBuilder.append(c);
+        flushIfFull();
     }
 
     public final void append(char[] str) {
         stringBuilder.append(str);
+        flushIfFull();
     }
 
     public final void append(String str) {
         stringBuilder.append(str);
+        flushIfFull();
     }
 
     public final void append(CharSequence s) {
         stringBuilder.append(s);
+        flushIfFull();
+    }
+
+    /**
+     * Appends {@code s[start, end)}, in pieces of at most {@value #FLUSH_THRESHOLD} characters with a sink, so that long text is never buffered
+     * whole.
+     */
+    public final void append(CharSequence s, int start, int end) {
+        while (sink != null && end - start > FLUSH_THRESHOLD) {
+            stringBuilder.append(s, start, start + FLUSH_THRESHOLD);
+            start += FLUSH_THRESHOLD;
+            flushIfFull();
+        }
+        stringBuilder.append(s, start, end);
+        flushIfFull();
+    }
+
+    public final void append(long l) {
+        stringBuilder.append(l);
+        flushIfFull();
+    }
+
+    public final void append(double d) {
+        stringBuilder.append(d);
+        flushIfFull();
     }
 
     public final void appendRemovableSpace() {
@@ -133,4 +199,79 @@ public class StringBuilderVisitorContext extends VisitorContext<StringBuilderVis
             stringBuilder.append(tab);
         }
     }
+
+    /**
+     * Writes everything buffered so far to the sink and completes it. Does nothing without a sink.
+     */
+    public final void flush() {
+        if (sink != null) {
+            drain(true);
+        }
+    }
+
+    private void flushIfFull() {
+        if (sink != null && stringBuilder.length() >= FLUSH_THRESHOLD) {
+            drain(false);
+        }
+    }
+
+    private void drain(boolean endOfInput) {
+        int length = stringBuilder.length();
+        // Keep a trailing high surrogate back until its pair arrives, so that it is encoded as one code point
+        if (!endOfInput && length > 0 && Character.isHighSurrogate(stringBuilder.charAt(length - 1))) {
+            length--;
+        }
+
+        if (flushBuffer == null || flushBuffer.length < length) {
+            flushBuffer = new char[Math.max(length, FLUSH_THRESHOLD + 256)];
+        }
+        stringBuilder.getChars(0, length, flushBuffer, 0);
+        stringBuilder.delete(0, length);
+
+        try {
+            sink.write(flushBuffer, length, endOfInput);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Sink {
+        void write(char[] chars, int length, boolean endOfInput) throws IOException;
+    }
+
+    private static final class WriterSink implements Sink {
+        private final Writer out;
+
+        WriterSink(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int length, boolean endOfInput) throws IOException {
+            out.write(chars, 0, length);
+            if (endOfInput) {
+                out.flush();
+            }
+        }
+    }
+
+    private static final class ByteBufferSink implements Sink {
+        private final ByteBuffer     out;
+        private final CharsetEncoder encoder;
+
+        ByteBufferSink(ByteBuffer out) {
+            this.out = out;
+            this.encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public void write(char[] chars, int length, boolean endOfInput) {
+            CoderResult result = encoder.encode(CharBuffer.wrap(chars, 0, length), out, endOfInput);
+            if (result.isOverflow() || (endOfInput && encoder.flush(out).isOverflow())) {
+                throw new BufferOverflowException();
+            }
+        }
+    }
 }
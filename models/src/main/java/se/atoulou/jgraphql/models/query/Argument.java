@@ -8,7 +8,7 @@ public class Argument {
         return new Builder();
     }
 
-    protected Argument(String name, Value value) {
+    public Argument(String name, Value value) {
         this.name = name;
         this.value = value;
     }
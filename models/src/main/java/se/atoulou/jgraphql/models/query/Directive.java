@@ -12,7 +12,7 @@ public class Directive {
         return new Builder();
     }
 
-    protected Directive(String name, List<Argument> arguments) {
+    public Directive(String name, List<Argument> arguments) {
         this.name = name;
         this.arguments = arguments;
     }
@@ -14,7 +14,7 @@ public class FragmentDefinition {
         return new Builder();
     }
 
-    protected FragmentDefinition(String name, String typeCondition, List<Directive> directives, List<Selection> selectionSet) {
+    public FragmentDefinition(String name, String typeCondition, List<Directive> directives, List<Selection> selectionSet) {
         this.name = name;
         this.typeCondition = typeCondition;
         this.directives = directives;
@@ -12,7 +12,7 @@ public class QueryDocument {
         return new Builder();
     }
 
-    protected QueryDocument(List<OperationDefinition> operations, List<FragmentDefinition> fragments) {
+    public QueryDocument(List<OperationDefinition> operations, List<FragmentDefinition> fragments) {
         this.operations = operations;
         this.fragments = fragments;
     }
@@ -1,41 +1,273 @@
 package se.atoulou.jgraphql.models.query;
 
-public class Value {
-    private final String value;
+import java.util.List;
+
+/**
+ * A literal or variable reference in a query, decoded once at parse time. The subclasses nested here are the only ones: the constructor is private.
+ */
+public abstract class Value {
+    public static enum ValueKind {
+        VARIABLE,
+        INT,
+        FLOAT,
+        STRING,
+        BOOLEAN,
+        NULL,
+        ENUM,
+        LIST,
+        OBJECT
+    }
+
+    private final ValueKind kind;
 
     public static Builder builder() {
         return new Builder();
     }
 
-    protected Value(String value) {
-        this.value = value;
+    private Value(ValueKind kind) {
+        this.kind = kind;
+    }
+
+    public ValueKind getKind() {
+        return kind;
+    }
+
+    public static final class VariableRef extends Value {
+        private final String name;
+
+        /**
+         * @param name
+         *            the variable's name, without the leading {@code $}
+         */
+        public VariableRef(String name) {
+            super(ValueKind.VARIABLE);
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return "VariableRef [name=" + name + "]";
+        }
+    }
+
+    public static final class IntValue extends Value {
+        private final long value;
+
+        public IntValue(long value) {
+            super(ValueKind.INT);
+            this.value = value;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "IntValue [value=" + value + "]";
+        }
+    }
+
+    public static final class FloatValue extends Value {
+        private final double value;
+
+        /**
+         * @throws IllegalArgumentException
+         *             if the value is infinite or NaN, which GraphQL has no literal for
+         */
+        public FloatValue(double value) {
+            super(ValueKind.FLOAT);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Float value must be finite: " + value);
+            }
+            this.value = value;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "FloatValue [value=" + value + "]";
+        }
     }
 
-    public String getValue() {
-        return value;
+    public static final class StringValue extends Value {
+        private final String value;
+
+        /**
+         * @param value
+         *            the string's contents, with escape sequences already decoded
+         */
+        public StringValue(String value) {
+            super(ValueKind.STRING);
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "StringValue [value=" + value + "]";
+        }
+    }
+
+    public static final class BooleanValue extends Value {
+        public static final BooleanValue TRUE  = new BooleanValue(true);
+        public static final BooleanValue FALSE = new BooleanValue(false);
+
+        private final boolean value;
+
+        private BooleanValue(boolean value) {
+            super(ValueKind.BOOLEAN);
+            this.value = value;
+        }
+
+        public static BooleanValue of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        public boolean getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "BooleanValue [value=" + value + "]";
+        }
+    }
+
+    public static final class NullValue extends Value {
+        public static final NullValue NULL = new NullValue();
+
+        private NullValue() {
+            super(ValueKind.NULL);
+        }
+
+        @Override
+        public String toString() {
+            return "NullValue []";
+        }
+    }
+
+    public static final class EnumValue extends Value {
+        private final String name;
+
+        public EnumValue(String name) {
+            super(ValueKind.ENUM);
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return "EnumValue [name=" + name + "]";
+        }
+    }
+
+    public static final class ListValue extends Value {
+        private final List<Value> values;
+
+        public ListValue(List<Value> values) {
+            super(ValueKind.LIST);
+            this.values = values;
+        }
+
+        public List<Value> getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return "ListValue [values=" + values + "]";
+        }
+    }
+
+    public static final class ObjectValue extends Value {
+        private final List<ObjectField> fields;
+
+        public ObjectValue(List<ObjectField> fields) {
+            super(ValueKind.OBJECT);
+            this.fields = fields;
+        }
+
+        public List<ObjectField> getFields() {
+            return fields;
+        }
+
+        /**
+         * @return the value of the first field named {@code name}, or {@code null} if there is none
+         */
+        public Value get(String name) {
+            for (ObjectField field : fields) {
+                if (field.getName().equals(name)) {
+                    return field.getValue();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "ObjectValue [fields=" + fields + "]";
+        }
+    }
+
+    public static final class ObjectField {
+        private final String name;
+        private final Value  value;
+
+        public ObjectField(String name, Value value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Value getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "ObjectField [name=" + name + ", value=" + value + "]";
+        }
     }
 
     public static class Builder {
-        private String value;
+        private Value value;
 
         protected Builder() {
         }
 
         public Value build() {
-            return new Value(value);
+            return value;
         }
 
-        public String value() {
+        public Value value() {
             return value;
         }
 
-        public void value(String value) {
+        public Builder value(Value value) {
             this.value = value;
+            return this;
         }
     }
 
     @Override
     public String toString() {
-        return "Value [value=" + value + "]";
+        return "Value [kind=" + kind + "]";
     }
 }
@@ -9,7 +9,7 @@ public class VariableDefinition {
         return new Builder();
     }
 
-    protected VariableDefinition(String variable, String type, Value defaultValue) {
+    public VariableDefinition(String variable, String type, Value defaultValue) {
         this.variable = variable;
         this.type = type;
         this.defaultValue = defaultValue;
@@ -0,0 +1,71 @@
+package se.atoulou.jgraphql.models.schema;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable open-addressing hash index from names to elements, built once alongside the list it indexes. The table is kept at most half full, and
+ * keys interned in the schema's {@link se.atoulou.jgraphql.models.NamePool} usually match on the reference check before {@code equals}. When
+ * names repeat, the first element wins, as with a linear scan of the list.
+ */
+final class NameIndex<T> {
+    private static final NameIndex<?> EMPTY = new NameIndex<>(new String[1], new Object[1]);
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int      mask;
+
+    private NameIndex(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> NameIndex<T> of(List<T> elements, Function<T, String> nameFunction) {
+        if (elements.isEmpty()) {
+            return (NameIndex<T>) EMPTY;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, elements.size()) - 1) << 2;
+        String[] keys = new String[capacity];
+        Object[] values = new Object[capacity];
+        int mask = capacity - 1;
+
+        for (T element : elements) {
+            String name = nameFunction.apply(element);
+            if (name == null) {
+                continue;
+            }
+            int i = spread(name.hashCode()) & mask;
+            while (keys[i] != null && !keys[i].equals(name)) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == null) {
+                keys[i] = name;
+                values[i] = element;
+            }
+        }
+        return new NameIndex<>(keys, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(String name) {
+        int i = spread(name.hashCode()) & mask;
+        for (;;) {
+            String key = keys[i];
+            if (key == name) {
+                return (T) values[i];
+            } else if (key == null) {
+                return null;
+            } else if (key.equals(name)) {
+                return (T) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
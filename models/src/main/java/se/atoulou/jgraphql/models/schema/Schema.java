@@ -1,31 +1,135 @@
 package se.atoulou.jgraphql.models.schema;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import se.atoulou.jgraphql.models.NamePool;
+import se.atoulou.jgraphql.models.schema.Type.InterfaceType;
+import se.atoulou.jgraphql.models.schema.Type.UnionType;
+
 public class Schema {
-    private final List<Type>      types;
-    private final Type            queryType;
-    private final Type            mutationType;
-    private final List<Directive> directives;
+    private final List<Type>         types;
+    private final NameIndex<Type>    typeIndex;
+    private final Type[]             typesById;
+    // The ids of declared types another schema declared first; those this schema declared first keep their id themselves
+    private final Map<Type, Integer> sharedIds;
+    // The bitsets of the possible types of interfaces and unions, by id; null for other types
+    private final long[][]           possibleTypeIds;
+    private final Type               queryType;
+    private final Type               mutationType;
+    private final List<Directive>    directives;
+    private final NamePool           namePool;
 
     public static Builder builder() {
         return new Builder();
     }
 
-    protected Schema(List<Type> types, Type queryType, Type mutationType, List<Directive> directives) {
+    /**
+     * Types may be shared with other schemas, as by building a schema twice from the same builders; each schema numbers them on its own.
+     */
+    protected Schema(List<Type> types, Type queryType, Type mutationType, List<Directive> directives, NamePool namePool) {
         super();
         this.types = types;
+        this.typeIndex = NameIndex.of(types, Type::getName);
+        this.sharedIds = new IdentityHashMap<>();
+        this.typesById = assignIds(types);
+        this.possibleTypeIds = new long[typesById.length][];
+        assignPossibleTypeIds();
         this.queryType = queryType;
         this.mutationType = mutationType;
         this.directives = directives;
+        this.namePool = namePool;
     }
 
     public List<Type> getTypes() {
         return types;
     }
 
+    /**
+     * @return the type named {@code name}, or {@code null} if the schema does not declare one
+     */
+    public Type getType(String name) {
+        return typeIndex.get(name);
+    }
+
+    /**
+     * @return the type whose {@link #getId(Type) id} is {@code id}
+     * @throws IndexOutOfBoundsException
+     *             if there is none
+     */
+    public Type getType(int id) {
+        return typesById[id];
+    }
+
+    /**
+     * The type's id in this schema, which {@link #getType(int)} looks up: its position among the distinct types of {@link #getTypes()}, where a
+     * type listed twice counts once. Ids are dense, so they can index arrays and bitsets.
+     *
+     * @return the id, or {@code -1} for the list and non-null wrappers and for types the schema does not declare, such as built-in scalars
+     */
+    public int getId(Type type) {
+        int id = type.claimedId(this);
+        if (id >= 0) {
+            return id;
+        }
+        Integer sharedId = sharedIds.isEmpty() ? null : sharedIds.get(type);
+        return sharedId != null ? sharedId : -1;
+    }
+
+    /**
+     * Whether objects of the object type {@code possibleType} can appear where {@code type} is expected: it is {@code type} itself, or implements
+     * that interface, or is a member of that union. This is the check for fragment type conditions, a bit test when {@code type} is abstract.
+     */
+    public boolean isPossibleType(Type type, Type possibleType) {
+        switch (type.getKind()) {
+        case INTERFACE:
+        case UNION: {
+            long[] ids = possibleTypeIds(type);
+            return ids != null && containsId(ids, getId(possibleType));
+        }
+        default:
+            return type == possibleType;
+        }
+    }
+
+    /**
+     * Whether some object type can be both an {@code a} and a {@code b}, so that a fragment on one of them can apply within a selection on the
+     * other. For two abstract types, this intersects their bitsets of possible types.
+     */
+    public boolean typesOverlap(Type a, Type b) {
+        if (a == b) {
+            return true;
+        }
+        long[] aIds = possibleTypeIds(a);
+        long[] bIds = possibleTypeIds(b);
+        if (aIds == null) {
+            return bIds != null && isPossibleType(b, a);
+        } else if (bIds == null) {
+            return isPossibleType(a, b);
+        }
+        for (int i = Math.min(aIds.length, bIds.length) - 1; i >= 0; i--) {
+            if ((aIds[i] & bIds[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // null for types other than the interfaces and unions of this schema
+    private long[] possibleTypeIds(Type type) {
+        int id = getId(type);
+        return id >= 0 ? possibleTypeIds[id] : null;
+    }
+
+    // Whether bit id of the set is set
+    private static boolean containsId(long[] ids, int id) {
+        return id >= 0 && (id >>> 6) < ids.length && (ids[id >>> 6] & (1L << id)) != 0;
+    }
+
     public Type getQueryType() {
         return queryType;
     }
@@ -38,21 +142,75 @@ public class Schema {
         return directives;
     }
 
+    /**
+     * The pool this schema's names were interned in. Parse documents with it to share the schema's name instances.
+     */
+    public NamePool getNamePool() {
+        return namePool;
+    }
+
+    // Numbers the types in order; a type listed twice keeps its first id
+    private Type[] assignIds(List<Type> types) {
+        Type[] typesById = new Type[types.size()];
+        int count = 0;
+        for (Type type : types) {
+            if (getId(type) >= 0) {
+                continue;
+            }
+            if (!type.claim(this, count)) {
+                sharedIds.put(type, count);
+            }
+            typesById[count++] = type;
+        }
+        return Arrays.copyOf(typesById, count);
+    }
+
+    private void assignPossibleTypeIds() {
+        for (int id = 0; id < typesById.length; id++) {
+            Type type = typesById[id];
+            if (type instanceof InterfaceType) {
+                long[] ids = new long[(typesById.length + 63) >>> 6];
+                for (String name : ((InterfaceType) type).getPossibleTypes()) {
+                    Type possibleType = typeIndex.get(name);
+                    if (possibleType != null) {
+                        setId(ids, getId(possibleType));
+                    }
+                }
+                possibleTypeIds[id] = ids;
+            } else if (type instanceof UnionType) {
+                long[] ids = new long[(typesById.length + 63) >>> 6];
+                for (Type possibleType : ((UnionType) type).getPossibleTypes()) {
+                    int possibleTypeId = getId(possibleType);
+                    if (possibleTypeId >= 0) {
+                        setId(ids, possibleTypeId);
+                    }
+                }
+                possibleTypeIds[id] = ids;
+            }
+        }
+    }
+
+    private static void setId(long[] ids, int id) {
+        ids[id >>> 6] |= 1L << id;
+    }
+
     public static class Builder {
         private List<Type.Builder>      types;
         private Type                    queryType;
         private Type                    mutationType;
         private List<Directive.Builder> directives;
+        private NamePool                namePool;
 
         protected Builder() {
             types = new ArrayList<>();
             directives = new ArrayList<>();
+            namePool = new NamePool();
         }
 
         public Schema build() {
             List<Type> types = this.types.stream().map(builder -> builder.build()).collect(Collectors.toList());
             List<Directive> directives = this.directives.stream().map(builder -> builder.build()).collect(Collectors.toList());
-            return new Schema(types, queryType, mutationType, directives);
+            return new Schema(types, queryType, mutationType, directives, namePool);
         }
 
         public List<Type.Builder> types() {
@@ -90,6 +248,15 @@ public class Schema {
             this.directives = directives;
             return this;
         }
+
+        public NamePool namePool() {
+            return namePool;
+        }
+
+        public Builder namePool(NamePool namePool) {
+            this.namePool = namePool;
+            return this;
+        }
     }
 
     @Override
@@ -2,6 +2,7 @@ package se.atoulou.jgraphql.models.schema;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Collectors;
 
 public class Type {
@@ -16,9 +17,13 @@ public class Type {
         NON_NULL,
     }
 
+    private static final AtomicReferenceFieldUpdater<Type, Claim> CLAIM = AtomicReferenceFieldUpdater.newUpdater(Type.class, Claim.class, "claim");
+
     private final TypeKind kind;
     private final String   name;
     private final String   description;
+    // The first schema to declare this type, and its id there, so that the schema finds the id without a map lookup
+    private volatile Claim claim;
 
     public static Builder builder() {
         return new Builder();
@@ -43,6 +48,31 @@ public class Type {
         return description;
     }
 
+    /**
+     * @return the type's id in {@code schema} if the schema is the first to declare it, or else {@code -1}
+     */
+    int claimedId(Schema schema) {
+        Claim claim = this.claim;
+        return claim != null && claim.schema == schema ? claim.id : -1;
+    }
+
+    /**
+     * @return whether the type had not been declared by a schema before
+     */
+    boolean claim(Schema schema, int id) {
+        return claim == null && CLAIM.compareAndSet(this, null, new Claim(schema, id));
+    }
+
+    private static final class Claim {
+        final Schema schema;
+        final int    id;
+
+        Claim(Schema schema, int id) {
+            this.schema = schema;
+            this.id = id;
+        }
+    }
+
     public static class EnumType extends Type {
         private final List<EnumValue> enumValues;
 
@@ -63,12 +93,14 @@ public class Type {
     }
 
     public static class InterfaceType extends Type {
-        private final List<Field>  fields;
-        private final List<String> possibleTypes;
+        private final List<Field>      fields;
+        private final NameIndex<Field> fieldIndex;
+        private final List<String>     possibleTypes;
 
         public InterfaceType(TypeKind kind, String name, String description, List<Field> fields, List<String> possibleTypes) {
             super(kind, name, description);
             this.fields = fields;
+            this.fieldIndex = NameIndex.of(fields, Field::getName);
             this.possibleTypes = possibleTypes;
         }
 
@@ -76,6 +108,10 @@ public class Type {
             return fields;
         }
 
+        public Field getField(String name) {
+            return fieldIndex.get(name);
+        }
+
         public List<String> getPossibleTypes() {
             return possibleTypes;
         }
@@ -88,17 +124,23 @@ public class Type {
     }
 
     public static class InputObjectType extends Type {
-        private final List<InputValue> inputFields;
+        private final List<InputValue>      inputFields;
+        private final NameIndex<InputValue> inputFieldIndex;
 
         public InputObjectType(TypeKind kind, String name, String description, List<InputValue> inputFields) {
             super(kind, name, description);
             this.inputFields = inputFields;
+            this.inputFieldIndex = NameIndex.of(inputFields, InputValue::getName);
         }
 
         public List<InputValue> getInputFields() {
             return inputFields;
         }
 
+        public InputValue getInputField(String name) {
+            return inputFieldIndex.get(name);
+        }
+
         @Override
         public String toString() {
             return "InputObjectType [inputFields=" + inputFields + ", getDescription()=" + getDescription() + ", getKind()=" + getKind() + ", getName()="
@@ -143,12 +185,14 @@ public class Type {
     }
 
     public static class ObjectType extends Type {
-        private final List<Field>  fields;
-        private final List<String> interfaces;
+        private final List<Field>      fields;
+        private final NameIndex<Field> fieldIndex;
+        private final List<String>     interfaces;
 
         public ObjectType(TypeKind kind, String name, String description, List<Field> fields, List<String> interfaces) {
             super(kind, name, description);
             this.fields = fields;
+            this.fieldIndex = NameIndex.of(fields, Field::getName);
             this.interfaces = interfaces;
         }
 
@@ -156,6 +200,10 @@ public class Type {
             return fields;
         }
 
+        public Field getField(String name) {
+            return fieldIndex.get(name);
+        }
+
         public List<String> getInterfaces() {
             return interfaces;
         }
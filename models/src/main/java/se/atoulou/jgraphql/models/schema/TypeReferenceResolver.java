@@ -0,0 +1,101 @@
+package se.atoulou.jgraphql.models.schema;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+
+/**
+ * Resolves the type references of a schema, such as a field's {@code "[Episode]!"}, to {@link ListType} and {@link NonNullType} wrappers around
+ * the named type. The built-in scalars resolve even when the schema does not declare them, as the parser only registers them.
+ * <p>
+ * Every call parses the reference and builds new wrappers, so callers resolving the same references repeatedly keep what they resolved.
+ */
+public final class TypeReferenceResolver {
+    private static final String[] BUILT_IN_SCALARS = { "Int", "Float", "String", "Boolean", "ID" };
+
+    private final Schema            schema;
+    private final Map<String, Type> builtInScalars;
+
+    public TypeReferenceResolver(Schema schema) {
+        this.schema = schema;
+        this.builtInScalars = new HashMap<>();
+        for (String name : BUILT_IN_SCALARS) {
+            if (schema.getType(name) == null) {
+                builtInScalars.put(name, Type.builder().kind(TypeKind.SCALAR).name(name).build());
+            }
+        }
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the declared or built-in type named {@code name}, or {@code null}
+     */
+    public Type namedType(String name) {
+        Type type = schema.getType(name);
+        return type != null ? type : builtInScalars.get(name);
+    }
+
+    /**
+     * Parses a type reference as the parsers write it, without ignored characters between its tokens.
+     *
+     * @return the resolved type, or {@code null} if the reference is malformed or names an unknown type
+     */
+    public Type resolve(String reference) {
+        return new Parser(reference).parse();
+    }
+
+    private final class Parser {
+        private final String text;
+        private int          position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Type parse() {
+            Type type = parseType();
+            return position == text.length() ? type : null;
+        }
+
+        private Type parseType() {
+            Type type;
+            if (position < text.length() && text.charAt(position) == '[') {
+                position++;
+                Type ofType = parseType();
+                if (ofType == null || position == text.length() || text.charAt(position) != ']') {
+                    return null;
+                }
+                position++;
+                type = new ListType(TypeKind.LIST, "[" + ofType.getName() + "]", null, ofType);
+            } else {
+                int start = position;
+                while (position < text.length() && isNameCharacter(text.charAt(position))) {
+                    position++;
+                }
+                if (start == position) {
+                    return null;
+                }
+                type = namedType(text.substring(start, position));
+                if (type == null) {
+                    return null;
+                }
+            }
+
+            if (position < text.length() && text.charAt(position) == '!') {
+                position++;
+                type = new NonNullType(TypeKind.NON_NULL, type.getName() + "!", null, type);
+            }
+            return type;
+        }
+
+        private boolean isNameCharacter(char c) {
+            return c == '_' || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+        }
+    }
+}
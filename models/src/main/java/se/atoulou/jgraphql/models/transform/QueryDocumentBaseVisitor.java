@@ -13,6 +13,7 @@ import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
 import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
 import se.atoulou.jgraphql.models.query.Selection.SelectionField;
 
+// Lists are walked by index: the walk recurses through selection sets, so iterators would escape and be allocated for every visited list
 public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements QueryDocumentVisitor<T>, QueryDocumentVisitorActions<T> {
 
     @Override
@@ -22,7 +23,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
         List<OperationDefinition> operations = queryDocument.getOperations();
         if (!operations.isEmpty()) {
             context.enter();
-            for (OperationDefinition operation : operations) {
+            for (int i = 0; i < operations.size(); i++) {
+                OperationDefinition operation = operations.get(i);
                 context.incrementIndex();
                 if (context.currentIndex() >= 1) {
                     punctuateQueryDocument(queryDocument, context);
@@ -39,7 +41,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
             }
 
             context.enter();
-            for (FragmentDefinition fragment : fragments) {
+            for (int i = 0; i < fragments.size(); i++) {
+                FragmentDefinition fragment = fragments.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -80,7 +83,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
 
         if (!directives.isEmpty()) {
             context.enter();
-            for (Directive directive : directives) {
+            for (int i = 0; i < directives.size(); i++) {
+                Directive directive = directives.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -109,7 +113,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
 
         if (!arguments.isEmpty()) {
             context.enter();
-            for (Argument argument : arguments) {
+            for (int i = 0; i < arguments.size(); i++) {
+                Argument argument = arguments.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -135,7 +140,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
 
         if (!variableDefinitions.isEmpty()) {
             context.enter();
-            for (VariableDefinition variableDefinition : variableDefinitions) {
+            for (int i = 0; i < variableDefinitions.size(); i++) {
+                VariableDefinition variableDefinition = variableDefinitions.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -161,7 +167,8 @@ public class QueryDocumentBaseVisitor<T extends VisitorContext<T>> implements Qu
 
         if (!selectionSet.isEmpty()) {
             context.enter();
-            for (Selection selection : selectionSet) {
+            for (int i = 0; i < selectionSet.size(); i++) {
+                Selection selection = selectionSet.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
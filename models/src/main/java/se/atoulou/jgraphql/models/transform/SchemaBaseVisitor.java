@@ -16,6 +16,7 @@ import se.atoulou.jgraphql.models.schema.Type.ObjectType;
 import se.atoulou.jgraphql.models.schema.Type.ScalarType;
 import se.atoulou.jgraphql.models.schema.Type.UnionType;
 
+// Lists are walked by index, as in QueryDocumentBaseVisitor, so that visiting allocates nothing
 public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVisitor<T>, SchemaVisitorActions<T> {
     @Override
     public void visitSchema(Schema schema, T context) {
@@ -24,7 +25,8 @@ public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVis
         List<Type> types = schema.getTypes();
         if (!types.isEmpty()) {
             context.enter();
-            for (Type type : schema.getTypes()) {
+            for (int i = 0; i < types.size(); i++) {
+                Type type = types.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -80,7 +82,9 @@ public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVis
         beforeEnum(enumType, context);
 
         context.enter();
-        for (EnumValue enumValue : enumType.getEnumValues()) {
+        List<EnumValue> enumValues = enumType.getEnumValues();
+        for (int i = 0; i < enumValues.size(); i++) {
+            EnumValue enumValue = enumValues.get(i);
             context.incrementIndex();
 
             if (context.currentIndex() >= 1) {
@@ -149,7 +153,9 @@ public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVis
         beforeUnion(unionType, context);
 
         context.enter();
-        for (Type type : unionType.getPossibleTypes()) {
+        List<Type> possibleTypes = unionType.getPossibleTypes();
+        for (int i = 0; i < possibleTypes.size(); i++) {
+            Type type = possibleTypes.get(i);
             context.incrementIndex();
 
             if (context.currentIndex() >= 1) {
@@ -174,7 +180,8 @@ public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVis
 
         context.enter();
         if (!inputValues.isEmpty()) {
-            for (InputValue inputValue : inputValues) {
+            for (int i = 0; i < inputValues.size(); i++) {
+                InputValue inputValue = inputValues.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -200,7 +207,8 @@ public class SchemaBaseVisitor<T extends VisitorContext<T>> implements SchemaVis
 
         context.enter();
         if (!fields.isEmpty()) {
-            for (Field field : fields) {
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
                 context.incrementIndex();
 
                 if (context.currentIndex() >= 1) {
@@ -1,36 +1,41 @@
 package se.atoulou.jgraphql.models.transform;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 public class VisitorContext<T extends VisitorContext<?>> {
-    protected Stack<Integer> indices;
+    private static final int INITIAL_DEPTH = 16;
+
+    // Sibling index at each level, as a growable int stack: visitors call these for every node, so no boxing and no locking
+    protected int[] indices;
+    protected int   level;
 
     public VisitorContext() {
-        indices = new Stack<>();
+        indices = new int[INITIAL_DEPTH];
     }
 
     public int currentLevel() {
-        return indices.size();
+        return level;
     }
 
     public int currentIndex() {
-        return indices.peek().intValue();
+        assert level > 0;
+        return indices[level - 1];
     }
 
     public void incrementIndex() {
-        int newIndex = indices.pop().intValue() + 1;
-        indices.push(newIndex);
-
-        if (newIndex < 1) {
-            return;
-        }
+        assert level > 0;
+        indices[level - 1]++;
     }
 
     public void enter() {
-        indices.push(-1);
+        if (level == indices.length) {
+            indices = Arrays.copyOf(indices, level << 1);
+        }
+        indices[level++] = -1;
     }
 
     public void leave() {
-        indices.pop();
+        assert level > 0;
+        level--;
     }
 }
@@ -0,0 +1,120 @@
+package se.atoulou.jgraphql.models.validation;
+
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.schema.Type;
+
+/**
+ * Reusable open-addressing map from the pairs of fields OverlappingFieldsCanBeMerged compared, each field with its parent type and the pair with
+ * whether the fields are known to be exclusive, to why they conflict. Nested fragments lead to the same pairs along many paths, which are then
+ * compared once per document instead of once per path. Fields and types are compared by identity. Clearing keeps the arrays and only visits the
+ * slots in use, as {@link NameTable} does.
+ */
+final class FieldPairTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // What get returns for a pair not in the table, as null stands for fields that can be merged
+    static final String ABSENT = new String("absent");
+
+    private SelectionField[] fieldsA;
+    private Type[]           parentsA;
+    private SelectionField[] fieldsB;
+    private Type[]           parentsB;
+    private boolean[]        exclusives;
+    private String[]         problems;
+    private int[]            occupied;
+    private int              size;
+
+    FieldPairTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return why the fields conflict, {@code null} if they can be merged, or {@link #ABSENT} if they have not been compared
+     */
+    String get(SelectionField a, Type parentA, SelectionField b, Type parentB, boolean exclusive) {
+        int mask = fieldsA.length - 1;
+        int i = hash(a, parentA, b, parentB, exclusive) & mask;
+        for (;;) {
+            if (fieldsA[i] == null) {
+                return ABSENT;
+            } else if (fieldsA[i] == a && parentsA[i] == parentA && fieldsB[i] == b && parentsB[i] == parentB && exclusives[i] == exclusive) {
+                return problems[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Maps the pair to {@code problem}, replacing what it was mapped to.
+     */
+    void put(SelectionField a, Type parentA, SelectionField b, Type parentB, boolean exclusive, String problem) {
+        if ((size + 1) << 1 > fieldsA.length) {
+            grow();
+        }
+        int mask = fieldsA.length - 1;
+        int i = hash(a, parentA, b, parentB, exclusive) & mask;
+        for (;;) {
+            if (fieldsA[i] == null) {
+                fieldsA[i] = a;
+                parentsA[i] = parentA;
+                fieldsB[i] = b;
+                parentsB[i] = parentB;
+                exclusives[i] = exclusive;
+                problems[i] = problem;
+                occupied[size++] = i;
+                return;
+            } else if (fieldsA[i] == a && parentsA[i] == parentA && fieldsB[i] == b && parentsB[i] == parentB && exclusives[i] == exclusive) {
+                problems[i] = problem;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            int slot = occupied[i];
+            fieldsA[slot] = null;
+            parentsA[slot] = null;
+            fieldsB[slot] = null;
+            parentsB[slot] = null;
+            problems[slot] = null;
+        }
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        fieldsA = new SelectionField[capacity];
+        parentsA = new Type[capacity];
+        fieldsB = new SelectionField[capacity];
+        parentsB = new Type[capacity];
+        exclusives = new boolean[capacity];
+        problems = new String[capacity];
+        occupied = new int[capacity >> 1];
+        size = 0;
+    }
+
+    private void grow() {
+        SelectionField[] oldFieldsA = fieldsA;
+        Type[] oldParentsA = parentsA;
+        SelectionField[] oldFieldsB = fieldsB;
+        Type[] oldParentsB = parentsB;
+        boolean[] oldExclusives = exclusives;
+        String[] oldProblems = problems;
+        allocate(oldFieldsA.length << 1);
+        for (int i = 0; i < oldFieldsA.length; i++) {
+            if (oldFieldsA[i] != null) {
+                put(oldFieldsA[i], oldParentsA[i], oldFieldsB[i], oldParentsB[i], oldExclusives[i], oldProblems[i]);
+            }
+        }
+    }
+
+    private static int hash(SelectionField a, Type parentA, SelectionField b, Type parentB, boolean exclusive) {
+        int h = System.identityHashCode(a);
+        h = h * 31 + System.identityHashCode(parentA);
+        h = h * 31 + System.identityHashCode(b);
+        h = h * 31 + System.identityHashCode(parentB);
+        h = h * 31 + (exclusive ? 1 : 0);
+        return h ^ (h >>> 16);
+    }
+}
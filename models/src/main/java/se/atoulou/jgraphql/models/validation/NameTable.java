@@ -0,0 +1,101 @@
+package se.atoulou.jgraphql.models.validation;
+
+/**
+ * Reusable open-addressing map from names to non-negative ints, for the validator's per-document tables. Clearing keeps the arrays, so a table
+ * that has grown to fit one document fills again for the next without allocating, and only visits the slots in use, so a table grown by one large
+ * selection set stays cheap to clear for the many small ones.
+ */
+final class NameTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys;
+    private int[]    values;
+    private int[]    occupied;
+    private int      size;
+
+    NameTable() {
+        keys = new String[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        occupied = new int[INITIAL_CAPACITY >> 1];
+    }
+
+    /**
+     * @return the value of {@code name}, or {@code -1} if it has none
+     */
+    int get(String name) {
+        int mask = keys.length - 1;
+        int i = spread(name.hashCode()) & mask;
+        for (;;) {
+            String key = keys[i];
+            if (key == null) {
+                return -1;
+            } else if (key == name || key.equals(name)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Maps {@code name} to {@code value} unless it already has a value.
+     *
+     * @return the value {@code name} had, or {@code -1} if it was added
+     */
+    int putIfAbsent(String name, int value) {
+        assert value >= 0;
+        if ((size + 1) << 1 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = spread(name.hashCode()) & mask;
+        for (;;) {
+            String key = keys[i];
+            if (key == null) {
+                keys[i] = name;
+                values[i] = value;
+                occupied[size++] = i;
+                return -1;
+            } else if (key == name || key.equals(name)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Replaces the value of a name already in the table.
+     */
+    void replace(String name, int value) {
+        int mask = keys.length - 1;
+        int i = spread(name.hashCode()) & mask;
+        while (!keys[i].equals(name)) {
+            i = (i + 1) & mask;
+        }
+        values[i] = value;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[occupied[i]] = null;
+        }
+        size = 0;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length << 1];
+        values = new int[keys.length];
+        occupied = new int[keys.length >> 1];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                putIfAbsent(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,63 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+
+/**
+ * Validates query documents against one schema, checking every rule of {@link ValidationRule} in a single walk of the document.
+ * <p>
+ * A validator is safe to share between threads. Each validation borrows a context from a small lock-free pool; the context keeps the tables it
+ * has grown, so validating a valid document allocates nothing once the pool is warm.
+ */
+public final class QueryValidator {
+    // A power of two, at least twice the number of processors
+    private static final int POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2;
+
+    private final Schema                                  schema;
+    private final ValidationVisitor                       visitor;
+    private final AtomicReferenceArray<ValidationContext> pool;
+
+    public QueryValidator(Schema schema) {
+        this.schema = schema;
+        this.visitor = new ValidationVisitor(new ValidationSchema(schema));
+        this.pool = new AtomicReferenceArray<>(POOL_SIZE);
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the rules the document breaks, in the order the walk found them; empty if it is valid. The list is unmodifiable, as caches hand
+     *         the same one to every caller
+     */
+    public List<ValidationError> validate(QueryDocument document) {
+        int start = (int) Thread.currentThread().getId();
+        ValidationContext context = acquire(start);
+        try {
+            context.reset(document);
+            visitor.visitQueryDocument(document, context);
+            return context.errors == null ? Collections.emptyList() : Collections.unmodifiableList(context.errors);
+        } finally {
+            context.release();
+            pool.lazySet(start & (POOL_SIZE - 1), context);
+        }
+    }
+
+    private ValidationContext acquire(int start) {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int slot = (start + i) & (POOL_SIZE - 1);
+            if (pool.get(slot) != null) {
+                ValidationContext context = pool.getAndSet(slot, null);
+                if (context != null) {
+                    return context;
+                }
+            }
+        }
+        return new ValidationContext();
+    }
+}
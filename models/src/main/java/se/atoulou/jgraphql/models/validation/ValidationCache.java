@@ -0,0 +1,114 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+
+/**
+ * Remembers the outcome of validating documents against the current schema, so that a document validated once is not walked again.
+ * <p>
+ * Results are keyed by schema generation and document identity. The parse caches hand out one {@link QueryDocument} per query, whether by text
+ * or by persisted query id, so behind one of them a repeated query is the same instance and a hit is a single identity map read. Each
+ * {@link #setSchema(Schema)} starts a new generation with an empty map; a validation still running against the old schema completes into the
+ * old map, which is dropped with it.
+ * <p>
+ * The cache holds at most {@code maximumSize} documents per generation. A full cache makes room by dropping an arbitrary entry, which is close to
+ * random replacement and costs nothing on a hit.
+ */
+public final class ValidationCache {
+    private final int maximumSize;
+
+    private volatile Generation generation;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    public ValidationCache(Schema schema, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.generation = new Generation(0, schema);
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * @return the rules {@code document} breaks against the current schema, as {@link QueryValidator#validate(QueryDocument)}
+     */
+    public List<ValidationError> validate(QueryDocument document) {
+        Generation generation = this.generation;
+        List<ValidationError> errors = generation.results.get(document);
+        if (errors != null) {
+            hitCount.increment();
+            return errors;
+        }
+
+        missCount.increment();
+        errors = generation.validator.validate(document);
+        if (generation.results.size() >= maximumSize) {
+            Iterator<QueryDocument> iterator = generation.results.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        generation.results.putIfAbsent(document, errors);
+        return errors;
+    }
+
+    /**
+     * Swaps in a new schema, invalidating every cached result.
+     */
+    public synchronized void setSchema(Schema schema) {
+        generation = new Generation(generation.number + 1, schema);
+    }
+
+    public Schema getSchema() {
+        return generation.validator.getSchema();
+    }
+
+    /**
+     * @return how many times the schema has been swapped
+     */
+    public long getGeneration() {
+        return generation.number;
+    }
+
+    public QueryValidator getValidator() {
+        return generation.validator;
+    }
+
+    public long size() {
+        return generation.results.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private static final class Generation {
+        final long                                                    number;
+        final QueryValidator                                          validator;
+        // QueryDocument keeps Object's equality, so this is an identity map
+        final ConcurrentHashMap<QueryDocument, List<ValidationError>> results;
+
+        Generation(long number, Schema schema) {
+            this.number = number;
+            this.validator = new QueryValidator(schema);
+            this.results = new ConcurrentHashMap<>();
+        }
+    }
+}
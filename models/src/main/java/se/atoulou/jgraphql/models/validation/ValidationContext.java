@@ -0,0 +1,253 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.transform.VisitorContext;
+
+/**
+ * State of one validation walk, grouped by the rules that use it. Every slot is an array or table that keeps its capacity between documents, so
+ * once a context has validated documents of some size, validating another valid one allocates nothing.
+ * <p>
+ * Definitions are numbered operations first, then fragments, in document order. The walk visits them in that order, so the variable usages
+ * and fragment spreads it records are grouped by definition.
+ */
+final class ValidationContext extends VisitorContext<ValidationContext> {
+    static final int ON_OPERATION = 0;
+    static final int ON_FRAGMENT  = 1;
+    static final int ON_FIELD     = 2;
+
+    private static final int           INITIAL_CAPACITY = 16;
+    private static final QueryDocument EMPTY_DOCUMENT   = new QueryDocument(new ArrayList<>(), new ArrayList<>());
+
+    // Document
+    QueryDocument         document;
+    int                   operationCount;
+    int                   definition;
+    OperationDefinition   operation;
+    FragmentDefinition    fragment;
+    List<ValidationError> errors;
+
+    // KnownFragmentNames, UniqueFragmentNames, UniqueOperationNames: first fragment index by name, and operation names
+    final NameTable fragmentIndexes  = new NameTable();
+    final NameTable operationIndexes = new NameTable();
+
+    // Parent types of the selection sets being visited; null where the type is unknown, which skips the checks below it
+    Type[] parentTypes = new Type[INITIAL_CAPACITY];
+    int    parentDepth;
+
+    // KnownDirectives: where the directives being visited are
+    int directiveLocation;
+
+    // Variables: usages as definition, name and expected type, the type being null where unknown
+    int[]    usageDefinitions = new int[INITIAL_CAPACITY];
+    String[] usageNames       = new String[INITIAL_CAPACITY];
+    Type[]   usageTypes       = new Type[INITIAL_CAPACITY];
+    int      usageCount;
+
+    // NoFragmentCycles, NoUnusedFragments: spreads of known fragments, as definition and fragment index
+    int[] spreadDefinitions = new int[INITIAL_CAPACITY];
+    int[] spreadFragments   = new int[INITIAL_CAPACITY];
+    int   spreadCount;
+
+    // Per-definition offsets into the usages and spreads, filled in after the walk
+    int[] usageStarts  = new int[INITIAL_CAPACITY];
+    int[] spreadStarts = new int[INITIAL_CAPACITY];
+
+    // Traversals of the spread graph: marks per fragment, stamped so they need no clearing, and an explicit stack
+    int[] fragmentMarks = new int[INITIAL_CAPACITY];
+    int   stamp;
+    int[] stackFragments = new int[INITIAL_CAPACITY];
+    int[] stackEdges     = new int[INITIAL_CAPACITY];
+
+    // NoUnusedVariables, NoUndefinedVariables: which of an operation's variables are used, and undefined names already reported
+    boolean[]       variablesUsed = new boolean[INITIAL_CAPACITY];
+    final NameTable undefinedVariables = new NameTable();
+
+    // OverlappingFieldsCanBeMerged: the fields of a selection set, fragments expanded, chained by response name, with the fragment spread in the
+    // selection set each came through, or -1
+    SelectionField[] collectedFields  = new SelectionField[INITIAL_CAPACITY];
+    Type[]           collectedParents = new Type[INITIAL_CAPACITY];
+    int[]            collectedOrigins = new int[INITIAL_CAPACITY];
+    int[]            collectedNext    = new int[INITIAL_CAPACITY];
+    int              collectedCount;
+    final NameTable  responseNames    = new NameTable();
+
+    // OverlappingFieldsCanBeMerged: the pairs of fields compared in this document, with why they conflict
+    final FieldPairTable comparedPairs = new FieldPairTable();
+
+    void reset(QueryDocument document) {
+        this.document = document;
+        this.operationCount = document.getOperations().size();
+        this.definition = -1;
+        this.operation = null;
+        this.fragment = null;
+        this.errors = null;
+        // A walk that threw may have left levels entered
+        this.level = 0;
+        fragmentIndexes.clear();
+        operationIndexes.clear();
+        Arrays.fill(parentTypes, 0, parentDepth, null);
+        parentDepth = 0;
+        Arrays.fill(usageNames, 0, usageCount, null);
+        Arrays.fill(usageTypes, 0, usageCount, null);
+        usageCount = 0;
+        spreadCount = 0;
+        comparedPairs.clear();
+
+        int definitionCount = operationCount + document.getFragments().size();
+        if (usageStarts.length <= definitionCount) {
+            usageStarts = new int[definitionCount + 1];
+            spreadStarts = new int[definitionCount + 1];
+        }
+        if (fragmentMarks.length < document.getFragments().size()) {
+            fragmentMarks = new int[document.getFragments().size()];
+            stamp = 0;
+        }
+    }
+
+    /**
+     * Releases the document and the schema objects it led to, so that a pooled context does not keep them reachable.
+     */
+    void release() {
+        reset(EMPTY_DOCUMENT);
+        Arrays.fill(collectedFields, 0, collectedCount, null);
+        Arrays.fill(collectedParents, 0, collectedCount, null);
+        collectedCount = 0;
+        responseNames.clear();
+    }
+
+    void error(ValidationRule rule, String message) {
+        if (errors == null) {
+            errors = new ArrayList<>();
+        }
+        errors.add(new ValidationError(rule, message));
+    }
+
+    /**
+     * A name for the definition being visited, for messages.
+     */
+    String definitionName() {
+        if (fragment != null) {
+            return "fragment \"" + fragment.getName() + "\"";
+        } else if (operation != null && operation.getName() != null) {
+            return "operation \"" + operation.getName() + "\"";
+        }
+        return "the anonymous operation";
+    }
+
+    Type parentType() {
+        return parentDepth == 0 ? null : parentTypes[parentDepth - 1];
+    }
+
+    void pushParentType(Type type) {
+        if (parentDepth == parentTypes.length) {
+            parentTypes = Arrays.copyOf(parentTypes, parentDepth << 1);
+        }
+        parentTypes[parentDepth++] = type;
+    }
+
+    void popParentType() {
+        parentTypes[--parentDepth] = null;
+    }
+
+    void addUsage(String name, Type expectedType) {
+        if (usageCount == usageNames.length) {
+            usageDefinitions = Arrays.copyOf(usageDefinitions, usageCount << 1);
+            usageNames = Arrays.copyOf(usageNames, usageCount << 1);
+            usageTypes = Arrays.copyOf(usageTypes, usageCount << 1);
+        }
+        usageDefinitions[usageCount] = definition;
+        usageNames[usageCount] = name;
+        usageTypes[usageCount] = expectedType;
+        usageCount++;
+    }
+
+    void addSpread(int fragmentIndex) {
+        if (spreadCount == spreadFragments.length) {
+            spreadDefinitions = Arrays.copyOf(spreadDefinitions, spreadCount << 1);
+            spreadFragments = Arrays.copyOf(spreadFragments, spreadCount << 1);
+        }
+        spreadDefinitions[spreadCount] = definition;
+        spreadFragments[spreadCount] = fragmentIndex;
+        spreadCount++;
+    }
+
+    /**
+     * Fills in {@link #usageStarts} and {@link #spreadStarts}: the usages of definition {@code d} are {@code [usageStarts[d], usageStarts[d + 1])},
+     * and likewise for spreads.
+     */
+    void indexDefinitions() {
+        int definitionCount = operationCount + document.getFragments().size();
+        int usage = 0;
+        int spread = 0;
+        for (int d = 0; d <= definitionCount; d++) {
+            while (usage < usageCount && usageDefinitions[usage] < d) {
+                usage++;
+            }
+            while (spread < spreadCount && spreadDefinitions[spread] < d) {
+                spread++;
+            }
+            usageStarts[d] = usage;
+            spreadStarts[d] = spread;
+        }
+    }
+
+    /**
+     * A stamp no fragment is marked with yet, for a new traversal.
+     */
+    int nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(fragmentMarks, 0);
+            stamp = 0;
+        }
+        return ++stamp;
+    }
+
+    /**
+     * Makes sure the next {@code count} stamps are taken without the marks being cleared in between, so that marks made with the first of them
+     * still compare lower than the last.
+     */
+    void reserveStamps(int count) {
+        if (stamp > Integer.MAX_VALUE - count) {
+            Arrays.fill(fragmentMarks, 0);
+            stamp = 0;
+        }
+    }
+
+    void ensureStack(int depth) {
+        if (depth >= stackFragments.length) {
+            stackFragments = Arrays.copyOf(stackFragments, depth << 1);
+            stackEdges = Arrays.copyOf(stackEdges, depth << 1);
+        }
+    }
+
+    boolean[] variablesUsed(int count) {
+        if (variablesUsed.length < count) {
+            variablesUsed = new boolean[count];
+        } else {
+            Arrays.fill(variablesUsed, 0, count, false);
+        }
+        return variablesUsed;
+    }
+
+    void addCollectedField(SelectionField field, Type parentType, int origin) {
+        if (collectedCount == collectedFields.length) {
+            collectedFields = Arrays.copyOf(collectedFields, collectedCount << 1);
+            collectedParents = Arrays.copyOf(collectedParents, collectedCount << 1);
+            collectedOrigins = Arrays.copyOf(collectedOrigins, collectedCount << 1);
+            collectedNext = Arrays.copyOf(collectedNext, collectedCount << 1);
+        }
+        collectedFields[collectedCount] = field;
+        collectedParents[collectedCount] = parentType;
+        collectedOrigins[collectedCount] = origin;
+        collectedNext[collectedCount] = -1;
+        collectedCount++;
+    }
+}
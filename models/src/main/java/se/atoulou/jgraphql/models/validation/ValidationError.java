@@ -0,0 +1,27 @@
+package se.atoulou.jgraphql.models.validation;
+
+/**
+ * A rule a query document breaks. Documents carry no source positions, so the message names the definitions and fields involved instead.
+ */
+public final class ValidationError {
+    private final ValidationRule rule;
+    private final String         message;
+
+    public ValidationError(ValidationRule rule, String message) {
+        this.rule = rule;
+        this.message = message;
+    }
+
+    public ValidationRule getRule() {
+        return rule;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationError [rule=" + rule + ", message=" + message + "]";
+    }
+}
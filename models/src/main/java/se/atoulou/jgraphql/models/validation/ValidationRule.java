@@ -0,0 +1,44 @@
+package se.atoulou.jgraphql.models.validation;
+
+/**
+ * The rules {@link QueryValidator} checks, after the validation section of the GraphQL specification.
+ */
+public enum ValidationRule {
+    // Operations
+    LONE_ANONYMOUS_OPERATION,
+    UNIQUE_OPERATION_NAMES,
+    SUPPORTED_OPERATION_TYPE,
+
+    // Fields
+    FIELDS_ON_CORRECT_TYPE,
+    SCALAR_LEAFS,
+    OVERLAPPING_FIELDS_CAN_BE_MERGED,
+
+    // Arguments
+    KNOWN_ARGUMENT_NAMES,
+    UNIQUE_ARGUMENT_NAMES,
+    PROVIDED_NON_NULL_ARGUMENTS,
+    ARGUMENTS_OF_CORRECT_TYPE,
+    UNIQUE_INPUT_FIELD_NAMES,
+
+    // Fragments
+    UNIQUE_FRAGMENT_NAMES,
+    KNOWN_FRAGMENT_NAMES,
+    NO_UNUSED_FRAGMENTS,
+    NO_FRAGMENT_CYCLES,
+    KNOWN_TYPE_NAMES,
+    FRAGMENTS_ON_COMPOSITE_TYPES,
+    POSSIBLE_FRAGMENT_SPREADS,
+
+    // Directives
+    KNOWN_DIRECTIVES,
+    UNIQUE_DIRECTIVES_PER_LOCATION,
+
+    // Variables
+    UNIQUE_VARIABLE_NAMES,
+    VARIABLES_ARE_INPUT_TYPES,
+    DEFAULT_VALUES_OF_CORRECT_TYPE,
+    NO_UNDEFINED_VARIABLES,
+    NO_UNUSED_VARIABLES,
+    VARIABLES_IN_ALLOWED_POSITION,
+}
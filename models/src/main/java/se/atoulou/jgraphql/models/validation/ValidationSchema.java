@@ -0,0 +1,158 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.atoulou.jgraphql.models.schema.Directive;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.InterfaceType;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.ObjectType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+import se.atoulou.jgraphql.models.schema.TypeReferenceResolver;
+
+/**
+ * What the validator looks up in a schema, prepared once per schema and then only read, by any number of threads.
+ * <p>
+ * Field types are type references such as {@code "[Episode]!"} in the model; each distinct reference is resolved here to {@link ListType} and
+ * {@link NonNullType} wrappers around the named type by a {@link TypeReferenceResolver}. The {@code @skip} and {@code @include} directives are
+ * provided when the schema does not declare them, as the parser only registers them.
+ */
+final class ValidationSchema {
+    static final String TYPENAME_FIELD = "__typename";
+    static final String SCHEMA_FIELD   = "__schema";
+    static final String TYPE_FIELD     = "__type";
+
+    // Variable types come from documents, so only this many distinct ones are remembered
+    private static final int MAXIMUM_VARIABLE_TYPES = 4096;
+
+    final Schema schema;
+    final Type   queryType;
+    final Type   mutationType;
+    final Type   stringType;
+
+    private final TypeReferenceResolver  typeReferences;
+    private final Map<String, Directive> directives;
+    private final Map<String, Type>      fieldTypes;
+    private final Map<String, Type>      variableTypes;
+
+    ValidationSchema(Schema schema) {
+        this.schema = schema;
+        this.queryType = schema.getQueryType() != null ? schema.getQueryType() : schema.getType("Query");
+        this.mutationType = schema.getMutationType() != null ? schema.getMutationType() : schema.getType("Mutation");
+
+        typeReferences = new TypeReferenceResolver(schema);
+        stringType = namedType("String");
+
+        directives = new HashMap<>();
+        for (Directive directive : schema.getDirectives()) {
+            directives.putIfAbsent(directive.getName(), directive);
+        }
+        directives.putIfAbsent("skip", conditionDirective("skip"));
+        directives.putIfAbsent("include", conditionDirective("include"));
+
+        fieldTypes = new HashMap<>();
+        for (Type type : schema.getTypes()) {
+            List<Field> fields = type.getKind() == TypeKind.OBJECT ? ((ObjectType) type).getFields()
+                    : type.getKind() == TypeKind.INTERFACE ? ((InterfaceType) type).getFields() : Collections.emptyList();
+            for (Field field : fields) {
+                if (field.getType() != null && !fieldTypes.containsKey(field.getType())) {
+                    fieldTypes.put(field.getType(), typeReferences.resolve(field.getType()));
+                }
+            }
+        }
+        variableTypes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the declared or built-in type named {@code name}, or {@code null}
+     */
+    Type namedType(String name) {
+        return typeReferences.namedType(name);
+    }
+
+    /**
+     * @return the resolved type of {@code field}, or {@code null} if it names an unknown type
+     */
+    Type fieldType(Field field) {
+        return fieldTypes.get(field.getType());
+    }
+
+    /**
+     * @return the resolved type of a variable definition's type reference, or {@code null} if it is malformed or names an unknown type
+     */
+    Type variableType(String reference) {
+        Type type = fieldTypes.get(reference);
+        if (type == null) {
+            type = variableTypes.get(reference);
+        }
+        if (type == null) {
+            type = typeReferences.resolve(reference);
+            if (type != null && variableTypes.size() < MAXIMUM_VARIABLE_TYPES) {
+                variableTypes.putIfAbsent(reference, type);
+            }
+        }
+        return type;
+    }
+
+    Directive directive(String name) {
+        return directives.get(name);
+    }
+
+    static Type unwrap(Type type) {
+        while (type != null) {
+            if (type.getKind() == TypeKind.NON_NULL) {
+                type = ((NonNullType) type).getOfType();
+            } else if (type.getKind() == TypeKind.LIST) {
+                type = ((ListType) type).getOfType();
+            } else {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    static boolean isLeaf(Type type) {
+        return type.getKind() == TypeKind.SCALAR || type.getKind() == TypeKind.ENUM;
+    }
+
+    static boolean isComposite(Type type) {
+        TypeKind kind = type.getKind();
+        return kind == TypeKind.OBJECT || kind == TypeKind.INTERFACE || kind == TypeKind.UNION;
+    }
+
+    static boolean isInput(Type type) {
+        Type named = unwrap(type);
+        return named != null && (isLeaf(named) || named.getKind() == TypeKind.INPUT_OBJECT);
+    }
+
+    /**
+     * @return the field named {@code name} of an object or interface type, or {@code null}
+     */
+    static Field field(Type type, String name) {
+        switch (type.getKind()) {
+        case OBJECT:
+            return ((ObjectType) type).getField(name);
+        case INTERFACE:
+            return ((InterfaceType) type).getField(name);
+        default:
+            return null;
+        }
+    }
+
+    private static Directive conditionDirective(String name) {
+        Type.Builder booleanB = Type.builder().kind(TypeKind.SCALAR).name("Boolean");
+        Type.Builder nonNullB = Type.builder().kind(TypeKind.NON_NULL).name("Boolean!").ofType(booleanB);
+        List<InputValue.Builder> args = new ArrayList<>();
+        args.add(InputValue.builder().name("if").type(nonNullB));
+        return Directive.builder().name(name).args(args).onOperation(false).onFragment(true).onField(true).build();
+    }
+}
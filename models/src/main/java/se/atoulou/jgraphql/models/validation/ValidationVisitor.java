@@ -0,0 +1,974 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Directive;
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
+import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.ValueKind;
+import se.atoulou.jgraphql.models.query.VariableDefinition;
+import se.atoulou.jgraphql.models.schema.EnumValue;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Type;
+import se.atoulou.jgraphql.models.schema.Type.EnumType;
+import se.atoulou.jgraphql.models.schema.Type.InputObjectType;
+import se.atoulou.jgraphql.models.schema.Type.ListType;
+import se.atoulou.jgraphql.models.schema.Type.NonNullType;
+import se.atoulou.jgraphql.models.schema.Type.TypeKind;
+import se.atoulou.jgraphql.models.transform.QueryDocumentBaseVisitor;
+
+/**
+ * Every validation rule, fused into the callbacks of one walk. The visitor itself is stateless; all state is in the {@link ValidationContext}.
+ * <p>
+ * Rules that only look at one node run as the walk reaches it. Rules about variables and fragments need the whole document: the walk records
+ * variable usages and fragment spreads per definition, and {@link #afterQueryDocument} checks them by traversing the spread graph from each
+ * operation. Fragments are indexed by name before the walk, so spreads can be checked wherever they appear.
+ */
+final class ValidationVisitor extends QueryDocumentBaseVisitor<ValidationContext> {
+    private final ValidationSchema schema;
+
+    ValidationVisitor(ValidationSchema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void beforeQueryDocument(QueryDocument queryDocument, ValidationContext context) {
+        List<FragmentDefinition> fragments = queryDocument.getFragments();
+        for (int i = 0; i < fragments.size(); i++) {
+            String name = fragments.get(i).getName();
+            if (context.fragmentIndexes.putIfAbsent(name, i) != -1) {
+                context.error(ValidationRule.UNIQUE_FRAGMENT_NAMES, "There can be only one fragment named \"" + name + "\".");
+            }
+        }
+    }
+
+    @Override
+    public void afterQueryDocument(QueryDocument queryDocument, ValidationContext context) {
+        context.indexDefinitions();
+        checkFragmentCycles(context);
+        checkOperationVariablesAndFragments(context);
+    }
+
+    // Operations
+
+    @Override
+    public void beforeOperation(OperationDefinition operation, ValidationContext context) {
+        context.definition++;
+        context.operation = operation;
+        context.fragment = null;
+
+        String name = operation.getName();
+        if (name == null) {
+            if (context.operationCount > 1) {
+                context.error(ValidationRule.LONE_ANONYMOUS_OPERATION, "This anonymous operation must be the only defined operation.");
+            }
+        } else if (context.operationIndexes.putIfAbsent(name, context.definition) != -1) {
+            context.error(ValidationRule.UNIQUE_OPERATION_NAMES, "There can be only one operation named \"" + name + "\".");
+        }
+
+        Type rootType = operation.getOperationType() == OperationType.MUATATION ? schema.mutationType : schema.queryType;
+        if (rootType == null) {
+            String operationType = operation.getOperationType() == OperationType.MUATATION ? "mutation" : "query";
+            context.error(ValidationRule.SUPPORTED_OPERATION_TYPE, "The schema has no " + operationType + " type for " + context.definitionName() + ".");
+        }
+        context.pushParentType(rootType);
+        context.directiveLocation = ValidationContext.ON_OPERATION;
+    }
+
+    @Override
+    public void afterOperation(OperationDefinition operation, ValidationContext context) {
+        context.popParentType();
+    }
+
+    @Override
+    public void beforeVariableDefinitions(List<VariableDefinition> variableDefinitions, ValidationContext context) {
+        for (int i = 1; i < variableDefinitions.size(); i++) {
+            String name = variableDefinitions.get(i).getVariable();
+            for (int j = 0; j < i; j++) {
+                if (name.equals(variableDefinitions.get(j).getVariable())) {
+                    context.error(ValidationRule.UNIQUE_VARIABLE_NAMES, "There can be only one variable named \"" + variableName(name) + "\".");
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void beforeVariableDefinition(VariableDefinition variableDefinition, ValidationContext context) {
+        String name = variableName(variableDefinition.getVariable());
+        Type type = schema.variableType(variableDefinition.getType());
+        if (type == null) {
+            context.error(ValidationRule.KNOWN_TYPE_NAMES, "Unknown type \"" + variableDefinition.getType() + "\" of variable \"" + name + "\".");
+            return;
+        } else if (!ValidationSchema.isInput(type)) {
+            context.error(ValidationRule.VARIABLES_ARE_INPUT_TYPES, "Variable \"" + name + "\" cannot be of non-input type \"" + type.getName() + "\".");
+            return;
+        }
+
+        Value defaultValue = variableDefinition.getDefaultValue();
+        if (defaultValue == null) {
+            return;
+        } else if (type.getKind() == TypeKind.NON_NULL) {
+            context.error(ValidationRule.DEFAULT_VALUES_OF_CORRECT_TYPE,
+                    "Variable \"" + name + "\" of type \"" + type.getName() + "\" is required and will not use the default value.");
+        } else {
+            String problem = checkValue(context, defaultValue, type, true);
+            if (problem != null) {
+                context.error(ValidationRule.DEFAULT_VALUES_OF_CORRECT_TYPE, "Variable \"" + name + "\" has an invalid default value: " + problem);
+            }
+        }
+    }
+
+    // Fragments
+
+    @Override
+    public void beforeFragment(FragmentDefinition fragment, ValidationContext context) {
+        context.definition++;
+        context.operation = null;
+        context.fragment = fragment;
+        context.pushParentType(typeCondition(context, fragment.getTypeCondition(), fragment.getName()));
+        context.directiveLocation = ValidationContext.ON_FRAGMENT;
+    }
+
+    @Override
+    public void afterFragment(FragmentDefinition fragment, ValidationContext context) {
+        context.popParentType();
+    }
+
+    @Override
+    public void beforeInlineFragment(InlineFragment inlineFragment, ValidationContext context) {
+        Type parentType = context.parentType();
+        Type type = parentType;
+        if (inlineFragment.getTypeCondition() != null) {
+            type = typeCondition(context, inlineFragment.getTypeCondition(), null);
+            if (type != null && parentType != null && !schema.schema.typesOverlap(parentType, type)) {
+                context.error(ValidationRule.POSSIBLE_FRAGMENT_SPREADS, "Inline fragment in " + context.definitionName()
+                        + " cannot be spread here as objects of type \"" + parentType.getName() + "\" can never be of type \"" + type.getName() + "\".");
+            }
+        }
+        context.pushParentType(type);
+        context.directiveLocation = ValidationContext.ON_FRAGMENT;
+    }
+
+    @Override
+    public void afterInlineFragment(InlineFragment inlineFragment, ValidationContext context) {
+        context.popParentType();
+    }
+
+    @Override
+    public void beforeFragmentSpread(FragmentSpread fragmentSpread, ValidationContext context) {
+        context.directiveLocation = ValidationContext.ON_FRAGMENT;
+
+        String name = fragmentSpread.getName();
+        int fragmentIndex = context.fragmentIndexes.get(name);
+        if (fragmentIndex == -1) {
+            context.error(ValidationRule.KNOWN_FRAGMENT_NAMES, "Unknown fragment \"" + name + "\" in " + context.definitionName() + ".");
+            return;
+        }
+        context.addSpread(fragmentIndex);
+
+        Type parentType = context.parentType();
+        Type type = schema.namedType(context.document.getFragments().get(fragmentIndex).getTypeCondition());
+        if (parentType != null && type != null && ValidationSchema.isComposite(type) && !schema.schema.typesOverlap(parentType, type)) {
+            context.error(ValidationRule.POSSIBLE_FRAGMENT_SPREADS, "Fragment \"" + name + "\" cannot be spread here as objects of type \""
+                    + parentType.getName() + "\" can never be of type \"" + type.getName() + "\".");
+        }
+    }
+
+    // The composite type named by a type condition, or null after reporting why there is none
+    private Type typeCondition(ValidationContext context, String typeName, String fragmentName) {
+        Type type = schema.namedType(typeName);
+        if (type == null && typeName.startsWith("__")) {
+            // An introspection type the schema does not declare, like the introspection fields themselves
+            return null;
+        } else if (type == null) {
+            context.error(ValidationRule.KNOWN_TYPE_NAMES, fragment(fragmentName) + " has unknown type condition \"" + typeName + "\".");
+            return null;
+        } else if (!ValidationSchema.isComposite(type)) {
+            context.error(ValidationRule.FRAGMENTS_ON_COMPOSITE_TYPES, fragment(fragmentName) + " cannot condition on non composite type \"" + typeName + "\".");
+            return null;
+        }
+        return type;
+    }
+
+    private static String fragment(String fragmentName) {
+        return fragmentName == null ? "Inline fragment" : "Fragment \"" + fragmentName + "\"";
+    }
+
+    // Fields
+
+    @Override
+    public void beforeSelectionSet(List<Selection> selectionSet, ValidationContext context) {
+        if (selectionSet.size() > 1 || (selectionSet.size() == 1 && selectionSet.get(0).getKind() != Selection.SelectionKind.FIELD)) {
+            checkOverlappingFields(context, selectionSet);
+        }
+    }
+
+    @Override
+    public void beforeSelectionField(SelectionField selectionField, ValidationContext context) {
+        Type parentType = context.parentType();
+        String name = selectionField.getName();
+        Type type = null;
+
+        if (parentType == null) {
+            recordVariables(context, selectionField.getArguments());
+        } else if (name.equals(ValidationSchema.TYPENAME_FIELD)) {
+            checkArguments(context, selectionField.getArguments(), Collections.emptyList(), parentType, name);
+            type = schema.stringType;
+        } else {
+            Field field = ValidationSchema.field(parentType, name);
+            if (field != null) {
+                checkArguments(context, selectionField.getArguments(), field.getArguments(), parentType, name);
+                type = schema.fieldType(field);
+            } else if (parentType == schema.queryType && (name.equals(ValidationSchema.SCHEMA_FIELD) || name.equals(ValidationSchema.TYPE_FIELD))) {
+                // Introspection, which is not checked further unless the schema declares its types
+                recordVariables(context, selectionField.getArguments());
+            } else {
+                context.error(ValidationRule.FIELDS_ON_CORRECT_TYPE, "Cannot query field \"" + name + "\" on type \"" + parentType.getName() + "\".");
+                recordVariables(context, selectionField.getArguments());
+            }
+        }
+
+        Type namedType = ValidationSchema.unwrap(type);
+        if (namedType != null) {
+            boolean hasSelectionSet = !selectionField.getSelectionSet().isEmpty();
+            if (ValidationSchema.isLeaf(namedType) && hasSelectionSet) {
+                context.error(ValidationRule.SCALAR_LEAFS,
+                        "Field \"" + name + "\" must not have a selection since type \"" + namedType.getName() + "\" has no subfields.");
+            } else if (ValidationSchema.isComposite(namedType) && !hasSelectionSet) {
+                context.error(ValidationRule.SCALAR_LEAFS,
+                        "Field \"" + name + "\" of type \"" + namedType.getName() + "\" must have a selection of subfields.");
+            }
+        }
+        context.pushParentType(namedType != null && ValidationSchema.isComposite(namedType) ? namedType : null);
+        context.directiveLocation = ValidationContext.ON_FIELD;
+    }
+
+    @Override
+    public void afterSelectionField(SelectionField selectionField, ValidationContext context) {
+        context.popParentType();
+    }
+
+    // Directives
+
+    @Override
+    public void beforeDirectives(List<Directive> directives, ValidationContext context) {
+        for (int i = 1; i < directives.size(); i++) {
+            String name = directives.get(i).getName();
+            for (int j = 0; j < i; j++) {
+                if (name.equals(directives.get(j).getName())) {
+                    context.error(ValidationRule.UNIQUE_DIRECTIVES_PER_LOCATION, "The directive \"@" + name + "\" can only be used once at this location.");
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void beforeDirective(Directive directive, ValidationContext context) {
+        String name = directive.getName();
+        se.atoulou.jgraphql.models.schema.Directive definition = schema.directive(name);
+        if (definition == null) {
+            context.error(ValidationRule.KNOWN_DIRECTIVES, "Unknown directive \"@" + name + "\".");
+            recordVariables(context, directive.getArguments());
+            return;
+        }
+
+        Boolean allowed;
+        String location;
+        switch (context.directiveLocation) {
+        case ValidationContext.ON_OPERATION:
+            allowed = definition.getOnOperation();
+            location = "operations";
+            break;
+        case ValidationContext.ON_FRAGMENT:
+            allowed = definition.getOnFragment();
+            location = "fragments";
+            break;
+        default:
+            allowed = definition.getOnField();
+            location = "fields";
+            break;
+        }
+        if (!Boolean.TRUE.equals(allowed)) {
+            context.error(ValidationRule.KNOWN_DIRECTIVES, "Directive \"@" + name + "\" may not be used on " + location + ".");
+        }
+        checkArguments(context, directive.getArguments(), definition.getArgs(), null, name);
+    }
+
+    // Arguments and values
+
+    // The arguments of a field of parentType, or of a directive if that is null
+    private void checkArguments(ValidationContext context, List<Argument> arguments, List<InputValue> definitions, Type parentType, String ownerName) {
+        for (int i = 0; i < arguments.size(); i++) {
+            Argument argument = arguments.get(i);
+            String name = argument.getName();
+            for (int j = 0; j < i; j++) {
+                if (name.equals(arguments.get(j).getName())) {
+                    context.error(ValidationRule.UNIQUE_ARGUMENT_NAMES,
+                            "There can be only one argument named \"" + name + "\" on " + owner(parentType, ownerName) + ".");
+                    break;
+                }
+            }
+
+            InputValue definition = inputValue(definitions, name);
+            if (definition == null) {
+                context.error(ValidationRule.KNOWN_ARGUMENT_NAMES, "Unknown argument \"" + name + "\" on " + owner(parentType, ownerName) + ".");
+                recordVariables(context, argument.getValue());
+                continue;
+            }
+            String problem = checkValue(context, argument.getValue(), definition.getType(), false);
+            if (problem != null) {
+                context.error(ValidationRule.ARGUMENTS_OF_CORRECT_TYPE,
+                        "Argument \"" + name + "\" on " + owner(parentType, ownerName) + " has an invalid value: " + problem);
+            }
+        }
+
+        for (int i = 0; i < definitions.size(); i++) {
+            InputValue definition = definitions.get(i);
+            if (isRequired(definition) && argument(arguments, definition.getName()) == null) {
+                context.error(ValidationRule.PROVIDED_NON_NULL_ARGUMENTS, "Argument \"" + definition.getName() + "\" of type \""
+                        + definition.getType().getName() + "\" is required on " + owner(parentType, ownerName) + " but not provided.");
+            }
+        }
+    }
+
+    private static String owner(Type parentType, String name) {
+        return parentType == null ? "directive \"@" + name + "\"" : "field \"" + parentType.getName() + "." + name + "\"";
+    }
+
+    /**
+     * Checks a literal against an input type, recording the variables in it as used where that type is expected.
+     *
+     * @return why the value is invalid, or {@code null}
+     */
+    private String checkValue(ValidationContext context, Value value, Type type, boolean constant) {
+        if (value.getKind() == ValueKind.VARIABLE) {
+            if (constant) {
+                return "Variables are not allowed here.";
+            }
+            context.addUsage(((Value.VariableRef) value).getName(), type);
+            return null;
+        } else if (type == null) {
+            recordVariables(context, value);
+            return null;
+        } else if (type.getKind() == TypeKind.NON_NULL) {
+            if (value.getKind() == ValueKind.NULL) {
+                return "Expected \"" + type.getName() + "\", found null.";
+            }
+            return checkValue(context, value, ((NonNullType) type).getOfType(), constant);
+        } else if (value.getKind() == ValueKind.NULL) {
+            return null;
+        }
+
+        switch (type.getKind()) {
+        case LIST: {
+            Type itemType = ((ListType) type).getOfType();
+            if (value.getKind() != ValueKind.LIST) {
+                return checkValue(context, value, itemType, constant);
+            }
+            String problem = null;
+            List<Value> values = ((ListValue) value).getValues();
+            for (int i = 0; i < values.size(); i++) {
+                String itemProblem = checkValue(context, values.get(i), itemType, constant);
+                if (problem == null && itemProblem != null) {
+                    problem = "In element #" + i + ": " + itemProblem;
+                }
+            }
+            return problem;
+        }
+        case INPUT_OBJECT:
+            if (value.getKind() != ValueKind.OBJECT) {
+                recordVariables(context, value);
+                return "Expected \"" + type.getName() + "\", found " + describe(value) + ".";
+            }
+            return checkInputObject(context, (ObjectValue) value, (InputObjectType) type, constant);
+        case ENUM:
+            if (value.getKind() == ValueKind.ENUM && enumValue((EnumType) type, ((Value.EnumValue) value).getName()) != null) {
+                return null;
+            }
+            recordVariables(context, value);
+            return "Expected \"" + type.getName() + "\", found " + describe(value) + ".";
+        case SCALAR:
+            if (isValidScalar(type.getName(), value)) {
+                return null;
+            }
+            recordVariables(context, value);
+            return "Expected \"" + type.getName() + "\", found " + describe(value) + ".";
+        default:
+            recordVariables(context, value);
+            return "\"" + type.getName() + "\" is not an input type.";
+        }
+    }
+
+    private String checkInputObject(ValidationContext context, ObjectValue value, InputObjectType type, boolean constant) {
+        String problem = null;
+        List<ObjectField> fields = value.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            ObjectField field = fields.get(i);
+            for (int j = 0; j < i; j++) {
+                if (field.getName().equals(fields.get(j).getName())) {
+                    context.error(ValidationRule.UNIQUE_INPUT_FIELD_NAMES, "There can be only one input field named \"" + field.getName() + "\".");
+                    break;
+                }
+            }
+
+            InputValue definition = type.getInputField(field.getName());
+            if (definition == null) {
+                recordVariables(context, field.getValue());
+                if (problem == null) {
+                    problem = "Unknown field \"" + field.getName() + "\" of \"" + type.getName() + "\".";
+                }
+                continue;
+            }
+            String fieldProblem = checkValue(context, field.getValue(), definition.getType(), constant);
+            if (problem == null && fieldProblem != null) {
+                problem = "In field \"" + field.getName() + "\": " + fieldProblem;
+            }
+        }
+
+        if (problem == null) {
+            for (InputValue definition : type.getInputFields()) {
+                if (isRequired(definition) && value.get(definition.getName()) == null) {
+                    return "Missing required field \"" + definition.getName() + "\" of \"" + type.getName() + "\".";
+                }
+            }
+        }
+        return problem;
+    }
+
+    private static boolean isValidScalar(String scalar, Value value) {
+        switch (scalar) {
+        case "Int":
+            return value.getKind() == ValueKind.INT && (int) ((Value.IntValue) value).getValue() == ((Value.IntValue) value).getValue();
+        case "Float":
+            return value.getKind() == ValueKind.INT || value.getKind() == ValueKind.FLOAT;
+        case "String":
+            return value.getKind() == ValueKind.STRING;
+        case "Boolean":
+            return value.getKind() == ValueKind.BOOLEAN;
+        case "ID":
+            return value.getKind() == ValueKind.STRING || value.getKind() == ValueKind.INT;
+        default:
+            // Custom scalars parse their own literals
+            return value.getKind() != ValueKind.LIST && value.getKind() != ValueKind.OBJECT;
+        }
+    }
+
+    private static String describe(Value value) {
+        switch (value.getKind()) {
+        case INT:
+            return String.valueOf(((Value.IntValue) value).getValue());
+        case FLOAT:
+            return String.valueOf(((Value.FloatValue) value).getValue());
+        case STRING:
+            return "a string";
+        case BOOLEAN:
+            return String.valueOf(((Value.BooleanValue) value).getValue());
+        case ENUM:
+            return ((Value.EnumValue) value).getName();
+        case LIST:
+            return "a list";
+        case OBJECT:
+            return "an object";
+        default:
+            return value.getKind().name().toLowerCase();
+        }
+    }
+
+    // Records the variables in values whose expected type is unknown, so that they still count as used
+    private static void recordVariables(ValidationContext context, List<Argument> arguments) {
+        for (int i = 0; i < arguments.size(); i++) {
+            recordVariables(context, arguments.get(i).getValue());
+        }
+    }
+
+    private static void recordVariables(ValidationContext context, Value value) {
+        switch (value.getKind()) {
+        case VARIABLE:
+            context.addUsage(((Value.VariableRef) value).getName(), null);
+            break;
+        case LIST: {
+            List<Value> values = ((ListValue) value).getValues();
+            for (int i = 0; i < values.size(); i++) {
+                recordVariables(context, values.get(i));
+            }
+            break;
+        }
+        case OBJECT: {
+            List<ObjectField> fields = ((ObjectValue) value).getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                recordVariables(context, fields.get(i).getValue());
+            }
+            break;
+        }
+        default:
+            break;
+        }
+    }
+
+    // Variables and fragment spreads, once the walk has recorded them
+
+    private void checkFragmentCycles(ValidationContext context) {
+        List<FragmentDefinition> fragments = context.document.getFragments();
+        int[] marks = context.fragmentMarks;
+        int onStack = context.nextStamp();
+        int done = context.nextStamp();
+
+        for (int root = 0; root < fragments.size(); root++) {
+            if (marks[root] == done) {
+                continue;
+            }
+            int depth = 0;
+            context.ensureStack(depth);
+            context.stackFragments[0] = root;
+            context.stackEdges[0] = context.spreadStarts[context.operationCount + root];
+            marks[root] = onStack;
+
+            while (depth >= 0) {
+                int fragment = context.stackFragments[depth];
+                int edge = context.stackEdges[depth];
+                if (edge == context.spreadStarts[context.operationCount + fragment + 1]) {
+                    marks[fragment] = done;
+                    depth--;
+                    continue;
+                }
+                context.stackEdges[depth]++;
+
+                int spread = context.spreadFragments[edge];
+                if (marks[spread] == onStack) {
+                    context.error(ValidationRule.NO_FRAGMENT_CYCLES, "Cannot spread fragment \"" + fragments.get(spread).getName() + "\" within itself"
+                            + (spread == fragment ? "." : " via \"" + fragments.get(fragment).getName() + "\"."));
+                } else if (marks[spread] != done) {
+                    depth++;
+                    context.ensureStack(depth);
+                    context.stackFragments[depth] = spread;
+                    context.stackEdges[depth] = context.spreadStarts[context.operationCount + spread];
+                    marks[spread] = onStack;
+                }
+            }
+        }
+    }
+
+    private void checkOperationVariablesAndFragments(ValidationContext context) {
+        List<OperationDefinition> operations = context.document.getOperations();
+        List<FragmentDefinition> fragments = context.document.getFragments();
+        int[] marks = context.fragmentMarks;
+        // This stamp and one per operation, so that wrapping around cannot clear the marks of fragments already reached
+        context.reserveStamps(operations.size() + 1);
+        int used = context.nextStamp();
+
+        for (int o = 0; o < operations.size(); o++) {
+            OperationDefinition operation = operations.get(o);
+            context.operation = operation;
+            context.fragment = null;
+            List<VariableDefinition> variableDefinitions = operation.getVariableDefinitions();
+            boolean[] variablesUsed = context.variablesUsed(variableDefinitions.size());
+            context.undefinedVariables.clear();
+
+            // Each operation walks the fragments it reaches with its own stamp
+            int reached = context.nextStamp();
+            checkUsages(context, o, variableDefinitions, variablesUsed);
+            int depth = -1;
+            for (int spread = context.spreadStarts[o]; spread < context.spreadStarts[o + 1]; spread++) {
+                int fragment = context.spreadFragments[spread];
+                if (marks[fragment] != reached) {
+                    marks[fragment] = reached;
+                    depth++;
+                    context.ensureStack(depth);
+                    context.stackFragments[depth] = fragment;
+                }
+            }
+            while (depth >= 0) {
+                int fragment = context.stackFragments[depth--];
+                int definition = context.operationCount + fragment;
+                checkUsages(context, definition, variableDefinitions, variablesUsed);
+                for (int spread = context.spreadStarts[definition]; spread < context.spreadStarts[definition + 1]; spread++) {
+                    int next = context.spreadFragments[spread];
+                    if (marks[next] != reached) {
+                        marks[next] = reached;
+                        depth++;
+                        context.ensureStack(depth);
+                        context.stackFragments[depth] = next;
+                    }
+                }
+            }
+
+            for (int i = 0; i < variableDefinitions.size(); i++) {
+                // Usages resolve to the first of duplicate definitions, which are reported as such
+                if (!variablesUsed[i] && !isDuplicate(variableDefinitions, i)) {
+                    String name = variableName(variableDefinitions.get(i).getVariable());
+                    context.error(ValidationRule.NO_UNUSED_VARIABLES, "Variable \"" + name + "\" is never used in " + context.definitionName() + ".");
+                }
+            }
+        }
+
+        // Stamps only grow, so a fragment reached by any operation is marked with a stamp after this pass's first one
+        for (int f = 0; f < fragments.size(); f++) {
+            String name = fragments.get(f).getName();
+            if (marks[f] < used && context.fragmentIndexes.get(name) == f) {
+                context.error(ValidationRule.NO_UNUSED_FRAGMENTS, "Fragment \"" + name + "\" is never used.");
+            }
+        }
+    }
+
+    private void checkUsages(ValidationContext context, int definition, List<VariableDefinition> variableDefinitions, boolean[] variablesUsed) {
+        for (int usage = context.usageStarts[definition]; usage < context.usageStarts[definition + 1]; usage++) {
+            String name = context.usageNames[usage];
+            int index = variableIndex(variableDefinitions, name);
+            if (index == -1) {
+                if (context.undefinedVariables.putIfAbsent(name, 0) == -1) {
+                    context.error(ValidationRule.NO_UNDEFINED_VARIABLES, "Variable \"$" + name + "\" is not defined by " + context.definitionName() + ".");
+                }
+                continue;
+            }
+            variablesUsed[index] = true;
+
+            Type expectedType = context.usageTypes[usage];
+            VariableDefinition variableDefinition = variableDefinitions.get(index);
+            Type type = expectedType == null ? null : schema.variableType(variableDefinition.getType());
+            if (type != null && !isAllowed(type, variableDefinition.getDefaultValue() != null, expectedType)) {
+                context.error(ValidationRule.VARIABLES_IN_ALLOWED_POSITION, "Variable \"$" + name + "\" of type \"" + type.getName()
+                        + "\" used in position expecting type \"" + expectedType.getName() + "\".");
+            }
+        }
+    }
+
+    /**
+     * Whether a variable of {@code type} can be used where {@code expectedType} is expected. A nullable variable with a default value counts as
+     * non-null.
+     */
+    private static boolean isAllowed(Type type, boolean hasDefault, Type expectedType) {
+        if (expectedType.getKind() == TypeKind.NON_NULL) {
+            if (type.getKind() == TypeKind.NON_NULL) {
+                return isAllowed(((NonNullType) type).getOfType(), false, ((NonNullType) expectedType).getOfType());
+            }
+            return hasDefault && isAllowed(type, false, ((NonNullType) expectedType).getOfType());
+        } else if (type.getKind() == TypeKind.NON_NULL) {
+            return isAllowed(((NonNullType) type).getOfType(), false, expectedType);
+        } else if (expectedType.getKind() == TypeKind.LIST) {
+            return type.getKind() == TypeKind.LIST && isAllowed(((ListType) type).getOfType(), false, ((ListType) expectedType).getOfType());
+        } else if (type.getKind() == TypeKind.LIST) {
+            return false;
+        }
+        return type.getName().equals(expectedType.getName());
+    }
+
+    // OverlappingFieldsCanBeMerged
+
+    private void checkOverlappingFields(ValidationContext context, List<Selection> selectionSet) {
+        context.collectedCount = 0;
+        context.responseNames.clear();
+        collectFields(context, context.parentType(), selectionSet, -1, context.nextStamp());
+
+        for (int i = 0; i < context.collectedCount; i++) {
+            SelectionField field = context.collectedFields[i];
+            int origin = context.collectedOrigins[i];
+            for (int j = context.collectedNext[i]; j != -1; j = context.collectedNext[j]) {
+                if (origin != -1 && context.collectedOrigins[j] == origin) {
+                    // Both from one fragment, whose own walk compares them
+                    continue;
+                }
+                String problem = findConflict(context, context.collectedFields[j], context.collectedParents[j], field, context.collectedParents[i], false);
+                if (problem != null) {
+                    context.error(ValidationRule.OVERLAPPING_FIELDS_CAN_BE_MERGED,
+                            "Fields \"" + responseName(field) + "\" conflict in " + context.definitionName() + " because " + problem + ".");
+                    break;
+                }
+            }
+        }
+    }
+
+    // Collects the fields of a selection set into the context, expanding fragments, and chains each to the previous one of the same response name
+    private void collectFields(ValidationContext context, Type parentType, List<Selection> selectionSet, int origin, int stamp) {
+        for (int i = 0; i < selectionSet.size(); i++) {
+            Selection selection = selectionSet.get(i);
+            switch (selection.getKind()) {
+            case FIELD: {
+                SelectionField field = (SelectionField) selection;
+                int index = context.collectedCount;
+                context.addCollectedField(field, parentType, origin);
+                int previous = context.responseNames.putIfAbsent(responseName(field), index);
+                if (previous != -1) {
+                    context.collectedNext[index] = previous;
+                    context.responseNames.replace(responseName(field), index);
+                }
+                break;
+            }
+            case INLINE_FRAGMENT: {
+                InlineFragment inlineFragment = (InlineFragment) selection;
+                Type type = inlineFragment.getTypeCondition() == null ? parentType : schema.namedType(inlineFragment.getTypeCondition());
+                collectFields(context, type, inlineFragment.getSelectionSet(), origin, stamp);
+                break;
+            }
+            case FRAGMENT_SPREAD: {
+                int fragmentIndex = context.fragmentIndexes.get(((FragmentSpread) selection).getName());
+                if (fragmentIndex != -1 && context.fragmentMarks[fragmentIndex] != stamp) {
+                    context.fragmentMarks[fragmentIndex] = stamp;
+                    FragmentDefinition fragment = context.document.getFragments().get(fragmentIndex);
+                    Type type = schema.namedType(fragment.getTypeCondition());
+                    collectFields(context, type, fragment.getSelectionSet(), origin == -1 ? fragmentIndex : origin, stamp);
+                }
+                break;
+            }
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Why two fields with the same response name cannot be merged, or {@code null} if they can. Fields whose parents are different object types
+     * never both apply, so they may differ in name and arguments, but must still return values of the same shape.
+     */
+    private String findConflict(ValidationContext context, SelectionField a, Type parentA, SelectionField b, Type parentB, boolean exclusive) {
+        String problem = context.comparedPairs.get(a, parentA, b, parentB, exclusive);
+        if (problem != FieldPairTable.ABSENT) {
+            return problem;
+        }
+        // Mergeable while being compared, so that fields spreading a fragment within itself, which is reported as a cycle, end the recursion
+        context.comparedPairs.put(a, parentA, b, parentB, exclusive, null);
+        problem = compareFields(context, a, parentA, b, parentB, exclusive);
+        context.comparedPairs.put(a, parentA, b, parentB, exclusive, problem);
+        return problem;
+    }
+
+    private String compareFields(ValidationContext context, SelectionField a, Type parentA, SelectionField b, Type parentB, boolean exclusive) {
+        exclusive = exclusive || (parentA != parentB && parentA != null && parentB != null && parentA.getKind() == TypeKind.OBJECT
+                && parentB.getKind() == TypeKind.OBJECT);
+        if (!exclusive) {
+            if (!a.getName().equals(b.getName())) {
+                return "\"" + a.getName() + "\" and \"" + b.getName() + "\" are different fields";
+            } else if (!sameArguments(a.getArguments(), b.getArguments())) {
+                return "they have differing arguments";
+            }
+        }
+
+        Type typeA = fieldType(parentA, a);
+        Type typeB = fieldType(parentB, b);
+        if (typeA != null && typeB != null && typesConflict(typeA, typeB)) {
+            return "they return conflicting types \"" + typeA.getName() + "\" and \"" + typeB.getName() + "\"";
+        }
+
+        if (a.getSelectionSet().isEmpty() || b.getSelectionSet().isEmpty()) {
+            return null;
+        }
+        // Only pairs across the two selection sets; pairs within one are checked when the walk reaches it
+        List<SelectionField> fieldsA = new ArrayList<>();
+        List<Type> parentsA = new ArrayList<>();
+        List<SelectionField> fieldsB = new ArrayList<>();
+        List<Type> parentsB = new ArrayList<>();
+        collectFields(context, ValidationSchema.unwrap(typeA), a.getSelectionSet(), fieldsA, parentsA, context.nextStamp());
+        collectFields(context, ValidationSchema.unwrap(typeB), b.getSelectionSet(), fieldsB, parentsB, context.nextStamp());
+        for (int i = 0; i < fieldsA.size(); i++) {
+            String responseName = responseName(fieldsA.get(i));
+            for (int j = 0; j < fieldsB.size(); j++) {
+                if (responseName.equals(responseName(fieldsB.get(j)))) {
+                    String problem = findConflict(context, fieldsA.get(i), parentsA.get(i), fieldsB.get(j), parentsB.get(j), exclusive);
+                    if (problem != null) {
+                        return "subfields \"" + responseName + "\" conflict because " + problem;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // The same, into lists, for the rare nested comparisons
+    private void collectFields(ValidationContext context, Type parentType, List<Selection> selectionSet, List<SelectionField> fields, List<Type> parents,
+            int stamp) {
+        for (Selection selection : selectionSet) {
+            switch (selection.getKind()) {
+            case FIELD:
+                fields.add((SelectionField) selection);
+                parents.add(parentType);
+                break;
+            case INLINE_FRAGMENT: {
+                InlineFragment inlineFragment = (InlineFragment) selection;
+                Type type = inlineFragment.getTypeCondition() == null ? parentType : schema.namedType(inlineFragment.getTypeCondition());
+                collectFields(context, type, inlineFragment.getSelectionSet(), fields, parents, stamp);
+                break;
+            }
+            case FRAGMENT_SPREAD: {
+                int fragmentIndex = context.fragmentIndexes.get(((FragmentSpread) selection).getName());
+                if (fragmentIndex != -1 && context.fragmentMarks[fragmentIndex] != stamp) {
+                    context.fragmentMarks[fragmentIndex] = stamp;
+                    FragmentDefinition fragment = context.document.getFragments().get(fragmentIndex);
+                    collectFields(context, schema.namedType(fragment.getTypeCondition()), fragment.getSelectionSet(), fields, parents, stamp);
+                }
+                break;
+            }
+            default:
+                break;
+            }
+        }
+    }
+
+    private Type fieldType(Type parentType, SelectionField selectionField) {
+        if (parentType == null) {
+            return null;
+        } else if (selectionField.getName().equals(ValidationSchema.TYPENAME_FIELD)) {
+            return schema.stringType;
+        }
+        Field field = ValidationSchema.field(parentType, selectionField.getName());
+        return field == null ? null : schema.fieldType(field);
+    }
+
+    // Whether two field types cannot be merged into one response shape
+    private static boolean typesConflict(Type a, Type b) {
+        if (a.getKind() == TypeKind.LIST) {
+            return b.getKind() != TypeKind.LIST || typesConflict(((ListType) a).getOfType(), ((ListType) b).getOfType());
+        } else if (b.getKind() == TypeKind.LIST) {
+            return true;
+        } else if (a.getKind() == TypeKind.NON_NULL) {
+            return b.getKind() != TypeKind.NON_NULL || typesConflict(((NonNullType) a).getOfType(), ((NonNullType) b).getOfType());
+        } else if (b.getKind() == TypeKind.NON_NULL) {
+            return true;
+        } else if (ValidationSchema.isLeaf(a) || ValidationSchema.isLeaf(b)) {
+            return !a.getName().equals(b.getName());
+        }
+        return false;
+    }
+
+    private static boolean sameArguments(List<Argument> a, List<Argument> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            Argument other = argument(b, a.get(i).getName());
+            if (other == null || !sameValue(a.get(i).getValue(), other.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValue(Value a, Value b) {
+        if (a.getKind() != b.getKind()) {
+            return false;
+        }
+        switch (a.getKind()) {
+        case VARIABLE:
+            return ((Value.VariableRef) a).getName().equals(((Value.VariableRef) b).getName());
+        case INT:
+            return ((Value.IntValue) a).getValue() == ((Value.IntValue) b).getValue();
+        case FLOAT:
+            return Double.compare(((Value.FloatValue) a).getValue(), ((Value.FloatValue) b).getValue()) == 0;
+        case STRING:
+            return ((Value.StringValue) a).getValue().equals(((Value.StringValue) b).getValue());
+        case BOOLEAN:
+            return ((Value.BooleanValue) a).getValue() == ((Value.BooleanValue) b).getValue();
+        case NULL:
+            return true;
+        case ENUM:
+            return ((Value.EnumValue) a).getName().equals(((Value.EnumValue) b).getName());
+        case LIST: {
+            List<Value> valuesA = ((ListValue) a).getValues();
+            List<Value> valuesB = ((ListValue) b).getValues();
+            if (valuesA.size() != valuesB.size()) {
+                return false;
+            }
+            for (int i = 0; i < valuesA.size(); i++) {
+                if (!sameValue(valuesA.get(i), valuesB.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        case OBJECT: {
+            List<ObjectField> fieldsA = ((ObjectValue) a).getFields();
+            List<ObjectField> fieldsB = ((ObjectValue) b).getFields();
+            if (fieldsA.size() != fieldsB.size()) {
+                return false;
+            }
+            for (ObjectField field : fieldsA) {
+                Value other = ((ObjectValue) b).get(field.getName());
+                if (other == null || !sameValue(field.getValue(), other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        default:
+            return false;
+        }
+    }
+
+    // Lookups in the short lists of the model
+
+    private static InputValue inputValue(List<InputValue> inputValues, String name) {
+        for (int i = 0; i < inputValues.size(); i++) {
+            if (inputValues.get(i).getName().equals(name)) {
+                return inputValues.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static Argument argument(List<Argument> arguments, String name) {
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i).getName().equals(name)) {
+                return arguments.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static EnumValue enumValue(EnumType type, String name) {
+        List<EnumValue> enumValues = type.getEnumValues();
+        for (int i = 0; i < enumValues.size(); i++) {
+            if (enumValues.get(i).getName().equals(name)) {
+                return enumValues.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRequired(InputValue definition) {
+        return definition.getType() != null && definition.getType().getKind() == TypeKind.NON_NULL && definition.getDefaultValue() == null;
+    }
+
+    // Definitions name variables with their "$", references without
+    private static int variableIndex(List<VariableDefinition> variableDefinitions, String name) {
+        for (int i = 0; i < variableDefinitions.size(); i++) {
+            String variable = variableDefinitions.get(i).getVariable();
+            int offset = variable.startsWith("$") ? 1 : 0;
+            if (variable.length() - offset == name.length() && variable.regionMatches(offset, name, 0, name.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDuplicate(List<VariableDefinition> variableDefinitions, int index) {
+        String variable = variableDefinitions.get(index).getVariable();
+        for (int i = 0; i < index; i++) {
+            if (variable.equals(variableDefinitions.get(i).getVariable())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String variableName(String variable) {
+        return variable.startsWith("$") ? variable : "$" + variable;
+    }
+
+    private static String responseName(SelectionField field) {
+        return field.getAlias() != null ? field.getAlias() : field.getName();
+    }
+}
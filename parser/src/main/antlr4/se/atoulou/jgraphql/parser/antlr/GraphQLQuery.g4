@@ -13,7 +13,7 @@ definition
 
 operationDefinition
     : selectionSet
-    | operationType NAME variableDefinitions? directives? selectionSet
+    | operationType NAME? variableDefinitions? directives? selectionSet
     ;
 
 operationType
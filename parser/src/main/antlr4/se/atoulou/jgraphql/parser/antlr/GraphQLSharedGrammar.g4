@@ -1,6 +1,6 @@
 grammar GraphQLSharedGrammar;
 
-import GraphQlTokens;
+import GraphQLTokens;
 
 variable
     : VARIABLE
@@ -2,7 +2,7 @@ lexer grammar GraphQLTokens;
 
 // Ignored
 WHITESPACE
-    : [\t\u000b\u000c \u00a0]+ -> skip
+    : [\t\u000b\u000c \u00a0\ufeff]+ -> skip
     ;
 
 LINE_TERMINATOR
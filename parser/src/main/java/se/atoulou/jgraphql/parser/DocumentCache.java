@@ -0,0 +1,336 @@
+package se.atoulou.jgraphql.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+import se.atoulou.jgraphql.models.NamePool;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+
+/**
+ * Bounded cache of parsed query documents, keyed by query text. Repeated queries get the same immutable {@link QueryDocument} back without being
+ * lexed or parsed again.
+ * <p>
+ * Entries are weighed (by default, the length of the query text) and the cache holds at most {@code maximumWeight}. Eviction follows W-TinyLFU:
+ * new entries go to a small LRU window, and an entry leaving the window is only admitted to the main segmented LRU if a {@link FrequencySketch}
+ * estimates it has been seen more often than the main space's eviction victim. This keeps a long tail of one-off queries from flushing the popular
+ * ones. Names in the cached documents are interned in a {@link NamePool}, so documents sharing field names share their strings: the cache's own,
+ * unless it is given the schema's.
+ * <p>
+ * Lookups are a {@link ConcurrentHashMap} read. Reordering entries after a hit needs the policy lock and is skipped when the lock is contended, so
+ * under heavy contention recency and frequency are sampled rather than exact.
+ */
+public final class DocumentCache {
+    private static final int WINDOW_PERCENT    = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int NONE      = 0;
+    private static final int WINDOW    = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    private final ConcurrentHashMap<String, Node> data;
+    private final ToIntFunction<String>           weigher;
+    private final NamePool                        namePool;
+    private final long                            maximumWeight;
+    private final long                            maximumWindowWeight;
+    private final long                            maximumMainWeight;
+    private final long                            maximumProtectedWeight;
+
+    private final ReentrantLock   lock;
+    private final FrequencySketch sketch;
+    private final AccessQueue     window;
+    private final AccessQueue     probation;
+    private final AccessQueue     protectedQueue;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+
+    public DocumentCache(long maximumWeight) {
+        this(maximumWeight, String::length, new NamePool());
+    }
+
+    public DocumentCache(long maximumWeight, NamePool namePool) {
+        this(maximumWeight, String::length, namePool);
+    }
+
+    public DocumentCache(long maximumWeight, ToIntFunction<String> weigher) {
+        this(maximumWeight, weigher, new NamePool());
+    }
+
+    public DocumentCache(long maximumWeight, ToIntFunction<String> weigher, NamePool namePool) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+        }
+        this.data = new ConcurrentHashMap<>();
+        this.weigher = weigher;
+        this.namePool = namePool;
+        this.maximumWeight = maximumWeight;
+        this.maximumWindowWeight = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        this.maximumMainWeight = maximumWeight - maximumWindowWeight;
+        this.maximumProtectedWeight = maximumMainWeight * PROTECTED_PERCENT / 100;
+
+        this.lock = new ReentrantLock();
+        this.sketch = new FrequencySketch();
+        this.window = new AccessQueue();
+        this.probation = new AccessQueue();
+        this.protectedQueue = new AccessQueue();
+
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+    }
+
+    /**
+     * Returns the cached document for {@code query}, parsing and caching it on a miss. Syntax errors are not cached.
+     */
+    public QueryDocument parseDocument(String query) {
+        Node node = data.get(query);
+        if (node != null) {
+            hitCount.increment();
+            afterRead(node);
+            return node.document;
+        }
+
+        missCount.increment();
+        QueryDocument document = ParseHelper.parseDocument(query, namePool);
+
+        int weight = weigher.applyAsInt(query);
+        if (weight > maximumWeight) {
+            return document;
+        }
+
+        Node newNode = new Node(query, document, weight);
+        Node existing = data.putIfAbsent(query, newNode);
+        if (existing != null) {
+            afterRead(existing);
+            return existing.document;
+        }
+        afterWrite(newNode);
+        return document;
+    }
+
+    public QueryDocument getIfPresent(String query) {
+        Node node = data.get(query);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        afterRead(node);
+        return node.document;
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long getWeightedSize() {
+        lock.lock();
+        try {
+            return window.weight + probation.weight + protectedQueue.weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private void afterRead(Node node) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(node.key.hashCode());
+            switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.addLast(node, PROTECTED);
+                demoteProtected();
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+            default:
+                // Already evicted or invalidated
+                break;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterWrite(Node node) {
+        lock.lock();
+        try {
+            if (data.get(node.key) != node) {
+                // Invalidated between the insert and acquiring the lock
+                return;
+            }
+            sketch.ensureCapacity(data.size());
+            sketch.increment(node.key.hashCode());
+            window.addLast(node, WINDOW);
+
+            while (window.weight > maximumWindowWeight) {
+                Node candidate = window.head;
+                window.remove(candidate);
+                admit(candidate);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admit(Node candidate) {
+        if (candidate.weight > maximumMainWeight) {
+            evict(candidate);
+            return;
+        }
+
+        int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+        while (probation.weight + protectedQueue.weight + candidate.weight > maximumMainWeight) {
+            Node victim = probation.head != null ? probation.head : protectedQueue.head;
+            if (candidateFrequency > sketch.frequency(victim.key.hashCode())) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                return;
+            }
+        }
+        probation.addLast(candidate, PROBATION);
+    }
+
+    private void demoteProtected() {
+        while (protectedQueue.weight > maximumProtectedWeight) {
+            Node demoted = protectedQueue.head;
+            protectedQueue.remove(demoted);
+            probation.addLast(demoted, PROBATION);
+        }
+    }
+
+    private void evict(Node node) {
+        switch (node.queue) {
+        case WINDOW:
+            window.remove(node);
+            break;
+        case PROBATION:
+            probation.remove(node);
+            break;
+        case PROTECTED:
+            protectedQueue.remove(node);
+            break;
+        default:
+            break;
+        }
+        data.remove(node.key, node);
+        evictionCount.increment();
+    }
+
+    private static final class Node {
+        final String        key;
+        final QueryDocument document;
+        final int           weight;
+
+        int  queue;
+        Node previous;
+        Node next;
+
+        Node(String key, QueryDocument document, int weight) {
+            this.key = key;
+            this.document = document;
+            this.weight = weight;
+            this.queue = NONE;
+        }
+    }
+
+    /**
+     * Intrusive doubly-linked list, least recently used at the head. Guarded by the cache's lock.
+     */
+    private static final class AccessQueue {
+        Node head;
+        Node tail;
+        long weight;
+
+        void addLast(Node node, int queue) {
+            node.queue = queue;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void remove(Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            node.queue = NONE;
+            weight -= node.weight;
+        }
+
+        void moveToBack(Node node) {
+            if (tail != node) {
+                int queue = node.queue;
+                remove(node);
+                addLast(node, queue);
+            }
+        }
+
+        void clear() {
+            for (Node node = head; node != null;) {
+                Node next = node.next;
+                node.previous = null;
+                node.next = null;
+                node.queue = NONE;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+}
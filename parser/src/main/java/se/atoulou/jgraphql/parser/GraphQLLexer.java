@@ -0,0 +1,423 @@
+package se.atoulou.jgraphql.parser;
+
+import se.atoulou.jgraphql.models.NamePool;
+
+/**
+ * Hand-written scanner for the tokens in {@code GraphQLTokens.g4}.
+ * <p>
+ * Tokens are not materialized: {@link #next()} returns an int-coded kind and the token is described by {@link #start()} and {@link #end()}, offsets
+ * into the caller's {@code char[]}. Nothing is allocated unless the caller asks for the token's {@link #text()}. Keywords ({@code query},
+ * {@code fragment}, {@code on}, {@code true}...) are scanned as {@link #NAME}s and are left for the parser to interpret in context.
+ */
+public final class GraphQLLexer extends Tokenizer {
+    public static final int EOF          = -1;
+    public static final int BANG         = 1;
+    public static final int PAREN_L      = 2;
+    public static final int PAREN_R      = 3;
+    public static final int ELLIPSIS     = 4;
+    public static final int COLON        = 5;
+    public static final int EQUAL        = 6;
+    public static final int AT           = 7;
+    public static final int BRACKET_L    = 8;
+    public static final int BRACKET_R    = 9;
+    public static final int BRACE_L      = 10;
+    public static final int BRACE_R      = 11;
+    public static final int PIPE         = 12;
+    public static final int NAME         = 13;
+    public static final int VARIABLE     = 14;
+    public static final int INTEGER_PART = 15;
+    public static final int FLOAT_VALUE  = 16;
+    public static final int STRING_VALUE = 17;
+
+    private char[] data;
+    private int    begin;
+    private int    limit;
+    private int    position;
+
+    private int kind;
+    private int tokenStart;
+    private int tokenEnd;
+
+    public GraphQLLexer(char[] data, int offset, int length) {
+        reset(data, offset, length);
+    }
+
+    public GraphQLLexer(char[] data) {
+        this(data, 0, data.length);
+    }
+
+    public void reset(char[] data, int offset, int length) {
+        assert offset >= 0 && length >= 0 && offset + length <= data.length;
+        this.data = data;
+        this.begin = offset;
+        this.limit = offset + length;
+        this.position = offset;
+
+        this.kind = EOF;
+        this.tokenStart = offset;
+        this.tokenEnd = offset;
+    }
+
+    public char[] data() {
+        return data;
+    }
+
+    @Override
+    public int kind() {
+        return kind;
+    }
+
+    @Override
+    public int start() {
+        return tokenStart;
+    }
+
+    @Override
+    public int end() {
+        return tokenEnd;
+    }
+
+    @Override
+    String intern(NamePool namePool, int start, int end) {
+        return namePool.intern(data, start, end);
+    }
+
+    public String text() {
+        return new String(data, tokenStart, tokenEnd - tokenStart);
+    }
+
+    public String text(int start, int end) {
+        return new String(data, start, end - start);
+    }
+
+    @Override
+    public boolean textEquals(String s) {
+        int length = tokenEnd - tokenStart;
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[tokenStart + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The contents of the current {@link #STRING_VALUE} token, with escape sequences decoded.
+     */
+    @Override
+    public String stringValue() {
+        assert kind == STRING_VALUE;
+        return Literals.decodeString(data, tokenStart, tokenEnd);
+    }
+
+    /**
+     * The value of the current {@link #INTEGER_PART} token.
+     *
+     * @throws ParseException
+     *             if it does not fit in a {@code long}
+     */
+    @Override
+    public long longValue() {
+        assert kind == INTEGER_PART;
+        try {
+            return Literals.parseLong(data, tokenStart, tokenEnd);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Integer literal out of range");
+        }
+    }
+
+    /**
+     * The value of the current {@link #FLOAT_VALUE} token.
+     *
+     * @throws ParseException
+     *             if it does not fit in a finite {@code double}
+     */
+    @Override
+    public double doubleValue() {
+        assert kind == FLOAT_VALUE;
+        try {
+            return Literals.parseDouble(data, tokenStart, tokenEnd);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Float literal out of range");
+        }
+    }
+
+    @Override
+    public int next() {
+        final char[] data = this.data;
+        final int limit = this.limit;
+        int pos = skipIgnored(data, position, limit);
+
+        tokenStart = pos;
+        if (pos >= limit) {
+            return token(EOF, pos);
+        }
+
+        char c = data[pos];
+        switch (c) {
+        case '!':
+            return token(BANG, pos + 1);
+        case '(':
+            return token(PAREN_L, pos + 1);
+        case ')':
+            return token(PAREN_R, pos + 1);
+        case ':':
+            return token(COLON, pos + 1);
+        case '=':
+            return token(EQUAL, pos + 1);
+        case '@':
+            return token(AT, pos + 1);
+        case '[':
+            return token(BRACKET_L, pos + 1);
+        case ']':
+            return token(BRACKET_R, pos + 1);
+        case '{':
+            return token(BRACE_L, pos + 1);
+        case '}':
+            return token(BRACE_R, pos + 1);
+        case '|':
+            return token(PIPE, pos + 1);
+        case '.':
+            if (pos + 2 < limit && data[pos + 1] == '.' && data[pos + 2] == '.') {
+                return token(ELLIPSIS, pos + 3);
+            }
+            throw syntaxError("Expected '...'", pos);
+        case '$':
+            if (pos + 1 < limit && isNameStart(data[pos + 1])) {
+                return token(VARIABLE, scanName(data, pos + 1, limit));
+            }
+            throw syntaxError("Expected variable name after '$'", pos + 1);
+        case '"':
+            return token(STRING_VALUE, scanString(data, pos, limit));
+        case '-':
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+            return scanNumber(data, pos, limit);
+        default:
+            if (isNameStart(c)) {
+                return token(NAME, scanName(data, pos + 1, limit));
+            }
+            throw syntaxError("Unexpected character '" + c + "'", pos);
+        }
+    }
+
+    private int token(int kind, int end) {
+        this.kind = kind;
+        this.tokenEnd = end;
+        this.position = end;
+        return kind;
+    }
+
+    private static int skipIgnored(char[] data, int pos, int limit) {
+        while (pos < limit) {
+            switch (data[pos]) {
+            case ' ':
+            case ',':
+            case '\t':
+            case '\n':
+            case '\r':
+            case '\u000b':
+            case '\u000c':
+            case '\u00a0':
+            case '\u2028':
+            case '\u2029':
+            case '\ufeff':
+                pos++;
+                break;
+            case '#':
+                pos++;
+                while (pos < limit && !isLineTerminator(data[pos])) {
+                    pos++;
+                }
+                break;
+            default:
+                return pos;
+            }
+        }
+        return pos;
+    }
+
+    private static int scanName(char[] data, int pos, int limit) {
+        while (pos < limit && isNameContinue(data[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int scanNumber(char[] data, int pos, int limit) {
+        int start = pos;
+        if (data[pos] == '-') {
+            pos++;
+        }
+
+        if (pos < limit && data[pos] == '0') {
+            pos++;
+        } else if (pos < limit && data[pos] >= '1' && data[pos] <= '9') {
+            pos = scanDigits(data, pos + 1, limit);
+        } else {
+            throw syntaxError("Expected digit", pos);
+        }
+
+        boolean isFloat = false;
+        if (pos < limit && data[pos] == '.') {
+            isFloat = true;
+            int fractionStart = pos + 1;
+            pos = scanDigits(data, fractionStart, limit);
+            if (pos == fractionStart) {
+                throw syntaxError("Expected digit after '.'", pos);
+            }
+        }
+
+        if (pos < limit && (data[pos] == 'e' || data[pos] == 'E')) {
+            isFloat = true;
+            pos++;
+            if (pos < limit && (data[pos] == '+' || data[pos] == '-')) {
+                pos++;
+            }
+            int exponentStart = pos;
+            pos = scanDigits(data, exponentStart, limit);
+            if (pos == exponentStart) {
+                throw syntaxError("Expected digit in exponent", pos);
+            }
+        }
+
+        tokenStart = start;
+        return token(isFloat ? FLOAT_VALUE : INTEGER_PART, pos);
+    }
+
+    private static int scanDigits(char[] data, int pos, int limit) {
+        while (pos < limit && data[pos] >= '0' && data[pos] <= '9') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int scanString(char[] data, int pos, int limit) {
+        int start = pos;
+        pos++;
+        while (pos < limit) {
+            char c = data[pos];
+            if (c == '"') {
+                return pos + 1;
+            } else if (c == '\\') {
+                pos++;
+                if (pos >= limit) {
+                    break;
+                }
+                switch (data[pos]) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    pos++;
+                    break;
+                case 'u':
+                    for (int i = 1; i <= 4; i++) {
+                        if (pos + i >= limit || Character.digit(data[pos + i], 16) < 0) {
+                            throw syntaxError("Invalid unicode escape sequence", pos - 1);
+                        }
+                    }
+                    pos += 5;
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence", pos - 1);
+                }
+            } else if (isLineTerminator(c)) {
+                throw syntaxError("Unterminated string", start);
+            } else {
+                pos++;
+            }
+        }
+        throw syntaxError("Unterminated string", start);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isNameContinue(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    @Override
+    public ParseException syntaxError(String message) {
+        return syntaxError(message, tokenStart);
+    }
+
+    public ParseException syntaxError(String message, int offset) {
+        // Only computed on failure, so the hot path never tracks lines
+        int line = 1;
+        int lineStart = begin;
+        for (int i = begin; i < offset && i < limit; i++) {
+            char c = data[i];
+            if (c == '\n' || c == '\u2028' || c == '\u2029' || (c == '\r' && (i + 1 >= limit || data[i + 1] != '\n'))) {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return new ParseException(message, offset - begin, line, offset - lineStart + 1);
+    }
+
+    public static String describe(int kind) {
+        switch (kind) {
+        case EOF:
+            return "end of document";
+        case BANG:
+            return "'!'";
+        case PAREN_L:
+            return "'('";
+        case PAREN_R:
+            return "')'";
+        case ELLIPSIS:
+            return "'...'";
+        case COLON:
+            return "':'";
+        case EQUAL:
+            return "'='";
+        case AT:
+            return "'@'";
+        case BRACKET_L:
+            return "'['";
+        case BRACKET_R:
+            return "']'";
+        case BRACE_L:
+            return "'{'";
+        case BRACE_R:
+            return "'}'";
+        case PIPE:
+            return "'|'";
+        case NAME:
+            return "name";
+        case VARIABLE:
+            return "variable";
+        case INTEGER_PART:
+            return "integer";
+        case FLOAT_VALUE:
+            return "float";
+        case STRING_VALUE:
+            return "string";
+        default:
+            assert false;
+            return "unknown token";
+        }
+    }
+}
@@ -4,10 +4,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import se.atoulou.jgraphql.models.NamePool;
 import se.atoulou.jgraphql.models.query.Argument;
 import se.atoulou.jgraphql.models.query.Directive;
 import se.atoulou.jgraphql.models.query.QueryDocument;
@@ -17,23 +20,39 @@ import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
 import se.atoulou.jgraphql.models.query.Selection;
 import se.atoulou.jgraphql.models.query.Selection.SelectionKind;
 import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.NullValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
 import se.atoulou.jgraphql.models.query.VariableDefinition;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryBaseVisitor;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.AliasContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ArgumentContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ArgumentsContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.BooleanValueContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ConstObjectFieldContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ConstValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.DefaultValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.DirectiveContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.DirectivesContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.DocumentContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.FieldContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.FloatValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.FragmentDefinitionContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.FragmentSpreadContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.InlineFragmentContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.IntegerValueContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ObjectFieldContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.OperationDefinitionContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.SelectionContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.SelectionSetContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.StringValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.ValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.VariableDefinitionContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser.VariableDefinitionsContext;
@@ -42,11 +61,17 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
     private static final Logger LOG = LoggerFactory.getLogger(GraphQLQueryVisitor.class);
 
     private final QueryDocument.Builder documentBuilder;
+    private final NamePool         namePool;
     private final Stack<Object>    objectStack;
     private Object                 previousObject;
 
     public GraphQLQueryVisitor() {
+        this(new NamePool());
+    }
+
+    public GraphQLQueryVisitor(NamePool namePool) {
         this.documentBuilder = QueryDocument.builder();
+        this.namePool = namePool;
 
         this.objectStack = new Stack<>();
     }
@@ -74,7 +99,7 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         TerminalNode nameNode = ctx.NAME();
         String name;
         if (nameNode != null) {
-            name = nameNode.getText();
+            name = namePool.intern(nameNode.getText());
         } else {
             name = null;
         }
@@ -123,8 +148,8 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
 
     @Override
     public Void visitFragmentDefinition(FragmentDefinitionContext ctx) {
-        String name = ctx.fragmentName().getText();
-        String typeCondition = ctx.typeCondition().getText();
+        String name = namePool.intern(ctx.fragmentName().getText());
+        String typeCondition = namePool.intern(ctx.typeCondition().getText());
 
         FragmentDefinition.Builder fragmentB = FragmentDefinition.builder();
         this.objectStack.push(fragmentB);
@@ -173,8 +198,8 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         VariableDefinition.Builder variableB = VariableDefinition.builder();
         this.objectStack.push(variableB);
 
-        variableB.variable(ctx.variable().VARIABLE().getText());
-        variableB.type(ctx.type().namedType().getText());
+        variableB.variable(namePool.intern(ctx.variable().VARIABLE().getText()));
+        variableB.type(namePool.intern(ctx.type().getText()));
 
         DefaultValueContext defaultValue = ctx.defaultValue();
         if (defaultValue != null) {
@@ -231,10 +256,10 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
 
         AliasContext aliasCtx = ctx.alias();
         if (aliasCtx != null) {
-            selectionB.alias(aliasCtx.NAME().getText());
+            selectionB.alias(namePool.intern(aliasCtx.NAME().getText()));
         }
 
-        selectionB.name(ctx.NAME().getText());
+        selectionB.name(namePool.intern(ctx.NAME().getText()));
 
         ArgumentsContext argumentsCtx = ctx.arguments();
         if (argumentsCtx != null) {
@@ -273,7 +298,7 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         this.objectStack.push(selectionB);
 
         selectionB.kind(SelectionKind.FRAGMENT_SPREAD);
-        selectionB.name(ctx.fragmentName().NAME().getText());
+        selectionB.name(namePool.intern(ctx.fragmentName().NAME().getText()));
 
         DirectivesContext directivesCtx = ctx.directives();
         if (directivesCtx != null) {
@@ -294,7 +319,7 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         this.objectStack.push(selectionB);
 
         selectionB.kind(SelectionKind.INLINE_FRAGMENT);
-        selectionB.typeCondition(ctx.typeCondition().namedType().getText());
+        selectionB.typeCondition(namePool.intern(ctx.typeCondition().namedType().getText()));
 
         DirectivesContext directivesCtx = ctx.directives();
         if (directivesCtx != null) {
@@ -336,7 +361,7 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         Directive.Builder directiveB = Directive.builder();
         this.objectStack.push(directiveB);
 
-        directiveB.name(ctx.NAME().getText());
+        directiveB.name(namePool.intern(ctx.NAME().getText()));
 
         ArgumentsContext arguments = ctx.arguments();
         if (arguments != null) {
@@ -372,7 +397,7 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
         Argument.Builder argumentB = Argument.builder();
         this.objectStack.push(argumentB);
 
-        argumentB.name(ctx.NAME().getText());
+        argumentB.name(namePool.intern(ctx.NAME().getText()));
 
         visitValue(ctx.value());
         assert this.previousObject instanceof Value.Builder;
@@ -385,21 +410,82 @@ public class GraphQLQueryVisitor extends GraphQLQueryBaseVisitor<Void> {
 
     @Override
     public Void visitValue(ValueContext ctx) {
-        Value.Builder valueB = Value.builder();
-
-        valueB.value(ctx.getText());
-
-        this.previousObject = valueB;
+        this.previousObject = Value.builder().value(toValue(ctx));
         return null;
     }
 
     @Override
     public Void visitConstValue(ConstValueContext ctx) {
-        Value.Builder valueB = Value.builder();
+        this.previousObject = Value.builder().value(toValue(ctx));
+        return null;
+    }
 
-        valueB.value(ctx.getText());
+    private Value toValue(ValueContext ctx) {
+        if (ctx.variable() != null) {
+            return new VariableRef(namePool.intern(ctx.variable().getText().substring(1)));
+        } else if (ctx.arrayValue() != null) {
+            List<Value> values = new ArrayList<>();
+            for (ValueContext valueCtx : ctx.arrayValue().value()) {
+                values.add(toValue(valueCtx));
+            }
+            return new ListValue(values);
+        } else if (ctx.objectValue() != null) {
+            List<ObjectField> fields = new ArrayList<>();
+            for (ObjectFieldContext fieldCtx : ctx.objectValue().objectField()) {
+                fields.add(new ObjectField(namePool.intern(fieldCtx.NAME().getText()), toValue(fieldCtx.value())));
+            }
+            return new ObjectValue(fields);
+        }
+        return toScalarValue(ctx.floatValue(), ctx.integerValue(), ctx.stringValue(), ctx.booleanValue(), ctx.NAME());
+    }
 
-        this.previousObject = valueB;
-        return null;
+    private Value toValue(ConstValueContext ctx) {
+        if (ctx.constArrayValue() != null) {
+            List<Value> values = new ArrayList<>();
+            for (ConstValueContext valueCtx : ctx.constArrayValue().constValue()) {
+                values.add(toValue(valueCtx));
+            }
+            return new ListValue(values);
+        } else if (ctx.constObjectValue() != null) {
+            List<ObjectField> fields = new ArrayList<>();
+            for (ConstObjectFieldContext fieldCtx : ctx.constObjectValue().constObjectField()) {
+                fields.add(new ObjectField(namePool.intern(fieldCtx.NAME().getText()), toValue(fieldCtx.constValue())));
+            }
+            return new ObjectValue(fields);
+        }
+        return toScalarValue(ctx.floatValue(), ctx.integerValue(), ctx.stringValue(), ctx.booleanValue(), ctx.NAME());
+    }
+
+    private Value toScalarValue(FloatValueContext floatCtx, IntegerValueContext integerCtx, StringValueContext stringCtx,
+            BooleanValueContext booleanCtx, TerminalNode name) {
+        if (floatCtx != null) {
+            String text = floatCtx.getText();
+            try {
+                return new FloatValue(Literals.parseDouble(text.toCharArray(), 0, text.length()));
+            } catch (NumberFormatException e) {
+                throw syntaxError("Float literal out of range", floatCtx);
+            }
+        } else if (integerCtx != null) {
+            String text = integerCtx.getText();
+            try {
+                return new IntValue(Literals.parseLong(text.toCharArray(), 0, text.length()));
+            } catch (NumberFormatException e) {
+                throw syntaxError("Integer literal out of range", integerCtx);
+            }
+        } else if (stringCtx != null) {
+            return new StringValue(Literals.decodeString(stringCtx.getText()));
+        } else if (booleanCtx != null) {
+            return BooleanValue.of(booleanCtx.getText().equals("true"));
+        }
+
+        assert name != null;
+        String text = namePool.intern(name.getText());
+        return text.equals("null") ? NullValue.NULL : new EnumValue(text);
+    }
+
+    // Reported as the hand-written lexer reports it, so that the two parsers fail alike
+    private static ParseException syntaxError(String message, ParserRuleContext ctx) {
+        Token start = ctx.getStart();
+        return new ParseException(message, start.getStartIndex(), start.getLine(), start.getCharPositionInLine() + 1);
     }
 }
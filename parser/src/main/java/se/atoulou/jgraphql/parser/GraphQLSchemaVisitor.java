@@ -4,9 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
+import org.antlr.v4.runtime.misc.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import se.atoulou.jgraphql.models.NamePool;
 import se.atoulou.jgraphql.models.schema.EnumValue;
 import se.atoulou.jgraphql.models.schema.Field;
 import se.atoulou.jgraphql.models.schema.InputValue;
@@ -15,6 +17,7 @@ import se.atoulou.jgraphql.models.schema.Type;
 import se.atoulou.jgraphql.models.schema.Type.TypeKind;
 import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaBaseVisitor;
 import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.ArgumentsDefinitionContext;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.ConstValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.DefaultValueContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.EnumDefinitionContext;
 import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser.EnumValueDefinitionContext;
@@ -37,19 +40,36 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     private final Schema.Builder schemaBuilder;
     private final TypeRegistry   typeRegistry;
+    private final NamePool       namePool;
+    private final boolean        reconcile;
     private final Stack<Object>  objectStack;
     private Object               previousObject;
 
     public GraphQLSchemaVisitor() {
-        this.schemaBuilder = Schema.builder();
+        this(new NamePool());
+    }
+
+    public GraphQLSchemaVisitor(NamePool namePool) {
+        this(namePool, true);
+    }
+
+    /**
+     * @param reconcile
+     *            whether to add objects to the possible types of their interfaces once the document is visited. Documents that are one part of a
+     *            schema are reconciled after {@link SchemaMerger} has merged them, since their interfaces may be declared in other parts.
+     */
+    GraphQLSchemaVisitor(NamePool namePool, boolean reconcile) {
+        this.reconcile = reconcile;
+        this.schemaBuilder = Schema.builder().namePool(namePool);
+        this.namePool = namePool;
 
         // Add type registry; register base types
         this.typeRegistry = new TypeRegistry();
-        this.typeRegistry.registerDeclaration("Int", TypeKind.SCALAR);
-        this.typeRegistry.registerDeclaration("Float", TypeKind.SCALAR);
-        this.typeRegistry.registerDeclaration("String", TypeKind.SCALAR);
-        this.typeRegistry.registerDeclaration("Boolean", TypeKind.SCALAR);
-        this.typeRegistry.registerDeclaration("ID", TypeKind.SCALAR);
+        this.typeRegistry.registerDeclaration(namePool.intern("Int"), TypeKind.SCALAR);
+        this.typeRegistry.registerDeclaration(namePool.intern("Float"), TypeKind.SCALAR);
+        this.typeRegistry.registerDeclaration(namePool.intern("String"), TypeKind.SCALAR);
+        this.typeRegistry.registerDeclaration(namePool.intern("Boolean"), TypeKind.SCALAR);
+        this.typeRegistry.registerDeclaration(namePool.intern("ID"), TypeKind.SCALAR);
 
         this.objectStack = new Stack<>();
     }
@@ -69,8 +89,10 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
         super.visitSchemaDocument(ctx);
 
         LOG.trace("Exiting {}", "schema document");
-        LOG.trace("Adding objects possibleTypes to interfaces");
-        this.typeRegistry.reconcilePossibleTypes();
+        if (this.reconcile) {
+            LOG.trace("Adding objects possibleTypes to interfaces");
+            this.typeRegistry.reconcilePossibleTypes();
+        }
 
         // TODO: Schema validation
         return null;
@@ -78,7 +100,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitTypeDefinition(TypeDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<Type name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -88,7 +110,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
         if (ctx.implementTypes() != null) {
             for (NamedTypeContext typeName : ctx.implementTypes().namedType()) {
-                String typeNameString = typeName.NAME().getText();
+                String typeNameString = namePool.intern(typeName.NAME().getText());
                 Type.Builder implementedTypeB = this.typeRegistry.registerUsage(typeNameString);
                 typeB.interfaces().add(implementedTypeB);
                 LOG.trace("<Implements name=\"{}\" />", typeNameString);
@@ -109,7 +131,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitInterfaceDefinition(InterfaceDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<Interface name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -131,7 +153,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitUnionDefinition(UnionDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<Union name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -141,7 +163,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
         UnionMembersContext unionMembers = ctx.unionMembers();
         while (unionMembers != null) {
-            String typeName = unionMembers.namedType().NAME().getText();
+            String typeName = namePool.intern(unionMembers.namedType().NAME().getText());
             LOG.trace("<Type name=\"{}\" />", typeName);
 
             Type.Builder possibleTypeB = this.typeRegistry.registerUsage(typeName);
@@ -156,7 +178,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitScalarDefinition(ScalarDefinitionContext ctx) {
-        String name = ctx.namedType().NAME().getText();
+        String name = namePool.intern(ctx.namedType().NAME().getText());
         LOG.trace("<Scalar name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -171,7 +193,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitEnumDefinition(EnumDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<Enum name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -181,7 +203,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
         List<EnumValueDefinitionContext> enumValueDefinitions = ctx.enumValueDefinition();
         for (EnumValueDefinitionContext enumValueDefinition : enumValueDefinitions) {
-            String enumName = enumValueDefinition.NAME().getText();
+            String enumName = namePool.intern(enumValueDefinition.NAME().getText());
             LOG.trace("<EnumValue name=\"{}\" />", enumName);
 
             EnumValue.Builder enumValueB = EnumValue.builder();
@@ -196,7 +218,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitInputObjectDefinition(InputObjectDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<InputObject name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -220,7 +242,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitFieldDefinition(FieldDefinitionContext ctx) {
-        String name = ctx.getChild(0).getText();
+        String name = namePool.intern(ctx.getChild(0).getText());
         LOG.trace("<Field name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -266,7 +288,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitInputValueDefinition(InputValueDefinitionContext ctx) {
-        String name = ctx.NAME().getText();
+        String name = namePool.intern(ctx.NAME().getText());
         LOG.trace("<InputValue name=\"{}\">", name);
 
         // Push builder onto stack & populate
@@ -282,8 +304,10 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
         DefaultValueContext defaultValue = ctx.defaultValue();
         if (defaultValue != null) {
-            String constValue = defaultValue.constValue().getText();
-            inputValueB.defaultValue(constValue);
+            // The source text, as getText() drops the ignored commas and whitespace between the tokens of list and object values
+            ConstValueContext constValue = defaultValue.constValue();
+            Interval interval = Interval.of(constValue.start.getStartIndex(), constValue.stop.getStopIndex());
+            inputValueB.defaultValue(constValue.start.getInputStream().getText(interval));
             LOG.trace("<DefaultValue value=\"{}\" />", defaultValue.getText());
         }
         LOG.trace("<Type name=\"{}\" />", type.name());
@@ -295,7 +319,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitType(TypeContext ctx) {
-        String name = ctx.getText();
+        String name = namePool.intern(ctx.getText());
 
         NamedTypeContext namedType = ctx.namedType();
         ListTypeContext listType = ctx.listType();
@@ -316,7 +340,7 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitNonNullType(NonNullTypeContext ctx) {
-        String name = ctx.getText();
+        String name = namePool.intern(ctx.getText());
         NamedTypeContext namedType = ctx.namedType();
         ListTypeContext listType = ctx.listType();
 
@@ -344,14 +368,14 @@ public class GraphQLSchemaVisitor extends GraphQLSchemaBaseVisitor<Void> {
 
     @Override
     public Void visitNamedType(NamedTypeContext ctx) {
-        String name = ctx.getText();
+        String name = namePool.intern(ctx.getText());
         this.previousObject = this.typeRegistry.registerUsage(name);
         return null;
     }
 
     @Override
     public Void visitListType(ListTypeContext ctx) {
-        String name = ctx.getText();
+        String name = namePool.intern(ctx.getText());
         Type.Builder typeB = this.typeRegistry.registerDeclaration(name, TypeKind.LIST);
         this.objectStack.push(typeB);
 
@@ -0,0 +1,234 @@
+package se.atoulou.jgraphql.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoding of scalar literal tokens, shared by {@link GraphQLLexer}, {@link Utf8GraphQLLexer} and the ANTLR visitors. The tokens have already been validated by the lexer.
+ */
+final class Literals {
+    private Literals() {
+    }
+
+    /**
+     * Decodes the string token {@code data[start, end)}, quotes included.
+     */
+    static String decodeString(char[] data, int start, int end) {
+        int contentStart = start + 1;
+        int contentEnd = end - 1;
+
+        int escape = indexOf(data, '\\', contentStart, contentEnd);
+        if (escape < 0) {
+            return new String(data, contentStart, contentEnd - contentStart);
+        }
+
+        StringBuilder sb = new StringBuilder(contentEnd - contentStart);
+        sb.append(data, contentStart, escape - contentStart);
+        int pos = escape;
+        while (pos < contentEnd) {
+            char c = data[pos++];
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            c = data[pos++];
+            switch (c) {
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'u':
+                sb.append((char) ((Character.digit(data[pos], 16) << 12) | (Character.digit(data[pos + 1], 16) << 8)
+                        | (Character.digit(data[pos + 2], 16) << 4) | Character.digit(data[pos + 3], 16)));
+                pos += 4;
+                break;
+            default:
+                // '"', '\\' and '/'
+                sb.append(c);
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes the UTF-8 string token at the absolute range {@code data[start, end)}, quotes included. Malformed sequences become U+FFFD.
+     */
+    static String decodeString(ByteBuffer data, int start, int end) {
+        int contentStart = start + 1;
+        int contentEnd = end - 1;
+
+        // Every sequence decodes to at most as many chars as it has bytes
+        char[] chars = new char[contentEnd - contentStart];
+        int length = 0;
+        int pos = contentStart;
+        while (pos < contentEnd) {
+            int b = data.get(pos);
+            if (b >= 0 && b != '\\') {
+                chars[length++] = (char) b;
+                pos++;
+                continue;
+            }
+            if (b < 0) {
+                int sequenceLength = Utf8.sequenceLength(data, pos, contentEnd);
+                if (sequenceLength == 0) {
+                    chars[length++] = (char) Utf8.REPLACEMENT;
+                    pos++;
+                } else {
+                    length += Character.toChars(Utf8.codePoint(data, pos, sequenceLength), chars, length);
+                    pos += sequenceLength;
+                }
+                continue;
+            }
+
+            char c = (char) data.get(pos + 1);
+            pos += 2;
+            switch (c) {
+            case 'b':
+                chars[length++] = '\b';
+                break;
+            case 'f':
+                chars[length++] = '\f';
+                break;
+            case 'n':
+                chars[length++] = '\n';
+                break;
+            case 'r':
+                chars[length++] = '\r';
+                break;
+            case 't':
+                chars[length++] = '\t';
+                break;
+            case 'u':
+                chars[length++] = (char) ((Character.digit(data.get(pos), 16) << 12) | (Character.digit(data.get(pos + 1), 16) << 8)
+                        | (Character.digit(data.get(pos + 2), 16) << 4) | Character.digit(data.get(pos + 3), 16));
+                pos += 4;
+                break;
+            default:
+                // '"', '\\' and '/'
+                chars[length++] = c;
+                break;
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    static String decodeString(String token) {
+        return decodeString(token.toCharArray(), 0, token.length());
+    }
+
+    /**
+     * Parses the integer token {@code data[start, end)}.
+     *
+     * @throws NumberFormatException
+     *             if the value does not fit in a {@code long}
+     */
+    static long parseLong(char[] data, int start, int end) {
+        boolean negative = data[start] == '-';
+        int pos = negative ? start + 1 : start;
+
+        // Accumulate negatively so that Long.MIN_VALUE is representable
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = data[pos] - '0';
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Integer out of range: " + new String(data, start, end - start));
+            }
+            result = result * 10 - digit;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw new NumberFormatException("Integer out of range: " + new String(data, start, end - start));
+            }
+            return -result;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the float token {@code data[start, end)}.
+     *
+     * @throws NumberFormatException
+     *             if the value does not fit in a finite {@code double}
+     */
+    static double parseDouble(char[] data, int start, int end) {
+        String text = new String(data, start, end - start);
+        double value = Double.parseDouble(text);
+        if (Double.isInfinite(value)) {
+            throw new NumberFormatException("Float out of range: " + text);
+        }
+        return value;
+    }
+
+    /**
+     * Parses the ASCII integer token at the absolute range {@code data[start, end)}.
+     *
+     * @throws NumberFormatException
+     *             if the value does not fit in a {@code long}
+     */
+    static long parseLong(ByteBuffer data, int start, int end) {
+        boolean negative = data.get(start) == '-';
+        int pos = negative ? start + 1 : start;
+
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = data.get(pos) - '0';
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Integer out of range: " + ascii(data, start, end));
+            }
+            result = result * 10 - digit;
+        }
+
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw new NumberFormatException("Integer out of range: " + ascii(data, start, end));
+            }
+            return -result;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the ASCII float token at the absolute range {@code data[start, end)}.
+     *
+     * @throws NumberFormatException
+     *             if the value does not fit in a finite {@code double}
+     */
+    static double parseDouble(ByteBuffer data, int start, int end) {
+        String text = ascii(data, start, end);
+        double value = Double.parseDouble(text);
+        if (Double.isInfinite(value)) {
+            throw new NumberFormatException("Float out of range: " + text);
+        }
+        return value;
+    }
+
+    static String ascii(ByteBuffer data, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) data.get(start + i);
+        }
+        return new String(chars);
+    }
+
+    private static int indexOf(char[] data, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package se.atoulou.jgraphql.parser;
+
+public class ParseException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int offset;
+    private final int line;
+    private final int column;
+
+    public ParseException(String message, int offset, int line, int column) {
+        super(message + " at line " + line + ", column " + column);
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
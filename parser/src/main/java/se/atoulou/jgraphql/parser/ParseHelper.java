@@ -1,20 +1,77 @@
 package se.atoulou.jgraphql.parser;
 
+import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
 
+import se.atoulou.jgraphql.models.NamePool;
 import se.atoulou.jgraphql.models.query.QueryDocument;
 import se.atoulou.jgraphql.models.schema.Schema;
-import se.atoulou.jgraphql.parser.antlr.GraphQLQueryLexer;
-import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser;
-import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaLexer;
-import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser;
 
 public final class ParseHelper {
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    // The example project's documents, bundled by the build
+    private static final String        WARM_UP_PATH    = "/se/atoulou/jgraphql/parser/warmup/";
+    private static final String[]      WARM_UP_QUERIES = { "introspectionQuery.graphqlQuery" };
+    private static final String[]      WARM_UP_SCHEMAS = { "schemaSchema.graphqlSchema", "starWarsSchema.graphqlSchema" };
+    private static final int           WARM_UP_ROUNDS  = 3;
+    private static final AtomicBoolean WARMED_UP       = new AtomicBoolean();
+
+    /**
+     * Fills the DFA caches that the ANTLR lexers and parsers share between instances, by parsing the documents bundled with the parser. Without it,
+     * the first parses after startup pay for ATN simulation while the caches fill in. Meant to be called once at startup; later calls return
+     * immediately.
+     */
+    public static void warmUp() {
+        if (!WARMED_UP.compareAndSet(false, true)) {
+            return;
+        }
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            for (String name : WARM_UP_QUERIES) {
+                parseDocumentWithAntlr(warmUpResource(name));
+            }
+            for (String name : WARM_UP_SCHEMAS) {
+                parseSchema(warmUpResource(name));
+            }
+        }
+    }
+
+    private static String warmUpResource(String name) {
+        InputStream in = ParseHelper.class.getResourceAsStream(WARM_UP_PATH + name);
+        if (in == null) {
+            throw new IllegalStateException("Missing bundled document: " + name);
+        }
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            CharArrayWriter w = new CharArrayWriter();
+            char[] buffer = new char[READ_BUFFER_SIZE];
+            int read;
+            while ((read = r.read(buffer)) != -1) {
+                w.write(buffer, 0, read);
+            }
+            return w.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static Schema parseSchema(char[] data, int numberOfActualCharsInArray) {
         return parseSchema(new ANTLRInputStream(data, numberOfActualCharsInArray));
     }
@@ -31,43 +88,151 @@ public final class ParseHelper {
         return parseSchema(new ANTLRInputStream(in));
     }
 
-    private static Schema parseSchema(ANTLRInputStream input) {
-        GraphQLSchemaLexer lexer = new GraphQLSchemaLexer(input);
-        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
-        GraphQLSchemaParser parser = new GraphQLSchemaParser(tokenStream);
+    /**
+     * Parses the UTF-8 bytes between the buffer's position and limit, which is left unchanged. The lexer reads the bytes in place, so a direct or
+     * memory-mapped buffer is never copied to the heap.
+     */
+    public static Schema parseSchema(ByteBuffer buffer) {
+        try (ParseSession session = ParseSession.acquire()) {
+            return session.parseSchema(buffer);
+        }
+    }
+
+    /**
+     * Parses a UTF-8 schema file by memory-mapping it. The mapping is released when the buffer is garbage collected, not when this method
+     * returns.
+     */
+    public static Schema parseSchema(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return parseSchema(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Parses a schema split over several UTF-8 files on the common pool; see {@link #parseSchema(List, ForkJoinPool)}.
+     */
+    public static Schema parseSchema(List<Path> paths) throws IOException {
+        return parseSchema(paths, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses a schema split over several UTF-8 files, each file in its own task on {@code pool}, then merges the parts. Types may be used in
+     * files other than the one declaring them. The schema lists its types in the order of the files, and its names are interned in one pool.
+     *
+     * @throws SchemaConflictException
+     *             if two files declare the same type
+     */
+    public static Schema parseSchema(List<Path> paths, ForkJoinPool pool) throws IOException {
+        NamePool namePool = new NamePool();
+        List<ForkJoinTask<GraphQLSchemaVisitor>> tasks = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            tasks.add(pool.submit(() -> parsePartialSchema(path, namePool)));
+        }
+
+        List<GraphQLSchemaVisitor> parts = new ArrayList<>(paths.size());
+        List<String> sourceNames = new ArrayList<>(paths.size());
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    parts.add(tasks.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while parsing " + paths.get(i));
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) cause).getCause();
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+                sourceNames.add(paths.get(i).toString());
+            }
+        } finally {
+            // Once one file fails, the files still queued are not worth parsing; a task already running is left to finish
+            if (parts.size() < tasks.size()) {
+                for (ForkJoinTask<GraphQLSchemaVisitor> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+        return new SchemaMerger().merge(parts, sourceNames, namePool);
+    }
+
+    private static GraphQLSchemaVisitor parsePartialSchema(Path path, NamePool namePool) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ); ParseSession session = ParseSession.acquire()) {
+            return session.parsePartialSchema(new Utf8CharStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), namePool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        GraphQLSchemaVisitor visitor = new GraphQLSchemaVisitor();
-        visitor.visit(parser.schemaDocument());
-        Schema.Builder schemaB = visitor.getSchemaBuilder();
-        // TODO: validation
-        return schemaB.build();
+    private static Schema parseSchema(ANTLRInputStream input) {
+        try (ParseSession session = ParseSession.acquire()) {
+            return session.parseSchema(input);
+        }
     }
 
     public static QueryDocument parseDocument(char[] data, int numberOfActualCharsInArray) {
-        return parseDocument(new ANTLRInputStream(data, numberOfActualCharsInArray));
+        return QueryDocumentParser.parse(data, 0, numberOfActualCharsInArray);
     }
 
+    /**
+     * Parses a document whose names are interned in a pool of its own.
+     */
     public static QueryDocument parseDocument(String string) {
-        return parseDocument(new ANTLRInputStream(string));
+        return parseDocument(string, new NamePool());
+    }
+
+    /**
+     * Parses a document whose names are interned in {@code namePool}, such as {@link Schema#getNamePool()}.
+     */
+    public static QueryDocument parseDocument(String string, NamePool namePool) {
+        char[] data = string.toCharArray();
+        return QueryDocumentParser.parse(data, 0, data.length, namePool);
     }
 
     public static QueryDocument parseDocument(Reader r) throws IOException {
-        return parseDocument(new ANTLRInputStream(r));
+        CharArrayWriter w = new CharArrayWriter();
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = r.read(buffer)) != -1) {
+            w.write(buffer, 0, read);
+        }
+        return parseDocument(w.toCharArray(), w.size());
     }
 
     public static QueryDocument parseDocument(InputStream in) throws IOException {
-        return parseDocument(new ANTLRInputStream(in));
+        return parseDocument(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the UTF-8 bytes between the buffer's position and limit, which is left unchanged, without decoding them to characters first.
+     * {@link ParseException} offsets are in bytes from the buffer's position.
+     */
+    public static QueryDocument parseDocument(ByteBuffer buffer) {
+        return parseDocument(buffer, new NamePool());
+    }
+
+    public static QueryDocument parseDocument(ByteBuffer buffer, NamePool namePool) {
+        return QueryDocumentParser.parse(buffer, namePool);
+    }
+
+    // The ANTLR grammar is kept as the reference implementation of the query language
+    public static QueryDocument parseDocumentWithAntlr(char[] data, int numberOfActualCharsInArray) {
+        return parseDocument(new ANTLRInputStream(data, numberOfActualCharsInArray));
+    }
+
+    public static QueryDocument parseDocumentWithAntlr(String string) {
+        return parseDocument(new ANTLRInputStream(string));
     }
 
     private static QueryDocument parseDocument(ANTLRInputStream input) {
-        GraphQLQueryLexer lexer = new GraphQLQueryLexer(input);
-        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
-        GraphQLQueryParser parser = new GraphQLQueryParser(tokenStream);
-
-        GraphQLQueryVisitor visitor = new GraphQLQueryVisitor();
-        visitor.visit(parser.document());
-        QueryDocument.Builder documentB = visitor.getDocumentBuilder();
-        // TODO: validation
-        return documentB.build();
+        try (ParseSession session = ParseSession.acquire()) {
+            return session.parseDocumentWithAntlr(input);
+        }
     }
 }
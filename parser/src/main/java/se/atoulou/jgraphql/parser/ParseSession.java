@@ -0,0 +1,240 @@
+package se.atoulou.jgraphql.parser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import se.atoulou.jgraphql.models.NamePool;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryLexer;
+import se.atoulou.jgraphql.parser.antlr.GraphQLQueryParser;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaLexer;
+import se.atoulou.jgraphql.parser.antlr.GraphQLSchemaParser;
+
+/**
+ * The ANTLR lexers, token streams and parsers behind {@link ParseHelper}, kept between parses and reset through {@code setInputStream} instead of
+ * being constructed for every document. Each grammar's objects are created on first use.
+ * <p>
+ * A session is not thread-safe. Sessions from {@link #acquire()} come from a small shared pool and go back to it on {@link #close()}, so use them
+ * with try-with-resources:
+ *
+ * <pre>
+ * try (ParseSession session = ParseSession.acquire()) {
+ *     schema = session.parseSchema(text);
+ * }
+ * </pre>
+ *
+ * The pool takes no locks and holds no thread-locals, so it suits virtual threads as well as a fixed set of platform threads. When every pooled
+ * session is in use, {@link #acquire()} creates a new one, and a session closed into a full pool is dropped.
+ */
+public final class ParseSession implements AutoCloseable {
+    // A power of two, at least twice the number of processors
+    private static final int                                 POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2;
+    private static final AtomicReferenceArray<ParseSession> POOL      = new AtomicReferenceArray<>(POOL_SIZE);
+
+    private final boolean                                    pooled;
+    // Stands in for the last document once the session is closed; the lexer seeks it on reset, so it is not shared
+    private final CharStream                                 empty;
+    private final ANTLRErrorStrategy                         bailStrategy;
+    private final ANTLRErrorStrategy                         defaultStrategy;
+
+    private GraphQLSchemaLexer                               schemaLexer;
+    private ReusableTokenStream                              schemaTokens;
+    private GraphQLSchemaParser                              schemaParser;
+    private List<ANTLRErrorListener>                         schemaListeners;
+
+    private GraphQLQueryLexer                                queryLexer;
+    private ReusableTokenStream                              queryTokens;
+    private GraphQLQueryParser                               queryParser;
+    private List<ANTLRErrorListener>                         queryListeners;
+
+    private boolean                                          closed;
+
+    /**
+     * Creates a session outside the pool, for a caller that keeps it for its own lifetime. Closing it only releases the last document.
+     */
+    public ParseSession() {
+        this(false);
+    }
+
+    private ParseSession(boolean pooled) {
+        this.pooled = pooled;
+        this.empty = new ANTLRInputStream(new char[0], 0);
+        this.bailStrategy = new BailErrorStrategy();
+        this.defaultStrategy = new DefaultErrorStrategy();
+    }
+
+    /**
+     * Takes an idle session from the shared pool, or creates one. The caller owns it until {@link #close()}.
+     */
+    public static ParseSession acquire() {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int slot = (start + i) & (POOL_SIZE - 1);
+            if (POOL.get(slot) != null) {
+                ParseSession session = POOL.getAndSet(slot, null);
+                if (session != null) {
+                    session.closed = false;
+                    return session;
+                }
+            }
+        }
+        return new ParseSession(true);
+    }
+
+    public Schema parseSchema(char[] data, int numberOfActualCharsInArray) {
+        return parseSchema(new ANTLRInputStream(data, numberOfActualCharsInArray));
+    }
+
+    public Schema parseSchema(String string) {
+        return parseSchema(new ANTLRInputStream(string));
+    }
+
+    /**
+     * Parses the UTF-8 bytes between the buffer's position and limit in place; see {@link ParseHelper#parseSchema(ByteBuffer)}.
+     */
+    public Schema parseSchema(ByteBuffer buffer) {
+        return parseSchema(new Utf8CharStream(buffer));
+    }
+
+    Schema parseSchema(CharStream input) {
+        GraphQLSchemaVisitor visitor = new GraphQLSchemaVisitor();
+        visitSchema(input, visitor);
+        return visitor.getSchemaBuilder().build();
+    }
+
+    /**
+     * Parses one part of a schema, leaving its interfaces' possible types to {@link SchemaMerger}.
+     */
+    GraphQLSchemaVisitor parsePartialSchema(CharStream input, NamePool namePool) {
+        GraphQLSchemaVisitor visitor = new GraphQLSchemaVisitor(namePool, false);
+        visitSchema(input, visitor);
+        return visitor;
+    }
+
+    private void visitSchema(CharStream input, GraphQLSchemaVisitor visitor) {
+        assert !closed;
+        if (schemaParser == null) {
+            schemaLexer = new GraphQLSchemaLexer(input);
+            schemaTokens = new ReusableTokenStream(schemaLexer);
+            schemaParser = new GraphQLSchemaParser(schemaTokens);
+            schemaListeners = new ArrayList<>(schemaParser.getErrorListeners());
+        } else {
+            reset(schemaLexer, schemaTokens, schemaParser, input);
+        }
+
+        visitor.visit(parseWithFallback(schemaParser, schemaListeners, schemaParser::schemaDocument));
+    }
+
+    public QueryDocument parseDocumentWithAntlr(char[] data, int numberOfActualCharsInArray) {
+        return parseDocumentWithAntlr(new ANTLRInputStream(data, numberOfActualCharsInArray));
+    }
+
+    public QueryDocument parseDocumentWithAntlr(String string) {
+        return parseDocumentWithAntlr(new ANTLRInputStream(string));
+    }
+
+    QueryDocument parseDocumentWithAntlr(CharStream input) {
+        assert !closed;
+        if (queryParser == null) {
+            queryLexer = new GraphQLQueryLexer(input);
+            queryTokens = new ReusableTokenStream(queryLexer);
+            queryParser = new GraphQLQueryParser(queryTokens);
+            queryListeners = new ArrayList<>(queryParser.getErrorListeners());
+        } else {
+            reset(queryLexer, queryTokens, queryParser, input);
+        }
+
+        GraphQLQueryVisitor visitor = new GraphQLQueryVisitor();
+        visitor.visit(parseWithFallback(queryParser, queryListeners, queryParser::document));
+        // Validation needs a schema, so it is left to QueryValidator, usually through a ValidationCache
+        return visitor.getDocumentBuilder().build();
+    }
+
+    /**
+     * Drops the references to the last document and, for a session from {@link #acquire()}, returns it to the pool. The session must not be used
+     * again unless it was created with the public constructor.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (schemaParser != null) {
+            reset(schemaLexer, schemaTokens, schemaParser, empty);
+        }
+        if (queryParser != null) {
+            reset(queryLexer, queryTokens, queryParser, empty);
+        }
+        if (!pooled) {
+            return;
+        }
+
+        closed = true;
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int slot = (start + i) & (POOL_SIZE - 1);
+            if (POOL.get(slot) == null && POOL.compareAndSet(slot, null, this)) {
+                return;
+            }
+        }
+    }
+
+    private static void reset(Lexer lexer, ReusableTokenStream tokens, Parser parser, CharStream input) {
+        lexer.setInputStream(input);
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+    }
+
+    /**
+     * Parses with SLL prediction first, bailing out at the first syntax error, and only then retries with full LL prediction and the default
+     * error recovery. SLL is much cheaper and gives the same result on every input without a syntax error; a failure may be spurious, so it is
+     * never reported from the first pass.
+     */
+    private <T> T parseWithFallback(Parser parser, List<ANTLRErrorListener> listeners, Supplier<T> rule) {
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(bailStrategy);
+        try {
+            return rule.get();
+        } catch (ParseCancellationException e) {
+            for (ANTLRErrorListener listener : listeners) {
+                parser.addErrorListener(listener);
+            }
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(defaultStrategy);
+            // Rewinds the token stream and resets the new error strategy
+            parser.reset();
+            return rule.get();
+        }
+    }
+
+    // ANTLR 4.5.1 does not clear fetchedEOF when the token source is replaced, which would end every document after the first one at offset 0
+    private static final class ReusableTokenStream extends CommonTokenStream {
+        ReusableTokenStream(TokenSource tokenSource) {
+            super(tokenSource);
+        }
+
+        @Override
+        public void setTokenSource(TokenSource tokenSource) {
+            super.setTokenSource(tokenSource);
+            fetchedEOF = false;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package se.atoulou.jgraphql.parser;
+
+import static se.atoulou.jgraphql.parser.GraphQLLexer.AT;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BANG;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACE_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACE_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACKET_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACKET_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.COLON;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.ELLIPSIS;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.EOF;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.EQUAL;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.FLOAT_VALUE;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.INTEGER_PART;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.NAME;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.PAREN_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.PAREN_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.STRING_VALUE;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.VARIABLE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.atoulou.jgraphql.models.NamePool;
+import se.atoulou.jgraphql.models.query.Argument;
+import se.atoulou.jgraphql.models.query.Directive;
+import se.atoulou.jgraphql.models.query.FragmentDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition;
+import se.atoulou.jgraphql.models.query.OperationDefinition.OperationType;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.models.query.Selection;
+import se.atoulou.jgraphql.models.query.Selection.FragmentSpread;
+import se.atoulou.jgraphql.models.query.Selection.InlineFragment;
+import se.atoulou.jgraphql.models.query.Selection.SelectionField;
+import se.atoulou.jgraphql.models.query.Value;
+import se.atoulou.jgraphql.models.query.Value.BooleanValue;
+import se.atoulou.jgraphql.models.query.Value.EnumValue;
+import se.atoulou.jgraphql.models.query.Value.FloatValue;
+import se.atoulou.jgraphql.models.query.Value.IntValue;
+import se.atoulou.jgraphql.models.query.Value.ListValue;
+import se.atoulou.jgraphql.models.query.Value.NullValue;
+import se.atoulou.jgraphql.models.query.Value.ObjectField;
+import se.atoulou.jgraphql.models.query.Value.ObjectValue;
+import se.atoulou.jgraphql.models.query.Value.StringValue;
+import se.atoulou.jgraphql.models.query.Value.VariableRef;
+import se.atoulou.jgraphql.models.query.VariableDefinition;
+
+/**
+ * Recursive-descent parser for {@code GraphQLQuery.g4}, driven by a {@link GraphQLLexer} or a {@link Utf8GraphQLLexer} with a single token of lookahead.
+ * <p>
+ * The immutable document is built in the same pass, without a parse tree or builders in between. Absent argument, directive and selection lists
+ * share {@link Collections#emptyList()}. Literals are decoded into typed {@link Value}s as they are read, and names are interned in a
+ * {@link NamePool} straight from the lexer's buffer: the one given, such as the schema's, or else one of the parse's own.
+ */
+public final class QueryDocumentParser {
+    // How deep selection sets, values and list types may nest, so that a hostile document fails to parse rather than overflow the stack. Counted
+    // as BinaryQueryDocumentCodec counts, so that every document parsed can be read back from its encoding
+    private static final int MAXIMUM_DEPTH = 256;
+
+    private final Tokenizer lexer;
+    private final NamePool  namePool;
+
+    private int depth;
+
+    public QueryDocumentParser(GraphQLLexer lexer) {
+        this(lexer, new NamePool());
+    }
+
+    public QueryDocumentParser(GraphQLLexer lexer, NamePool namePool) {
+        this((Tokenizer) lexer, namePool);
+    }
+
+    public QueryDocumentParser(Utf8GraphQLLexer lexer, NamePool namePool) {
+        this((Tokenizer) lexer, namePool);
+    }
+
+    private QueryDocumentParser(Tokenizer lexer, NamePool namePool) {
+        this.lexer = lexer;
+        this.namePool = namePool;
+    }
+
+    public static QueryDocument parse(char[] data, int offset, int length) {
+        return parse(data, offset, length, new NamePool());
+    }
+
+    public static QueryDocument parse(char[] data, int offset, int length, NamePool namePool) {
+        return new QueryDocumentParser(new GraphQLLexer(data, offset, length), namePool).parseDocument();
+    }
+
+    /**
+     * Parses the UTF-8 bytes between the buffer's position and limit in place, without decoding them to characters first. The buffer's position
+     * is left unchanged, and {@link ParseException} offsets are byte offsets from it.
+     */
+    public static QueryDocument parse(ByteBuffer buffer, NamePool namePool) {
+        return new QueryDocumentParser(new Utf8GraphQLLexer(buffer), namePool).parseDocument();
+    }
+
+    public QueryDocument parseDocument() {
+        List<OperationDefinition> operations = new ArrayList<>();
+        List<FragmentDefinition> fragments = new ArrayList<>();
+
+        lexer.next();
+        do {
+            if (lexer.kind() == BRACE_L) {
+                operations.add(parseOperationDefinition(OperationType.QUERY));
+            } else if (lexer.kind() == NAME && lexer.textEquals("query")) {
+                lexer.next();
+                operations.add(parseOperationDefinition(OperationType.QUERY));
+            } else if (lexer.kind() == NAME && lexer.textEquals("mutation")) {
+                lexer.next();
+                operations.add(parseOperationDefinition(OperationType.MUATATION));
+            } else if (lexer.kind() == NAME && lexer.textEquals("fragment")) {
+                lexer.next();
+                fragments.add(parseFragmentDefinition());
+            } else {
+                throw unexpected("operation or fragment definition");
+            }
+        } while (lexer.kind() != EOF);
+
+        return new QueryDocument(operations, fragments);
+    }
+
+    private OperationDefinition parseOperationDefinition(OperationType operationType) {
+        String name = null;
+        List<VariableDefinition> variableDefinitions = Collections.emptyList();
+        List<Directive> directives = Collections.emptyList();
+
+        // Anonymous operations may still declare variables and directives
+        if (lexer.kind() == NAME) {
+            name = expectName();
+        }
+        if (lexer.kind() == PAREN_L) {
+            variableDefinitions = parseVariableDefinitions();
+        }
+        if (lexer.kind() == AT) {
+            directives = parseDirectives();
+        }
+
+        List<Selection> selectionSet = parseSelectionSet();
+        return new OperationDefinition(operationType, name, variableDefinitions, directives, selectionSet);
+    }
+
+    private FragmentDefinition parseFragmentDefinition() {
+        if (lexer.kind() == NAME && lexer.textEquals("on")) {
+            throw unexpected("fragment name");
+        }
+        String name = expectName();
+        expectKeyword("on");
+        String typeCondition = expectName();
+
+        List<Directive> directives = Collections.emptyList();
+        if (lexer.kind() == AT) {
+            directives = parseDirectives();
+        }
+        List<Selection> selectionSet = parseSelectionSet();
+        return new FragmentDefinition(name, typeCondition, directives, selectionSet);
+    }
+
+    private List<VariableDefinition> parseVariableDefinitions() {
+        List<VariableDefinition> variableDefinitions = new ArrayList<>();
+
+        expect(PAREN_L);
+        do {
+            if (lexer.kind() != VARIABLE) {
+                throw unexpected("variable");
+            }
+            String variable = intern(lexer.start(), lexer.end());
+            lexer.next();
+            expect(COLON);
+
+            StringBuilder typeText = new StringBuilder();
+            appendType(typeText);
+            String type = namePool.intern(typeText.toString());
+
+            Value defaultValue = null;
+            if (lexer.kind() == EQUAL) {
+                lexer.next();
+                defaultValue = parseValue(true);
+            }
+            variableDefinitions.add(new VariableDefinition(variable, type, defaultValue));
+        } while (lexer.kind() != PAREN_R);
+        lexer.next();
+
+        return variableDefinitions;
+    }
+
+    // Appends the type reference without the ignored characters between its tokens, as in "[Episode]!"
+    private void appendType(StringBuilder type) {
+        if (lexer.kind() == BRACKET_L) {
+            enter();
+            lexer.next();
+            type.append('[');
+            appendType(type);
+            if (lexer.kind() != BRACKET_R) {
+                throw unexpected("']'");
+            }
+            type.append(']');
+            depth--;
+        } else if (lexer.kind() == NAME) {
+            type.append(intern(lexer.start(), lexer.end()));
+        } else {
+            throw unexpected("type");
+        }
+        lexer.next();
+
+        if (lexer.kind() == BANG) {
+            type.append('!');
+            lexer.next();
+        }
+    }
+
+    private List<Selection> parseSelectionSet() {
+        List<Selection> selectionSet = new ArrayList<>();
+
+        enter();
+        expect(BRACE_L);
+        do {
+            if (lexer.kind() == ELLIPSIS) {
+                lexer.next();
+                if (lexer.kind() == NAME && lexer.textEquals("on")) {
+                    lexer.next();
+                    selectionSet.add(parseInlineFragment());
+                } else {
+                    selectionSet.add(parseFragmentSpread());
+                }
+            } else {
+                selectionSet.add(parseField());
+            }
+        } while (lexer.kind() != BRACE_R);
+        lexer.next();
+        depth--;
+
+        return selectionSet;
+    }
+
+    private SelectionField parseField() {
+        String alias = null;
+        String name = expectName();
+        if (lexer.kind() == COLON) {
+            lexer.next();
+            alias = name;
+            name = expectName();
+        }
+
+        List<Argument> arguments = Collections.emptyList();
+        if (lexer.kind() == PAREN_L) {
+            arguments = parseArguments();
+        }
+        List<Directive> directives = Collections.emptyList();
+        if (lexer.kind() == AT) {
+            directives = parseDirectives();
+        }
+        List<Selection> selectionSet = Collections.emptyList();
+        if (lexer.kind() == BRACE_L) {
+            selectionSet = parseSelectionSet();
+        }
+        return new SelectionField(alias, name, arguments, directives, selectionSet);
+    }
+
+    private FragmentSpread parseFragmentSpread() {
+        String name = expectName();
+
+        List<Directive> directives = Collections.emptyList();
+        if (lexer.kind() == AT) {
+            directives = parseDirectives();
+        }
+        return new FragmentSpread(name, directives);
+    }
+
+    private InlineFragment parseInlineFragment() {
+        String typeCondition = expectName();
+
+        List<Directive> directives = Collections.emptyList();
+        if (lexer.kind() == AT) {
+            directives = parseDirectives();
+        }
+        List<Selection> selectionSet = parseSelectionSet();
+        return new InlineFragment(typeCondition, directives, selectionSet);
+    }
+
+    private List<Directive> parseDirectives() {
+        List<Directive> directives = new ArrayList<>();
+
+        do {
+            lexer.next();
+            String name = expectName();
+
+            List<Argument> arguments = Collections.emptyList();
+            if (lexer.kind() == PAREN_L) {
+                arguments = parseArguments();
+            }
+            directives.add(new Directive(name, arguments));
+        } while (lexer.kind() == AT);
+
+        return directives;
+    }
+
+    private List<Argument> parseArguments() {
+        List<Argument> arguments = new ArrayList<>();
+
+        expect(PAREN_L);
+        do {
+            String name = expectName();
+            expect(COLON);
+            arguments.add(new Argument(name, parseValue(false)));
+        } while (lexer.kind() != PAREN_R);
+        lexer.next();
+
+        return arguments;
+    }
+
+    private Value parseValue(boolean isConst) {
+        enter();
+        Value value;
+        switch (lexer.kind()) {
+        case VARIABLE:
+            if (isConst) {
+                throw unexpected("constant value");
+            }
+            value = new VariableRef(intern(lexer.start() + 1, lexer.end()));
+            break;
+        case NAME:
+            if (lexer.textEquals("true")) {
+                value = BooleanValue.TRUE;
+            } else if (lexer.textEquals("false")) {
+                value = BooleanValue.FALSE;
+            } else if (lexer.textEquals("null")) {
+                value = NullValue.NULL;
+            } else {
+                value = new EnumValue(intern(lexer.start(), lexer.end()));
+            }
+            break;
+        case INTEGER_PART:
+            value = new IntValue(lexer.longValue());
+            break;
+        case FLOAT_VALUE:
+            value = new FloatValue(lexer.doubleValue());
+            break;
+        case STRING_VALUE:
+            value = new StringValue(lexer.stringValue());
+            break;
+        case BRACKET_L:
+            value = parseListValue(isConst);
+            depth--;
+            return value;
+        case BRACE_L:
+            value = parseObjectValue(isConst);
+            depth--;
+            return value;
+        default:
+            throw unexpected("value");
+        }
+        lexer.next();
+        depth--;
+        return value;
+    }
+
+    private ListValue parseListValue(boolean isConst) {
+        lexer.next();
+        if (lexer.kind() == BRACKET_R) {
+            lexer.next();
+            return new ListValue(Collections.<Value> emptyList());
+        }
+
+        List<Value> values = new ArrayList<>();
+        do {
+            values.add(parseValue(isConst));
+        } while (lexer.kind() != BRACKET_R);
+        lexer.next();
+
+        return new ListValue(values);
+    }
+
+    private ObjectValue parseObjectValue(boolean isConst) {
+        lexer.next();
+        if (lexer.kind() == BRACE_R) {
+            lexer.next();
+            return new ObjectValue(Collections.<ObjectField> emptyList());
+        }
+
+        List<ObjectField> fields = new ArrayList<>();
+        do {
+            String name = expectName();
+            expect(COLON);
+            fields.add(new ObjectField(name, parseValue(isConst)));
+        } while (lexer.kind() != BRACE_R);
+        lexer.next();
+
+        return new ObjectValue(fields);
+    }
+
+    private void enter() {
+        if (++depth > MAXIMUM_DEPTH) {
+            throw lexer.syntaxError("Document nests too deeply");
+        }
+    }
+
+    private void expect(int kind) {
+        if (lexer.kind() != kind) {
+            throw unexpected(GraphQLLexer.describe(kind));
+        }
+        lexer.next();
+    }
+
+    private void expectKeyword(String keyword) {
+        if (lexer.kind() != NAME || !lexer.textEquals(keyword)) {
+            throw unexpected("'" + keyword + "'");
+        }
+        lexer.next();
+    }
+
+    private String expectName() {
+        if (lexer.kind() != NAME) {
+            throw unexpected("name");
+        }
+        String name = intern(lexer.start(), lexer.end());
+        lexer.next();
+        return name;
+    }
+
+    private String intern(int start, int end) {
+        return lexer.intern(namePool, start, end);
+    }
+
+    private ParseException unexpected(String expected) {
+        return lexer.syntaxError("Expected " + expected + " but found " + GraphQLLexer.describe(lexer.kind()));
+    }
+}
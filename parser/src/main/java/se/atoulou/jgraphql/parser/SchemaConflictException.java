@@ -0,0 +1,31 @@
+package se.atoulou.jgraphql.parser;
+
+/**
+ * Thrown when the documents of a schema parsed in parts declare the same type more than once.
+ */
+public class SchemaConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String typeName;
+    private final String firstSource;
+    private final String secondSource;
+
+    public SchemaConflictException(String typeName, String firstSource, String secondSource) {
+        super("Type " + typeName + " is declared in both " + firstSource + " and " + secondSource);
+        this.typeName = typeName;
+        this.firstSource = firstSource;
+        this.secondSource = secondSource;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public String getFirstSource() {
+        return firstSource;
+    }
+
+    public String getSecondSource() {
+        return secondSource;
+    }
+}
@@ -0,0 +1,107 @@
+package se.atoulou.jgraphql.parser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.atoulou.jgraphql.models.NamePool;
+import se.atoulou.jgraphql.models.schema.Field;
+import se.atoulou.jgraphql.models.schema.InputValue;
+import se.atoulou.jgraphql.models.schema.Schema;
+import se.atoulou.jgraphql.models.schema.Type;
+
+/**
+ * Merges the parts of a schema, each visited into its own {@link TypeRegistry}, into one registry and one schema.
+ * <p>
+ * A type that several parts use, or that one part declares and others use, ends up as one builder. For each name, the merge keeps the declaration,
+ * or else the first builder that knows its kind, or else the first builder. References between builders are then pointed at the kept builders,
+ * so types share instances across parts as they do within one document. Two parts declaring the same type is a
+ * {@link SchemaConflictException}. Interfaces are reconciled once everything is merged, since an object and the interfaces it implements may be
+ * declared in different parts.
+ */
+final class SchemaMerger {
+    private final TypeRegistry              registry;
+    private final Map<String, Type.Builder> types;
+    private final Map<String, String>       declaringSources;
+
+    SchemaMerger() {
+        registry = new TypeRegistry();
+        types = registry.types;
+        declaringSources = new HashMap<>();
+    }
+
+    /**
+     * @param parts
+     *            visitors of the parts' documents, created not to reconcile
+     * @param sourceNames
+     *            names of the parts' documents, in the same order, for conflict messages
+     * @param namePool
+     *            the pool every part was visited with
+     */
+    Schema merge(List<GraphQLSchemaVisitor> parts, List<String> sourceNames, NamePool namePool) {
+        assert parts.size() == sourceNames.size();
+        Schema.Builder schemaB = Schema.builder().namePool(namePool);
+
+        for (int i = 0; i < parts.size(); i++) {
+            String sourceName = sourceNames.get(i);
+            for (Type.Builder typeB : parts.get(i).getSchemaBuilder().types()) {
+                String previousSource = declaringSources.putIfAbsent(typeB.name(), sourceName);
+                if (previousSource == null) {
+                    types.put(typeB.name(), typeB);
+                } else if (types.get(typeB.name()) != typeB) {
+                    throw new SchemaConflictException(typeB.name(), previousSource, sourceName);
+                }
+                schemaB.types().add(typeB);
+            }
+        }
+        for (GraphQLSchemaVisitor part : parts) {
+            for (Map.Entry<String, Type.Builder> entry : part.getTypeRegistry().types.entrySet()) {
+                Type.Builder kept = types.putIfAbsent(entry.getKey(), entry.getValue());
+                if (kept != null && kept.kind() == null && entry.getValue().kind() != null) {
+                    types.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        for (Type.Builder typeB : types.values()) {
+            relink(typeB);
+        }
+        registry.reconcilePossibleTypes();
+        return schemaB.build();
+    }
+
+    TypeRegistry getTypeRegistry() {
+        return registry;
+    }
+
+    private void relink(Type.Builder typeB) {
+        List<Type.Builder> interfaces = typeB.interfaces();
+        for (int i = 0; i < interfaces.size(); i++) {
+            interfaces.set(i, kept(interfaces.get(i)));
+        }
+        List<Type.Builder> possibleTypes = typeB.possibleTypes();
+        for (int i = 0; i < possibleTypes.size(); i++) {
+            possibleTypes.set(i, kept(possibleTypes.get(i)));
+        }
+        if (typeB.ofType() != null) {
+            typeB.ofType(kept(typeB.ofType()));
+        }
+        for (Field.Builder fieldB : typeB.fields()) {
+            fieldB.type(kept(fieldB.type()));
+            relink(fieldB.arguments());
+        }
+        relink(typeB.inputFields());
+    }
+
+    private void relink(List<InputValue.Builder> inputValues) {
+        for (InputValue.Builder inputValueB : inputValues) {
+            inputValueB.type(kept(inputValueB.type()));
+        }
+    }
+
+    private Type.Builder kept(Type.Builder typeB) {
+        Type.Builder kept = types.get(typeB.name());
+        assert kept != null;
+        return kept;
+    }
+}
@@ -0,0 +1,146 @@
+package se.atoulou.jgraphql.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.atoulou.jgraphql.models.BinarySchemaCodec;
+import se.atoulou.jgraphql.models.schema.Schema;
+
+/**
+ * Snapshots of parsed schemas, so that a process can start without parsing its schema and reconciling its types.
+ * <p>
+ * A snapshot is a {@link BinarySchemaCodec} message behind a header. The header records the length and CRC-32 of the SDL file the schema was
+ * parsed from, and the CRC-32 of the message. {@link #load(Path, Path)} memory-maps both files. If the snapshot matches the SDL as it is now, the
+ * schema is decoded from the snapshot. Otherwise the SDL is parsed and the snapshot written again. Snapshots can be written at build time with
+ * {@link #write(Path, Path)}, or left to the first start.
+ */
+public final class SchemaSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaSnapshot.class);
+
+    private static final int MAGIC       = 0x47514c50; // "GQLP"
+    private static final int VERSION     = 1;
+    // Magic, version, source length, source checksum, message checksum
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 4;
+
+    private static final BinarySchemaCodec CODEC = new BinarySchemaCodec();
+
+    private SchemaSnapshot() {
+    }
+
+    /**
+     * Loads the schema of the SDL file {@code source} from {@code snapshot}, parsing the source and rewriting the snapshot when it is missing,
+     * stale or corrupt. Failing to write the snapshot is logged rather than thrown, so that a read-only file system only costs the parse.
+     * <p>
+     * The source is parsed as by {@link ParseHelper#parseSchema(ByteBuffer)}: syntax errors go to the ANTLR error listeners and are recovered
+     * from rather than thrown, so an invalid source yields whatever part of the schema could be read.
+     *
+     * @throws IOException
+     *             if the source cannot be read, or the snapshot exists and cannot be read
+     */
+    public static Schema load(Path source, Path snapshot) throws IOException {
+        ByteBuffer sdl = map(source);
+        long sourceChecksum = checksum(sdl);
+
+        Schema schema = read(snapshot, sdl.remaining(), sourceChecksum);
+        if (schema != null) {
+            return schema;
+        }
+
+        LOG.debug("Schema snapshot {} is missing or stale, parsing {}", snapshot, source);
+        schema = ParseHelper.parseSchema(sdl);
+        try {
+            write(schema, sdl.remaining(), sourceChecksum, snapshot);
+        } catch (IOException e) {
+            LOG.warn("Could not write schema snapshot {}", snapshot, e);
+        }
+        return schema;
+    }
+
+    /**
+     * Parses the SDL file {@code source} and writes its snapshot, for a build step. As in {@link #load(Path, Path)}, the source is not
+     * validated.
+     *
+     * @throws IOException
+     *             if the source cannot be read or the snapshot cannot be written
+     */
+    public static void write(Path source, Path snapshot) throws IOException {
+        ByteBuffer sdl = map(source);
+        write(ParseHelper.parseSchema(sdl), sdl.remaining(), checksum(sdl), snapshot);
+    }
+
+    // null unless the snapshot exists, is intact and was taken of this source
+    private static Schema read(Path snapshot, long sourceLength, long sourceChecksum) throws IOException {
+        ByteBuffer data;
+        try {
+            data = map(snapshot);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC || data.get(4) != VERSION) {
+            return null;
+        }
+        if (data.getLong(5) != sourceLength || (data.getInt(13) & 0xffffffffL) != sourceChecksum) {
+            return null;
+        }
+        data.position(HEADER_SIZE);
+        ByteBuffer message = data.slice();
+        if ((data.getInt(17) & 0xffffffffL) != checksum(message)) {
+            return null;
+        }
+
+        try {
+            return CODEC.readSchema(message);
+        } catch (IllegalArgumentException e) {
+            // A message of a format version this codec no longer reads
+            return null;
+        }
+    }
+
+    private static void write(Schema schema, long sourceLength, long sourceChecksum, Path snapshot) throws IOException {
+        ByteBuffer message = CODEC.writeSchema(schema);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put((byte) VERSION).putLong(sourceLength).putInt((int) sourceChecksum).putInt((int) checksum(message));
+        header.flip();
+
+        // Written beside the snapshot and renamed over it, so that concurrently starting processes never map a partial file
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = { header, message };
+                while (message.hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * The mapping is released when the buffer is garbage collected. Decoded schemas copy what they need, so they never keep it alive.
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        return crc.getValue();
+    }
+}
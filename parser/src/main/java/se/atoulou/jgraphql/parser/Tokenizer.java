@@ -0,0 +1,32 @@
+package se.atoulou.jgraphql.parser;
+
+import se.atoulou.jgraphql.models.NamePool;
+
+/**
+ * What {@link QueryDocumentParser} needs from a lexer, implemented over a {@code char[]} by {@link GraphQLLexer} and over UTF-8 bytes by
+ * {@link Utf8GraphQLLexer}. Token kinds are the constants in {@link GraphQLLexer}, and offsets are in the lexer's own units.
+ */
+abstract class Tokenizer {
+    public abstract int next();
+
+    public abstract int kind();
+
+    public abstract int start();
+
+    public abstract int end();
+
+    public abstract boolean textEquals(String s);
+
+    public abstract String stringValue();
+
+    public abstract long longValue();
+
+    public abstract double doubleValue();
+
+    public abstract ParseException syntaxError(String message);
+
+    /**
+     * Interns the name at {@code [start, end)}, without allocating when {@code namePool} already holds it.
+     */
+    abstract String intern(NamePool namePool, int start, int end);
+}
@@ -1,14 +1,20 @@
 package se.atoulou.jgraphql.parser;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import se.atoulou.jgraphql.models.schema.Type;
 import se.atoulou.jgraphql.models.schema.Type.TypeKind;
 
 public class TypeRegistry {
+    private static final Comparator<Type.Builder> BY_NAME = Comparator.comparing(Type.Builder::name);
+
     protected Map<String, Type.Builder> types;
 
     public TypeRegistry() {
@@ -41,17 +47,33 @@ public class TypeRegistry {
         return typeB;
     }
 
+    /**
+     * Adds every object type to the possible types of the interfaces it implements. Each interface's possible types come out sorted by name and
+     * free of duplicates, so the result does not depend on the registry's iteration order. Takes time linear in the number of implementations,
+     * besides the sorting.
+     */
     public void reconcilePossibleTypes() {
-        List<Type.Builder> objects = types.values().stream().filter(typeB -> typeB.kind() == TypeKind.OBJECT).collect(Collectors.toList());
-
-        for (Type.Builder typeB : objects) {
-            List<Type.Builder> implementedTypes = typeB.interfaces();
-            for (Type.Builder implementedType : implementedTypes) {
+        Map<Type.Builder, Set<Type.Builder>> implementations = new IdentityHashMap<>();
+        for (Type.Builder typeB : types.values()) {
+            if (typeB.kind() != TypeKind.OBJECT) {
+                continue;
+            }
+            for (Type.Builder implementedType : typeB.interfaces()) {
                 assert implementedType.kind() == TypeKind.INTERFACE;
-                if (!implementedType.possibleTypes().contains(typeB)) {
-                    implementedType.possibleTypes().add(typeB);
-                }
+                implementations.computeIfAbsent(implementedType, TypeRegistry::possibleTypeSet).add(typeB);
             }
         }
+
+        for (Map.Entry<Type.Builder, Set<Type.Builder>> entry : implementations.entrySet()) {
+            List<Type.Builder> possibleTypes = new ArrayList<>(entry.getValue());
+            possibleTypes.sort(BY_NAME);
+            entry.getKey().possibleTypes(possibleTypes);
+        }
+    }
+
+    private static Set<Type.Builder> possibleTypeSet(Type.Builder interfaceB) {
+        Set<Type.Builder> possibleTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+        possibleTypes.addAll(interfaceB.possibleTypes());
+        return possibleTypes;
     }
 }
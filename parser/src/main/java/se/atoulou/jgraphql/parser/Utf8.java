@@ -0,0 +1,79 @@
+package se.atoulou.jgraphql.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoding of single UTF-8 sequences at absolute positions of a {@link ByteBuffer}, for the byte-level lexers. Malformed input is not rejected:
+ * callers substitute U+FFFD for one byte and carry on, as a {@code REPLACE} decoder would.
+ */
+final class Utf8 {
+    static final int REPLACEMENT = 0xfffd;
+
+    private Utf8() {
+    }
+
+    /**
+     * The length of the well-formed sequence starting at {@code pos}, or {@code 0} if it is malformed or truncated by {@code limit}. Overlong
+     * forms, surrogates and code points above U+10FFFF are malformed.
+     */
+    static int sequenceLength(ByteBuffer data, int pos, int limit) {
+        int b0 = data.get(pos) & 0xff;
+        if (b0 < 0x80) {
+            return 1;
+        } else if (b0 < 0xc2) {
+            return 0;
+        } else if (b0 < 0xe0) {
+            return pos + 1 < limit && isContinuation(data.get(pos + 1)) ? 2 : 0;
+        } else if (b0 < 0xf0) {
+            if (pos + 2 >= limit) {
+                return 0;
+            }
+            int b1 = data.get(pos + 1) & 0xff;
+            if (!isContinuation(b1) || !isContinuation(data.get(pos + 2)) || (b0 == 0xe0 && b1 < 0xa0) || (b0 == 0xed && b1 > 0x9f)) {
+                return 0;
+            }
+            return 3;
+        } else if (b0 < 0xf5) {
+            if (pos + 3 >= limit) {
+                return 0;
+            }
+            int b1 = data.get(pos + 1) & 0xff;
+            if (!isContinuation(b1) || !isContinuation(data.get(pos + 2)) || !isContinuation(data.get(pos + 3)) || (b0 == 0xf0 && b1 < 0x90)
+                    || (b0 == 0xf4 && b1 > 0x8f)) {
+                return 0;
+            }
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * The code point of the well-formed sequence of {@code length} bytes at {@code pos}.
+     */
+    static int codePoint(ByteBuffer data, int pos, int length) {
+        int b0 = data.get(pos) & 0xff;
+        switch (length) {
+        case 1:
+            return b0;
+        case 2:
+            return ((b0 & 0x1f) << 6) | (data.get(pos + 1) & 0x3f);
+        case 3:
+            return ((b0 & 0x0f) << 12) | ((data.get(pos + 1) & 0x3f) << 6) | (data.get(pos + 2) & 0x3f);
+        default:
+            assert length == 4;
+            return ((b0 & 0x07) << 18) | ((data.get(pos + 1) & 0x3f) << 12) | ((data.get(pos + 2) & 0x3f) << 6) | (data.get(pos + 3) & 0x3f);
+        }
+    }
+
+    /**
+     * The code point at {@code pos}, or U+FFFD if the sequence there is malformed.
+     */
+    static int codePointAt(ByteBuffer data, int pos, int limit) {
+        int length = sequenceLength(data, pos, limit);
+        return length == 0 ? REPLACEMENT : codePoint(data, pos, length);
+    }
+
+    static boolean isContinuation(int b) {
+        return (b & 0xc0) == 0x80;
+    }
+}
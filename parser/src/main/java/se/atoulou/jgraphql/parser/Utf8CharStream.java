@@ -0,0 +1,171 @@
+package se.atoulou.jgraphql.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * An ANTLR {@link CharStream} reading UTF-8 bytes in place, so that the generated lexers can run over a {@link ByteBuffer} without decoding it to
+ * a {@code char[]} first.
+ * <p>
+ * Indexes are byte offsets, which ANTLR only ever uses to seek back and to slice token text. Characters are UTF-16 units, as from
+ * {@link org.antlr.v4.runtime.ANTLRInputStream}: a four-byte sequence at {@code i} reads as its high surrogate at {@code i} and its low surrogate
+ * at {@code i + 2}, an offset that is never the start of a sequence. Malformed bytes read as U+FFFD, one byte each.
+ */
+final class Utf8CharStream implements CharStream {
+    private final ByteBuffer data;
+    private final int        size;
+    private int              index;
+    // Token text from a direct buffer is copied through here
+    private byte[]           scratch = new byte[64];
+
+    /**
+     * Reads the bytes between the buffer's position and limit, without changing either.
+     */
+    Utf8CharStream(ByteBuffer buffer) {
+        this.data = buffer.slice();
+        this.size = data.limit();
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        index = nextIndex(index);
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            // Undefined
+            return 0;
+        }
+        int pos = index;
+        if (i > 0) {
+            for (int n = 1; n < i && pos < size; n++) {
+                pos = nextIndex(pos);
+            }
+        } else {
+            for (int n = 0; n > i; n--) {
+                if (pos <= 0) {
+                    return IntStream.EOF;
+                }
+                pos = previousIndex(pos);
+            }
+        }
+        return pos < size ? charAt(pos) : IntStream.EOF;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.min(index, size);
+    }
+
+    /**
+     * The number of bytes, the upper bound of {@link #index()}.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int end = interval.b < size ? nextIndex(interval.b) : size;
+        if (start >= end) {
+            return "";
+        }
+
+        // Token text is nearly always ASCII, which needs no decoding and no intermediate builder
+        int ascii = start;
+        while (ascii < end && data.get(ascii) >= 0) {
+            ascii++;
+        }
+        if (ascii == end) {
+            if (data.hasArray()) {
+                return new String(data.array(), data.arrayOffset() + start, end - start, StandardCharsets.ISO_8859_1);
+            }
+            if (scratch.length < end - start) {
+                scratch = new byte[Math.max(end - start, scratch.length << 1)];
+            }
+            for (int i = start; i < end; i++) {
+                scratch[i - start] = data.get(i);
+            }
+            return new String(scratch, 0, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int pos = start; pos < end; pos = nextIndex(pos)) {
+            sb.append((char) charAt(pos));
+        }
+        return sb.toString();
+    }
+
+    private int charAt(int pos) {
+        byte b = data.get(pos);
+        if (b >= 0) {
+            return b;
+        } else if (isLowSurrogate(pos)) {
+            return Character.lowSurrogate(Utf8.codePoint(data, pos - 2, 4));
+        }
+        int length = Utf8.sequenceLength(data, pos, size);
+        if (length == 0) {
+            return Utf8.REPLACEMENT;
+        } else if (length == 4) {
+            return Character.highSurrogate(Utf8.codePoint(data, pos, 4));
+        }
+        return Utf8.codePoint(data, pos, length);
+    }
+
+    private int nextIndex(int pos) {
+        if (data.get(pos) >= 0) {
+            return pos + 1;
+        } else if (isLowSurrogate(pos)) {
+            return pos + 2;
+        }
+        int length = Utf8.sequenceLength(data, pos, size);
+        return pos + (length == 0 ? 1 : length == 4 ? 2 : length);
+    }
+
+    private int previousIndex(int pos) {
+        int lead = pos - 1;
+        while (lead > 0 && lead > pos - 4 && Utf8.isContinuation(data.get(lead))) {
+            lead--;
+        }
+        int length = Utf8.sequenceLength(data, lead, size);
+        if (length == 4) {
+            // pos follows either half of the pair
+            return pos == lead + 2 ? lead : lead + 2;
+        }
+        return length == pos - lead ? lead : pos - 1;
+    }
+
+    // Whether pos is the middle of a four-byte sequence, where its low surrogate is read
+    private boolean isLowSurrogate(int pos) {
+        return pos >= 2 && Utf8.isContinuation(data.get(pos)) && Utf8.sequenceLength(data, pos - 2, size) == 4;
+    }
+}
@@ -0,0 +1,405 @@
+package se.atoulou.jgraphql.parser;
+
+import static se.atoulou.jgraphql.parser.GraphQLLexer.AT;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BANG;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACE_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACE_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACKET_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.BRACKET_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.COLON;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.ELLIPSIS;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.EOF;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.EQUAL;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.FLOAT_VALUE;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.INTEGER_PART;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.NAME;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.PAREN_L;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.PAREN_R;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.PIPE;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.STRING_VALUE;
+import static se.atoulou.jgraphql.parser.GraphQLLexer.VARIABLE;
+
+import java.nio.ByteBuffer;
+
+import se.atoulou.jgraphql.models.NamePool;
+
+/**
+ * {@link GraphQLLexer} over UTF-8 bytes, scanned in place in a heap, direct or memory-mapped {@link ByteBuffer}.
+ * <p>
+ * Every token outside string values is ASCII, so punctuation, names and numbers are recognized byte by byte, and names are interned straight
+ * from the buffer. Multi-byte sequences are only decoded for the ignored characters (U+00A0, U+2028, U+2029 and the byte order mark), in
+ * {@link #stringValue()}, and for error messages. Offsets are absolute byte indexes into the buffer, whose position and limit are read once and
+ * never changed.
+ */
+public final class Utf8GraphQLLexer extends Tokenizer {
+    private ByteBuffer data;
+    private int        begin;
+    private int        limit;
+    private int        position;
+
+    private int kind;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Lexes the bytes between the buffer's position and limit.
+     */
+    public Utf8GraphQLLexer(ByteBuffer data) {
+        reset(data);
+    }
+
+    public void reset(ByteBuffer data) {
+        this.data = data;
+        this.begin = data.position();
+        this.limit = data.limit();
+        this.position = begin;
+
+        this.kind = EOF;
+        this.tokenStart = begin;
+        this.tokenEnd = begin;
+    }
+
+    public ByteBuffer data() {
+        return data;
+    }
+
+    @Override
+    public int kind() {
+        return kind;
+    }
+
+    @Override
+    public int start() {
+        return tokenStart;
+    }
+
+    @Override
+    public int end() {
+        return tokenEnd;
+    }
+
+    @Override
+    String intern(NamePool namePool, int start, int end) {
+        return namePool.intern(data, start, end);
+    }
+
+    @Override
+    public boolean textEquals(String s) {
+        int length = tokenEnd - tokenStart;
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data.get(tokenStart + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The contents of the current {@link GraphQLLexer#STRING_VALUE} token, decoded from UTF-8 with escape sequences decoded.
+     */
+    @Override
+    public String stringValue() {
+        assert kind == STRING_VALUE;
+        return Literals.decodeString(data, tokenStart, tokenEnd);
+    }
+
+    /**
+     * @throws ParseException
+     *             if it does not fit in a {@code long}
+     */
+    @Override
+    public long longValue() {
+        assert kind == INTEGER_PART;
+        try {
+            return Literals.parseLong(data, tokenStart, tokenEnd);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Integer literal out of range");
+        }
+    }
+
+    /**
+     * @throws ParseException
+     *             if it does not fit in a finite {@code double}
+     */
+    @Override
+    public double doubleValue() {
+        assert kind == FLOAT_VALUE;
+        try {
+            return Literals.parseDouble(data, tokenStart, tokenEnd);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Float literal out of range");
+        }
+    }
+
+    @Override
+    public int next() {
+        final ByteBuffer data = this.data;
+        final int limit = this.limit;
+        int pos = skipIgnored(data, position, limit);
+
+        tokenStart = pos;
+        if (pos >= limit) {
+            return token(EOF, pos);
+        }
+
+        byte c = data.get(pos);
+        switch (c) {
+        case '!':
+            return token(BANG, pos + 1);
+        case '(':
+            return token(PAREN_L, pos + 1);
+        case ')':
+            return token(PAREN_R, pos + 1);
+        case ':':
+            return token(COLON, pos + 1);
+        case '=':
+            return token(EQUAL, pos + 1);
+        case '@':
+            return token(AT, pos + 1);
+        case '[':
+            return token(BRACKET_L, pos + 1);
+        case ']':
+            return token(BRACKET_R, pos + 1);
+        case '{':
+            return token(BRACE_L, pos + 1);
+        case '}':
+            return token(BRACE_R, pos + 1);
+        case '|':
+            return token(PIPE, pos + 1);
+        case '.':
+            if (pos + 2 < limit && data.get(pos + 1) == '.' && data.get(pos + 2) == '.') {
+                return token(ELLIPSIS, pos + 3);
+            }
+            throw syntaxError("Expected '...'", pos);
+        case '$':
+            if (pos + 1 < limit && isNameStart(data.get(pos + 1))) {
+                return token(VARIABLE, scanName(data, pos + 1, limit));
+            }
+            throw syntaxError("Expected variable name after '$'", pos + 1);
+        case '"':
+            return token(STRING_VALUE, scanString(data, pos, limit));
+        case '-':
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+            return scanNumber(data, pos, limit);
+        default:
+            if (isNameStart(c)) {
+                return token(NAME, scanName(data, pos + 1, limit));
+            }
+            throw syntaxError("Unexpected character '" + new String(Character.toChars(Utf8.codePointAt(data, pos, limit))) + "'", pos);
+        }
+    }
+
+    private int token(int kind, int end) {
+        this.kind = kind;
+        this.tokenEnd = end;
+        this.position = end;
+        return kind;
+    }
+
+    private static int skipIgnored(ByteBuffer data, int pos, int limit) {
+        while (pos < limit) {
+            byte b = data.get(pos);
+            switch (b) {
+            case ' ':
+            case ',':
+            case '\t':
+            case '\n':
+            case '\r':
+            case '\u000b':
+            case '\u000c':
+                pos++;
+                break;
+            case '#':
+                pos++;
+                while (pos < limit && lineTerminatorLength(data, pos, limit) == 0) {
+                    pos++;
+                }
+                break;
+            default:
+                int length = b < 0 ? ignoredSequenceLength(data, pos, limit) : 0;
+                if (length == 0) {
+                    return pos;
+                }
+                pos += length;
+                break;
+            }
+        }
+        return pos;
+    }
+
+    // U+00A0, U+2028, U+2029 and U+FEFF
+    private static int ignoredSequenceLength(ByteBuffer data, int pos, int limit) {
+        int b0 = data.get(pos) & 0xff;
+        if (b0 == 0xc2) {
+            return pos + 1 < limit && (data.get(pos + 1) & 0xff) == 0xa0 ? 2 : 0;
+        } else if (b0 == 0xe2) {
+            return lineTerminatorLength(data, pos, limit);
+        } else if (b0 == 0xef) {
+            return pos + 2 < limit && (data.get(pos + 1) & 0xff) == 0xbb && (data.get(pos + 2) & 0xff) == 0xbf ? 3 : 0;
+        }
+        return 0;
+    }
+
+    // The length of the line terminator at pos, or 0
+    private static int lineTerminatorLength(ByteBuffer data, int pos, int limit) {
+        int b0 = data.get(pos) & 0xff;
+        if (b0 == '\n' || b0 == '\r') {
+            return 1;
+        } else if (b0 == 0xe2 && pos + 2 < limit && (data.get(pos + 1) & 0xff) == 0x80) {
+            int b2 = data.get(pos + 2) & 0xff;
+            return b2 == 0xa8 || b2 == 0xa9 ? 3 : 0;
+        }
+        return 0;
+    }
+
+    private static int scanName(ByteBuffer data, int pos, int limit) {
+        while (pos < limit && isNameContinue(data.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int scanNumber(ByteBuffer data, int pos, int limit) {
+        int start = pos;
+        if (data.get(pos) == '-') {
+            pos++;
+        }
+
+        if (pos < limit && data.get(pos) == '0') {
+            pos++;
+        } else if (pos < limit && data.get(pos) >= '1' && data.get(pos) <= '9') {
+            pos = scanDigits(data, pos + 1, limit);
+        } else {
+            throw syntaxError("Expected digit", pos);
+        }
+
+        boolean isFloat = false;
+        if (pos < limit && data.get(pos) == '.') {
+            isFloat = true;
+            int fractionStart = pos + 1;
+            pos = scanDigits(data, fractionStart, limit);
+            if (pos == fractionStart) {
+                throw syntaxError("Expected digit after '.'", pos);
+            }
+        }
+
+        if (pos < limit && (data.get(pos) == 'e' || data.get(pos) == 'E')) {
+            isFloat = true;
+            pos++;
+            if (pos < limit && (data.get(pos) == '+' || data.get(pos) == '-')) {
+                pos++;
+            }
+            int exponentStart = pos;
+            pos = scanDigits(data, exponentStart, limit);
+            if (pos == exponentStart) {
+                throw syntaxError("Expected digit in exponent", pos);
+            }
+        }
+
+        tokenStart = start;
+        return token(isFloat ? FLOAT_VALUE : INTEGER_PART, pos);
+    }
+
+    private static int scanDigits(ByteBuffer data, int pos, int limit) {
+        while (pos < limit && data.get(pos) >= '0' && data.get(pos) <= '9') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int scanString(ByteBuffer data, int pos, int limit) {
+        int start = pos;
+        pos++;
+        while (pos < limit) {
+            byte c = data.get(pos);
+            if (c == '"') {
+                return pos + 1;
+            } else if (c == '\\') {
+                pos++;
+                if (pos >= limit) {
+                    break;
+                }
+                switch (data.get(pos)) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    pos++;
+                    break;
+                case 'u':
+                    for (int i = 1; i <= 4; i++) {
+                        if (pos + i >= limit || Character.digit(data.get(pos + i), 16) < 0) {
+                            throw syntaxError("Invalid unicode escape sequence", pos - 1);
+                        }
+                    }
+                    pos += 5;
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence", pos - 1);
+                }
+            } else if (c == '\n' || c == '\r' || (c < 0 && lineTerminatorLength(data, pos, limit) != 0)) {
+                throw syntaxError("Unterminated string", start);
+            } else {
+                // Continuation bytes never match '"' or '\\', so multi-byte sequences are skipped a byte at a time
+                pos++;
+            }
+        }
+        throw syntaxError("Unterminated string", start);
+    }
+
+    private static boolean isNameStart(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isNameContinue(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    @Override
+    public ParseException syntaxError(String message) {
+        return syntaxError(message, tokenStart);
+    }
+
+    /**
+     * The exception's offset is in bytes from the buffer's position, and its column in characters from the start of the line.
+     */
+    public ParseException syntaxError(String message, int offset) {
+        int line = 1;
+        int column = 1;
+        int i = begin;
+        while (i < offset && i < limit) {
+            int b = data.get(i) & 0xff;
+            int terminator = lineTerminatorLength(data, i, limit);
+            if (terminator != 0 && !(b == '\r' && i + 1 < limit && data.get(i + 1) == '\n')) {
+                line++;
+                column = 1;
+                i += terminator;
+            } else if (b < 0x80) {
+                column++;
+                i++;
+            } else {
+                int length = Math.max(1, Utf8.sequenceLength(data, i, limit));
+                // Supplementary characters take two columns, as in the char[] lexer
+                column += length == 4 ? 2 : 1;
+                i += length;
+            }
+        }
+        return new ParseException(message, offset - begin, line, column);
+    }
+}
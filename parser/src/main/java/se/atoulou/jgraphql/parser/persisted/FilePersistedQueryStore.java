@@ -0,0 +1,56 @@
+package se.atoulou.jgraphql.parser.persisted;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores each persisted query as {@code <id>.graphqlQuery} in a local directory. Writes go through a temporary file and an atomic rename, so
+ * concurrent readers (including other processes sharing the directory) never see a partially written query.
+ */
+public class FilePersistedQueryStore implements PersistedQueryStore {
+    private static final String EXTENSION = ".graphqlQuery";
+
+    private final Path directory;
+
+    public FilePersistedQueryStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String load(String id) throws IOException {
+        try {
+            byte[] bytes = Files.readAllBytes(pathOf(id));
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void store(String id, String canonicalQuery) throws IOException {
+        Path target = pathOf(id);
+        Path temporary = Files.createTempFile(directory, id, ".tmp");
+        try {
+            Files.write(temporary, canonicalQuery.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path pathOf(String id) {
+        // Ids name files directly, so anything but a well-formed hash is rejected
+        if (!PersistedQueryRegistry.isValidId(id)) {
+            throw new IllegalArgumentException("Not a persisted query id: " + id);
+        }
+        return directory.resolve(id + EXTENSION);
+    }
+}
@@ -0,0 +1,120 @@
+package se.atoulou.jgraphql.parser.persisted;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.atoulou.jgraphql.models.QueryDocumentPrettyPrinter;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Persisted queries: a document is registered once and afterwards referred to by a 64-character SHA-256 id instead of its full text.
+ * <p>
+ * The id hashes the document's compact canonical form as printed by {@link QueryDocumentPrettyPrinter}, so registering the same query with different
+ * whitespace, commas or comments yields the same id. Resolved documents are kept parsed in memory; when a {@link PersistedQueryStore} is given,
+ * registrations are also written through to it and ids unknown in memory are read back from it and parsed once.
+ */
+public class PersistedQueryRegistry {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int    ID_LENGTH  = 64;
+
+    private final PersistedQueryStore                      store;
+    private final QueryDocumentPrettyPrinter               printer;
+    private final ConcurrentHashMap<String, QueryDocument> documents;
+
+    public PersistedQueryRegistry() {
+        this(null);
+    }
+
+    public PersistedQueryRegistry(PersistedQueryStore store) {
+        this.store = store;
+        this.printer = new QueryDocumentPrettyPrinter(true);
+        this.documents = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Parses and registers {@code query}.
+     *
+     * @return the id to resolve the query by
+     */
+    public String register(String query) throws IOException {
+        QueryDocument document = ParseHelper.parseDocument(query);
+        String canonicalQuery = printer.writeQueryDocument(document);
+        String id = hash(canonicalQuery);
+
+        // Stored before it is registered in memory, so that a failed write leaves the query unregistered and registering it again retries
+        if (!documents.containsKey(id)) {
+            if (store != null) {
+                store.store(id, canonicalQuery);
+            }
+            documents.putIfAbsent(id, document);
+        }
+        return id;
+    }
+
+    /**
+     * @return the registered document, or {@code null} if nothing is registered under {@code id}
+     * @throws IOException
+     *             if the store cannot be read, or holds a query that does not hash to {@code id}
+     */
+    public QueryDocument resolve(String id) throws IOException {
+        QueryDocument document = documents.get(id);
+        if (document != null || store == null || !isValidId(id)) {
+            return document;
+        }
+
+        String canonicalQuery = store.load(id);
+        if (canonicalQuery == null) {
+            return null;
+        }
+        document = ParseHelper.parseDocument(canonicalQuery);
+        // Checked on the document as printed, not the stored text, so that it is what the id would have been had it been registered here
+        if (!id.equals(hash(printer.writeQueryDocument(document)))) {
+            throw new IOException("Persisted query " + id + " does not match its id");
+        }
+        QueryDocument existing = documents.putIfAbsent(id, document);
+        return existing != null ? existing : document;
+    }
+
+    public boolean isRegistered(String id) throws IOException {
+        return resolve(id) != null;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public static String hash(String canonicalQuery) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        byte[] hash = digest.digest(canonicalQuery.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    public static boolean isValidId(String id) {
+        if (id == null || id.length() != ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            char c = id.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
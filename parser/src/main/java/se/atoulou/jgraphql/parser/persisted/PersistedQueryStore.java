@@ -0,0 +1,15 @@
+package se.atoulou.jgraphql.parser.persisted;
+
+import java.io.IOException;
+
+/**
+ * Durable storage for the canonical text of persisted queries, keyed by the SHA-256 id computed by {@link PersistedQueryRegistry}.
+ */
+public interface PersistedQueryStore {
+    /**
+     * @return the canonical query text stored under {@code id}, or {@code null} if there is none
+     */
+    public String load(String id) throws IOException;
+
+    public void store(String id, String canonicalQuery) throws IOException;
+}
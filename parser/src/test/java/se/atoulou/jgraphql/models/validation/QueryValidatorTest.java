@@ -0,0 +1,224 @@
+package se.atoulou.jgraphql.models.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+import se.atoulou.jgraphql.parser.ParseHelper;
+
+/**
+ * Validates a document that follows each rule and one that breaks it, against a small schema, and expects the rules broken in that order.
+ */
+public class QueryValidatorTest extends TestCase {
+    private static final String SDL = "enum Episode { NEWHOPE EMPIRE JEDI }\n"
+            + "interface Character { id: String! name: String friends: [Character] }\n"
+            + "type Human : Character { id: String! name: String friends: [Character] mass: Float }\n"
+            + "type Droid : Character { id: String! name: String friends: [Character] primaryFunction: String }\n"
+            + "union SearchResult = Human | Droid\n"
+            + "input ReviewInput { stars: Int! commentary: String }\n"
+            + "type Query { hero(episode: Episode): Character human(id: String!): Human search(text: String): [SearchResult] }\n"
+            + "type Mutation { createReview(episode: Episode, review: ReviewInput!): String }\n";
+
+    private final QueryValidator validator = new QueryValidator(ParseHelper.parseSchema(SDL));
+
+    // Operations
+
+    public void testLoneAnonymousOperation() {
+        assertValid("{ hero { name } }");
+        assertErrors("{ hero { name } } query Q { hero { id } }", ValidationRule.LONE_ANONYMOUS_OPERATION);
+    }
+
+    public void testUniqueOperationNames() {
+        assertValid("query A { hero { name } } query B { hero { id } }");
+        assertErrors("query A { hero { name } } query A { hero { id } }", ValidationRule.UNIQUE_OPERATION_NAMES);
+    }
+
+    public void testSupportedOperationType() {
+        assertValid("mutation { createReview(review: { stars: 5 }) }");
+        QueryValidator queryOnly = new QueryValidator(ParseHelper.parseSchema("type Query { a: String }"));
+        assertEquals(rules(ValidationRule.SUPPORTED_OPERATION_TYPE), rules(queryOnly.validate(ParseHelper.parseDocument("mutation { a }"))));
+    }
+
+    // Fields
+
+    public void testFieldsOnCorrectType() {
+        assertValid("{ hero { __typename name ... on Droid { primaryFunction } } }");
+        assertErrors("{ hero { primaryFunction } }", ValidationRule.FIELDS_ON_CORRECT_TYPE);
+    }
+
+    public void testScalarLeafs() {
+        assertValid("{ hero { name } }");
+        assertErrors("{ hero }", ValidationRule.SCALAR_LEAFS);
+    }
+
+    public void testOverlappingFieldsCanBeMerged() {
+        assertValid("{ hero { name name } }");
+        assertErrors("{ hero { name: id name } }", ValidationRule.OVERLAPPING_FIELDS_CAN_BE_MERGED);
+    }
+
+    public void testOverlappingFieldsThroughFragments() {
+        assertValid("{ hero { ...A ...B } } fragment A on Character { friends { x: name } } fragment B on Character { friends { x: name } }");
+        assertErrors("{ hero { ...A ...B } } fragment A on Character { friends { x: name } } fragment B on Character { friends { x: id } }",
+                ValidationRule.OVERLAPPING_FIELDS_CAN_BE_MERGED);
+    }
+
+    public void testOverlappingFieldsOfNestedFragments() {
+        // Each level doubles the paths to the fields below it, which are compared once each
+        int depth = 12;
+        StringBuilder document = new StringBuilder("{ hero { ...F0 } hero { ...F0 } }");
+        for (int i = 0; i < depth; i++) {
+            String below = i + 1 < depth ? "...F" + (i + 1) : "name";
+            document.append(" fragment F").append(i).append(" on Character { friends { ").append(below).append(" } friends { ").append(below)
+                    .append(" } }");
+        }
+        assertValid(document.toString());
+    }
+
+    // Arguments
+
+    public void testKnownArgumentNames() {
+        assertValid("{ hero(episode: JEDI) { name } }");
+        assertErrors("{ hero(season: 4) { name } }", ValidationRule.KNOWN_ARGUMENT_NAMES);
+    }
+
+    public void testUniqueArgumentNames() {
+        assertValid("{ search(text: \"Luke\") { __typename } }");
+        assertErrors("{ search(text: \"Luke\", text: \"Han\") { __typename } }", ValidationRule.UNIQUE_ARGUMENT_NAMES);
+    }
+
+    public void testProvidedNonNullArguments() {
+        assertValid("{ human(id: \"1000\") { name } }");
+        assertErrors("{ human { name } }", ValidationRule.PROVIDED_NON_NULL_ARGUMENTS);
+    }
+
+    public void testArgumentsOfCorrectType() {
+        assertValid("mutation { createReview(episode: JEDI, review: { stars: 5, commentary: null }) }");
+        assertErrors("{ hero(episode: 4) { name } }", ValidationRule.ARGUMENTS_OF_CORRECT_TYPE);
+    }
+
+    public void testUniqueInputFieldNames() {
+        assertValid("mutation { createReview(review: { stars: 5, commentary: \"Great\" }) }");
+        assertErrors("mutation { createReview(review: { stars: 5, stars: 4 }) }", ValidationRule.UNIQUE_INPUT_FIELD_NAMES);
+    }
+
+    // Fragments
+
+    public void testUniqueFragmentNames() {
+        assertValid("{ hero { ...A ...B } } fragment A on Character { name } fragment B on Character { id }");
+        assertErrors("{ hero { ...A } } fragment A on Character { name } fragment A on Character { id }", ValidationRule.UNIQUE_FRAGMENT_NAMES);
+    }
+
+    public void testKnownFragmentNames() {
+        assertValid("{ hero { ...A } } fragment A on Character { name }");
+        assertErrors("{ hero { ...Missing } }", ValidationRule.KNOWN_FRAGMENT_NAMES);
+    }
+
+    public void testNoUnusedFragments() {
+        assertValid("query A { hero { name } } query B { hero { ...F } } fragment F on Character { ...G } fragment G on Character { id }");
+        assertErrors("{ hero { name } } fragment F on Character { name }", ValidationRule.NO_UNUSED_FRAGMENTS);
+    }
+
+    public void testNoUnusedFragmentsAcrossStampWrap() {
+        String document = "query A { hero { ...F } } query B { hero { ...G } } fragment F on Character { name } fragment G on Character { id }";
+        ValidationVisitor visitor = new ValidationVisitor(new ValidationSchema(validator.getSchema()));
+        QueryDocument queryDocument = ParseHelper.parseDocument(document);
+        // Wherever the stamps wrap around, used fragments stay used
+        for (int start = Integer.MAX_VALUE - 16; start < Integer.MAX_VALUE; start++) {
+            ValidationContext context = new ValidationContext();
+            context.reset(queryDocument);
+            context.stamp = start;
+            visitor.visitQueryDocument(queryDocument, context);
+            assertNull("Starting at stamp " + start, context.errors);
+        }
+    }
+
+    public void testNoFragmentCycles() {
+        assertValid("{ hero { ...A } } fragment A on Character { friends { ...B } } fragment B on Character { name }");
+        assertErrors("{ hero { ...A } } fragment A on Character { friends { ...B } } fragment B on Character { ...A }",
+                ValidationRule.NO_FRAGMENT_CYCLES);
+    }
+
+    public void testKnownTypeNames() {
+        assertValid("{ hero { ... on Human { mass } } }");
+        assertErrors("{ hero { ... on Wookiee { name } } }", ValidationRule.KNOWN_TYPE_NAMES);
+    }
+
+    public void testFragmentsOnCompositeTypes() {
+        assertValid("{ search(text: \"R2\") { ...D } } fragment D on Droid { primaryFunction }");
+        assertErrors("{ hero { ...E } } fragment E on Episode { name }", ValidationRule.FRAGMENTS_ON_COMPOSITE_TYPES);
+    }
+
+    public void testPossibleFragmentSpreads() {
+        assertValid("{ hero { ... on Droid { primaryFunction } } }");
+        assertErrors("{ human(id: \"1000\") { ... on Droid { primaryFunction } } }", ValidationRule.POSSIBLE_FRAGMENT_SPREADS);
+    }
+
+    // Directives
+
+    public void testKnownDirectives() {
+        assertValid("{ hero { name @include(if: true) } }");
+        assertErrors("{ hero { name @unknown } }", ValidationRule.KNOWN_DIRECTIVES);
+    }
+
+    public void testUniqueDirectivesPerLocation() {
+        assertValid("{ hero { name @skip(if: false) @include(if: true) } }");
+        assertErrors("{ hero { name @skip(if: true) @skip(if: false) } }", ValidationRule.UNIQUE_DIRECTIVES_PER_LOCATION);
+    }
+
+    // Variables
+
+    public void testUniqueVariableNames() {
+        assertValid("query Q($e: Episode, $id: String!) { hero(episode: $e) { name } human(id: $id) { name } }");
+        assertErrors("query Q($e: Episode, $e: Episode) { hero(episode: $e) { name } }", ValidationRule.UNIQUE_VARIABLE_NAMES);
+    }
+
+    public void testVariablesAreInputTypes() {
+        assertValid("mutation M($review: ReviewInput!) { createReview(review: $review) }");
+        // Being of no input type, it is allowed in no input position either
+        assertErrors("mutation M($review: Human!) { createReview(review: $review) }", ValidationRule.VARIABLES_ARE_INPUT_TYPES,
+                ValidationRule.VARIABLES_IN_ALLOWED_POSITION);
+    }
+
+    public void testDefaultValuesOfCorrectType() {
+        assertValid("query Q($e: Episode = JEDI) { hero(episode: $e) { name } }");
+        assertErrors("query Q($e: Episode = 4) { hero(episode: $e) { name } }", ValidationRule.DEFAULT_VALUES_OF_CORRECT_TYPE);
+    }
+
+    public void testNoUndefinedVariables() {
+        assertValid("query Q($e: Episode) { hero(episode: $e) { ...F } } fragment F on Character { name }");
+        assertErrors("query Q { hero(episode: $e) { ...F } } fragment F on Character { name }", ValidationRule.NO_UNDEFINED_VARIABLES);
+    }
+
+    public void testNoUnusedVariables() {
+        assertValid("query Q($id: String!) { ...F } fragment F on Query { human(id: $id) { name } }");
+        assertErrors("query Q($e: Episode) { hero { name } }", ValidationRule.NO_UNUSED_VARIABLES);
+    }
+
+    public void testVariablesInAllowedPosition() {
+        assertValid("query Q($id: String!, $other: String = \"1000\") { human(id: $id) { name } other: human(id: $other) { id } }");
+        assertErrors("query Q($id: String) { human(id: $id) { name } }", ValidationRule.VARIABLES_IN_ALLOWED_POSITION);
+    }
+
+    private void assertValid(String document) {
+        assertErrors(document);
+    }
+
+    private void assertErrors(String document, ValidationRule... expected) {
+        List<ValidationError> errors = validator.validate(ParseHelper.parseDocument(document));
+        assertEquals(document + " " + errors, rules(expected), rules(errors));
+    }
+
+    private static List<ValidationRule> rules(ValidationRule... rules) {
+        return Arrays.asList(rules);
+    }
+
+    private static List<ValidationRule> rules(List<ValidationError> errors) {
+        List<ValidationRule> rules = new ArrayList<>();
+        for (ValidationError error : errors) {
+            rules.add(error.getRule());
+        }
+        return rules;
+    }
+}
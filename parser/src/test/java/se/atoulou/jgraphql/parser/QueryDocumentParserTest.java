@@ -0,0 +1,144 @@
+package se.atoulou.jgraphql.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+import se.atoulou.jgraphql.models.QueryDocumentPrettyPrinter;
+import se.atoulou.jgraphql.models.query.QueryDocument;
+
+/**
+ * Parses documents with the hand-written parser, from characters and from UTF-8, and expects the same documents as from the ANTLR grammar it
+ * replaced, which is kept as the reference.
+ */
+public class QueryDocumentParserTest extends TestCase {
+    private static final String[] DOCUMENTS = {
+            "{ hero { name } }",
+            "query HeroNameQuery { hero { name } }",
+            "query Q($episode: Episode = JEDI, $ids: [ID!]!, $withFriends: Boolean!) @cached { luke: human(id: \"1000\") { ...HumanFields "
+                    + "friends @include(if: $withFriends) { name } } hero(episode: $episode) { ... on Droid { primaryFunction } } }"
+                    + " fragment HumanFields on Human @deprecated { name homePlanet }",
+            "mutation AddReview($review: ReviewInput) { createReview(episode: EMPIRE, review: $review) { stars commentary } }",
+            "# A comment\n{ a,, b\r\n c\u2028 d }",
+            "{ f(i: 0, j: -12, k: 9223372036854775807, l: -9223372036854775808, x: 1.5, y: -2e10, z: 0.25E-3) }",
+            "{ f(s: \"\", t: \"tab\\tquote\\\"backslash\\\\slash\\/\\b\\f\\n\\r\", u: \"\\u00e9\\u263A\", v: \"caf\u00e9 \u263a \ud83d\ude80\") }",
+            "{ f(b: true, c: false, n: null, e: ENUM, l: [1, [2, []], \"three\"], o: { a: 1, b: { c: [true] }, d: {} }, v: $v) }",
+            "query Q($o: In = { a: [1, 2], b: \"x\", c: null }, $l: [[Int!]]! = [[1]]) { f(o: $o) }",
+            "{ alias: field(a: 1) @skip(if: false) @include(if: true) { ... on T @include(if: true) { x } } }",
+            "fragment F on T { ...G } fragment G on T { a } { ...F }",
+    };
+
+    private final QueryDocumentPrettyPrinter printer = new QueryDocumentPrettyPrinter(true);
+
+    public void testMatchesAntlr() throws IOException {
+        assertMatchesAntlr(bundled("introspectionQuery.graphqlQuery"));
+        for (String document : DOCUMENTS) {
+            assertMatchesAntlr(document);
+        }
+    }
+
+    public void testIgnoredCharacters() {
+        // The byte order mark and the non-breaking space are ignored, as whitespace
+        assertMatchesAntlr("\ufeff{ a\u00a0b }");
+        assertEquals("{a,b}", print(ParseHelper.parseDocument("\ufeff{ a\u00a0b }")));
+    }
+
+    public void testAnonymousOperations() {
+        // Only the shorthand form lacked a name in the grammar's version of the specification; later versions allow anonymous operations
+        // of either type, with variables and directives, and so does the parser
+        assertMatchesAntlr("query { a }");
+        assertMatchesAntlr("mutation { a }");
+        assertMatchesAntlr("query ($v: Int) @d { a(v: $v) }");
+        assertEquals("mutation{a}", print(ParseHelper.parseDocument("mutation { a }")));
+        assertEquals("query($v:Int){a(v:$v)}", print(ParseHelper.parseDocument("query ($v: Int) { a(v: $v) }")));
+    }
+
+    public void testIntegerOutOfRange() {
+        assertSyntaxError("{ f(a: 9223372036854775808) }", "Integer literal out of range at line 1, column 8");
+        assertSyntaxError("{ f(a: -9223372036854775809) }", "Integer literal out of range at line 1, column 8");
+        assertAntlrSyntaxError("{ f(a: 9223372036854775808) }", "Integer literal out of range at line 1, column 8");
+    }
+
+    public void testFloatOutOfRange() {
+        assertSyntaxError("{\n  f(a: 1e309) }", "Float literal out of range at line 2, column 8");
+        assertAntlrSyntaxError("{\n  f(a: 1e309) }", "Float literal out of range at line 2, column 8");
+    }
+
+    public void testStrings() {
+        assertSyntaxError("{ f(a: \"open) }", "Unterminated string at line 1, column 8");
+        assertSyntaxError("{ f(a: \"line\nbreak\") }", "Unterminated string at line 1, column 8");
+        assertSyntaxError("{ f(a: \"\\x\") }", "Invalid escape sequence at line 1, column 9");
+        assertSyntaxError("{ f(a: \"\\u12G4\") }", "Invalid unicode escape sequence at line 1, column 9");
+    }
+
+    public void testUnexpectedCharacters() {
+        assertSyntaxError("{ a ? }", "Unexpected character '?' at line 1, column 5");
+        assertSyntaxError("{ a .. }", "Expected '...' at line 1, column 5");
+        assertSyntaxError("{ f(a: 1.) }", "Expected digit after '.' at line 1, column 10");
+    }
+
+    public void testOnIsNotAFragmentName() {
+        assertSyntaxError("fragment on on T { a }", "Expected fragment name but found name at line 1, column 10");
+    }
+
+    public void testNesting() {
+        StringBuilder document = new StringBuilder("{ f(a: ");
+        for (int i = 0; i < 100000; i++) {
+            document.append('[');
+        }
+        assertSyntaxError(document.toString(), "Document nests too deeply at line 1, column 263");
+    }
+
+    private void assertMatchesAntlr(String document) {
+        String expected = print(ParseHelper.parseDocumentWithAntlr(document));
+        assertEquals(expected, print(ParseHelper.parseDocument(document)));
+        assertEquals(expected, print(ParseHelper.parseDocument(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    // From characters and from UTF-8, where the offsets differ but the lines and columns do not for these ASCII documents
+    private static void assertSyntaxError(String document, String message) {
+        try {
+            ParseHelper.parseDocument(document);
+            fail("Parsed " + document);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+        try {
+            ParseHelper.parseDocument(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+            fail("Parsed " + document);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static void assertAntlrSyntaxError(String document, String message) {
+        try {
+            ParseHelper.parseDocumentWithAntlr(document);
+            fail("Parsed " + document);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private String print(QueryDocument document) {
+        return printer.writeQueryDocument(document);
+    }
+
+    private static String bundled(String name) throws IOException {
+        InputStream in = QueryDocumentParserTest.class.getResourceAsStream("/se/atoulou/jgraphql/parser/warmup/" + name);
+        assertNotNull(name, in);
+        StringBuilder document = new StringBuilder();
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                document.append(buffer, 0, read);
+            }
+        }
+        return document.toString();
+    }
+}